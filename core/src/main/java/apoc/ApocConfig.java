@@ -58,15 +58,26 @@ public class ApocConfig extends LifecycleAdapter {
     public static final String APOC_TTL_SCHEDULE_DB = "apoc.ttl.schedule.%s";
     public static final String APOC_TTL_ENABLED_DB = "apoc.ttl.enabled.%s";
     public static final String APOC_TTL_LIMIT_DB = "apoc.ttl.limit.%s";
+    public static final String APOC_TTL_BUDGET = "apoc.ttl.budget";
+    public static final String APOC_TTL_BUDGET_DB = "apoc.ttl.budget.%s";
+    public static final String APOC_TTL_CONCURRENCY = "apoc.ttl.concurrency";
+    public static final String APOC_TTL_CONCURRENCY_DB = "apoc.ttl.concurrency.%s";
     public static final String APOC_TRIGGER_ENABLED = "apoc.trigger.enabled";
     public static final String APOC_UUID_ENABLED = "apoc.uuid.enabled";
     public static final String APOC_UUID_ENABLED_DB = "apoc.uuid.enabled.%s";
+    public static final String APOC_UUID_GENERATOR = "apoc.uuid.generator";
+    public static final String APOC_UUID_LANE = "apoc.uuid.lane";
     public static final String APOC_JSON_ZIP_URL = "apoc.json.zip.url";  // TODO: check if really needed
     public static final String APOC_JSON_SIMPLE_JSON_URL = "apoc.json.simpleJson.url"; // TODO: check if really needed
     public static final String APOC_IMPORT_FILE_ALLOW__READ__FROM__FILESYSTEM = "apoc.import.file.allow_read_from_filesystem";
     public static final String APOC_CONFIG_JOBS_SCHEDULED_NUM_THREADS = "apoc.jobs.scheduled.num_threads";
     public static final String APOC_CONFIG_JOBS_POOL_NUM_THREADS = "apoc.jobs.pool.num_threads";
     public static final String APOC_CONFIG_JOBS_QUEUE_SIZE = "apoc.jobs.queue.size";
+    public static final String APOC_CONFIG_JOBS_IO_MODE = "apoc.jobs.io.mode";
+    public static final String APOC_CONFIG_JOBS_IO_NUM_THREADS = "apoc.jobs.io.num_threads";
+    public static final String APOC_CONFIG_JOBS_SEARCH_NUM_THREADS = "apoc.jobs.search.num_threads";
+    public static final String APOC_NEIGHBORS_CONCURRENCY = "apoc.neighbors.concurrency";
+    public static final String APOC_NEIGHBORS_LANE = "apoc.neighbors.lane";
     public static final String APOC_CONFIG_INITIALIZER = "apoc.initializer";
     public static final String LOAD_FROM_FILE_ERROR = "Import from files not enabled, please set apoc.import.file.enabled=true in your apoc.conf";
 
@@ -230,6 +241,10 @@ public class ApocConfig extends LifecycleAdapter {
         return loggingType;
     }
 
+    public Log getLog() {
+        return log;
+    }
+
     public SimpleRateLimiter getRateLimiter() {
         return rateLimiter;
     }
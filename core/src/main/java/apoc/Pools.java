@@ -11,6 +11,8 @@ import org.neo4j.logging.internal.LogService;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -21,6 +23,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -32,6 +35,13 @@ public class Pools extends LifecycleAdapter {
 
     public final static int DEFAULT_SCHEDULED_THREADS = Runtime.getRuntime().availableProcessors() / 4;
     public final static int DEFAULT_POOL_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+    public final static String DEFAULT_LANE = "default";
+    public final static String SINGLE_LANE = "single";
+    public final static String IO_LANE = "io";
+    public final static int DEFAULT_IO_THREADS = 1000;
+    public final static String SEARCH_LANE = "search";
+    public final static int DEFAULT_SEARCH_THREADS = Runtime.getRuntime().availableProcessors();
+    private final static String LANE_CONFIG_PREFIX = "apoc.jobs.lane.";
     private final Log log;
     private final GlobalProcedures globalProceduresRegistry;
     private final ApocConfig apocConfig;
@@ -39,6 +49,8 @@ public class Pools extends LifecycleAdapter {
     private ExecutorService singleExecutorService;
     private ScheduledExecutorService scheduledExecutorService;
     private ExecutorService defaultExecutorService;
+    private ExecutorService ioExecutorService;
+    private final Map<String, ThreadPoolExecutor> lanes = new ConcurrentHashMap<>();
 
     private final Map<Periodic.JobInfo,Future> jobList = new ConcurrentHashMap<>();
 
@@ -66,11 +78,29 @@ public class Pools extends LifecycleAdapter {
             t.setDaemon(true);
             return t;
         };
-        this.singleExecutorService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+        ThreadPoolExecutor singleExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
                 threadFactory, new CallerBlocksPolicy());
+        this.singleExecutorService = singleExecutor;
+        lanes.put(SINGLE_LANE, singleExecutor);
 
-        this.defaultExecutorService = new ThreadPoolExecutor(threads / 2, threads, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+        ThreadPoolExecutor defaultExecutor = new ThreadPoolExecutor(threads / 2, threads, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
                 threadFactory, new CallerBlocksPolicy());
+        this.defaultExecutorService = defaultExecutor;
+        lanes.put(DEFAULT_LANE, defaultExecutor);
+
+        ThreadPoolExecutor ioExecutor = createIoExecutor(threadFactory);
+        this.ioExecutorService = ioExecutor;
+        lanes.put(IO_LANE, ioExecutor);
+
+        // latency sensitive searches get their own bounded pool, so they don't queue up behind batch jobs.
+        // A full lane rejects the tasks instead of blocking the caller, which is the only one draining the results of its tasks
+        int searchThreads = Math.max(1, apocConfig.getInt(ApocConfig.APOC_CONFIG_JOBS_SEARCH_NUM_THREADS, DEFAULT_SEARCH_THREADS));
+        ThreadPoolExecutor searchExecutor = new ThreadPoolExecutor(searchThreads, searchThreads, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(searchThreads * 5),
+                threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        searchExecutor.allowCoreThreadTimeOut(true);
+        lanes.put(SEARCH_LANE, searchExecutor);
+
+        initLanes(threadFactory);
 
         this.scheduledExecutorService = Executors.newScheduledThreadPool(
                 Math.max(1, apocConfig.getInt(ApocConfig.APOC_CONFIG_JOBS_SCHEDULED_NUM_THREADS, DEFAULT_SCHEDULED_THREADS)),
@@ -85,9 +115,70 @@ public class Pools extends LifecycleAdapter {
         },10,10,TimeUnit.SECONDS);
     }
 
+    /**
+     * The io lane is meant for tasks that mostly wait on the network (http, jdbc, bolt, object stores),
+     * so it is not sized on the number of processors: it creates threads on demand up to
+     * <code>apoc.jobs.io.num_threads</code> and hands tasks over without queueing.
+     * With <code>apoc.jobs.io.mode=virtual</code> the threads are virtual threads, if the JVM supports them.
+     */
+    private ThreadPoolExecutor createIoExecutor(ThreadFactory platformThreadFactory) {
+        int threads = Math.max(1, apocConfig.getInt(ApocConfig.APOC_CONFIG_JOBS_IO_NUM_THREADS, DEFAULT_IO_THREADS));
+        String mode = apocConfig.getString(ApocConfig.APOC_CONFIG_JOBS_IO_MODE, "elastic");
+        ThreadFactory threadFactory = platformThreadFactory;
+        if ("virtual".equalsIgnoreCase(mode)) {
+            ThreadFactory virtualThreadFactory = virtualThreadFactory();
+            if (virtualThreadFactory != null) {
+                threadFactory = virtualThreadFactory;
+            } else {
+                log.warn("Virtual threads are not supported by this JVM, the io lane uses an elastic pool of platform threads instead");
+            }
+        } else if (!"elastic".equalsIgnoreCase(mode)) {
+            log.warn("Unknown value `%s` for %s, valid values are `elastic` and `virtual`", mode, ApocConfig.APOC_CONFIG_JOBS_IO_MODE);
+        }
+        return new ThreadPoolExecutor(0, threads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                threadFactory, new CallerBlocksPolicy());
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            // Thread.ofVirtual().factory(), looked up reflectively as we're compiled for Java 11
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates the additional execution lanes declared in the configuration as
+     * <code>apoc.jobs.lane.&lt;name&gt;.num_threads</code> and <code>apoc.jobs.lane.&lt;name&gt;.queue_size</code>,
+     * so that heavy jobs can run on their own bounded pool instead of starving the default one.
+     */
+    private void initLanes(ThreadFactory threadFactory) {
+        Set<String> names = new TreeSet<>();
+        apocConfig.getKeys(LANE_CONFIG_PREFIX.substring(0, LANE_CONFIG_PREFIX.length() - 1)).forEachRemaining(key -> {
+            String rest = key.substring(LANE_CONFIG_PREFIX.length());
+            int dot = rest.indexOf('.');
+            if (dot > 0) names.add(rest.substring(0, dot));
+        });
+        for (String name : names) {
+            if (lanes.containsKey(name)) {
+                log.warn("Ignoring configuration for the built-in execution lane `%s`", name);
+                continue;
+            }
+            int threads = Math.max(1, apocConfig.getInt(LANE_CONFIG_PREFIX + name + ".num_threads", DEFAULT_POOL_THREADS));
+            int queueSize = Math.max(1, apocConfig.getInt(LANE_CONFIG_PREFIX + name + ".queue_size", threads * 5));
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+                    threadFactory, new CallerBlocksPolicy());
+            lane.allowCoreThreadTimeOut(true);
+            lanes.put(name, lane);
+            log.info("Created execution lane `%s` with %d threads and a queue of %d", name, threads, queueSize);
+        }
+    }
+
     @Override
     public void shutdown() throws Exception {
-        Stream.of(singleExecutorService, defaultExecutorService, scheduledExecutorService).forEach( service -> {
+        Stream.concat(Stream.of(scheduledExecutorService), lanes.values().stream()).forEach( service -> {
             try {
                 service.shutdown();
                 service.awaitTermination(10, TimeUnit.SECONDS);
@@ -109,6 +200,28 @@ public class Pools extends LifecycleAdapter {
         return defaultExecutorService;
     }
 
+    public ExecutorService getIoExecutorService() {
+        return ioExecutorService;
+    }
+
+    /**
+     * @param lane the name of an execution lane, null or empty for the default one
+     */
+    public ExecutorService getExecutorService(String lane) {
+        if (lane == null || lane.isEmpty()) {
+            return defaultExecutorService;
+        }
+        ExecutorService executorService = lanes.get(lane);
+        if (executorService == null) {
+            throw new IllegalArgumentException("Unknown execution lane `" + lane + "`, available lanes are: " + new TreeSet<>(lanes.keySet()));
+        }
+        return executorService;
+    }
+
+    public Map<String, ThreadPoolExecutor> getLanes() {
+        return lanes;
+    }
+
     public Map<Periodic.JobInfo, Future> getJobList() {
         return jobList;
     }
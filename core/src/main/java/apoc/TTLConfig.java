@@ -7,6 +7,7 @@ import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 public class TTLConfig extends LifecycleAdapter {
     private final ApocConfig apocConfig;
     public static final int DEFAULT_SCHEDULE = 60;
+    public static final int DEFAULT_CONCURRENCY = 4;
 
     public TTLConfig(ApocConfig apocConfig, GlobalProcedures globalProceduresRegistry) {
         this.apocConfig = apocConfig;
@@ -18,6 +19,8 @@ public class TTLConfig extends LifecycleAdapter {
         String apocTTLEnabledDb = String.format(ApocConfig.APOC_TTL_ENABLED_DB, db.databaseName());
         String apocTTLScheduleDb = String.format(ApocConfig.APOC_TTL_SCHEDULE_DB, db.databaseName());
         String apocTTLLimitDb = String.format(ApocConfig.APOC_TTL_LIMIT_DB, db.databaseName());
+        String apocTTLBudgetDb = String.format(ApocConfig.APOC_TTL_BUDGET_DB, db.databaseName());
+        String apocTTLConcurrencyDb = String.format(ApocConfig.APOC_TTL_CONCURRENCY_DB, db.databaseName());
         boolean enabled = apocConfig.getBoolean(ApocConfig.APOC_TTL_ENABLED);
         boolean dbEnabled = apocConfig.getBoolean(apocTTLEnabledDb, enabled);
 
@@ -27,7 +30,13 @@ public class TTLConfig extends LifecycleAdapter {
             long limit = apocConfig.getInt(ApocConfig.APOC_TTL_LIMIT, 1000);
             long limitDb = apocConfig.getInt(apocTTLLimitDb, (int) limit);
 
-            return new Values(true, ttlScheduleDb, limitDb);
+            // by default a run takes at most half of the schedule, so a large backlog is expired over several runs
+            long budget = apocConfig.getInt(ApocConfig.APOC_TTL_BUDGET, (int) (ttlScheduleDb * 1000 / 2));
+            long budgetDb = apocConfig.getInt(apocTTLBudgetDb, (int) budget);
+            int concurrency = apocConfig.getInt(ApocConfig.APOC_TTL_CONCURRENCY, DEFAULT_CONCURRENCY);
+            int concurrencyDb = apocConfig.getInt(apocTTLConcurrencyDb, concurrency);
+
+            return new Values(true, ttlScheduleDb, limitDb, budgetDb, concurrencyDb);
         }
 
         return new Values(false, -1, -1);
@@ -38,11 +47,20 @@ public class TTLConfig extends LifecycleAdapter {
         public final boolean enabled;
         public final long schedule;
         public final long limit;
+        // the milliseconds a run can take, 0 to expire all the nodes in one run
+        public final long budget;
+        public final int concurrency;
 
         public Values(boolean enabled, long schedule, long limit) {
+            this(enabled, schedule, limit, schedule * 1000 / 2, DEFAULT_CONCURRENCY);
+        }
+
+        public Values(boolean enabled, long schedule, long limit, long budget, int concurrency) {
             this.enabled = enabled;
             this.schedule = schedule;
             this.limit = limit;
+            this.budget = budget;
+            this.concurrency = concurrency;
         }
 
         @Override
@@ -51,6 +69,8 @@ public class TTLConfig extends LifecycleAdapter {
                     "enabled=" + enabled +
                     ", schedule=" + schedule +
                     ", limit=" + limit +
+                    ", budget=" + budget +
+                    ", concurrency=" + concurrency +
                     '}';
         }
     }
@@ -4,6 +4,7 @@ import apoc.meta.Meta;
 import apoc.result.MapResult;
 import apoc.util.JsonUtil;
 import apoc.util.Util;
+import com.google.common.cache.CacheStats;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
@@ -86,6 +87,29 @@ public class Json {
     public Object path(@Name("json") String json, @Name(value = "path",defaultValue = "$") String path, @Name(value = "pathOptions", defaultValue = "null") List<String> pathOptions) {
         return JsonUtil.parse(json, path, Object.class, pathOptions);
     }
+
+    @Procedure("apoc.json.path.cacheStats")
+    @Description("apoc.json.path.cacheStats() - returns the hits, misses and evictions of the cache of compiled json paths, with its size")
+    public Stream<PathCacheStatsResult> pathCacheStats() {
+        return Stream.of(new PathCacheStatsResult(JsonUtil.getJsonPathCacheStats(), JsonUtil.getJsonPathCacheSize(), JsonUtil.getJsonPathCacheMaximumSize()));
+    }
+
+    public static class PathCacheStatsResult {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final long size;
+        public final long maxSize;
+
+        public PathCacheStatsResult(CacheStats stats, long size, long maxSize) {
+            this.hits = stats.hitCount();
+            this.misses = stats.missCount();
+            this.evictions = stats.evictionCount();
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+    }
+
     @UserFunction("apoc.convert.toJson")
     @Description("apoc.convert.toJson([1,2,3]) or toJson({a:42,b:\"foo\",c:[1,2,3]}) or toJson(NODE/REL/PATH)")
     public String toJson(@Name("value") Object value) {
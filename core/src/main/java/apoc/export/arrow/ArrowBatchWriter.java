@@ -0,0 +1,137 @@
+package apoc.export.arrow;
+
+import apoc.util.Util;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fills the record batches of a schema and hands them to the consumer in the order they were added.
+ * With a concurrency greater than one the batches are filled on the pool: at most {@code concurrency} are in flight
+ * and the adding thread runs a batch nobody picked up yet instead of waiting for a busy pool.
+ *
+ * @param <T> what the filled batch is turned into on the filling thread, e.g. the batch itself or its serialized bytes
+ */
+public class ArrowBatchWriter<T> implements AutoCloseable {
+
+    private final Schema schema;
+    private final ColumnWriter[] writers;
+    private final BufferAllocator allocator;
+    private final ExecutorService pool;
+    private final int concurrency;
+    private final Function<VectorSchemaRoot, T> finisher;
+    private final Consumer<T> consumer;
+
+    private final Deque<FutureTask<T>> inFlight = new ArrayDeque<>();
+
+    public ArrowBatchWriter(Schema schema, ArrowDictionaries dictionaries, BufferAllocator allocator,
+                            ExecutorService pool, int concurrency,
+                            Function<VectorSchemaRoot, T> finisher, Consumer<T> consumer) {
+        this.schema = schema;
+        this.writers = ColumnWriter.forSchema(schema, dictionaries);
+        this.allocator = allocator;
+        this.pool = pool;
+        this.concurrency = concurrency;
+        this.finisher = finisher;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Converts a row to the values of the schema columns, this runs on the adding thread
+     * so that the converter can still read entities of its transaction.
+     */
+    public Object[] toRow(Map<String, Object> row, Function<Object, Object> converter) {
+        final List<Field> fields = schema.getFields();
+        final Object[] values = new Object[fields.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = converter.apply(row.get(fields.get(i).getName()));
+        }
+        return values;
+    }
+
+    public void add(List<Object[]> rows) {
+        final FutureTask<T> task = new FutureTask<>(() -> finisher.apply(fill(rows)));
+        if (concurrency == 1) {
+            task.run();
+            consume(task);
+            return;
+        }
+        while (inFlight.size() >= concurrency || (!inFlight.isEmpty() && inFlight.peek().isDone())) {
+            consume(inFlight.poll());
+        }
+        inFlight.add(task);
+        pool.execute(task);
+    }
+
+    public void flush() {
+        while (!inFlight.isEmpty()) {
+            consume(inFlight.poll());
+        }
+    }
+
+    private VectorSchemaRoot fill(List<Object[]> rows) {
+        final VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
+        try {
+            root.allocateNew();
+            final List<FieldVector> vectors = root.getFieldVectors();
+            for (int index = 0; index < rows.size(); index++) {
+                final Object[] row = rows.get(index);
+                for (int column = 0; column < writers.length; column++) {
+                    writers[column].write(vectors.get(column), index, row[column]);
+                }
+            }
+            root.setRowCount(rows.size());
+            return root;
+        } catch (RuntimeException e) {
+            root.close();
+            throw e;
+        }
+    }
+
+    private void consume(FutureTask<T> task) {
+        consumer.accept(await(task));
+    }
+
+    private T await(FutureTask<T> task) {
+        // no-op if a pool thread already took it
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Discards the batches that haven't been consumed, after a failure.
+     */
+    @Override
+    public void close() {
+        while (!inFlight.isEmpty()) {
+            try {
+                final T result = await(inFlight.poll());
+                if (result instanceof AutoCloseable) {
+                    Util.close((AutoCloseable) result);
+                }
+            } catch (RuntimeException e) {
+                // already failed
+            }
+        }
+    }
+}
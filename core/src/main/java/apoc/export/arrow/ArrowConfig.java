@@ -8,18 +8,38 @@ import java.util.Map;
 public class ArrowConfig {
 
     private final int batchSize;
+    private final boolean parallel;
+    private final int concurrency;
+    private final boolean dictionaryEncoding;
 
     private final Map<String, Object> config;
 
     public ArrowConfig(Map<String, Object> config) {
         this.config = config == null ? Collections.emptyMap() : config;
         this.batchSize = Util.toInteger(this.config.getOrDefault("batchSize", 2000));
+        this.parallel = Util.toBoolean(this.config.getOrDefault("parallel", true));
+        this.concurrency = Util.toInteger(this.config.getOrDefault("concurrency", Runtime.getRuntime().availableProcessors()));
+        if (this.concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be > 0");
+        }
+        this.dictionaryEncoding = Util.toBoolean(this.config.getOrDefault("dictionaryEncoding", true));
     }
 
     public int getBatchSize() {
         return batchSize;
     }
 
+    /**
+     * @return how many record batches are filled at the same time, 1 fills them on the exporting thread
+     */
+    public int getConcurrency() {
+        return parallel ? concurrency : 1;
+    }
+
+    public boolean isDictionaryEncoding() {
+        return dictionaryEncoding;
+    }
+
     public Map<String, Object> getConfig() {
         return config;
     }
@@ -0,0 +1,93 @@
+package apoc.export.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionaries of the columns exported as indexes instead of strings, i.e. the labels and the relationship types,
+ * which have few distinct values repeated on every row.
+ */
+public class ArrowDictionaries implements AutoCloseable {
+
+    public static final ArrowDictionaries EMPTY = new ArrowDictionaries();
+
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+
+    private final DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+    private final Map<String, DictionaryEncoding> encodingsByField = new HashMap<>();
+    private final Map<Long, Map<String, Integer>> indexesById = new HashMap<>();
+
+    private ArrowDictionaries() {
+    }
+
+    public static ArrowDictionaries forGraph(BufferAllocator allocator, Collection<String> labels, Collection<String> types) {
+        final ArrowDictionaries dictionaries = new ArrowDictionaries();
+        dictionaries.add(allocator, ArrowUtils.FIELD_LABELS.getName(), labels);
+        dictionaries.add(allocator, ArrowUtils.FIELD_TYPE.getName(), types);
+        return dictionaries;
+    }
+
+    private void add(BufferAllocator allocator, String fieldName, Collection<String> values) {
+        final long id = encodingsByField.size();
+        final VarCharVector vector = new VarCharVector(new Field(fieldName, FieldType.nullable(Types.MinorType.VARCHAR.getType()), null), allocator);
+        final Map<String, Integer> indexes = new HashMap<>();
+        vector.allocateNew(values.size());
+        for (String value : values) {
+            final int index = indexes.size();
+            vector.setSafe(index, value.getBytes(StandardCharsets.UTF_8));
+            indexes.put(value, index);
+        }
+        vector.setValueCount(indexes.size());
+        final DictionaryEncoding encoding = new DictionaryEncoding(id, false, INDEX_TYPE);
+        provider.put(new Dictionary(vector, encoding));
+        encodingsByField.put(fieldName, encoding);
+        indexesById.put(id, indexes);
+    }
+
+    /**
+     * @return the field itself, or its dictionary-encoded version if there is a dictionary for its name
+     */
+    public Field encode(Field field) {
+        final DictionaryEncoding encoding = encodingsByField.get(field.getName());
+        if (encoding == null) {
+            return field;
+        }
+        final FieldType indexType = new FieldType(true, INDEX_TYPE, encoding);
+        if (field.getChildren().isEmpty()) {
+            return new Field(field.getName(), indexType, null);
+        }
+        final Field values = field.getChildren().get(0);
+        return new Field(field.getName(), field.getFieldType(), List.of(new Field(values.getName(), indexType, null)));
+    }
+
+    public int indexOf(DictionaryEncoding encoding, String value) {
+        final Integer index = indexesById.get(encoding.getId()).get(value);
+        if (index == null) {
+            throw new IllegalStateException("The value `" + value + "` is not in the dictionary " + encoding.getId()
+                    + ", it has been created after the export started");
+        }
+        return index;
+    }
+
+    public DictionaryProvider getProvider() {
+        return provider;
+    }
+
+    @Override
+    public void close() {
+        provider.getDictionaryIds().forEach(id -> provider.lookup(id).getVector().close());
+    }
+}
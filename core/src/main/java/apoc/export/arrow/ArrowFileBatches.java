@@ -0,0 +1,179 @@
+package apoc.export.arrow;
+
+import apoc.export.util.CountingInputStream;
+import apoc.util.ByteBufferChannel;
+import apoc.util.FileUtils;
+import apoc.util.Util;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.message.ArrowBlock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * The record batches of an Arrow IPC file, read from a memory-mapped file (or from bytes) by any number of threads.
+ * Each thread borrows a reader of its own, all readers share the same buffers, and the batches are handed out
+ * through a splittable {@link Spliterator}.
+ */
+public class ArrowFileBatches implements AutoCloseable {
+
+    private final ByteBuffer[] segments;
+    private final BufferAllocator allocator = new RootAllocator();
+    private final Queue<ArrowFileReader> idleReaders = new ConcurrentLinkedQueue<>();
+    private final Queue<ArrowFileReader> readers = new ConcurrentLinkedQueue<>();
+    private final List<ArrowBlock> blocks;
+
+    private ArrowFileBatches(ByteBuffer[] segments) throws IOException {
+        this.segments = segments;
+        final ArrowFileReader reader = newReader();
+        try {
+            this.blocks = reader.getRecordBlocks();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        idleReaders.add(reader);
+    }
+
+    /**
+     * Maps local files, remote ones are read in memory
+     */
+    public static ArrowFileBatches open(String fileName) throws IOException {
+        final Path path = FileUtils.localPathFor(fileName);
+        if (path != null) {
+            return map(path);
+        }
+        try (CountingInputStream inputStream = FileUtils.inputStreamFor(fileName, null, null, null)) {
+            return of(inputStream.readAllBytes());
+        }
+    }
+
+    public static ArrowFileBatches map(Path file) throws IOException {
+        return new ArrowFileBatches(ByteBufferChannel.map(file));
+    }
+
+    public static ArrowFileBatches of(byte[] bytes) throws IOException {
+        return new ArrowFileBatches(ByteBufferChannel.wrap(bytes));
+    }
+
+    public int size() {
+        return blocks.size();
+    }
+
+    /**
+     * Loads a record batch and applies the function while the batch is loaded,
+     * the batch and the dictionaries must not be used once the function returns.
+     */
+    public <T> T read(int block, BiFunction<VectorSchemaRoot, DictionaryProvider, T> function) {
+        ArrowFileReader reader = idleReaders.poll();
+        try {
+            if (reader == null) {
+                reader = newReader();
+            }
+            reader.loadRecordBatch(blocks.get(block));
+            return function.apply(reader.getVectorSchemaRoot(), reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (reader != null) {
+                idleReaders.add(reader);
+            }
+        }
+    }
+
+    public <T> Spliterator<T> spliterator(BiFunction<VectorSchemaRoot, DictionaryProvider, T> function) {
+        return new BatchSpliterator<>(function, 0, blocks.size());
+    }
+
+    /**
+     * @return up to {@code parts} spliterators of about the same number of batches
+     */
+    public <T> List<Spliterator<T>> split(BiFunction<VectorSchemaRoot, DictionaryProvider, T> function, int parts) {
+        final List<Spliterator<T>> splits = new ArrayList<>(parts);
+        splits.add(spliterator(function));
+        boolean split = true;
+        while (split && splits.size() < parts) {
+            split = false;
+            for (Spliterator<T> spliterator : List.copyOf(splits)) {
+                if (splits.size() >= parts) {
+                    break;
+                }
+                final Spliterator<T> prefix = spliterator.trySplit();
+                if (prefix != null) {
+                    splits.add(prefix);
+                    split = true;
+                }
+            }
+        }
+        return splits;
+    }
+
+    private ArrowFileReader newReader() {
+        final ArrowFileReader reader = new ArrowFileReader(new ByteBufferChannel(segments), allocator);
+        readers.add(reader);
+        return reader;
+    }
+
+    @Override
+    public void close() {
+        readers.forEach(Util::close);
+        readers.clear();
+        idleReaders.clear();
+        Util.close(allocator);
+    }
+
+    private class BatchSpliterator<T> implements Spliterator<T> {
+        private final BiFunction<VectorSchemaRoot, DictionaryProvider, T> function;
+        private int from;
+        private final int to;
+
+        BatchSpliterator(BiFunction<VectorSchemaRoot, DictionaryProvider, T> function, int from, int to) {
+            this.function = function;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(read(from++, function));
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            final int middle = (from + to) >>> 1;
+            if (middle <= from) {
+                return null;
+            }
+            final Spliterator<T> prefix = new BatchSpliterator<>(function, from, middle);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
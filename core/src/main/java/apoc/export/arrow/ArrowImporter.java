@@ -0,0 +1,201 @@
+package apoc.export.arrow;
+
+import apoc.export.util.Reporter;
+import apoc.util.JsonUtil;
+import apoc.util.Util;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static apoc.export.arrow.ArrowUtils.FIELD_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_LABELS;
+import static apoc.export.arrow.ArrowUtils.FIELD_SOURCE_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TARGET_ID;
+import static apoc.export.arrow.ArrowUtils.FIELD_TYPE;
+
+/**
+ * Imports the nodes and relationships of an arrow file written by {@code apoc.export.arrow.all/graph}.
+ * The record batches are split between {@code concurrency} workers, each batch is written in its own transaction
+ * straight from the column vectors: first all the nodes, then all the relationships.
+ */
+public class ArrowImporter {
+
+    private static final long NOT_FOUND = -1;
+
+    private final GraphDatabaseService db;
+    private final ArrowFileBatches batches;
+    private final ExecutorService pool;
+    private final int concurrency;
+    private final Reporter reporter;
+    private final TerminationGuard terminationGuard;
+
+    // the <id> column to the ids of the created nodes
+    private final LongLongHashMap nodeIds = new LongLongHashMap();
+
+    public ArrowImporter(GraphDatabaseService db, ArrowFileBatches batches, ExecutorService pool, int concurrency,
+                         Reporter reporter, TerminationGuard terminationGuard) {
+        this.db = db;
+        this.batches = batches;
+        this.pool = pool;
+        this.concurrency = concurrency;
+        this.reporter = reporter;
+        this.terminationGuard = terminationGuard;
+    }
+
+    public void importGraph() {
+        inParallel((batch, dictionaries) -> writeBatch(batch, dictionaries, true));
+        inParallel((batch, dictionaries) -> writeBatch(batch, dictionaries, false));
+    }
+
+    private void inParallel(BiFunction<VectorSchemaRoot, DictionaryProvider, long[]> writer) {
+        final List<Future<?>> futures = batches.split(writer, concurrency).stream()
+                .map(split -> pool.submit(() -> forEachBatch(split)))
+                .collect(Collectors.toList());
+        RuntimeException error = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = new RuntimeException(e);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                error = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void forEachBatch(Spliterator<long[]> split) {
+        boolean hasNext = true;
+        while (hasNext && !Util.transactionIsTerminated(terminationGuard)) {
+            hasNext = split.tryAdvance(counts -> {
+                synchronized (reporter) {
+                    reporter.update(counts[0], counts[1], counts[2]);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the number of created nodes, relationships and properties
+     */
+    private long[] writeBatch(VectorSchemaRoot batch, DictionaryProvider dictionaries, boolean nodes) {
+        final List<FieldVector> vectors = batch.getFieldVectors();
+        final ColumnReader[] readers = ColumnReader.forFields(vectors, dictionaries);
+        final int idColumn = columnOf(batch, FIELD_ID.getName());
+        if (idColumn == -1) {
+            throw new IllegalArgumentException("The arrow file doesn't contain a graph, the " + FIELD_ID.getName() + " column is missing");
+        }
+        final int labelsColumn = columnOf(batch, FIELD_LABELS.getName());
+        final int sourceColumn = columnOf(batch, FIELD_SOURCE_ID.getName());
+        final int targetColumn = columnOf(batch, FIELD_TARGET_ID.getName());
+        final int typeColumn = columnOf(batch, FIELD_TYPE.getName());
+        final List<Integer> propertyColumns = new ArrayList<>();
+        for (int column = 0; column < vectors.size(); column++) {
+            if (column != idColumn && column != labelsColumn && column != sourceColumn && column != targetColumn && column != typeColumn) {
+                propertyColumns.add(column);
+            }
+        }
+
+        final long[] counts = new long[3];
+        final LongLongHashMap createdIds = new LongLongHashMap();
+        try (Transaction tx = db.beginTx()) {
+            for (int index = 0; index < batch.getRowCount(); index++) {
+                final boolean isRelationship = sourceColumn != -1 && !vectors.get(sourceColumn).isNull(index);
+                final Entity entity;
+                if (nodes && !isRelationship) {
+                    final List<String> labels = labelsColumn == -1 ? null : (List<String>) readers[labelsColumn].read(vectors.get(labelsColumn), index);
+                    final Node node = labels == null
+                            ? tx.createNode()
+                            : tx.createNode(labels.stream().map(Label::label).toArray(Label[]::new));
+                    createdIds.put((Long) readers[idColumn].read(vectors.get(idColumn), index), node.getId());
+                    counts[0]++;
+                    entity = node;
+                } else if (!nodes && isRelationship) {
+                    final long source = nodeIds.getIfAbsent((Long) readers[sourceColumn].read(vectors.get(sourceColumn), index), NOT_FOUND);
+                    final long target = nodeIds.getIfAbsent((Long) readers[targetColumn].read(vectors.get(targetColumn), index), NOT_FOUND);
+                    if (source == NOT_FOUND || target == NOT_FOUND) {
+                        continue;
+                    }
+                    final String type = (String) readers[typeColumn].read(vectors.get(typeColumn), index);
+                    entity = tx.getNodeById(source).createRelationshipTo(tx.getNodeById(target), RelationshipType.withName(type));
+                    counts[1]++;
+                } else {
+                    continue;
+                }
+                for (int column : propertyColumns) {
+                    final Object value = readers[column].read(vectors.get(column), index);
+                    if (value != null) {
+                        entity.setProperty(vectors.get(column).getName(), toPropertyValue(value));
+                        counts[2]++;
+                    }
+                }
+            }
+            tx.commit();
+        }
+        if (!createdIds.isEmpty()) {
+            synchronized (nodeIds) {
+                nodeIds.putAll(createdIds);
+            }
+        }
+        return counts;
+    }
+
+    private static int columnOf(VectorSchemaRoot batch, String name) {
+        final List<FieldVector> vectors = batch.getFieldVectors();
+        for (int column = 0; column < vectors.size(); column++) {
+            if (vectors.get(column).getName().equals(name)) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Lists become arrays of their element type, or string arrays when the types are mixed.
+     * Maps and other values that can't be stored, e.g. points exported as json, are written as json strings.
+     */
+    private static Object toPropertyValue(Object value) {
+        if (value instanceof Map) {
+            return JsonUtil.writeValueAsString(value);
+        }
+        if (!(value instanceof List)) {
+            return value;
+        }
+        final List<Object> values = ((List<Object>) value).stream()
+                .filter(element -> element != null)
+                .collect(Collectors.toList());
+        final Class<?> type = values.stream()
+                .map(Object::getClass)
+                .reduce((a, b) -> a.equals(b) ? a : String.class)
+                .orElse(String.class);
+        final Object array = Array.newInstance(type, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            final Object element = values.get(i);
+            Array.set(array, i, type == String.class && !(element instanceof String) ? JsonUtil.writeValueAsString(element) : element);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,86 @@
+package apoc.export.arrow;
+
+import org.apache.arrow.vector.BaseIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.util.Text;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the cells of a column, the counterpart of {@link ColumnWriter}.
+ * Readers are resolved from the fields of a batch and decode the dictionary-encoded columns.
+ */
+@FunctionalInterface
+public interface ColumnReader {
+
+    Object read(FieldVector vector, int index);
+
+    static ColumnReader[] forFields(List<FieldVector> vectors, DictionaryProvider dictionaries) {
+        return vectors.stream()
+                .map(vector -> forField(vector.getField(), dictionaries))
+                .toArray(ColumnReader[]::new);
+    }
+
+    static ColumnReader forField(Field field, DictionaryProvider dictionaries) {
+        final DictionaryEncoding encoding = field.getDictionary();
+        if (encoding != null) {
+            final FieldVector dictionary = dictionaries.lookup(encoding.getId()).getVector();
+            final ColumnReader valueReader = forField(dictionary.getField(), dictionaries);
+            return (vector, index) -> vector.isNull(index)
+                    ? null
+                    : valueReader.read(dictionary, (int) ((BaseIntVector) vector).getValueAsLong(index));
+        }
+        switch (field.getType().getTypeID()) {
+            case Utf8:
+                return (vector, index) -> vector.isNull(index)
+                        ? null
+                        : new String(((VarCharVector) vector).get(index), StandardCharsets.UTF_8);
+            case Bool:
+                return (vector, index) -> vector.isNull(index)
+                        ? null
+                        : ((BitVector) vector).get(index) == 1;
+            case Date:
+                if (((ArrowType.Date) field.getType()).getUnit() == DateUnit.MILLISECOND) {
+                    return (vector, index) -> vector.isNull(index)
+                            ? null
+                            : Instant.ofEpochMilli(((DateMilliVector) vector).get(index)).atOffset(ZoneOffset.UTC);
+                }
+                return ColumnReader::readObject;
+            case List:
+                final ColumnReader elementReader = forField(field.getChildren().get(0), dictionaries);
+                return (vector, index) -> {
+                    if (vector.isNull(index)) {
+                        return null;
+                    }
+                    final ListVector listVector = (ListVector) vector;
+                    final FieldVector dataVector = listVector.getDataVector();
+                    final int end = listVector.getElementEndIndex(index);
+                    final List<Object> values = new ArrayList<>(end - listVector.getElementStartIndex(index));
+                    for (int i = listVector.getElementStartIndex(index); i < end; i++) {
+                        values.add(elementReader.read(dataVector, i));
+                    }
+                    return values;
+                };
+            default:
+                return ColumnReader::readObject;
+        }
+    }
+
+    private static Object readObject(FieldVector vector, int index) {
+        final Object object = vector.getObject(index);
+        return object instanceof Text ? object.toString() : object;
+    }
+}
@@ -0,0 +1,156 @@
+package apoc.export.arrow;
+
+import apoc.convert.Convert;
+import apoc.util.JsonUtil;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.neo4j.values.storable.DurationValue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes the cells of a column into its vector.
+ * The writers are resolved once from the fields of a schema, so filling a batch doesn't look at the vector types again.
+ */
+@FunctionalInterface
+public interface ColumnWriter {
+
+    ColumnWriter NONE = (vector, index, value) -> {};
+
+    void write(FieldVector vector, int index, Object value);
+
+    static ColumnWriter[] forSchema(Schema schema, ArrowDictionaries dictionaries) {
+        return schema.getFields().stream()
+                .map(field -> forField(field, dictionaries))
+                .toArray(ColumnWriter[]::new);
+    }
+
+    static ColumnWriter forField(Field field, ArrowDictionaries dictionaries) {
+        final DictionaryEncoding encoding = field.getDictionary();
+        if (encoding != null) {
+            return (vector, index, value) -> {
+                if (value == null) {
+                    ((IntVector) vector).setNull(index);
+                } else {
+                    ((IntVector) vector).setSafe(index, dictionaries.indexOf(encoding, value.toString()));
+                }
+            };
+        }
+        switch (field.getType().getTypeID()) {
+            case Utf8:
+                return ColumnWriter::writeVarChar;
+            case Int:
+                return ColumnWriter::writeBigInt;
+            case FloatingPoint:
+                return ColumnWriter::writeFloat8;
+            case Bool:
+                return ColumnWriter::writeBit;
+            case Date:
+                return ColumnWriter::writeDateMilli;
+            case List:
+                return writeList(forField(field.getChildren().get(0), dictionaries));
+            default:
+                return NONE;
+        }
+    }
+
+    private static ColumnWriter writeList(ColumnWriter elementWriter) {
+        return (vector, index, value) -> {
+            final ListVector listVector = (ListVector) vector;
+            if (value == null) {
+                listVector.setNull(index);
+                return;
+            }
+            // the elements go straight to the data vector, at the offsets of the list
+            final List<Object> values = Convert.convertToList(value);
+            final FieldVector dataVector = listVector.getDataVector();
+            final int offset = listVector.startNewValue(index);
+            for (int i = 0; i < values.size(); i++) {
+                elementWriter.write(dataVector, offset + i, values.get(i));
+            }
+            listVector.endValue(index, values.size());
+        };
+    }
+
+    private static void writeVarChar(FieldVector vector, int index, Object value) {
+        final BaseVariableWidthVector baseVector = (BaseVariableWidthVector) vector;
+        if (value == null) {
+            baseVector.setNull(index);
+            return;
+        }
+        if (value instanceof DurationValue) {
+            value = value.toString();
+        }
+        if (value instanceof String) {
+            baseVector.setSafe(index, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else {
+            baseVector.setSafe(index, JsonUtil.writeValueAsBytes(value));
+        }
+    }
+
+    private static void writeBigInt(FieldVector vector, int index, Object value) {
+        if (value == null) {
+            ((BigIntVector) vector).setNull(index);
+        } else {
+            ((BigIntVector) vector).setSafe(index, ((Number) value).longValue());
+        }
+    }
+
+    private static void writeFloat8(FieldVector vector, int index, Object value) {
+        if (value == null) {
+            ((Float8Vector) vector).setNull(index);
+        } else {
+            ((Float8Vector) vector).setSafe(index, ((Number) value).doubleValue());
+        }
+    }
+
+    private static void writeBit(FieldVector vector, int index, Object value) {
+        if (value == null) {
+            ((BitVector) vector).setNull(index);
+        } else {
+            ((BitVector) vector).setSafe(index, (boolean) value ? 1 : 0);
+        }
+    }
+
+    private static void writeDateMilli(FieldVector vector, int index, Object value) {
+        final DateMilliVector baseVector = (DateMilliVector) vector;
+        final Long dateInMillis;
+        if (value instanceof Date) {
+            dateInMillis = ((Date) value).getTime();
+        } else if (value instanceof LocalDateTime) {
+            dateInMillis = ((LocalDateTime) value)
+                    .toInstant(ZoneOffset.UTC)
+                    .toEpochMilli();
+        } else if (value instanceof ZonedDateTime) {
+            dateInMillis = ((ZonedDateTime) value)
+                    .toInstant()
+                    .toEpochMilli();
+        } else if (value instanceof OffsetDateTime) {
+            dateInMillis = ((OffsetDateTime) value)
+                    .toInstant()
+                    .toEpochMilli();
+        } else {
+            dateInMillis = null;
+        }
+        if (dateInMillis == null) {
+            baseVector.setNull(index);
+        } else {
+            baseVector.setSafe(index, dateInMillis);
+        }
+    }
+}
@@ -8,10 +8,12 @@ import apoc.util.QueueBasedSpliterator;
 import apoc.util.QueueUtil;
 import apoc.util.Util;
 import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VectorLoader;
 import org.apache.arrow.vector.VectorSchemaRoot;
-import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.VectorUnloader;
 import org.apache.arrow.vector.ipc.ArrowFileWriter;
 import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.logging.Log;
@@ -27,7 +29,6 @@ import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -42,38 +43,45 @@ public interface ExportArrowFileStrategy<IN> extends ExportArrowStrategy<IN, Str
         progressInfo.batchSize = config.getBatchSize();
         ProgressReporter reporter = new ProgressReporter(null, null, progressInfo);
         Util.inTxFuture(getExecutorService(), getGraphDatabaseApi(), txInThread -> {
-            int batchCount = 0;
             List<Map<String, Object>> rows = new ArrayList<>(config.getBatchSize());
             VectorSchemaRoot root = null;
             ArrowWriter writer = null;
+            ArrowBatchWriter<VectorSchemaRoot> batchWriter = null;
             try {
+                beforeExport(txInThread);
                 Iterator<Map<String, Object>> it = toIterator(reporter, data);
                 while (!Util.transactionIsTerminated(getTerminationGuard()) && it.hasNext()) {
                     rows.add(it.next());
-                    if (batchCount > 0 && batchCount % config.getBatchSize() == 0) {
-                        if (root == null) {
+                    if (rows.size() == config.getBatchSize()) {
+                        if (batchWriter == null) {
                             root = VectorSchemaRoot.create(schemaFor(rows), getBufferAllocator());
                             writer = newArrowWriter(root, out);
+                            batchWriter = newBatchWriter(root, writer, config);
                         }
-                        writeBatch(root, writer, rows);
+                        writeBatch(batchWriter, rows);
                         rows.clear();
                     }
-                    ++batchCount;
                 }
                 if (!rows.isEmpty()) {
-                    if (root == null) {
+                    if (batchWriter == null) {
                         root = VectorSchemaRoot.create(schemaFor(rows), getBufferAllocator());
                         writer = newArrowWriter(root, out);
+                        batchWriter = newBatchWriter(root, writer, config);
                     }
-                    writeBatch(root, writer, rows);
+                    writeBatch(batchWriter, rows);
+                }
+                if (batchWriter != null) {
+                    batchWriter.flush();
                 }
                 QueueUtil.put(queue, progressInfo, 10);
             } catch (Exception e) {
                 getLogger().error("Exception while extracting Arrow data:", e);
             } finally {
                 reporter.done();
+                Util.close(batchWriter);
                 Util.close(root);
                 Util.close(writer);
+                Util.close(getDictionaries());
                 QueueUtil.put(queue, ProgressInfo.EMPTY, 10);
             }
             return true;
@@ -85,24 +93,29 @@ public interface ExportArrowFileStrategy<IN> extends ExportArrowStrategy<IN, Str
     String getSource(IN data);
 
 
-    default void writeBatch(VectorSchemaRoot root, ArrowWriter writer, List<Map<String, Object>> rows) {
-        AtomicInteger counter = new AtomicInteger();
-        root.allocateNew();
-        rows.forEach(row -> {
-            final int index = counter.getAndIncrement();
-            root.getFieldVectors()
-                    .forEach(fe -> {
-                        Object value = convertValue(row.get(fe.getName()));
-                        write(index, value, fe);
-                    });
-        });
-        root.setRowCount(counter.get());
-        try {
-            writer.writeBatch();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * The batches are filled in parallel and loaded, in order, into the root of the file writer.
+     */
+    private ArrowBatchWriter<VectorSchemaRoot> newBatchWriter(VectorSchemaRoot root, ArrowWriter writer, ArrowConfig config) {
+        final VectorLoader loader = new VectorLoader(root);
+        return new ArrowBatchWriter<>(root.getSchema(), getDictionaries(), getBufferAllocator(),
+                getExecutorService(), config.getConcurrency(), batch -> batch,
+                batch -> {
+                    try (batch; ArrowRecordBatch recordBatch = new VectorUnloader(batch).getRecordBatch()) {
+                        loader.load(recordBatch);
+                        writer.writeBatch();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    private void writeBatch(ArrowBatchWriter<VectorSchemaRoot> batchWriter, List<Map<String, Object>> rows) {
+        final List<Object[]> values = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            values.add(batchWriter.toRow(row, this::convertValue));
         }
-        root.clear();
+        batchWriter.add(values);
     }
 
     String getFileName();
@@ -122,7 +135,7 @@ public interface ExportArrowFileStrategy<IN> extends ExportArrowStrategy<IN, Str
     }
 
     default ArrowWriter newArrowWriter(VectorSchemaRoot root, OutputStream out) {
-        return new ArrowFileWriter(root, new DictionaryProvider.MapDictionaryProvider(), Channels.newChannel(out));
+        return new ArrowFileWriter(root, getDictionaries().getProvider(), Channels.newChannel(out));
     }
 
     Schema schemaFor(List<Map<String, Object>> rows);
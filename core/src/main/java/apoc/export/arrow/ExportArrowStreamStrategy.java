@@ -5,9 +5,7 @@ import apoc.result.ByteArrayResult;
 import apoc.util.QueueBasedSpliterator;
 import apoc.util.QueueUtil;
 import apoc.util.Util;
-import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.VectorSchemaRoot;
-import org.apache.arrow.vector.dictionary.DictionaryProvider;
 import org.apache.arrow.vector.ipc.ArrowStreamWriter;
 import org.apache.arrow.vector.ipc.ArrowWriter;
 import org.apache.arrow.vector.types.pojo.Schema;
@@ -22,7 +20,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -30,23 +27,12 @@ public interface ExportArrowStreamStrategy<IN> extends ExportArrowStrategy<IN, S
 
     Iterator<Map<String, Object>> toIterator(IN data);
 
-    default byte[] writeBatch(BufferAllocator bufferAllocator, List<Map<String, Object>> rows) {
-        try (final VectorSchemaRoot root = VectorSchemaRoot.create(schemaFor(rows), bufferAllocator);
+    default byte[] toBytes(VectorSchemaRoot batch) {
+        try (batch;
              final ByteArrayOutputStream out = new ByteArrayOutputStream();
-             final ArrowWriter writer = newArrowWriter(root, out)) {
-            AtomicInteger counter = new AtomicInteger();
-            root.allocateNew();
-            rows.forEach(row -> {
-                final int index = counter.getAndIncrement();
-                root.getFieldVectors()
-                        .forEach(fe -> {
-                            Object value = convertValue(row.get(fe.getName()));
-                            write(index, value, fe);
-                        });
-            });
-            root.setRowCount(counter.get());
+             final ArrowWriter writer = newArrowWriter(batch, out)) {
             writer.writeBatch();
-            root.clear();
+            writer.end();
             return out.toByteArray();
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -56,26 +42,35 @@ public interface ExportArrowStreamStrategy<IN> extends ExportArrowStrategy<IN, S
     default Stream<ByteArrayResult> export(IN data, ArrowConfig config) {
         final BlockingQueue<apoc.result.ByteArrayResult> queue = new ArrayBlockingQueue<>(100);
         Util.inTxFuture(getExecutorService(), getGraphDatabaseApi(), txInThread -> {
-            int batchCount = 0;
             List<Map<String, Object>> rows = new ArrayList<>(config.getBatchSize());
+            ArrowBatchWriter<byte[]> batchWriter = null;
             try {
+                beforeExport(txInThread);
                 Iterator<Map<String, Object>> it = toIterator(data);
                 while (!Util.transactionIsTerminated(getTerminationGuard()) && it.hasNext()) {
                     rows.add(it.next());
-                    if (batchCount > 0 && batchCount % config.getBatchSize() == 0) {
-                        final byte[] bytes = writeBatch(getBufferAllocator(), rows);
-                        QueueUtil.put(queue, new ByteArrayResult(bytes), 10);
+                    if (rows.size() == config.getBatchSize()) {
+                        if (batchWriter == null) {
+                            batchWriter = newBatchWriter(schemaFor(rows), queue, config);
+                        }
+                        writeBatch(batchWriter, rows);
                         rows.clear();
                     }
-                    ++batchCount;
                 }
                 if (!rows.isEmpty()) {
-                    final byte[] bytes = writeBatch(getBufferAllocator(), rows);
-                    QueueUtil.put(queue, new ByteArrayResult(bytes), 10);
+                    if (batchWriter == null) {
+                        batchWriter = newBatchWriter(schemaFor(rows), queue, config);
+                    }
+                    writeBatch(batchWriter, rows);
+                }
+                if (batchWriter != null) {
+                    batchWriter.flush();
                 }
             } catch (Exception e) {
                 getLogger().error("Exception while extracting Arrow data:", e);
             } finally {
+                Util.close(batchWriter);
+                Util.close(getDictionaries());
                 QueueUtil.put(queue, ByteArrayResult.NULL, 10);
             }
             return true;
@@ -84,12 +79,29 @@ public interface ExportArrowStreamStrategy<IN> extends ExportArrowStrategy<IN, S
         return StreamSupport.stream(spliterator, false);
     }
 
+    /**
+     * Every batch is a complete arrow stream, so the batches are both filled and serialized in parallel.
+     */
+    private ArrowBatchWriter<byte[]> newBatchWriter(Schema schema, BlockingQueue<ByteArrayResult> queue, ArrowConfig config) {
+        return new ArrowBatchWriter<>(schema, getDictionaries(), getBufferAllocator(),
+                getExecutorService(), config.getConcurrency(), this::toBytes,
+                bytes -> QueueUtil.put(queue, new ByteArrayResult(bytes), 10));
+    }
+
+    private void writeBatch(ArrowBatchWriter<byte[]> batchWriter, List<Map<String, Object>> rows) {
+        final List<Object[]> values = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            values.add(batchWriter.toRow(row, this::convertValue));
+        }
+        batchWriter.add(values);
+    }
+
     default Object convertValue(Object data) {
         return data == null ? null : Json.writeJsonResult(data);
     }
 
     default ArrowWriter newArrowWriter(VectorSchemaRoot root, OutputStream out) {
-        return new ArrowStreamWriter(root, new DictionaryProvider.MapDictionaryProvider(), Channels.newChannel(out));
+        return new ArrowStreamWriter(root, getDictionaries().getProvider(), Channels.newChannel(out));
     }
 
     Schema schemaFor(List<Map<String, Object>> rows);
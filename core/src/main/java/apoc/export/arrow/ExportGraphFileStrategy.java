@@ -10,6 +10,7 @@ import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.helpers.collection.Iterables;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
@@ -31,6 +32,9 @@ public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph
     private final RootAllocator bufferAllocator;
 
     private Schema schema;
+    private ArrowDictionaries dictionaries = ArrowDictionaries.EMPTY;
+    private Map<String, Object> configMap;
+    private ArrowConfig config;
 
     public ExportGraphFileStrategy(String fileName, GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger) {
         this.fileName = fileName;
@@ -59,10 +63,17 @@ public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph
 
     @Override
     public Stream<ProgressInfo> export(SubGraph data, ArrowConfig config) {
-        schemaFor(List.of(createConfigMap(data, config)));
+        this.configMap = createConfigMap(data, config);
+        this.config = config;
         return ExportArrowFileStrategy.super.export(data, config);
     }
 
+    @Override
+    public void beforeExport(Transaction tx) {
+        this.dictionaries = createDictionaries(tx, configMap, config, bufferAllocator);
+        schemaFor(List.of(configMap));
+    }
+
     @Override
     public String getFileName() {
         return fileName;
@@ -93,6 +104,11 @@ public class ExportGraphFileStrategy implements ExportArrowFileStrategy<SubGraph
         return logger;
     }
 
+    @Override
+    public ArrowDictionaries getDictionaries() {
+        return dictionaries;
+    }
+
     @Override
     public synchronized Schema schemaFor(List<Map<String, Object>> records) {
         if (schema == null) {
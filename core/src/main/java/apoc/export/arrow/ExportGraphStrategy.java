@@ -1,6 +1,7 @@
 package apoc.export.arrow;
 
 import apoc.util.Util;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.neo4j.cypher.export.SubGraph;
@@ -11,10 +12,12 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.ResultTransformer;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.helpers.collection.Iterables;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,6 +35,8 @@ import static apoc.export.arrow.ExportArrowStrategy.toField;
 
 public interface ExportGraphStrategy {
 
+    ArrowDictionaries getDictionaries();
+
     default Schema schemaFor(GraphDatabaseService db, List<Map<String, Object>> records) {
         final Function<Map<String, Object>, Stream<? extends Field>> flatMapStream = m -> {
             String propertyName = (String) m.get("propertyName");
@@ -52,7 +57,7 @@ public interface ExportGraphStrategy {
                 parameters, parsePropertiesResult);
 
         allFields.add(FIELD_ID);
-        allFields.add(FIELD_LABELS);
+        allFields.add(getDictionaries().encode(FIELD_LABELS));
         allFields.addAll(nodeFields);
 
         if (cfg.containsKey("includeRels")) {
@@ -60,7 +65,7 @@ public interface ExportGraphStrategy {
                     parameters, parsePropertiesResult);
             allFields.add(FIELD_SOURCE_ID);
             allFields.add(FIELD_TARGET_ID);
-            allFields.add(FIELD_TYPE);
+            allFields.add(getDictionaries().encode(FIELD_TYPE));
             allFields.addAll(relFields);
         }
         return new Schema(allFields);
@@ -96,4 +101,20 @@ public interface ExportGraphStrategy {
         configMap.putAll(config.getConfig());
         return configMap;
     }
+
+    /**
+     * Labels and relationship types are written as indexes of dictionaries of all their tokens and of the ones in use
+     * by the graph, which aren't tokens for a virtual graph. The tokens are read in the transaction of the export,
+     * so the entities it reads can't have a label or a type created before it started.
+     */
+    default ArrowDictionaries createDictionaries(Transaction tx, Map<String, Object> configMap, ArrowConfig config, BufferAllocator allocator) {
+        if (!config.isDictionaryEncoding()) {
+            return ArrowDictionaries.EMPTY;
+        }
+        final Set<String> labels = new LinkedHashSet<>((List<String>) configMap.getOrDefault("includeLabels", List.of()));
+        tx.getAllLabels().forEach(label -> labels.add(label.name()));
+        final Set<String> types = new LinkedHashSet<>((List<String>) configMap.getOrDefault("includeRels", List.of()));
+        tx.getAllRelationshipTypes().forEach(type -> types.add(type.name()));
+        return ArrowDictionaries.forGraph(allocator, labels, types);
+    }
 }
@@ -4,19 +4,14 @@ import apoc.Pools;
 import apoc.result.ByteArrayResult;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
-import org.apache.arrow.vector.VectorSchemaRoot;
-import org.apache.arrow.vector.dictionary.DictionaryProvider;
-import org.apache.arrow.vector.ipc.ArrowStreamWriter;
-import org.apache.arrow.vector.ipc.ArrowWriter;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.neo4j.cypher.export.SubGraph;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.helpers.collection.Iterables;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
-import java.io.OutputStream;
-import java.nio.channels.Channels;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +28,9 @@ public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubG
     private final RootAllocator bufferAllocator;
 
     private Schema schema;
+    private ArrowDictionaries dictionaries = ArrowDictionaries.EMPTY;
+    private Map<String, Object> configMap;
+    private ArrowConfig config;
 
 
     public ExportGraphStreamStrategy(GraphDatabaseService db, Pools pools, TerminationGuard terminationGuard, Log logger) {
@@ -52,11 +50,17 @@ public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubG
 
     @Override
     public Stream<ByteArrayResult> export(SubGraph subGraph, ArrowConfig config) {
-        Map<String, Object> configMap = createConfigMap(subGraph, config);
-        this.schemaFor(List.of(configMap));
+        this.configMap = createConfigMap(subGraph, config);
+        this.config = config;
         return ExportArrowStreamStrategy.super.export(subGraph, config);
     }
 
+    @Override
+    public void beforeExport(Transaction tx) {
+        this.dictionaries = createDictionaries(tx, configMap, config, bufferAllocator);
+        schemaFor(List.of(configMap));
+    }
+
     @Override
     public TerminationGuard getTerminationGuard() {
         return terminationGuard;
@@ -83,8 +87,8 @@ public class ExportGraphStreamStrategy implements ExportArrowStreamStrategy<SubG
     }
 
     @Override
-    public ArrowWriter newArrowWriter(VectorSchemaRoot root, OutputStream out) {
-        return new ArrowStreamWriter(root, new DictionaryProvider.MapDictionaryProvider(), Channels.newChannel(out));
+    public ArrowDictionaries getDictionaries() {
+        return dictionaries;
     }
 
     @Override
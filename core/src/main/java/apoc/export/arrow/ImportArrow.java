@@ -0,0 +1,39 @@
+package apoc.export.arrow;
+
+import apoc.Pools;
+import apoc.export.util.ProgressReporter;
+import apoc.result.ProgressInfo;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class ImportArrow {
+
+    @Context
+    public GraphDatabaseService db;
+
+    @Context
+    public Pools pools;
+
+    @Context
+    public TerminationGuard terminationGuard;
+
+    @Procedure(name = "apoc.import.arrow", mode = Mode.WRITE)
+    @Description("apoc.import.arrow(fileName, config) - imports the nodes and relationships of an arrow file written by apoc.export.arrow.all/graph")
+    public Stream<ProgressInfo> importFile(@Name("fileName") String fileName, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws Exception {
+        final ArrowConfig arrowConfig = new ArrowConfig(config);
+        final ProgressReporter reporter = new ProgressReporter(null, null, new ProgressInfo(fileName, "file", "arrow"));
+        try (ArrowFileBatches batches = ArrowFileBatches.open(fileName)) {
+            new ArrowImporter(db, batches, pools.getDefaultExecutorService(), arrowConfig.getConcurrency(), reporter, terminationGuard)
+                    .importGraph();
+        }
+        return reporter.stream();
+    }
+}
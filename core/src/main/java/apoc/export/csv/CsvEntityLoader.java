@@ -1,50 +1,107 @@
 package apoc.export.csv;
 
-import apoc.export.util.BatchTransaction;
 import apoc.export.util.CountingReader;
+import apoc.export.util.IdMapper;
 import apoc.export.util.ProgressReporter;
 import apoc.load.CSVResult;
 import apoc.load.Mapping;
 import apoc.load.util.Results;
 import apoc.util.FileUtils;
+import apoc.util.Util;
 import com.opencsv.CSVReader;
 import org.neo4j.graphdb.*;
 import org.neo4j.logging.Log;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class CsvEntityLoader {
 
+    private static final int MAX_RETRIES = 10;
+
     private final CsvLoaderConfig clc;
     private final ProgressReporter reporter;
     private final Log log;
+    private final ExecutorService pool;
 
     /**
      * @param clc configuration object
      * @param reporter
      */
     public CsvEntityLoader(CsvLoaderConfig clc, ProgressReporter reporter, Log log) {
+        this(clc, reporter, log, null);
+    }
+
+    /**
+     * @param clc configuration object
+     * @param reporter
+     * @param pool executor for parsing the lines and writing the relationships, if null everything runs on the calling thread
+     */
+    public CsvEntityLoader(CsvLoaderConfig clc, ProgressReporter reporter, Log log, ExecutorService pool) {
         this.clc = clc;
         this.reporter = reporter;
         this.log = log;
+        this.pool = pool;
+    }
+
+    /**
+     * A node parsed and typed from a line of the CSV, ready to be written.
+     */
+    private static class ParsedNode {
+        final long lineNo;
+        final String[] line;
+        final String csvId;
+        final List<String> labels = new ArrayList<>();
+        final Map<String, Object> properties = new LinkedHashMap<>();
+
+        ParsedNode(long lineNo, String[] line, String csvId) {
+            this.lineNo = lineNo;
+            this.line = line;
+            this.csvId = csvId;
+        }
+    }
+
+    /**
+     * A relationship parsed and typed from a line of the CSV, with the internal ids of its nodes.
+     */
+    private static class ParsedRelationship {
+        final long startId;
+        final long endId;
+        final RelationshipType type;
+        final Map<String, Object> properties = new LinkedHashMap<>();
+
+        ParsedRelationship(long startId, long endId, RelationshipType type) {
+            this.startId = startId;
+            this.endId = endId;
+            this.type = type;
+        }
     }
 
     /**
      * Loads nodes from a CSV file with given labels to an online database, and fills the {@code idMapping},
      * which will be used by the {@link #loadRelationships(Object, String, GraphDatabaseService, Map)}
      * method.
+     * The file is streamed: chunks of {@code batchSize} lines are parsed by the pool,
+     * and written in order by the calling thread, one transaction per chunk.
      *
      * @param fileName URI/Binary of the CSV file representing the node
      * @param labels list of node labels to be applied to each node
      * @param db running database instance
-     * @param idMapping to be filled with the mapping between the CSV ids and the DB's internal node ids
+     * @param idMapping to be filled with the mapping between the CSV ids and the DB's internal node ids,
+     *                  the mapper of a new id space is created from the {@code idMapper} config
      * @throws IOException
      */
     public void loadNodes(final Object fileName, final List<String> labels, final GraphDatabaseService db,
-                          final Map<String, Map<String, Long>> idMapping) throws IOException {
+                          final Map<String, IdMapper> idMapping) throws IOException {
         
         try (final CountingReader reader = FileUtils.readerFor(fileName, clc.getCompressionAlgo())) {
             final String header = readFirstLine(reader);
@@ -62,76 +119,77 @@ public class CsvEntityLoader {
             final Optional<String> idAttribute = idField.isPresent() ? Optional.of(idField.get().getName()) : Optional.empty();
             final String idSpace = idField.isPresent() ? idField.get().getIdSpace() : CsvLoaderConstants.DEFAULT_IDSPACE;
 
-            idMapping.putIfAbsent(idSpace, new HashMap<>());
-            final Map<String, Long> idspaceIdMapping = idMapping.get(idSpace);
+            final IdMapper idspaceIdMapping = idMapping.computeIfAbsent(idSpace, ignored -> clc.createIdMapper());
 
             final Map<String, Mapping> mapping = getMapping(fields);
 
             final CSVReader csv = new CSVReader(reader, clc.getDelimiter(), clc.getQuotationCharacter());
 
             final String[] loadCsvCompatibleHeader = fields.stream().map(f -> f.getName()).toArray(String[]::new);
-            int lineNo = 0;
-            try (BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter)) {
-                for (String[] line : csv.readAll()) {
-                    lineNo++;
+            final List<Label> nodeLabels = labels.stream().map(Label::label).collect(Collectors.toList());
 
-                    final EnumSet<Results> results = EnumSet.of(Results.map);
+            pipeline(csv, (lines, firstLineNo) -> {
+                List<ParsedNode> nodes = new ArrayList<>(lines.size());
+                long lineNo = firstLineNo;
+                for (String[] line : lines) {
+                    lineNo++;
                     final CSVResult result = new CSVResult(
-                            loadCsvCompatibleHeader, line, lineNo, false, mapping, Collections.emptyList(), results
+                            loadCsvCompatibleHeader, line, lineNo, false, mapping, Collections.emptyList(), EnumSet.of(Results.map)
                     );
-
                     final String nodeCsvId = (String) idAttribute.map(result.map::get).orElse(null);
-
-                    // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has the current id,
-                    // we either fail the loading process or skip it depending on the 'ignore duplicate nodes' setting
-                    if (idField.isPresent() && idspaceIdMapping.containsKey(nodeCsvId)) {
-                        if (clc.getIgnoreDuplicateNodes()) {
-                            continue;
-                        } else {
-                            throw new IllegalStateException("Duplicate node with id " + nodeCsvId + " found on line " + lineNo + "\n"
-                                    + Arrays.toString(line));
-                        }
-                    }
-
-                    // create node and add its id to the mapping
-                    final Node node = btx.getTransaction().createNode();
-                    if (idField.isPresent()) {
-                        idspaceIdMapping.put(nodeCsvId, node.getId());
-                    }
-
-                    // add labels
-                    for (String label : labels) {
-                        node.addLabel(Label.label(label));
-                    }
-
-                    // add properties
-                    int props = 0;
+                    final ParsedNode node = new ParsedNode(lineNo, line, nodeCsvId);
                     for (CsvHeaderField field : fields) {
-                        final String name = field.getName();
-                        Object value = result.map.get(name);
-
+                        final Object value = result.map.get(field.getName());
                         if (field.isMeta()) {
-                            final List<String> customLabels = (List<String>) value;
-                            for (String customLabel : customLabels) {
-                                node.addLabel(Label.label(customLabel));
-                            }
+                            node.labels.addAll((List<String>) value);
                         } else if (field.isId()) {
-                            final Object idValue;
-                            if (clc.getStringIds()) {
-                                idValue = value;
+                            node.properties.put(field.getName(), clc.getStringIds() ? value : Long.valueOf((String) value));
+                        } else {
+                            final Object converted = CsvPropertyConverter.convertValue(field, value, clc);
+                            if (converted != null) {
+                                node.properties.put(field.getName(), converted);
+                            }
+                        }
+                    }
+                    nodes.add(node);
+                }
+                return nodes;
+            }, nodes -> {
+                try (Transaction tx = db.beginTx()) {
+                    for (ParsedNode parsed : nodes) {
+                        // if 'ignore duplicate nodes' is false, there is an id field and the mapping already has the current id,
+                        // we either fail the loading process or skip it depending on the 'ignore duplicate nodes' setting
+                        if (idField.isPresent() && idspaceIdMapping.containsKey(parsed.csvId)) {
+                            if (clc.getIgnoreDuplicateNodes()) {
+                                continue;
                             } else {
-                                idValue = Long.valueOf((String) value);
+                                throw new IllegalStateException("Duplicate node with id " + parsed.csvId + " found on line " + parsed.lineNo + "\n"
+                                        + Arrays.toString(parsed.line));
                             }
-                            node.setProperty(field.getName(), idValue);
-                            props++;
-                        } else {
-                            boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(node, field, value,clc);
-                            props += propertyAdded ? 1 : 0;
                         }
+
+                        // create node and add its id to the mapping
+                        final Node node = tx.createNode();
+                        if (idField.isPresent()) {
+                            idspaceIdMapping.put(parsed.csvId, node.getId());
+                        }
+
+                        // add labels
+                        for (Label label : nodeLabels) {
+                            node.addLabel(label);
+                        }
+                        for (String customLabel : parsed.labels) {
+                            node.addLabel(Label.label(customLabel));
+                        }
+
+                        // add properties
+                        parsed.properties.forEach(node::setProperty);
+                        reporter.update(1, 0, parsed.properties.size());
                     }
-                    reporter.update(1, 0, props++);
+                    tx.commit();
                 }
-            }
+                reporter.progress("commit after " + reporter.getTotal().nodes + " node(s) ");
+            });
         }
     }
 
@@ -139,6 +197,9 @@ public class CsvEntityLoader {
      * Loads relationships from a CSV file with given relationship types to an online database,
      * using the {@code idMapping} created by the
      * {@link #loadNodes(Object, List, GraphDatabaseService, Map)} method.
+     * The file is streamed like the nodes one. With the {@code parallel} config the relationships are
+     * partitioned by their start node and each partition is committed by the pool in its own batches,
+     * so that concurrent batches never lock the same start node.
      *
      * @param data URI / Binary of the CSV file representing the relationship
      * @param type relationship type to be applied to each relationships
@@ -151,7 +212,7 @@ public class CsvEntityLoader {
             final Object data, 
             final String type,
             final GraphDatabaseService db,
-            final Map<String, Map<String, Long>> idMapping) throws IOException {
+            final Map<String, IdMapper> idMapping) throws IOException {
         
         try (final CountingReader reader = FileUtils.readerFor(data, clc.getCompressionAlgo())) {
             final String header = readFirstLine(reader);
@@ -174,52 +235,195 @@ public class CsvEntityLoader {
 
             final CSVReader csv = new CSVReader(reader, clc.getDelimiter());
             final String[] loadCsvCompatibleHeader = fields.stream().map(f -> f.getName()).toArray(String[]::new);
+            final RelationshipType defaultType = RelationshipType.withName(type);
+
+            final RelationshipWriter writer = new RelationshipWriter(db, clc.isParallel() && pool != null ? clc.getConcurrency() : 1);
+            try {
+                pipeline(csv, (lines, firstLineNo) -> {
+                    List<ParsedRelationship> rels = new ArrayList<>(lines.size());
+                    long lineNo = firstLineNo;
+                    for (String[] line : lines) {
+                        lineNo++;
+                        final CSVResult result = new CSVResult(
+                                loadCsvCompatibleHeader, line, lineNo, false, mapping, Collections.emptyList(), EnumSet.of(Results.map)
+                        );
+
+                        final String startId = (String) result.map.get(CsvLoaderConstants.START_ID_ATTR);
+                        final long startInternalId = internalId(idMapping, startIdField, startId);
+                        if (startInternalId == IdMapper.NOT_FOUND) {
+                            throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + startId + " not found");
+                        }
 
-            int lineNo = 0;
-            try (BatchTransaction btx = new BatchTransaction(db, clc.getBatchSize(), reporter)) {
-                for (String[] line : csv.readAll()) {
-                    lineNo++;
+                        final String endId = (String) result.map.get(CsvLoaderConstants.END_ID_ATTR);
+                        final long endInternalId = internalId(idMapping, endIdField, endId);
+                        if (endInternalId == IdMapper.NOT_FOUND) {
+                            throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + endId + " not found");
+                        }
 
-                    final EnumSet<Results> results = EnumSet.of(Results.map);
-                    final CSVResult result = new CSVResult(
-                            loadCsvCompatibleHeader, line, lineNo, false, mapping, Collections.emptyList(), results
-                    );
+                        final RelationshipType currentType;
+                        final Object overridingType = result.map.get(CsvLoaderConstants.TYPE_ATTR);
+                        if (overridingType != null && !((String) overridingType).isEmpty()) {
+                            currentType = RelationshipType.withName((String) overridingType);
+                        } else {
+                            currentType = defaultType;
+                        }
+                        final ParsedRelationship rel = new ParsedRelationship(startInternalId, endInternalId, currentType);
 
-                    final Object startId = result.map.get(CsvLoaderConstants.START_ID_ATTR);
-                    final Object startInternalId = idMapping.get(startIdField.getIdSpace()).get(startId);
-                    if (startInternalId == null) {
-                        throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + startId + " not found");
+                        // add properties
+                        for (CsvHeaderField field : edgePropertiesFields) {
+                            final Object converted = CsvPropertyConverter.convertValue(field, result.map.get(field.getName()), clc);
+                            if (converted != null) {
+                                rel.properties.put(field.getName(), converted);
+                            }
+                        }
+                        rels.add(rel);
                     }
-                    final Node source = btx.getTransaction().getNodeById((long) startInternalId);
+                    return rels;
+                }, writer::add);
+                writer.flush();
+            } finally {
+                writer.cancel();
+            }
+        }
+    }
 
-                    final Object endId = result.map.get(CsvLoaderConstants.END_ID_ATTR);
-                    final Object endInternalId = idMapping.get(endIdField.getIdSpace()).get(endId);
-                    if (endInternalId == null) {
-                        throw new IllegalStateException("Node for id space " + endIdField.getIdSpace() + " and id " + endId + " not found");
-                    }
-                    final Node target = btx.getTransaction().getNodeById((long) endInternalId);
-
-                    final String currentType;
-                    final Object overridingType = result.map.get(CsvLoaderConstants.TYPE_ATTR);
-                    if (overridingType != null && !((String) overridingType).isEmpty()) {
-                        currentType = (String) overridingType;
-                    } else {
-                        currentType = type;
-                    }
-                    final Relationship rel = source.createRelationshipTo(target, RelationshipType.withName(currentType));
-
-                    // add properties
-                    int props = 0;
-                    for (CsvHeaderField field : edgePropertiesFields) {
-                        final String name = field.getName();
-                        Object value = result.map.get(name);
-                        boolean propertyAdded = CsvPropertyConverter.addPropertyToGraphEntity(rel, field, value, clc);
-                        props += propertyAdded ? 1 : 0;
-                    }
-                    reporter.update(0, 1, props);
+    private static long internalId(Map<String, IdMapper> idMapping, CsvHeaderField field, String csvId) {
+        final IdMapper idspaceIdMapping = idMapping.get(field.getIdSpace());
+        return idspaceIdMapping == null ? IdMapper.NOT_FOUND : idspaceIdMapping.get(csvId);
+    }
+
+    /**
+     * Writes relationship batches, partitioned by start node with at most one batch in flight per partition.
+     * The reporter is only updated from the calling thread.
+     */
+    private class RelationshipWriter {
+        private final GraphDatabaseService db;
+        private final int partitions;
+        private final List<ParsedRelationship>[] pending;
+        private final Future<Long>[] running;
+        private final int[] runningSizes;
+
+        RelationshipWriter(GraphDatabaseService db, int partitions) {
+            this.db = db;
+            this.partitions = partitions;
+            this.pending = new List[partitions];
+            this.running = new Future[partitions];
+            this.runningSizes = new int[partitions];
+            for (int i = 0; i < partitions; i++) {
+                pending[i] = new ArrayList<>();
+            }
+        }
+
+        void add(List<ParsedRelationship> rels) {
+            for (ParsedRelationship rel : rels) {
+                int partition = (int) Math.floorMod(rel.startId, (long) partitions);
+                pending[partition].add(rel);
+                if (pending[partition].size() >= clc.getBatchSize()) {
+                    submit(partition);
                 }
             }
         }
+
+        void flush() {
+            for (int i = 0; i < partitions; i++) {
+                if (!pending[i].isEmpty()) submit(i);
+            }
+            for (int i = 0; i < partitions; i++) {
+                await(i);
+            }
+        }
+
+        void cancel() {
+            for (Future<Long> future : running) {
+                if (future != null) future.cancel(false);
+            }
+        }
+
+        private void submit(int partition) {
+            await(partition);
+            final List<ParsedRelationship> batch = pending[partition];
+            pending[partition] = new ArrayList<>();
+            final Function<Transaction, Long> write = tx -> {
+                long props = 0;
+                for (ParsedRelationship parsed : batch) {
+                    final Node source = tx.getNodeById(parsed.startId);
+                    final Node target = tx.getNodeById(parsed.endId);
+                    final Relationship rel = source.createRelationshipTo(target, parsed.type);
+                    parsed.properties.forEach(rel::setProperty);
+                    props += parsed.properties.size();
+                }
+                return props;
+            };
+            runningSizes[partition] = batch.size();
+            if (partitions == 1) {
+                running[partition] = CompletableFuture.completedFuture(Util.retryInTx(log, db, write, 0, 0, retry -> {}));
+            } else {
+                // batches of different partitions can still deadlock on their end nodes, so they're retried
+                running[partition] = Util.inTxFuture(log, pool, db, write, MAX_RETRIES, retry -> {}, ignored -> {});
+            }
+        }
+
+        private void await(int partition) {
+            if (running[partition] == null) return;
+            final long props = getResult(running[partition]);
+            running[partition] = null;
+            reporter.update(0, runningSizes[partition], props);
+            reporter.progress("commit after " + reporter.getTotal().relationships + " relationship(s) ");
+        }
+    }
+
+    /**
+     * Streams the CSV in chunks of {@code batchSize} lines: each chunk is parsed by the pool,
+     * while the writer consumes the parsed chunks in file order. At most {@code concurrency} chunks
+     * are parsed ahead of the writer, so the memory used doesn't depend on the size of the file.
+     */
+    private <T> void pipeline(CSVReader csv, BiFunction<List<String[]>, Long, T> parser, Consumer<T> writer) throws IOException {
+        final int maxInFlight = pool == null ? 1 : clc.getConcurrency();
+        final Deque<Future<T>> parsing = new ArrayDeque<>(maxInFlight);
+        long lineNo = 0;
+        try {
+            while (true) {
+                final List<String[]> lines = readChunk(csv);
+                if (lines.isEmpty()) break;
+                final long firstLineNo = lineNo;
+                lineNo += lines.size();
+                if (pool == null) {
+                    writer.accept(parser.apply(lines, firstLineNo));
+                    continue;
+                }
+                parsing.addLast(pool.submit(() -> parser.apply(lines, firstLineNo)));
+                if (parsing.size() >= maxInFlight) {
+                    writer.accept(getResult(parsing.removeFirst()));
+                }
+            }
+            while (!parsing.isEmpty()) {
+                writer.accept(getResult(parsing.removeFirst()));
+            }
+        } finally {
+            parsing.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private List<String[]> readChunk(CSVReader csv) throws IOException {
+        final List<String[]> lines = new ArrayList<>(Math.min(clc.getBatchSize(), 10_000));
+        String[] line;
+        while (lines.size() < clc.getBatchSize() && (line = csv.readNext()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        }
     }
 
     private Map<String, Mapping> getMapping(List<CsvHeaderField> fields) {
@@ -1,5 +1,7 @@
 package apoc.export.csv;
 
+import apoc.export.util.IdMapper;
+import apoc.export.util.OffHeapIdMapper;
 import apoc.util.CompressionAlgo;
 import apoc.util.CompressionConfig;
 
@@ -22,6 +24,10 @@ public class CsvLoaderConfig extends CompressionConfig {
     private static final String BATCH_SIZE = "batchSize";
     private static final String IGNORE_DUPLICATE_NODES = "ignoreDuplicateNodes";
     private static final String IGNORE_BLANK_STRING = "ignoreBlankString";
+    private static final String PARALLEL = "parallel";
+    private static final String CONCURRENCY = "concurrency";
+    private static final String ID_MAPPER = "idMapper";
+    private static final String ID_MAPPER_MAX_OFF_HEAP = "idMapperMaxOffHeap";
 
     private static char DELIMITER_DEFAULT = ',';
     private static char ARRAY_DELIMITER_DEFAULT = ';';
@@ -31,6 +37,9 @@ public class CsvLoaderConfig extends CompressionConfig {
     private static int BATCH_SIZE_DEFAULT = 2000;
     private static boolean IGNORE_DUPLICATE_NODES_DEFAULT = false;
     private static boolean IGNORE_BLANK_STRING_DEFAULT = false;
+    private static boolean PARALLEL_DEFAULT = true;
+    private static int CONCURRENCY_DEFAULT = Runtime.getRuntime().availableProcessors();
+    private static long ID_MAPPER_MAX_OFF_HEAP_DEFAULT = OffHeapIdMapper.DEFAULT_MAX_OFF_HEAP;
 
     private final char delimiter;
     private final char arrayDelimiter;
@@ -40,6 +49,10 @@ public class CsvLoaderConfig extends CompressionConfig {
     private final int batchSize;
     private final boolean ignoreDuplicateNodes;
     private final boolean ignoreBlankString;
+    private final boolean parallel;
+    private final int concurrency;
+    private final String idMapper;
+    private final long idMapperMaxOffHeap;
 
     private CsvLoaderConfig(Builder builder) {
         super(Map.of(COMPRESSION, builder.compressionAlgo, CHARSET, builder.charset));
@@ -51,6 +64,10 @@ public class CsvLoaderConfig extends CompressionConfig {
         this.batchSize = builder.batchSize;
         this.ignoreDuplicateNodes = builder.ignoreDuplicateNodes;
         this.ignoreBlankString = builder.ignoreBlankString;
+        this.parallel = builder.parallel;
+        this.concurrency = builder.concurrency;
+        this.idMapper = builder.idMapper;
+        this.idMapperMaxOffHeap = builder.idMapperMaxOffHeap;
     }
 
     public char getDelimiter() {
@@ -83,6 +100,30 @@ public class CsvLoaderConfig extends CompressionConfig {
         return ignoreBlankString;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return the configured id mapper, by default {@code numeric} when the ids aren't strings, otherwise {@code heap}
+     */
+    public String getIdMapper() {
+        if (idMapper != null) return idMapper;
+        return stringIds ? IdMapper.HEAP : IdMapper.NUMERIC;
+    }
+
+    public long getIdMapperMaxOffHeap() {
+        return idMapperMaxOffHeap;
+    }
+
+    public IdMapper createIdMapper() {
+        return IdMapper.create(getIdMapper(), idMapperMaxOffHeap);
+    }
+
     /**
      * Creates builder to build {@link CsvLoaderConfig}.
      *
@@ -115,9 +156,13 @@ public class CsvLoaderConfig extends CompressionConfig {
         if (config.get(QUOTATION_CHARACTER) != null) builder.quotationCharacter(getCharacterOrString(config, QUOTATION_CHARACTER));
         if (config.get(STRING_IDS) != null) builder.stringIds((boolean) config.get(STRING_IDS));
         if (config.get(SKIP_LINES) != null) builder.skipLines((int) config.get(SKIP_LINES));
-        if (config.get(BATCH_SIZE) != null) builder.batchSize((int) config.get(BATCH_SIZE));
+        if (config.get(BATCH_SIZE) != null) builder.batchSize(((Number) config.get(BATCH_SIZE)).intValue());
         if (config.get(IGNORE_DUPLICATE_NODES) != null) builder.ignoreDuplicateNodes((boolean) config.get(IGNORE_DUPLICATE_NODES));
         if (config.get(IGNORE_BLANK_STRING) != null) builder.ignoreBlankString((boolean) config.get(IGNORE_BLANK_STRING));
+        if (config.get(PARALLEL) != null) builder.parallel((boolean) config.get(PARALLEL));
+        if (config.get(CONCURRENCY) != null) builder.concurrency(((Number) config.get(CONCURRENCY)).intValue());
+        if (config.get(ID_MAPPER) != null) builder.idMapper((String) config.get(ID_MAPPER));
+        if (config.get(ID_MAPPER_MAX_OFF_HEAP) != null) builder.idMapperMaxOffHeap(((Number) config.get(ID_MAPPER_MAX_OFF_HEAP)).longValue());
         builder.binary((String) config.getOrDefault(COMPRESSION, CompressionAlgo.GZIP.name()));
         builder.charset((String) config.getOrDefault(CHARSET, UTF_8.name()));
         
@@ -136,6 +181,10 @@ public class CsvLoaderConfig extends CompressionConfig {
         private int batchSize = BATCH_SIZE_DEFAULT;
         private boolean ignoreDuplicateNodes = IGNORE_DUPLICATE_NODES_DEFAULT;
         private boolean ignoreBlankString = IGNORE_BLANK_STRING_DEFAULT;
+        private boolean parallel = PARALLEL_DEFAULT;
+        private int concurrency = CONCURRENCY_DEFAULT;
+        private String idMapper = null;
+        private long idMapperMaxOffHeap = ID_MAPPER_MAX_OFF_HEAP_DEFAULT;
         private String compressionAlgo = null;
         private String charset = UTF_8.name();
 
@@ -192,6 +241,32 @@ public class CsvLoaderConfig extends CompressionConfig {
             return this;
         }
 
+        public Builder parallel(boolean parallel) {
+            this.parallel = parallel;
+            return this;
+        }
+
+        public Builder concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency must be > 0");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        public Builder idMapper(String idMapper) {
+            this.idMapper = IdMapper.checkType(idMapper);
+            return this;
+        }
+
+        public Builder idMapperMaxOffHeap(long idMapperMaxOffHeap) {
+            if (idMapperMaxOffHeap < 0) {
+                throw new IllegalArgumentException("idMapperMaxOffHeap must be >= 0");
+            }
+            this.idMapperMaxOffHeap = idMapperMaxOffHeap;
+            return this;
+        }
+
         public CsvLoaderConfig build() {
             return new CsvLoaderConfig(this);
         }
@@ -16,25 +16,37 @@ import java.util.Objects;
 public class CsvPropertyConverter {
 
     public static boolean addPropertyToGraphEntity(Entity entity, CsvHeaderField field, Object value, CsvLoaderConfig config) {
-        if (field.isIgnore() || value == null) {
+        final Object converted = convertValue(field, value, config);
+        if (converted == null) {
             return false;
         }
+        entity.setProperty(field.getName(), converted);
+        return true;
+    }
+
+    /**
+     * Converts a value parsed from the CSV into the value to store for the field,
+     * so that it can be done off the writing thread.
+     *
+     * @return the property value, or null if no property has to be set
+     */
+    public static Object convertValue(CsvHeaderField field, Object value, CsvLoaderConfig config) {
+        if (field.isIgnore() || value == null) {
+            return null;
+        }
         if (field.isArray()) {
             final List list = (List) value;
             final boolean listContainingNull = list.stream().anyMatch(Objects::isNull);
             if (listContainingNull) {
-                return false;
+                return null;
             }
             final Object[] prototype = getPrototypeFor(field.getType().toUpperCase());
-            final Object[] array = list.toArray(prototype);
-            entity.setProperty(field.getName(), array);
-        } else {
-            if (config.isIgnoreBlankString() && value instanceof String && StringUtils.isBlank((String) value)) {
-                return false;
-            }
-            entity.setProperty(field.getName(), value);
+            return list.toArray(prototype);
         }
-        return true;
+        if (config.isIgnoreBlankString() && value instanceof String && StringUtils.isBlank((String) value)) {
+            return null;
+        }
+        return value;
     }
 
     static Object[] getPrototypeFor(String type) {
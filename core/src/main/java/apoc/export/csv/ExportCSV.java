@@ -106,7 +106,7 @@ public class ExportCSV {
                 .createFileManager(fileName, exportConfig.isBulkImport());
 
         if (exportConfig.streamStatements()) {
-            return ExportUtils.getProgressInfoStream(db, pools.getDefaultExecutorService(), terminationGuard, format, exportConfig, reporter, cypherFileManager,
+            return ExportUtils.getProgressInfoStream(db, pools.getExecutorService(exportConfig.getLane()), terminationGuard, format, exportConfig, reporter, cypherFileManager,
                     (reporterWithConsumer) -> dump(data, exportConfig, reporterWithConsumer, cypherFileManager, exporter));
         } else {
             dump(data, exportConfig, reporter, cypherFileManager, exporter);
@@ -1,6 +1,7 @@
 package apoc.export.csv;
 
 import apoc.Pools;
+import apoc.export.util.IdMapper;
 import apoc.export.util.ProgressReporter;
 import apoc.result.ProgressInfo;
 import apoc.util.Util;
@@ -48,19 +49,23 @@ public class ImportCsv {
                     }
                     final CsvLoaderConfig clc = CsvLoaderConfig.from(config);
                     final ProgressReporter reporter = new ProgressReporter(null, null, new ProgressInfo(file, source, "csv"));
-                    final CsvEntityLoader loader = new CsvEntityLoader(clc, reporter, log);
+                    final CsvEntityLoader loader = new CsvEntityLoader(clc, reporter, log, pools.getDefaultExecutorService());
 
-                    final Map<String, Map<String, Long>> idMapping = new HashMap<>();
-                    for (Map<String, Object> node : nodes) {
-                        final Object data = node.getOrDefault("fileName", node.get("data"));
-                        final List<String> labels = (List<String>) node.get("labels");
-                        loader.loadNodes(data, labels, db, idMapping);
-                    }
+                    final Map<String, IdMapper> idMapping = new HashMap<>();
+                    try {
+                        for (Map<String, Object> node : nodes) {
+                            final Object data = node.getOrDefault("fileName", node.get("data"));
+                            final List<String> labels = (List<String>) node.get("labels");
+                            loader.loadNodes(data, labels, db, idMapping);
+                        }
 
-                    for (Map<String, Object> relationship : relationships) {
-                        final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
-                        final String type = (String) relationship.get("type");
-                        loader.loadRelationships(fileName, type, db, idMapping);
+                        for (Map<String, Object> relationship : relationships) {
+                            final Object fileName = relationship.getOrDefault("fileName", relationship.get("data"));
+                            final String type = (String) relationship.get("type");
+                            loader.loadRelationships(fileName, type, db, idMapping);
+                        }
+                    } finally {
+                        idMapping.values().forEach(IdMapper::close);
                     }
 
                     return reporter.getTotal();
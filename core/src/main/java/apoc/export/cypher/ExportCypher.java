@@ -119,7 +119,7 @@ public class ExportCypher {
         ProgressInfo progressInfo = new ProgressInfo(fileName, source, "cypher");
         progressInfo.batchSize = c.getBatchSize();
         ProgressReporter reporter = new ProgressReporter(null, null, progressInfo);
-        boolean separatedFiles = !onlySchema && c.separateFiles();
+        boolean separatedFiles = !onlySchema && (c.separateFiles() || c.getParallel() > 1);
         ExportFileManager cypherFileManager = FileManagerFactory.createFileManager(fileName, separatedFiles);
 
         if (c.streamStatements()) {
@@ -127,7 +127,7 @@ public class ExportCypher {
             final BlockingQueue<DataProgressInfo> queue = new ArrayBlockingQueue<>(1000);
             ProgressReporter reporterWithConsumer = reporter.withConsumer(
                     (pi) -> QueueUtil.put(queue, pi == ProgressInfo.EMPTY ? DataProgressInfo.EMPTY : new DataProgressInfo(pi).enrich(cypherFileManager),timeout));
-            Util.inTxFuture(null, pools.getDefaultExecutorService(), db,
+            Util.inTxFuture(null, pools.getExecutorService(c.getLane()), db,
                     txInThread -> { doExport(graph, c, onlySchema, reporterWithConsumer, cypherFileManager); return true; },
                     0, _ignored -> {}, _ignored -> QueueUtil.put(queue, DataProgressInfo.EMPTY, timeout));
             QueueBasedSpliterator<DataProgressInfo> spliterator = new QueueBasedSpliterator<>(queue, DataProgressInfo.EMPTY, terminationGuard, Integer.MAX_VALUE);
@@ -139,7 +139,7 @@ public class ExportCypher {
     }
 
     private void doExport(SubGraph graph, ExportConfig c, boolean onlySchema, ProgressReporter reporter, ExportFileManager cypherFileManager) {
-        MultiStatementCypherSubGraphExporter exporter = new MultiStatementCypherSubGraphExporter(graph, c, db);
+        MultiStatementCypherSubGraphExporter exporter = new MultiStatementCypherSubGraphExporter(graph, c, db, tx, pools.getExecutorService(c.getLane()));
 
         if (onlySchema)
             exporter.exportOnlySchema(cypherFileManager, c);
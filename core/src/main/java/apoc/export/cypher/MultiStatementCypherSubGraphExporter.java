@@ -5,6 +5,9 @@ import apoc.export.cypher.formatter.CypherFormatterUtils;
 import apoc.export.util.ExportConfig;
 import apoc.export.util.ExportFormat;
 import apoc.export.util.Reporter;
+import apoc.result.ProgressInfo;
+import apoc.result.VirtualNode;
+import apoc.result.VirtualRelationship;
 import apoc.util.Util;
 import org.apache.commons.lang3.StringUtils;
 import org.neo4j.cypher.export.SubGraph;
@@ -12,9 +15,18 @@ import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.graphdb.schema.IndexType;
 import org.neo4j.internal.helpers.collection.Iterables;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -27,6 +39,9 @@ import static apoc.export.cypher.formatter.CypherFormatterUtils.UNIQUE_ID_PROP;
  * and which is removed after the import.
  * <p>
  * Outputs indexes and constraints at the beginning as their own transactions
+ * <p>
+ * With the `parallel` config the nodes and the relationships are split in shards of consecutive ids,
+ * each formatted by the pool in its own transaction into its own numbered file
  */
 public class MultiStatementCypherSubGraphExporter {
 
@@ -66,13 +81,25 @@ public class MultiStatementCypherSubGraphExporter {
     private CypherFormatter cypherFormat;
     private ExportConfig exportConfig;
     private GraphDatabaseService db;
+    private Transaction tx;
+    private ExecutorService pool;
 
     public MultiStatementCypherSubGraphExporter(SubGraph graph, ExportConfig config, GraphDatabaseService db) {
+        this(graph, config, db, null, null);
+    }
+
+    /**
+     * @param tx   the transaction of the exported entities, the shards are exported in parallel only if it has no changes
+     * @param pool the pool exporting the shards
+     */
+    public MultiStatementCypherSubGraphExporter(SubGraph graph, ExportConfig config, GraphDatabaseService db, Transaction tx, ExecutorService pool) {
         this.graph = graph;
         this.exportFormat = config.getFormat();
         this.exportConfig = config;
         this.cypherFormat = config.getCypherFormat().getFormatter();
         this.db = db;
+        this.tx = tx;
+        this.pool = pool;
         gatherUniqueConstraints();
     }
 
@@ -92,6 +119,18 @@ public class MultiStatementCypherSubGraphExporter {
      * @param cypherFileManager
      */
     public void export(ExportConfig config, Reporter reporter, ExportFileManager cypherFileManager) {
+        if (config.getParallel() > 1 && pool != null) {
+            if (cypherFileManager.getFileName() == null || !cypherFileManager.separatedFiles()) {
+                throw new IllegalArgumentException("The `parallel` config can be used only exporting to separate files");
+            }
+            // the shards read the entities by id in their own transactions, that can't see virtual entities or uncommitted changes
+            List<Roaring64NavigableMap> nodeShards = hasChanges(tx) ? null : shard(graph.getNodes(), config.getParallel());
+            List<Roaring64NavigableMap> relShards = nodeShards == null ? null : shard(graph.getRelationships(), config.getParallel());
+            if (relShards != null) {
+                exportParallel(config, reporter, cypherFileManager, nodeShards, relShards);
+                return;
+            }
+        }
 
         int batchSize = config.getBatchSize();
         ExportConfig.OptimizationType useOptimizations = config.getOptimizationType();
@@ -124,6 +163,218 @@ public class MultiStatementCypherSubGraphExporter {
         reporter.done();
     }
 
+    /**
+     * Writes every shard into its own file, e.g. for <code>/tmp/myexport.cypher</code>:
+     * <ul>
+     * <li>/tmp/myexport.schema.cypher</li>
+     * <li>/tmp/myexport.nodes.0001.cypher ... /tmp/myexport.nodes.000N.cypher</li>
+     * <li>/tmp/myexport.relationships.0001.cypher ... /tmp/myexport.relationships.000N.cypher</li>
+     * <li>/tmp/myexport.cleanup.cypher</li>
+     * </ul>
+     * Every file commits its own statements, so the files of a group can be replayed in any order,
+     * as long as the groups are replayed in the order above.
+     */
+    private void exportParallel(ExportConfig config, Reporter reporter, ExportFileManager cypherFileManager,
+                                List<Roaring64NavigableMap> nodeShards, List<Roaring64NavigableMap> relShards) {
+        Queue<Function<Transaction, ShardReporter>> shards = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < nodeShards.size(); i++) {
+            Roaring64NavigableMap ids = nodeShards.get(i);
+            String type = shardName("nodes", i);
+            shards.add(txInThread -> exportNodeShard(ids(ids, txInThread::getNodeById), cypherFileManager.getPrintWriter(type), config));
+        }
+        for (int i = 0; i < relShards.size(); i++) {
+            Roaring64NavigableMap ids = relShards.get(i);
+            String type = shardName("relationships", i);
+            shards.add(txInThread -> exportRelationshipShard(ids(ids, txInThread::getRelationshipById), cypherFileManager.getPrintWriter(type), config));
+        }
+
+        // the calling thread exports shards too, and only waits for the workers that started: the ones still queued
+        // are cancelled, so it never waits on a pool that is busy with its own caller, e.g. a streamed export
+        int workers = Math.min(config.getParallel(), shards.size()) - 1;
+        List<Future<List<ShardReporter>>> futures = new ArrayList<>(Math.max(0, workers));
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> exportShards(shards)));
+            }
+            List<ShardReporter> done = new ArrayList<>(exportShards(shards));
+            for (Future<List<ShardReporter>> future : futures) {
+                if (!future.cancel(false)) {
+                    done.addAll(future.get());
+                }
+            }
+            for (ShardReporter shard : done) {
+                artificialUniques += shard.artificialUniques;
+                reporter.update(shard.nodes, shard.relationships, shard.properties);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error exporting shard: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            shards.clear();
+            futures.forEach(future -> future.cancel(false));
+        }
+
+        PrintWriter schemaWriter = cypherFileManager.getPrintWriter("schema");
+        exportSchema(schemaWriter, config);
+        schemaWriter.close();
+        PrintWriter cleanupWriter = cypherFileManager.getPrintWriter("cleanup");
+        exportCleanUp(cleanupWriter, config.getBatchSize());
+        cleanupWriter.close();
+        reporter.done();
+    }
+
+    private static String shardName(String type, int shard) {
+        return String.format("%s.%04d", type, shard + 1);
+    }
+
+    /**
+     * Exports the shards left in the queue, each one in its own transaction
+     */
+    private List<ShardReporter> exportShards(Queue<Function<Transaction, ShardReporter>> shards) {
+        List<ShardReporter> done = new ArrayList<>();
+        Function<Transaction, ShardReporter> shard;
+        while ((shard = shards.poll()) != null) {
+            try (Transaction txInThread = db.beginTx()) {
+                done.add(shard.apply(txInThread));
+                txInThread.commit();
+            }
+        }
+        return done;
+    }
+
+    private static boolean hasChanges(Transaction tx) {
+        return tx != null && ((InternalTransaction) tx).kernelTransaction().hasTxStateWithChanges();
+    }
+
+    /**
+     * Splits the ids of the entities in at most {@code shards} ranges with the same number of ids
+     * @return null if there are virtual entities, that can't be read by id
+     */
+    private static List<Roaring64NavigableMap> shard(Iterable<? extends Entity> entities, int shards) {
+        Roaring64NavigableMap all = new Roaring64NavigableMap();
+        for (Entity entity : entities) {
+            if (entity.getId() < 0 || entity instanceof VirtualNode || entity instanceof VirtualRelationship) {
+                return null;
+            }
+            all.addLong(entity.getId());
+        }
+        long total = all.getLongCardinality();
+        List<Roaring64NavigableMap> result = new ArrayList<>(shards);
+        if (total == 0) return result;
+        long shardSize = (total + shards - 1) / shards;
+        LongIterator ids = all.getLongIterator();
+        Roaring64NavigableMap current = null;
+        for (long count = 0; ids.hasNext(); count++) {
+            if (count % shardSize == 0) {
+                current = new Roaring64NavigableMap();
+                result.add(current);
+            }
+            current.addLong(ids.next());
+        }
+        return result;
+    }
+
+    private static <T> Iterable<T> ids(Roaring64NavigableMap ids, LongFunction<T> lookup) {
+        return () -> new Iterator<>() {
+            private final LongIterator it = ids.getLongIterator();
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return lookup.apply(it.next());
+            }
+        };
+    }
+
+    private ShardReporter exportNodeShard(Iterable<Node> nodes, PrintWriter out, ExportConfig config) {
+        ShardReporter shard = new ShardReporter();
+        try {
+            if (config.getOptimizationType() == ExportConfig.OptimizationType.NONE) {
+                begin(out);
+                long count = 0;
+                for (Node node : nodes) {
+                    if (count > 0 && count % config.getBatchSize() == 0) restart(out);
+                    count++;
+                    shard.artificialUniques += countArtificialUniques(node);
+                    String cypher = this.cypherFormat.statementForNode(node, uniqueConstraints, indexedProperties, indexNames);
+                    if (Util.isNotNullOrEmpty(cypher)) {
+                        out.println(cypher);
+                        shard.update(1, 0, Iterables.count(node.getPropertyKeys()));
+                    }
+                }
+                commit(out);
+            } else {
+                shard.artificialUniques = countArtificialUniques(nodes);
+                this.cypherFormat.statementForNodes(nodes, uniqueConstraints, exportConfig, out, shard, db);
+            }
+        } finally {
+            out.close();
+        }
+        return shard;
+    }
+
+    private ShardReporter exportRelationshipShard(Iterable<Relationship> rels, PrintWriter out, ExportConfig config) {
+        ShardReporter shard = new ShardReporter();
+        try {
+            if (config.getOptimizationType() == ExportConfig.OptimizationType.NONE) {
+                begin(out);
+                long count = 0;
+                for (Relationship rel : rels) {
+                    if (count > 0 && count % config.getBatchSize() == 0) restart(out);
+                    count++;
+                    String cypher = this.cypherFormat.statementForRelationship(rel, uniqueConstraints, indexedProperties);
+                    if (cypher != null && !"".equals(cypher)) {
+                        out.println(cypher);
+                        shard.update(0, 1, Iterables.count(rel.getPropertyKeys()));
+                    }
+                }
+                commit(out);
+            } else {
+                this.cypherFormat.statementForRelationships(rels, uniqueConstraints, exportConfig, out, shard, db);
+            }
+        } finally {
+            out.close();
+        }
+        return shard;
+    }
+
+    /**
+     * Counts what a shard exported, so that only the calling thread updates the real reporter
+     */
+    private static class ShardReporter implements Reporter {
+        private long nodes;
+        private long relationships;
+        private long properties;
+        private long artificialUniques;
+
+        @Override
+        public void progress(String msg) {}
+
+        @Override
+        public synchronized void update(long nodes, long rels, long properties) {
+            this.nodes += nodes;
+            this.relationships += rels;
+            this.properties += properties;
+        }
+
+        @Override
+        public void done() {}
+
+        @Override
+        public ProgressInfo getTotal() {
+            return null;
+        }
+
+        @Override
+        public void nextRow() {}
+    }
+
     public void exportOnlySchema(ExportFileManager cypherFileManager, ExportConfig config) {
         PrintWriter schemaWriter = cypherFileManager.getPrintWriter("schema");
         exportSchema(schemaWriter, config);
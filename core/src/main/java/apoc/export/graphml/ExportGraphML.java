@@ -69,7 +69,8 @@ public class ExportGraphML {
             XmlGraphMLReader graphMLReader = new XmlGraphMLReader(db, tx).reporter(reporter)
                     .batchSize(exportConfig.getBatchSize())
                     .relType(exportConfig.defaultRelationshipType())
-                    .nodeLabels(exportConfig.readLabels());
+                    .nodeLabels(exportConfig.readLabels())
+                    .idMapper(exportConfig.getIdMapper(), exportConfig.getIdMapperMaxOffHeap());
 
             if (exportConfig.storeNodeIds()) graphMLReader.storeNodeIds();
             
@@ -122,7 +123,7 @@ public class ExportGraphML {
         ExportFileManager cypherFileManager = FileManagerFactory.createFileManager(fileName, false);
         final PrintWriter graphMl = cypherFileManager.getPrintWriter(format);
         if (exportConfig.streamStatements()) {
-            return ExportUtils.getProgressInfoStream(db, pools.getDefaultExecutorService() ,terminationGuard, format, exportConfig, reporter, cypherFileManager,
+            return ExportUtils.getProgressInfoStream(db, pools.getExecutorService(exportConfig.getLane()), terminationGuard, format, exportConfig, reporter, cypherFileManager,
                     (reporterWithConsumer) -> {
                         try {
                             exporter.write(graph, graphMl, reporterWithConsumer, exportConfig);
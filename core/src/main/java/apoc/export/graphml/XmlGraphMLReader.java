@@ -1,6 +1,8 @@
 package apoc.export.graphml;
 
 import apoc.export.util.BatchTransaction;
+import apoc.export.util.IdMapper;
+import apoc.export.util.OffHeapIdMapper;
 import apoc.export.util.Reporter;
 import apoc.util.JsonUtil;
 import org.apache.commons.lang3.StringUtils;
@@ -34,6 +36,8 @@ public class XmlGraphMLReader {
     private int batchSize = 40000;
     private Reporter reporter;
     private boolean labels;
+    private String idMapper = IdMapper.HEAP;
+    private long idMapperMaxOffHeap = OffHeapIdMapper.DEFAULT_MAX_OFF_HEAP;
 
     public XmlGraphMLReader storeNodeIds() {
         this.storeNodeIds = true;
@@ -55,6 +59,12 @@ public class XmlGraphMLReader {
         return this;
     }
 
+    public XmlGraphMLReader idMapper(String idMapper, long maxOffHeap) {
+        this.idMapper = IdMapper.checkType(idMapper);
+        this.idMapperMaxOffHeap = maxOffHeap;
+        return this;
+    }
+
     public XmlGraphMLReader reporter(Reporter reporter) {
         this.reporter = reporter;
         return this;
@@ -181,7 +191,6 @@ public class XmlGraphMLReader {
     }
 
     public long parseXML(Reader input) throws XMLStreamException {
-        Map<String, Long> cache = new HashMap<>(1024*32);
         XMLInputFactory inputFactory = XMLInputFactory.newInstance();
         inputFactory.setProperty("javax.xml.stream.isCoalescing", true);
         inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
@@ -190,7 +199,8 @@ public class XmlGraphMLReader {
         Map<String, Key> nodeKeys = new HashMap<>();
         Map<String, Key> relKeys = new HashMap<>();
         int count = 0;
-        try (BatchTransaction tx = new BatchTransaction(db, batchSize * 10, reporter)) {
+        try (IdMapper cache = IdMapper.create(idMapper, idMapperMaxOffHeap);
+             BatchTransaction tx = new BatchTransaction(db, batchSize * 10, reporter)) {
 
             while (reader.hasNext()) {
                 XMLEvent event = (XMLEvent) reader.next();
@@ -258,8 +268,8 @@ public class XmlGraphMLReader {
                         String source = getAttribute(element, SOURCE);
                         String target = getAttribute(element, TARGET);
                         String label = getAttribute(element, LABEL);
-                        Node from = tx.getTransaction().getNodeById(cache.get(source));
-                        Node to = tx.getTransaction().getNodeById(cache.get(target));
+                        Node from = getNode(tx, cache, source);
+                        Node to = getNode(tx, cache, target);
 
                         RelationshipType relationshipType = label == null ? getRelationshipType(reader) : RelationshipType.withName(label);
                         Relationship relationship = from.createRelationshipTo(to, relationshipType);
@@ -274,6 +284,14 @@ public class XmlGraphMLReader {
         return count;
     }
 
+    private Node getNode(BatchTransaction tx, IdMapper cache, String id) {
+        long nodeId = cache.get(id);
+        if (nodeId == IdMapper.NOT_FOUND) {
+            throw new IllegalStateException("Node with id " + id + " not found");
+        }
+        return tx.getTransaction().getNodeById(nodeId);
+    }
+
     private RelationshipType getRelationshipType(XMLEventReader reader) throws XMLStreamException {
         if (this.labels) {
             XMLEvent peek = reader.peek();
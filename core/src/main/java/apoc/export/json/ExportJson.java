@@ -94,7 +94,7 @@ public class ExportJson {
         JsonFormat exporter = new JsonFormat(db, getJsonFormat(config));
         ExportFileManager cypherFileManager = FileManagerFactory.createFileManager(fileName, false);
         if (exportConfig.streamStatements()) {
-            return ExportUtils.getProgressInfoStream(db, pools.getDefaultExecutorService() ,terminationGuard, format, exportConfig, reporter, cypherFileManager,
+            return ExportUtils.getProgressInfoStream(db, pools.getExecutorService(exportConfig.getLane()), terminationGuard, format, exportConfig, reporter, cypherFileManager,
                     (reporterWithConsumer) -> dump(data, exportConfig, reporterWithConsumer, exporter, cypherFileManager));
         } else {
             dump(data, exportConfig, reporter, exporter, cypherFileManager);
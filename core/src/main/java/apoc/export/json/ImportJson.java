@@ -8,6 +8,7 @@ import apoc.util.FileUtils;
 import apoc.util.JsonUtil;
 import apoc.util.Util;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Mode;
@@ -29,6 +30,9 @@ public class ImportJson {
     @Context
     public TerminationGuard terminationGuard;
 
+    @Context
+    public Log log;
+
     @Procedure(value = "apoc.import.json", mode = Mode.WRITE)
     @Description("apoc.import.json(urlOrBinaryFile,config) - imports the json list to the provided file")
     public Stream<ProgressInfo> all(@Name("urlOrBinaryFile") Object urlOrBinaryFile, @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
@@ -45,7 +49,7 @@ public class ImportJson {
 
                     try (final CountingReader reader = FileUtils.readerFor(urlOrBinaryFile, importJsonConfig.getCompressionAlgo());
                          final Scanner scanner = new Scanner(reader).useDelimiter("\n|\r");
-                         JsonImporter jsonImporter = new JsonImporter(importJsonConfig, db, reporter)) {
+                         JsonImporter jsonImporter = new JsonImporter(importJsonConfig, db, reporter, pools.getDefaultExecutorService(), log)) {
                         while (scanner.hasNext() && !Util.transactionIsTerminated(terminationGuard)) {
                             Map<String, Object> row = JsonUtil.OBJECT_MAPPER.readValue(scanner.nextLine(), Map.class);
                             jsonImporter.importRow(row);
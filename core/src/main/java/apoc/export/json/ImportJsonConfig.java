@@ -18,6 +18,9 @@ public class ImportJsonConfig extends CompressionConfig {
 
     private final String importIdName;
 
+    private final boolean parallel;
+    private final int concurrency;
+
     public ImportJsonConfig(Map<String, Object> config) {
         super(config);
         config = config == null ? Collections.emptyMap() : config;
@@ -26,6 +29,11 @@ public class ImportJsonConfig extends CompressionConfig {
         this.unwindBatchSize = Util.toInteger(config.getOrDefault("unwindBatchSize", 5000));
         this.txBatchSize = Util.toInteger(config.getOrDefault("txBatchSize", 5000));
         this.importIdName = (String) config.getOrDefault("importIdName", "neo4jImportId");
+        this.parallel = Util.toBoolean(config.getOrDefault("parallel", true));
+        this.concurrency = Util.toInteger(config.getOrDefault("concurrency", Runtime.getRuntime().availableProcessors()));
+        if (this.concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be > 0");
+        }
     }
 
     public String typeForNode(Collection<String> labels, String property) {
@@ -51,4 +59,12 @@ public class ImportJsonConfig extends CompressionConfig {
     public String getImportIdName() {
         return importIdName;
     }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
 }
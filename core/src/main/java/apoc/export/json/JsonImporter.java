@@ -3,11 +3,12 @@ package apoc.export.json;
 import apoc.export.util.Reporter;
 import apoc.util.Util;
 import com.google.common.collect.Iterables;
-import org.apache.commons.lang3.StringUtils;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.schema.Schema;
+import org.neo4j.internal.helpers.collection.Iterators;
+import org.neo4j.logging.Log;
 import org.neo4j.values.storable.DurationValue;
 import org.neo4j.values.storable.PointValue;
 
@@ -19,17 +20,32 @@ import java.time.LocalTime;
 import java.time.OffsetTime;
 import java.time.ZonedDateTime;
 import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+/**
+ * Imports the rows of the json export format with UNWIND statements.
+ * Consecutive rows with the same labels or relationship type are flushed in batches of {@code unwindBatchSize} rows,
+ * capped by {@code txBatchSize} as before, each committed in its own transaction,
+ * and the statement of each labels/type combination is built only once.
+ * Nodes are written by the calling thread, relationship batches can be written by up to {@code concurrency} threads
+ * of the pool, each in its own transaction retried on failure, since every node preceding them is already committed.
+ */
 public class JsonImporter implements Closeable {
+    private static final int MAX_RETRIES = 10;
+
     private static final String UNWIND = "UNWIND $rows AS row ";
     private static final String CREATE_NODE = UNWIND +
             "CREATE (n%s {%s: row.id}) SET n += row.properties";
@@ -40,11 +56,18 @@ public class JsonImporter implements Closeable {
     public static final String MISSING_CONSTRAINT_ERROR_MSG = "Missing constraint required for import. Execute this query: \n" +
             "CREATE CONSTRAINT ON (n:%s) assert n.%s IS UNIQUE;";
 
-    private final List<Map<String, Object>> paramList;
+    private List<Map<String, Object>> paramList;
     private final int unwindBatchSize;
     private final int txBatchSize;
     private final GraphDatabaseService db;
     private final Reporter reporter;
+    private final ExecutorService pool;
+    private final Log log;
+    private final int concurrency;
+
+    private final Map<List<String>, String> nodeStatements = new HashMap<>();
+    private final Map<Map<String, Object>, String> relStatements = new HashMap<>();
+    private final Deque<Future<Long>> relWriters = new ArrayDeque<>();
 
     private String lastType;
     private List<String> lastLabels;
@@ -55,12 +78,26 @@ public class JsonImporter implements Closeable {
     public JsonImporter(ImportJsonConfig importJsonConfig,
                         GraphDatabaseService db,
                         Reporter reporter) {
-        this.paramList = new ArrayList<>(importJsonConfig.getUnwindBatchSize());
+        this(importJsonConfig, db, reporter, null, null);
+    }
+
+    /**
+     * @param pool executor for the relationship batches, if null everything is written by the calling thread
+     */
+    public JsonImporter(ImportJsonConfig importJsonConfig,
+                        GraphDatabaseService db,
+                        Reporter reporter,
+                        ExecutorService pool,
+                        Log log) {
         this.db = db;
         this.txBatchSize = importJsonConfig.getTxBatchSize();
         this.unwindBatchSize = Math.min(importJsonConfig.getUnwindBatchSize(), txBatchSize);
+        this.paramList = new ArrayList<>(unwindBatchSize);
         this.reporter = reporter;
         this.importJsonConfig = importJsonConfig;
+        this.pool = pool;
+        this.log = log;
+        this.concurrency = pool != null && importJsonConfig.isParallel() ? importJsonConfig.getConcurrency() : 1;
     }
 
     public void importRow(Map<String, Object> param) {
@@ -84,24 +121,8 @@ public class JsonImporter implements Closeable {
         param.put("properties", convertProperties(type, properties, null));
 
         paramList.add(param);
-        if (paramList.size() % txBatchSize == 0) {
-            final Collection<List<Map<String, Object>>> results = chunkData();
-            paramList.clear();
-            // write
-            writeUnwindBatch(results);
-        }
-    }
-
-    private void writeUnwindBatch(Collection<List<Map<String, Object>>> results) {
-        try (final Transaction tx = db.beginTx()) {
-            results.forEach(resultList -> {
-                if (resultList.size() == unwindBatchSize) {
-                    write(tx, resultList);
-                } else {
-                    paramList.addAll(resultList);
-                }
-            });
-            tx.close();
+        if (paramList.size() >= unwindBatchSize) {
+            flush();
         }
     }
 
@@ -300,49 +321,80 @@ public class JsonImporter implements Closeable {
         return join.isBlank() ? join : (delimiter + join);
     }
 
-    private void write(Transaction tx, List<Map<String, Object>> resultList) {
-        if (resultList.isEmpty()) return;
-        final String type = (String) resultList.get(0).get("type");
-        String query;
-        switch (type) {
-            case "node":
-                query = String.format(CREATE_NODE, getLabelString(lastLabels), importJsonConfig.getImportIdName());
-                break;
-            case "relationship":
-                String rel = (String) lastRelTypes.get("label");
-                query = String.format(CREATE_RELS, getLabelString((List<String>) lastRelTypes.get("start")),
+    private String nodeStatement() {
+        return nodeStatements.computeIfAbsent(lastLabels, labels ->
+                String.format(CREATE_NODE, getLabelString(labels), importJsonConfig.getImportIdName()));
+    }
+
+    private String relStatement() {
+        return relStatements.computeIfAbsent(lastRelTypes, relType ->
+                String.format(CREATE_RELS, getLabelString((List<String>) relType.get("start")),
                         importJsonConfig.getImportIdName(),
-                        getLabelString((List<String>) lastRelTypes.get("end")),
-                        rel);
-                break;
-            default:
-                throw new IllegalArgumentException("Current type not supported: " + type);
+                        getLabelString((List<String>) relType.get("end")),
+                        relType.get("label")));
+    }
+
+    private void writeRelationships(String query, List<Map<String, Object>> rows) {
+        final Map<String, Object> params = Collections.singletonMap("rows", rows);
+        if (concurrency == 1) {
+            db.executeTransactionally(query, params);
+            return;
         }
-        if (StringUtils.isNotBlank(query)) {
-            db.executeTransactionally(query, Collections.singletonMap("rows", resultList));
+        while (relWriters.size() >= concurrency) {
+            await(relWriters.removeFirst());
+        }
+        // batches sharing nodes can deadlock each other, so they're retried
+        relWriters.addLast(Util.inTxFuture(log, pool, db,
+                tx -> Iterators.count(tx.execute(query, params)), MAX_RETRIES, retry -> {}, ignored -> {}));
+    }
+
+    private void awaitRelationships() {
+        try {
+            while (!relWriters.isEmpty()) {
+                await(relWriters.removeFirst());
+            }
+        } finally {
+            relWriters.forEach(future -> future.cancel(false));
+            relWriters.clear();
         }
     }
 
-    private Collection<List<Map<String, Object>>> chunkData() {
-        AtomicInteger chunkCounter = new AtomicInteger(0);
-        return paramList.stream()
-                .collect(Collectors.groupingBy(it -> chunkCounter.getAndIncrement() / unwindBatchSize))
-                .values();
+    private static void await(Future<Long> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        }
     }
 
     @Override
     public void close() throws IOException {
-        flush();
+        try {
+            flush();
+        } finally {
+            awaitRelationships();
+        }
         reporter.done();
     }
 
     private void flush() {
-        if (!paramList.isEmpty()) {
-            final Collection<List<Map<String, Object>>> results = chunkData();
-            try (final Transaction tx = db.beginTx()) {
-                results.forEach(resultList -> write(tx, resultList));
-            }
-            paramList.clear();
+        if (paramList.isEmpty()) return;
+        final List<Map<String, Object>> rows = paramList;
+        paramList = new ArrayList<>(unwindBatchSize);
+        switch (lastType) {
+            case "node":
+                db.executeTransactionally(nodeStatement(), Collections.singletonMap("rows", rows));
+                break;
+            case "relationship":
+                writeRelationships(relStatement(), rows);
+                break;
+            default:
+                throw new IllegalArgumentException("Current type not supported: " + lastType);
         }
     }
 }
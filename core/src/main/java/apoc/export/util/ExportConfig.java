@@ -158,10 +158,33 @@ public class ExportConfig extends CompressionConfig {
         return toBoolean(config.getOrDefault("storeNodeIds", false));
     }
 
+    /**
+     * @return the number of shards exported in parallel, {@code parallel: true} uses the number of processors
+     */
+    public int getParallel() {
+        Object parallel = config.getOrDefault("parallel", 1);
+        if (parallel instanceof Boolean) {
+            return (Boolean) parallel ? Runtime.getRuntime().availableProcessors() : 1;
+        }
+        return Math.max(1, Util.toInteger(parallel));
+    }
+
+    public String getIdMapper() {
+        return (String) config.getOrDefault("idMapper", IdMapper.HEAP);
+    }
+
+    public long getIdMapperMaxOffHeap() {
+        return Util.toLong(config.getOrDefault("idMapperMaxOffHeap", OffHeapIdMapper.DEFAULT_MAX_OFF_HEAP));
+    }
+
     public boolean separateFiles() {
         return toBoolean(config.getOrDefault("separateFiles", false));
     }
 
+    public String getLane() {
+        return (String) config.get("lane");
+    }
+
     private static Set<String> convertCaption(Object value) {
         if (value == null) return null;
         if (!(value instanceof List)) throw new RuntimeException("Only array of Strings are allowed!");
@@ -0,0 +1,27 @@
+package apoc.export.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the ids in a {@link HashMap}, fine for small and medium imports.
+ */
+public class HeapIdMapper implements IdMapper {
+    private final Map<String, Long> ids = new HashMap<>(1024 * 32);
+
+    @Override
+    public void put(String id, long nodeId) {
+        ids.put(id, nodeId);
+    }
+
+    @Override
+    public long get(String id) {
+        final Long nodeId = ids.get(id);
+        return nodeId == null ? NOT_FOUND : nodeId;
+    }
+
+    @Override
+    public long size() {
+        return ids.size();
+    }
+}
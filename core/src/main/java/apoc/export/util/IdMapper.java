@@ -0,0 +1,54 @@
+package apoc.export.util;
+
+/**
+ * Maps the ids of the imported file to the internal ids of the created nodes.
+ * Puts are done by a single thread, once they are done the mapper can be read concurrently.
+ */
+public interface IdMapper extends AutoCloseable {
+    long NOT_FOUND = -1;
+
+    String HEAP = "heap";
+    String NUMERIC = "numeric";
+    String OFFHEAP = "offheap";
+
+    void put(String id, long nodeId);
+
+    /**
+     * @return the internal id of the node mapped to the given id, or {@link #NOT_FOUND}
+     */
+    long get(String id);
+
+    default boolean containsKey(String id) {
+        return get(id) != NOT_FOUND;
+    }
+
+    long size();
+
+    @Override
+    default void close() {}
+
+    /**
+     * @param type one of {@code heap}, {@code numeric} (primitive map, ids must be longs)
+     *             or {@code offheap} (hashed ids out of the java heap)
+     * @param maxOffHeap bytes of key data the {@code offheap} mapper keeps in direct memory,
+     *                   before spilling to a memory-mapped temporary file
+     */
+    static IdMapper create(String type, long maxOffHeap) {
+        switch (checkType(type)) {
+            case NUMERIC:
+                return new NumericIdMapper();
+            case OFFHEAP:
+                return new OffHeapIdMapper(maxOffHeap);
+            default:
+                return new HeapIdMapper();
+        }
+    }
+
+    static String checkType(String type) {
+        final String normalized = type == null ? HEAP : type.toLowerCase();
+        if (!HEAP.equals(normalized) && !NUMERIC.equals(normalized) && !OFFHEAP.equals(normalized)) {
+            throw new IllegalArgumentException("Unknown idMapper '" + type + "', supported values are: " + HEAP + ", " + NUMERIC + ", " + OFFHEAP);
+        }
+        return normalized;
+    }
+}
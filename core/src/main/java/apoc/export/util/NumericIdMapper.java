@@ -0,0 +1,35 @@
+package apoc.export.util;
+
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+
+/**
+ * Keeps numeric ids in a primitive long to long map, without boxing or storing the id strings.
+ * Ids are compared by their numeric value, so "01" and "1" are the same id.
+ */
+public class NumericIdMapper implements IdMapper {
+    private final LongLongHashMap ids = new LongLongHashMap(1024 * 32);
+
+    @Override
+    public void put(String id, long nodeId) {
+        ids.put(parse(id), nodeId);
+    }
+
+    @Override
+    public long get(String id) {
+        if (id == null) return NOT_FOUND;
+        return ids.getIfAbsent(parse(id), NOT_FOUND);
+    }
+
+    @Override
+    public long size() {
+        return ids.size();
+    }
+
+    private static long parse(String id) {
+        try {
+            return Long.parseLong(id.trim());
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException("The numeric idMapper only supports integer ids, found: " + id);
+        }
+    }
+}
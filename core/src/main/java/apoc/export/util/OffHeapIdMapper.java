@@ -0,0 +1,280 @@
+package apoc.export.util;
+
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps string ids out of the java heap.
+ * The entries {@code [nodeId, hash, length, utf-8 bytes]} are appended to chunks of direct memory and indexed by
+ * open addressing hash tables, also in direct memory, split in segments so that no table outgrows a buffer.
+ * Once {@code maxOffHeap} bytes of chunks and tables are allocated the next ones are memory-mapped from a temporary file.
+ * All the buffers are released and the file is deleted on {@link #close()}.
+ */
+public class OffHeapIdMapper implements IdMapper {
+    public static final long DEFAULT_MAX_OFF_HEAP = 512L * 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 1 << 26;
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_SEGMENT_CAPACITY = 1 << 10;
+    private static final int MAX_SEGMENT_CAPACITY = 1 << 27;
+    private static final Unsafe UNSAFE = unsafe();
+
+    private final long maxOffHeap;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    // the direct and mapped buffers of the chunks and of the tables, released on close
+    private final Set<ByteBuffer> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private ByteBuffer current;
+    private long offHeapBytes;
+    private long size;
+
+    private Path spillFile;
+    private FileChannel spillChannel;
+    private long spillBytes;
+
+    public OffHeapIdMapper() {
+        this(DEFAULT_MAX_OFF_HEAP);
+    }
+
+    public OffHeapIdMapper(long maxOffHeap) {
+        this.maxOffHeap = maxOffHeap;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    public void put(String id, long nodeId) {
+        if (id == null) {
+            throw new IllegalArgumentException("The offheap idMapper doesn't support null ids");
+        }
+        final byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        final int hash = hash(key);
+        final Segment segment = segments[hash >>> (32 - SEGMENT_BITS)];
+        final long address = segment.find(hash, key);
+        if (address != NOT_FOUND) {
+            buffer(address).putLong(offset(address), nodeId);
+            return;
+        }
+        segment.insert(append(hash, key, nodeId));
+        size++;
+    }
+
+    @Override
+    public long get(String id) {
+        if (id == null) return NOT_FOUND;
+        final byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        final int hash = hash(key);
+        final long address = segments[hash >>> (32 - SEGMENT_BITS)].find(hash, key);
+        return address == NOT_FOUND ? NOT_FOUND : buffer(address).getLong(offset(address));
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return bytes of entries that were spilled to the memory-mapped file
+     */
+    public long spilledBytes() {
+        return spillBytes;
+    }
+
+    @Override
+    public void close() {
+        chunks.clear();
+        current = null;
+        for (Segment segment : segments) {
+            segment.buffer = null;
+            segment.table = null;
+        }
+        buffers.forEach(OffHeapIdMapper::free);
+        buffers.clear();
+        offHeapBytes = 0;
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                spillChannel = null;
+            }
+        }
+    }
+
+    private long append(int hash, byte[] key, long nodeId) {
+        final int entrySize = HEADER_SIZE + key.length;
+        if (entrySize > CHUNK_SIZE) {
+            throw new IllegalArgumentException("Id too long for the offheap idMapper: " + key.length + " bytes");
+        }
+        if (current == null || current.remaining() < entrySize) {
+            current = allocate(CHUNK_SIZE);
+            chunks.add(current);
+        }
+        final long address = ((long) (chunks.size() - 1) << 32) | current.position();
+        current.putLong(nodeId).putInt(hash).putInt(key.length).put(key);
+        return address;
+    }
+
+    /**
+     * @return a zeroed buffer of direct memory while the budget allows it, otherwise memory-mapped from the spill file
+     */
+    private ByteBuffer allocate(int bytes) {
+        final ByteBuffer buffer;
+        if (offHeapBytes + bytes <= maxOffHeap) {
+            offHeapBytes += bytes;
+            buffer = ByteBuffer.allocateDirect(bytes);
+        } else {
+            try {
+                if (spillChannel == null) {
+                    spillFile = Files.createTempFile("apoc-idmapper", ".bin");
+                    spillFile.toFile().deleteOnExit();
+                    spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+                // the file grows with zeros, as the direct memory
+                buffer = spillChannel.map(FileChannel.MapMode.READ_WRITE, spillBytes, bytes);
+                spillBytes += bytes;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot spill the idMapper to a temporary file", e);
+            }
+        }
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private void release(ByteBuffer buffer) {
+        if (buffers.remove(buffer)) {
+            if (!(buffer instanceof MappedByteBuffer)) {
+                offHeapBytes -= buffer.capacity();
+            }
+            free(buffer);
+        }
+    }
+
+    /**
+     * Frees the direct memory or unmaps the file region now, instead of when the buffer is garbage collected
+     */
+    private static void free(ByteBuffer buffer) {
+        UNSAFE.invokeCleaner(buffer);
+    }
+
+    private static Unsafe unsafe() {
+        try {
+            final Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private ByteBuffer buffer(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private boolean matches(long address, int hash, byte[] key) {
+        final ByteBuffer chunk = buffer(address);
+        final int offset = offset(address);
+        if (chunk.getInt(offset + Long.BYTES) != hash) return false;
+        if (chunk.getInt(offset + Long.BYTES + Integer.BYTES) != key.length) return false;
+        final int keyOffset = offset + HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(keyOffset + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    private int storedHash(long address) {
+        return buffer(address).getInt(offset(address) + Long.BYTES);
+    }
+
+    private static int hash(byte[] key) {
+        // murmur3 finalizer, to spread the bits used for the segment and the slot
+        int h = 1;
+        for (byte b : key) {
+            h = 31 * h + b;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Linear probing table of entry addresses, 0 marks an empty slot so addresses are stored plus one.
+     */
+    private class Segment {
+        private ByteBuffer buffer = allocate(INITIAL_SEGMENT_CAPACITY * Long.BYTES);
+        private LongBuffer table = buffer.asLongBuffer();
+        private int used;
+
+        long find(int hash, byte[] key) {
+            final int mask = table.capacity() - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                final long stored = table.get(slot);
+                if (stored == 0) return NOT_FOUND;
+                if (matches(stored - 1, hash, key)) return stored - 1;
+            }
+        }
+
+        void insert(long address) {
+            if ((used + 1) * 4L > table.capacity() * 3L) {
+                grow();
+            }
+            insertInto(table, address, storedHash(address));
+            used++;
+        }
+
+        private void grow() {
+            final int capacity = table.capacity() * 2;
+            if (capacity > MAX_SEGMENT_CAPACITY) {
+                throw new IllegalStateException("Too many ids for the offheap idMapper");
+            }
+            final ByteBuffer grownBuffer = allocate(capacity * Long.BYTES);
+            final LongBuffer grown = grownBuffer.asLongBuffer();
+            for (int slot = 0; slot < table.capacity(); slot++) {
+                final long stored = table.get(slot);
+                if (stored != 0) {
+                    insertInto(grown, stored - 1, storedHash(stored - 1));
+                }
+            }
+            release(buffer);
+            buffer = grownBuffer;
+            table = grown;
+        }
+
+        private void insertInto(LongBuffer target, long address, int hash) {
+            final int mask = target.capacity() - 1;
+            int slot = hash & mask;
+            while (target.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            target.put(slot, address + 1);
+        }
+    }
+}
@@ -1,16 +1,15 @@
 package apoc.load;
 
 import apoc.Pools;
+import apoc.export.arrow.ArrowFileBatches;
+import apoc.export.arrow.ColumnReader;
 import apoc.result.MapResult;
-import apoc.util.FileUtils;
 import apoc.util.JsonUtil;
 import apoc.util.Util;
 import org.apache.arrow.memory.RootAllocator;
-import org.apache.arrow.vector.BitVector;
-import org.apache.arrow.vector.DateMilliVector;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
-import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
 import org.apache.arrow.vector.ipc.ArrowReader;
 import org.apache.arrow.vector.ipc.ArrowStreamReader;
 import org.apache.arrow.vector.util.Text;
@@ -25,15 +24,25 @@ import org.neo4j.values.storable.Values;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.channels.SeekableByteChannel;
-import java.time.Instant;
-import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -41,6 +50,8 @@ import java.util.stream.StreamSupport;
 
 public class LoadArrow {
 
+    private static final int QUEUE_CAPACITY = 10_000;
+
     @Context
     public GraphDatabaseService db;
 
@@ -53,40 +64,35 @@ public class LoadArrow {
     @Context
     public TerminationGuard terminationGuard;
 
+    /**
+     * Reads an arrow stream a batch at a time, for sources that can't be split.
+     */
     private static class ArrowSpliterator extends Spliterators.AbstractSpliterator<MapResult> {
 
         private final ArrowReader reader;
         private final VectorSchemaRoot schemaRoot;
-        private final AtomicInteger counter;
+        private Iterator<MapResult> batch = Collections.emptyIterator();
 
-        public ArrowSpliterator(ArrowReader reader, VectorSchemaRoot schemaRoot) throws IOException {
+        public ArrowSpliterator(ArrowReader reader, VectorSchemaRoot schemaRoot) {
             super(Long.MAX_VALUE, Spliterator.ORDERED);
             this.reader = reader;
             this.schemaRoot = schemaRoot;
-            this.counter = new AtomicInteger();
-            this.reader.loadNextBatch();
         }
 
         @Override
-        public synchronized boolean tryAdvance(Consumer<? super MapResult> action) {
+        public boolean tryAdvance(Consumer<? super MapResult> action) {
             try {
-                if (counter.get() >= schemaRoot.getRowCount()) {
-                    if (reader.loadNextBatch()) {
-                        counter.set(0);
-                    } else {
+                while (!batch.hasNext()) {
+                    if (!reader.loadNextBatch()) {
                         return false;
                     }
+                    batch = toRows(schemaRoot, reader).iterator();
                 }
-                final Map<String, Object> row = schemaRoot.getFieldVectors()
-                        .stream()
-                        .collect(HashMap::new, (map, fieldVector) -> map.put(fieldVector.getName(), read(fieldVector, counter.get())), HashMap::putAll); // please look at https://bugs.openjdk.java.net/browse/JDK-8148463
-                counter.incrementAndGet();
-                action.accept(new MapResult(row));
+                action.accept(batch.next());
                 return true;
-            } catch (Exception e) {
-                return false;
+            } catch (IOException e) {
+                throw new RuntimeException("Error while reading the arrow batches", e);
             }
-
         }
     }
 
@@ -113,36 +119,204 @@ public class LoadArrow {
     public Stream<MapResult> file(
             @Name("source") String fileName,
             @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws IOException {
-        final SeekableByteChannel channel = FileUtils.inputStreamFor(fileName, null, null, null)
-                .asChannel();
-        RootAllocator allocator = new RootAllocator();
-        ArrowFileReader streamReader = new ArrowFileReader(channel, allocator);
-        VectorSchemaRoot schemaRoot = streamReader.getVectorSchemaRoot();
-        return StreamSupport.stream(new ArrowSpliterator(streamReader, schemaRoot), false)
+        final int concurrency = Util.toInteger(config.getOrDefault("concurrency", 1));
+        final String lane = (String) config.get("lane");
+        final ArrowFileBatches batches = ArrowFileBatches.open(fileName);
+        if (concurrency <= 1) {
+            return StreamSupport.stream(batches.spliterator(LoadArrow::toRows), false)
+                    .flatMap(List::stream)
+                    .onClose(batches::close);
+        }
+        return parallel(batches, concurrency, lane);
+    }
+
+    /**
+     * The rows of a split that aren't handed over yet, a split is converted by one thread at a time.
+     */
+    private static class Work {
+        private final Spliterator<List<MapResult>> split;
+        private Iterator<MapResult> rows = Collections.emptyIterator();
+        private MapResult next;
+
+        Work(Spliterator<List<MapResult>> split) {
+            this.split = split;
+        }
+
+        /**
+         * @return the next row of the split, or null when it's exhausted
+         */
+        MapResult next() {
+            if (next != null) {
+                final MapResult row = next;
+                next = null;
+                return row;
+            }
+            while (!rows.hasNext()) {
+                if (!split.tryAdvance(batch -> rows = batch.iterator())) {
+                    return null;
+                }
+            }
+            return rows.next();
+        }
+    }
+
+    /**
+     * Converts the batches of each split on the lane, the rows are not returned in file order.
+     * The workers never wait on the consumer: when the queue is full a worker gives its split back and stops,
+     * and the consumer submits a worker again once the queue drained below half its capacity.
+     * The consumer converts a split itself only when the lane rejects the workers.
+     * The first failure of a worker is rethrown by the consumer.
+     */
+    private Stream<MapResult> parallel(ArrowFileBatches batches, int concurrency, String lane) {
+        final ExecutorService pool = pools.getExecutorService(lane);
+        final BlockingQueue<MapResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final Queue<Work> pending = new ConcurrentLinkedQueue<>();
+        batches.split(LoadArrow::toRows, concurrency).forEach(split -> pending.add(new Work(split)));
+        final AtomicInteger remaining = new AtomicInteger(pending.size());
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean released = new AtomicBoolean();
+        final Runnable release = () -> {
+            if (closed.get() && active.get() == 0 && released.compareAndSet(false, true)) {
+                batches.close();
+            }
+        };
+        final Runnable worker = () -> {
+            try {
+                Work work;
+                while (!closed.get() && failure.get() == null && (work = pending.poll()) != null) {
+                    if (!offer(work, queue)) {
+                        // the consumer submits a worker again once the queue drained
+                        pending.add(work);
+                        return;
+                    }
+                    remaining.decrementAndGet();
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                active.decrementAndGet();
+                release.run();
+            }
+        };
+        final int workers = Math.max(1, Math.min(concurrency, remaining.get()));
+        // submits a worker for each split given back, while the queue has room for their rows
+        final Runnable submit = () -> {
+            while (!closed.get() && queue.size() < QUEUE_CAPACITY / 2 && active.get() < Math.min(workers, pending.size())) {
+                active.incrementAndGet();
+                try {
+                    pool.execute(worker);
+                } catch (RejectedExecutionException e) {
+                    // the consumer converts the splits that no worker took
+                    active.decrementAndGet();
+                    return;
+                }
+            }
+        };
+        submit.run();
+
+        final Spliterator<MapResult> consumer = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.NONNULL) {
+            private Work own;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super MapResult> action) {
+                while (true) {
+                    terminationGuard.check();
+                    rethrow(failure);
+                    submit.run();
+                    MapResult row = queue.poll();
+                    if (row == null && own == null && active.get() == 0) {
+                        own = pending.poll();
+                    }
+                    if (row == null && own != null) {
+                        row = own.next();
+                        if (row == null) {
+                            own = null;
+                            remaining.decrementAndGet();
+                            continue;
+                        }
+                    }
+                    if (row == null) {
+                        // the workers enqueue the rows of a split before counting it as done
+                        final boolean done = remaining.get() == 0;
+                        row = done ? queue.poll() : poll(queue);
+                        if (row == null) {
+                            if (done) {
+                                rethrow(failure);
+                                return false;
+                            }
+                            continue;
+                        }
+                    }
+                    action.accept(row);
+                    return true;
+                }
+            }
+        };
+        return StreamSupport.stream(consumer, false)
                 .onClose(() -> {
-                    Util.close(allocator);
-                    Util.close(streamReader);
-                    Util.close(schemaRoot);
-                    Util.close(channel);
+                    closed.set(true);
+                    release.run();
                 });
     }
 
-    private static Object read(FieldVector fieldVector, int index) {
-        if (fieldVector.isNull(index)) {
-            return null;
-        } else if (fieldVector instanceof DateMilliVector) {
-            DateMilliVector fe = (DateMilliVector) fieldVector;
-            return Instant.ofEpochMilli(fe.get(index)).atOffset(ZoneOffset.UTC);
-        } else if (fieldVector instanceof BitVector) {
-            BitVector fe = (BitVector) fieldVector;
-            return fe.get(index) == 1;
-        } else {
-            Object object = fieldVector.getObject(index);
-            return getObject(object);
+    /**
+     * Hands the rows of the split over without waiting for room in the queue.
+     * @return false if the queue is full, the split keeps the rows that aren't handed over
+     */
+    private boolean offer(Work work, BlockingQueue<MapResult> queue) {
+        MapResult row;
+        while ((row = work.next()) != null) {
+            if (Util.transactionIsTerminated(terminationGuard)) {
+                throw new IllegalStateException("The transaction has been terminated");
+            }
+            if (!queue.offer(row)) {
+                work.next = row;
+                return false;
+            }
         }
+        return true;
+    }
+
+    private static MapResult poll(BlockingQueue<MapResult> queue) {
+        try {
+            return queue.poll(100, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void rethrow(AtomicReference<Exception> failure) {
+        final Exception e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e != null) {
+            throw new RuntimeException("Error while reading the arrow batches", e);
+        }
+    }
+
+    private static List<MapResult> toRows(VectorSchemaRoot batch, DictionaryProvider dictionaries) {
+        final List<FieldVector> vectors = batch.getFieldVectors();
+        final ColumnReader[] readers = ColumnReader.forFields(vectors, dictionaries);
+        final List<MapResult> rows = new ArrayList<>(batch.getRowCount());
+        for (int index = 0; index < batch.getRowCount(); index++) {
+            final Map<String, Object> row = new HashMap<>();
+            for (int column = 0; column < readers.length; column++) {
+                final FieldVector vector = vectors.get(column);
+                row.put(vector.getName(), getObject(readers[column].read(vector, index)));
+            }
+            rows.add(new MapResult(row));
+        }
+        return rows;
     }
 
     private static Object getObject(Object object) {
+        if (object == null) {
+            return null;
+        }
         if (object instanceof Collection) {
             return ((Collection<?>) object).stream()
                     .map(LoadArrow::getObject)
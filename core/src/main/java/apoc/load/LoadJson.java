@@ -31,7 +31,7 @@ public class LoadJson {
     @Procedure
     @Description("apoc.load.jsonArray('url') YIELD value - load array from JSON URL (e.g. web-api) to import JSON as stream of values")
     public Stream<ObjectResult> jsonArray(@Name("url") String url, @Name(value = "path",defaultValue = "") String path, @Name(value = "config",defaultValue = "{}") Map<String, Object> config) {
-        return JsonUtil.loadJson(url, null, null, path, true, (List<String>) config.get("pathOptions"))
+        return JsonUtil.loadJson(url, null, null, path, true, null, (List<String>) config.get("pathOptions"), Util.toBoolean(config.get("streaming")))
                 .flatMap((value) -> {
                     if (value instanceof List) {
                         List list = (List) value;
@@ -57,18 +57,23 @@ public class LoadJson {
         boolean failOnError = (boolean) config.getOrDefault("failOnError", true);
         String compressionAlgo = (String) config.getOrDefault(COMPRESSION, CompressionAlgo.NONE.name());
         List<String> pathOptions = (List<String>) config.get("pathOptions");
-        return loadJsonStream(urlOrKeyOrBinary, headers, payload, path, failOnError, compressionAlgo, pathOptions);
+        boolean streaming = Util.toBoolean(config.get("streaming"));
+        return loadJsonStream(urlOrKeyOrBinary, headers, payload, path, failOnError, compressionAlgo, pathOptions, streaming);
     }
 
     public static Stream<MapResult> loadJsonStream(@Name("url") Object url, @Name("headers") Map<String, Object> headers, @Name("payload") String payload) {
         return loadJsonStream(url, headers, payload, "", true, null, null);
     }
     public static Stream<MapResult> loadJsonStream(@Name("urlOrKeyOrBinary") Object urlOrKeyOrBinary, @Name("headers") Map<String, Object> headers, @Name("payload") String payload, String path, boolean failOnError, String compressionAlgo, List<String> pathOptions) {
+        return loadJsonStream(urlOrKeyOrBinary, headers, payload, path, failOnError, compressionAlgo, pathOptions, false);
+    }
+
+    public static Stream<MapResult> loadJsonStream(@Name("urlOrKeyOrBinary") Object urlOrKeyOrBinary, @Name("headers") Map<String, Object> headers, @Name("payload") String payload, String path, boolean failOnError, String compressionAlgo, List<String> pathOptions, boolean streaming) {
         if (urlOrKeyOrBinary instanceof String) {
             headers = null != headers ? headers : new HashMap<>();
             headers.putAll(Util.extractCredentialsIfNeeded((String) urlOrKeyOrBinary, failOnError));
         }
-        Stream<Object> stream = JsonUtil.loadJson(urlOrKeyOrBinary,headers,payload, path, failOnError, compressionAlgo, pathOptions);
+        Stream<Object> stream = JsonUtil.loadJson(urlOrKeyOrBinary,headers,payload, path, failOnError, compressionAlgo, pathOptions, streaming);
         return stream.flatMap((value) -> {
             if (value instanceof Map) {
                 return Stream.of(new MapResult((Map) value));
@@ -79,10 +84,20 @@ public class LoadJson {
                     return ((List) value).stream().map((v) -> new MapResult((Map) v));
                 return Stream.of(new MapResult(Collections.singletonMap("result",value)));
             }
-            if(!failOnError)
-                throw new RuntimeException("Incompatible Type " + (value == null ? "null" : value.getClass()));
+            if (!streaming) {
+                if(!failOnError)
+                    throw new RuntimeException("Incompatible Type " + (value == null ? "null" : value.getClass()));
+                else
+                    return Stream.of(new MapResult(Collections.emptyMap()));
+            }
+            // the streamed elements of an array can be scalar values
+            if (value != null) {
+                return Stream.of(new MapResult(Collections.singletonMap("result", value)));
+            }
+            if (failOnError)
+                throw new RuntimeException("Incompatible Type null");
             else
-                return Stream.of(new MapResult(Collections.emptyMap()));
+                return Stream.empty();
         });
     }
 
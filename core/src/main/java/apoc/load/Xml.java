@@ -61,6 +61,7 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static apoc.util.CompressionConfig.COMPRESSION;
 import static apoc.util.FileUtils.getInputStreamFromBinary;
@@ -73,6 +74,13 @@ public class Xml {
         FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
     }
 
+    private static final XMLInputFactory STREAMING_FACTORY = XMLInputFactory.newFactory();
+    static {
+        STREAMING_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+        STREAMING_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        STREAMING_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
     @Context
     public ApocConfig apocConfig;
 
@@ -103,6 +111,9 @@ public class Xml {
         try {
             Map<String, Object> headers = (Map) config.getOrDefault("headers", Collections.emptyMap());
             CountingInputStream is = FileUtils.inputStreamFor(urlOrBinary, headers, null, (String) config.getOrDefault(COMPRESSION, CompressionAlgo.NONE.name()));
+            if (Util.toBoolean(config.get("streaming"))) {
+                return stream(is, simpleMode, path, failOnError);
+            }
             return parse(is, simpleMode, path, failOnError);
         } catch (Exception e){
             if(!failOnError)
@@ -112,6 +123,27 @@ public class Xml {
         }
     }
 
+    /**
+     * Reads the elements matching the path while parsing, see {@link XmlStreamPath} for the supported paths
+     */
+    private Stream<MapResult> stream(InputStream data, boolean simpleMode, String path, boolean failOnError) throws Exception {
+        try {
+            XmlStreamPath streamPath = XmlStreamPath.parse(path);
+            XMLStreamReader reader = STREAMING_FACTORY.createXMLStreamReader(data);
+            return StreamSupport.stream(new XmlStreamSpliterator(reader, streamPath, simpleMode, failOnError), false)
+                    .onClose(() -> {
+                        try {
+                            reader.close();
+                        } catch (XMLStreamException ignored) {
+                        }
+                        Util.close(data);
+                    });
+        } catch (Exception e) {
+            Util.close(data);
+            throw e;
+        }
+    }
+
     private Stream<MapResult> parse(InputStream data, boolean simpleMode, String path, boolean failOnError) throws Exception {
         List<MapResult> result = new ArrayList<>();
         try {
@@ -288,6 +320,10 @@ public class Xml {
                 break;
         }
 
+        putText(elementMap, text);
+    }
+
+    static void putText(Map<String, Object> elementMap, Object text) {
         // If the text is valid ...
         if (!StringUtils.isEmpty(text.toString())) {
             // We check if we have already collected some text previously
@@ -306,7 +342,7 @@ public class Xml {
      * @param text
      * @return
      */
-    private String normalizeText(String text) {
+    static String normalizeText(String text) {
         String[] tokens = StringUtils.split(text, "\n");
         for (int i = 0; i < tokens.length; i++) {
             tokens[i] = tokens[i].trim();
@@ -0,0 +1,168 @@
+package apoc.load;
+
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The subset of XPath that can be matched while streaming: element steps separated by {@code /} or {@code //},
+ * the {@code *} wildcard, and predicates on attributes ({@code [@id]}, {@code [@id='42']}) or on the position
+ * among the siblings with the same name ({@code book[2]}), or among all the siblings for the wildcard ({@code *[2]}).
+ * Names are matched on their local name, ignoring namespaces.
+ * <p>
+ * The path is evaluated as a set of states per open element: state {@code i} means that the first {@code i}
+ * steps match the element, so the element matches the path when the last state is reached.
+ */
+class XmlStreamPath {
+
+    private static final Pattern STEP = Pattern.compile("(//?)([\\w.\\-]+:)?([\\w.\\-]+|\\*)((?:\\[[^\\]]*])*)");
+    private static final Pattern PREDICATE = Pattern.compile("\\[\\s*(?:@([\\w.\\-:]+)\\s*(?:=\\s*(?:'([^']*)'|\"([^\"]*)\"))?|(\\d+))\\s*]");
+
+    private final List<Step> steps;
+
+    private XmlStreamPath(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    static XmlStreamPath parse(String path) {
+        String normalized = path == null ? "" : path.trim();
+        if (normalized.isEmpty() || normalized.equals("/")) {
+            return new XmlStreamPath(List.of());
+        }
+        if (!normalized.startsWith("/")) {
+            // relative to the document, as the XPath evaluated on the whole document
+            normalized = "/" + normalized;
+        }
+        final List<Step> steps = new ArrayList<>();
+        final Matcher matcher = STEP.matcher(normalized);
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            steps.add(new Step(matcher.group(1).length() == 2, matcher.group(3), parsePredicates(path, matcher.group(4))));
+            end = matcher.end();
+        }
+        if (end != normalized.length()) {
+            throw new IllegalArgumentException("The path `" + path + "` is not supported in streaming mode, " +
+                    "only element steps with attribute or position predicates are");
+        }
+        return new XmlStreamPath(steps);
+    }
+
+    private static List<Predicate> parsePredicates(String path, String predicates) {
+        final List<Predicate> result = new ArrayList<>();
+        final Matcher matcher = PREDICATE.matcher(predicates);
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            if (matcher.group(4) != null) {
+                if (!result.isEmpty()) {
+                    // after another predicate the position would be among the filtered siblings
+                    break;
+                }
+                result.add(new Predicate(null, null, Integer.parseInt(matcher.group(4))));
+            } else {
+                final String value = matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+                result.add(new Predicate(matcher.group(1), value, 0));
+            }
+            end = matcher.end();
+        }
+        if (end != predicates.length()) {
+            throw new IllegalArgumentException("The predicates `" + predicates + "` of the path `" + path + "` are not supported in streaming mode");
+        }
+        return result;
+    }
+
+    /**
+     * @return true for {@code /}, which matches the root element
+     */
+    boolean isRoot() {
+        return steps.isEmpty();
+    }
+
+    BitSet initialStates() {
+        final BitSet states = new BitSet();
+        states.set(0);
+        return states;
+    }
+
+    /**
+     * @param parentStates the states of the parent element
+     * @param namePosition the position of the element among the siblings with the same local name, from 1
+     * @param position the position of the element among all its siblings, from 1
+     */
+    BitSet next(BitSet parentStates, XMLStreamReader element, int namePosition, int position) {
+        final BitSet states = new BitSet();
+        for (int i = parentStates.nextSetBit(0); i >= 0 && i < steps.size(); i = parentStates.nextSetBit(i + 1)) {
+            final Step step = steps.get(i);
+            if (step.descendant) {
+                states.set(i);
+            }
+            if (step.matches(element, step.isWildcard() ? position : namePosition)) {
+                states.set(i + 1);
+            }
+        }
+        return states;
+    }
+
+    boolean matches(BitSet states) {
+        return states.get(steps.size());
+    }
+
+    private static class Step {
+        private final boolean descendant;
+        private final String name;
+        private final List<Predicate> predicates;
+
+        Step(boolean descendant, String name, List<Predicate> predicates) {
+            this.descendant = descendant;
+            this.name = name;
+            this.predicates = predicates;
+        }
+
+        boolean isWildcard() {
+            return name.equals("*");
+        }
+
+        boolean matches(XMLStreamReader element, int position) {
+            if (!isWildcard() && !name.equals(element.getLocalName())) {
+                return false;
+            }
+            for (Predicate predicate : predicates) {
+                if (!predicate.matches(element, position)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Predicate {
+        private final String attribute;
+        private final String value;
+        private final int position;
+
+        Predicate(String attribute, String value, int position) {
+            this.attribute = attribute;
+            this.value = value;
+            this.position = position;
+        }
+
+        boolean matches(XMLStreamReader element, int position) {
+            if (attribute == null) {
+                return this.position == position;
+            }
+            for (int i = 0; i < element.getAttributeCount(); i++) {
+                final String prefix = element.getAttributePrefix(i);
+                final String name = prefix == null || prefix.isEmpty()
+                        ? element.getAttributeLocalName(i)
+                        : prefix + ":" + element.getAttributeLocalName(i);
+                if (name.equals(attribute)) {
+                    return value == null || Objects.equals(value, element.getAttributeValue(i));
+                }
+            }
+            return false;
+        }
+    }
+}
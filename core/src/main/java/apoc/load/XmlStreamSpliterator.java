@@ -0,0 +1,176 @@
+package apoc.load;
+
+import apoc.result.MapResult;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Emits the elements matching a {@link XmlStreamPath} as soon as they are closed, with the same maps as the
+ * DOM based {@code apoc.load.xml}. Only the open elements and the matching element being read are kept in memory,
+ * the subtrees that can't contain a match are skipped.
+ * A match nested in another one is only returned as part of the outer one.
+ */
+class XmlStreamSpliterator extends Spliterators.AbstractSpliterator<MapResult> {
+
+    private final XMLStreamReader reader;
+    private final XmlStreamPath path;
+    private final boolean simpleMode;
+    private final boolean failOnError;
+
+    // the states and the sibling counts of the open elements, until the first match
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    // the open elements of the match being read
+    private final Deque<Element> elements = new ArrayDeque<>();
+    // the depth in a subtree without matches
+    private int skipped;
+
+    XmlStreamSpliterator(XMLStreamReader reader, XmlStreamPath path, boolean simpleMode, boolean failOnError) {
+        super(Long.MAX_VALUE, ORDERED | NONNULL);
+        this.reader = reader;
+        this.path = path;
+        this.simpleMode = simpleMode;
+        this.failOnError = failOnError;
+        this.frames.push(new Frame(path.initialStates()));
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super MapResult> action) {
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        startElement();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (!elements.isEmpty()) {
+                            Xml.putText(elements.peek().map, Xml.normalizeText(reader.getText()));
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        final Map<String, Object> match = endElement();
+                        if (match != null) {
+                            action.accept(new MapResult(match));
+                            return true;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return false;
+        } catch (XMLStreamException e) {
+            if (failOnError) {
+                throw new RuntimeException("Can't read the xml: " + e.getMessage(), e);
+            }
+            return false;
+        }
+    }
+
+    private void startElement() {
+        if (!elements.isEmpty()) {
+            elements.push(new Element(reader));
+            return;
+        }
+        if (skipped > 0) {
+            skipped++;
+            return;
+        }
+        final Frame parent = frames.peek();
+        final boolean matches;
+        BitSet states = null;
+        if (path.isRoot()) {
+            matches = frames.size() == 1;
+        } else {
+            states = path.next(parent.states, reader, parent.countSibling(reader.getLocalName()), parent.siblings);
+            matches = path.matches(states);
+        }
+        if (matches) {
+            elements.push(new Element(reader));
+        } else if (states == null || states.isEmpty()) {
+            skipped = 1;
+        } else {
+            frames.push(new Frame(states));
+        }
+    }
+
+    /**
+     * @return the matching element when it's closed
+     */
+    private Map<String, Object> endElement() {
+        if (!elements.isEmpty()) {
+            final Element element = elements.pop();
+            final Map<String, Object> map = element.build(simpleMode);
+            if (elements.isEmpty()) {
+                return map;
+            }
+            elements.peek().children.add(map);
+        } else if (skipped > 0) {
+            skipped--;
+        } else {
+            frames.pop();
+        }
+        return null;
+    }
+
+    private static class Frame {
+        private final BitSet states;
+        private final Map<String, Integer> namedSiblings = new HashMap<>();
+        private int siblings;
+
+        Frame(BitSet states) {
+            this.states = states;
+        }
+
+        int countSibling(String name) {
+            siblings++;
+            return namedSiblings.merge(name, 1, Integer::sum);
+        }
+    }
+
+    private static class Element {
+        private final String name;
+        private final Map<String, Object> map = new LinkedHashMap<>();
+        private final List<Object> children = new ArrayList<>();
+
+        Element(XMLStreamReader reader) {
+            this.name = reader.getLocalName();
+            map.put("_type", name);
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                final String prefix = reader.getNamespacePrefix(i);
+                map.put(prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix, reader.getNamespaceURI(i));
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                final String prefix = reader.getAttributePrefix(i);
+                final String attribute = reader.getAttributeLocalName(i);
+                map.put(prefix == null || prefix.isEmpty() ? attribute : prefix + ":" + attribute, reader.getAttributeValue(i));
+            }
+        }
+
+        Map<String, Object> build(boolean simpleMode) {
+            if (!children.isEmpty()) {
+                // as with the DOM, the mixed text goes after the children
+                final Object text = map.get("_text");
+                if (text instanceof List) {
+                    children.addAll((List<?>) text);
+                    map.remove("_text");
+                }
+                map.put(simpleMode ? "_" + name : "_children", children);
+            }
+            return map;
+        }
+    }
+}
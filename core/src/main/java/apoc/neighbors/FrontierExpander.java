@@ -0,0 +1,152 @@
+package apoc.neighbors;
+
+import apoc.util.Util;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.helpers.collection.Pair;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Expands a frontier of node ids by one hop through kernel cursors, without creating Node or Relationship objects.
+ * Frontiers larger than {@link #PARALLEL_THRESHOLD} are split into chunks that are expanded by the calling transaction
+ * and by workers of the pool, each worker with its own transaction and cursors, and the partial bitmaps are or-ed together.
+ * The workers can't see the changes of the calling transaction, so when it has some, and for smaller frontiers,
+ * the whole frontier is expanded in the calling transaction.
+ */
+class FrontierExpander {
+    static final int PARALLEL_THRESHOLD = 10_000;
+    private static final int MIN_CHUNK_SIZE = 1_000;
+
+    private final GraphDatabaseService db;
+    private final Transaction tx;
+    private final ExecutorService pool;
+    private final int concurrency;
+    private final List<RelationshipSelection> selections;
+
+    FrontierExpander(GraphDatabaseService db, Transaction tx, ExecutorService pool, int concurrency, List<Pair<RelationshipType, Direction>> typesAndDirections) {
+        this.db = db;
+        this.tx = tx;
+        this.pool = pool;
+        this.concurrency = Math.max(1, concurrency);
+        this.selections = selections(kernelTransaction(tx).tokenRead(), typesAndDirections);
+    }
+
+    private static List<RelationshipSelection> selections(TokenRead tokenRead, List<Pair<RelationshipType, Direction>> typesAndDirections) {
+        List<RelationshipSelection> selections = new ArrayList<>(typesAndDirections.size());
+        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
+            if (pair.first() == null) {
+                selections.add(RelationshipSelection.selection(pair.other()));
+            } else {
+                int type = tokenRead.relationshipType(pair.first().name());
+                // unknown types can't have any relationships
+                if (type != TokenRead.NO_TOKEN) {
+                    selections.add(RelationshipSelection.selection(type, pair.other()));
+                }
+            }
+        }
+        return selections;
+    }
+
+    Roaring64NavigableMap expand(long nodeId) {
+        Roaring64NavigableMap next = new Roaring64NavigableMap();
+        expandInto(kernelTransaction(tx), new long[]{nodeId}, 1, next);
+        return next;
+    }
+
+    Roaring64NavigableMap expand(Roaring64NavigableMap frontier) {
+        long size = frontier.getLongCardinality();
+        Roaring64NavigableMap next = new Roaring64NavigableMap();
+        if (size == 0 || selections.isEmpty()) return next;
+        KernelTransaction ktx = kernelTransaction(tx);
+        if (size < PARALLEL_THRESHOLD || pool == null || concurrency == 1 || ktx.hasTxStateWithChanges()) {
+            LongIterator ids = frontier.getLongIterator();
+            long[] chunk = new long[(int) size];
+            int count = 0;
+            while (ids.hasNext()) chunk[count++] = ids.next();
+            expandInto(ktx, chunk, count, next);
+            return next;
+        }
+
+        int chunkSize = (int) Math.max(MIN_CHUNK_SIZE, (size + concurrency - 1) / concurrency);
+        Queue<long[]> chunks = new ConcurrentLinkedQueue<>();
+        LongIterator ids = frontier.getLongIterator();
+        while (ids.hasNext()) {
+            long[] chunk = new long[(int) Math.min(chunkSize, size)];
+            int count = 0;
+            while (count < chunk.length && ids.hasNext()) chunk[count++] = ids.next();
+            chunks.add(count == chunk.length ? chunk : Arrays.copyOf(chunk, count));
+            size -= count;
+        }
+
+        // the calling thread expands chunks too, and only waits for the workers that started:
+        // the ones still queued are cancelled, so it never waits on a pool busy with its own callers
+        List<Future<Roaring64NavigableMap>> futures = new ArrayList<>(concurrency);
+        try {
+            for (int i = 1; i < Math.min(concurrency, chunks.size()); i++) {
+                futures.add(Util.inTxFuture(pool, db, txInThread -> drain(kernelTransaction(txInThread), chunks)));
+            }
+            next.or(drain(ktx, chunks));
+            for (Future<Roaring64NavigableMap> future : futures) {
+                if (!future.cancel(false)) {
+                    next.or(future.get());
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            chunks.clear();
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException("Error expanding neighbors: " + e.getMessage(), e);
+        }
+        return next;
+    }
+
+    private Roaring64NavigableMap drain(KernelTransaction ktx, Queue<long[]> chunks) {
+        Roaring64NavigableMap partial = new Roaring64NavigableMap();
+        long[] chunk;
+        while ((chunk = chunks.poll()) != null) {
+            expandInto(ktx, chunk, chunk.length, partial);
+        }
+        return partial;
+    }
+
+    private void expandInto(KernelTransaction ktx, long[] nodeIds, int count, Roaring64NavigableMap next) {
+        CursorFactory cursors = ktx.cursors();
+        Read read = ktx.dataRead();
+        try (NodeCursor nodeCursor = cursors.allocateNodeCursor(ktx.cursorContext());
+             RelationshipTraversalCursor relCursor = cursors.allocateRelationshipTraversalCursor(ktx.cursorContext())) {
+            for (int i = 0; i < count; i++) {
+                read.singleNode(nodeIds[i], nodeCursor);
+                if (!nodeCursor.next()) continue;
+                for (RelationshipSelection selection : selections) {
+                    nodeCursor.relationships(relCursor, selection);
+                    while (relCursor.next()) {
+                        next.addLong(relCursor.otherNodeReference());
+                    }
+                }
+            }
+        }
+    }
+
+    private static KernelTransaction kernelTransaction(Transaction tx) {
+        return ((InternalTransaction) tx).kernelTransaction();
+    }
+}
@@ -1,12 +1,12 @@
 package apoc.neighbors;
 
+import apoc.ApocConfig;
+import apoc.Pools;
 import apoc.result.ListResult;
 import apoc.result.LongResult;
 import apoc.result.NodeListResult;
 import apoc.result.NodeResult;
 import org.neo4j.graphdb.*;
-import org.neo4j.internal.helpers.collection.Iterables;
-import org.neo4j.internal.helpers.collection.Pair;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
@@ -25,86 +25,74 @@ public class Neighbors {
     @Context
     public Transaction tx;
 
-    private Iterable<Relationship> getRelationshipsByTypeAndDirection(Node node, Pair<RelationshipType, Direction> typesAndDirection) {
-        // as policy if both elements in the pair are null we return an empty result
-        if (typesAndDirection.first() == null) {
-            return typesAndDirection.other() == null ? Iterables.empty() : node.getRelationships(typesAndDirection.other());
-        }
-        if (typesAndDirection.other() == null) {
-            return typesAndDirection.first() == null ? Iterables.empty() : node.getRelationships(typesAndDirection.first());
-        }
-        return node.getRelationships(typesAndDirection.other(), typesAndDirection.first());
-    }
+    @Context
+    public GraphDatabaseService db;
 
-    @Procedure("apoc.neighbors.tohop")
-    @Description("apoc.neighbors.tohop(node, rel-direction-pattern, distance) - returns distinct nodes of the given relationships in the pattern up to a certain distance, can use '>' or '<' for all outgoing or incoming relationships")
-    public Stream<NodeResult> neighbors(@Name("node") Node node, @Name(value = "types", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance) {
-        if (distance < 1) return Stream.empty();
-        if (types==null || types.isEmpty()) return Stream.empty();
+    @Context
+    public Pools pools;
 
+    @Context
+    public ApocConfig apocConfig;
+
+    private FrontierExpander expander(String types) {
+        return new FrontierExpander(db, tx,
+                pools.getExecutorService(apocConfig.getString(ApocConfig.APOC_NEIGHBORS_LANE, Pools.DEFAULT_LANE)),
+                apocConfig.getInt(ApocConfig.APOC_NEIGHBORS_CONCURRENCY, Pools.DEFAULT_POOL_THREADS),
+                parse(types));
+    }
+
+    /**
+     * @return the distinct nodes up to the given distance, without the start node
+     */
+    private Roaring64NavigableMap toHop(Node node, String types, long distance) {
+        FrontierExpander expander = expander(types);
         final long startNodeId = node.getId();
 
-        // Initialize bitmaps for iteration
         Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        long nodeId = node.getId();
-        seen.addLong(nodeId);
-        Iterator<Long> iterator;
+        seen.addLong(startNodeId);
+        Roaring64NavigableMap next = expander.expand(startNodeId);
+        for (int i = 1; i < distance && !next.isEmpty(); i++) {
+            next.andNot(seen);
+            seen.or(next);
+            next = expander.expand(next);
+        }
+        seen.or(next);
+        // remove starting node
+        seen.removeLong(startNodeId);
+        return seen;
+    }
 
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
+    /**
+     * @return the distinct nodes first reached at each distance
+     */
+    private Roaring64NavigableMap[] byHop(Node node, String types, long distance) {
+        FrontierExpander expander = expander(types);
+        final long startNodeId = node.getId();
 
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.addLong(r.getOtherNodeId(nodeId));
+        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[(int) distance];
+        seen[0] = expander.expand(startNodeId);
+        for (int i = 1; i < distance; i++) {
+            seen[i] = expander.expand(seen[i - 1]);
+            for (int j = 0; j < i; j++) {
+                seen[i].andNot(seen[j]);
             }
+            seen[i].removeLong(startNodeId);
         }
+        return seen;
+    }
 
-        for(int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeId = iterator.next();
-                node = tx.getNodeById(nodeId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add((r.getOtherNodeId(nodeId)));
-                    }
-                }
-            }
+    private Stream<Node> nodes(Roaring64NavigableMap ids) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(ids.iterator(), Spliterator.SORTED), false)
+                .map(id -> tx.getNodeById(id));
+    }
 
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeId = iterator.next();
-                    node = tx.getNodeById(nodeId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(r.getOtherNodeId(nodeId));
-                        }
-                    }
-                }
-            }
-        }
-        if((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
+    @Procedure("apoc.neighbors.tohop")
+    @Description("apoc.neighbors.tohop(node, rel-direction-pattern, distance) - returns distinct nodes of the given relationships in the pattern up to a certain distance, can use '>' or '<' for all outgoing or incoming relationships")
+    public Stream<NodeResult> neighbors(@Name("node") Node node, @Name(value = "types", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance) {
+        if (distance < 1) return Stream.empty();
+        if (types==null || types.isEmpty()) return Stream.empty();
 
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(seen.iterator(), Spliterator.SORTED), false)
-                .map(x -> new NodeResult(tx.getNodeById(x)));
+        return nodes(toHop(node, types, distance)).map(NodeResult::new);
     }
 
     @Procedure("apoc.neighbors.tohop.count")
@@ -113,67 +101,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        final long startNodeId = node.getId();
-
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap seen = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextA = new Roaring64NavigableMap();
-        Roaring64NavigableMap nextB = new Roaring64NavigableMap();
-        long nodeId = node.getId();
-        seen.add(nodeId);
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                nextB.add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            // next even Hop
-            nextB.andNot(seen);
-            seen.or(nextB);
-            nextA.clear();
-            iterator = nextB.iterator();
-            while (iterator.hasNext()) {
-                nodeId = iterator.next();
-                node = tx.getNodeById(nodeId);
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        nextA.add(r.getOtherNodeId(nodeId));
-                    }
-                }
-            }
-
-            i++;
-            if (i < distance) {
-                // next odd Hop
-                nextA.andNot(seen);
-                seen.or(nextA);
-                nextB.clear();
-                iterator = nextA.iterator();
-                while (iterator.hasNext()) {
-                    nodeId = iterator.next();
-                    node = tx.getNodeById(nodeId);
-                    for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                        for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                            nextB.add(r.getOtherNodeId(nodeId));
-                        }
-                    }
-                }
-            }
-        }
-        if((distance % 2) == 0) {
-            seen.or(nextA);
-        } else {
-            seen.or(nextB);
-        }
-        // remove starting node
-        seen.removeLong(startNodeId);
-
-        return Stream.of(new LongResult(seen.getLongCardinality()));
+        return Stream.of(new LongResult(toHop(node, types, distance).getLongCardinality()));
     }
 
     @Procedure("apoc.neighbors.byhop")
@@ -182,43 +110,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for(int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            iterator = seen[i-1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for(int j = 0; j < i; j++){
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return Arrays.stream(seen).map(x -> new NodeListResult(
-                StreamSupport.stream(Spliterators.spliteratorUnknownSize(x.iterator(), Spliterator.SORTED), false)
-                        .map(y -> tx.getNodeById((long) y))
-                        .collect(Collectors.toList())));
+        return Arrays.stream(byHop(node, types, distance)).map(x -> new NodeListResult(nodes(x).collect(Collectors.toList())));
     }
 
     @Procedure("apoc.neighbors.byhop.count")
@@ -227,39 +119,7 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for(int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            iterator = seen[i-1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for(int j = 0; j < i; j++){
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
+        Roaring64NavigableMap[] seen = byHop(node, types, distance);
         ArrayList counts = new ArrayList<Long>();
         for(int i = 0; i < distance; i++) {
             counts.add(seen[i].getLongCardinality());
@@ -274,82 +134,15 @@ public class Neighbors {
         if (distance < 1) return Stream.empty();
         if (types==null || types.isEmpty()) return Stream.empty();
 
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for(int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for(int i = 1; i < distance; i++) {
-            iterator = seen[i-1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for(int j = 0; j < i; j++){
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
-
-        return StreamSupport
-                .stream(Spliterators.spliteratorUnknownSize(seen[distance.intValue() - 1].iterator(), Spliterator.SORTED), false).map(y -> new NodeResult(tx.getNodeById(y)));
+        return nodes(byHop(node, types, distance)[distance.intValue() - 1]).map(NodeResult::new);
     }
 
     @Procedure("apoc.neighbors.athop.count")
     @Description("apoc.neighbors.athop.count(node, rel-direction-pattern, distance) - returns distinct nodes of the given relationships in the pattern at a distance, can use '>' or '<' for all outgoing or incoming relationships")
     public Stream<LongResult> neighborsAtHopCount(@Name("node") Node node, @Name(value = "types", defaultValue = "") String types, @Name(value="distance", defaultValue = "1") Long distance) {
         if (distance < 1) return Stream.empty();
-        if (types == null || types.isEmpty()) return Stream.empty();
-
-        // Initialize bitmaps for iteration
-        Roaring64NavigableMap[] seen = new Roaring64NavigableMap[distance.intValue()];
-        for (int i = 0; i < distance; i++) {
-            seen[i] = new Roaring64NavigableMap();
-        }
-        long nodeId = node.getId();
-
-        Iterator<Long> iterator;
-
-        List<Pair<RelationshipType, Direction>> typesAndDirections = parse(types);
-        // First Hop
-        for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-            for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                seen[0].add(r.getOtherNodeId(nodeId));
-            }
-        }
-
-        for (int i = 1; i < distance; i++) {
-            iterator = seen[i - 1].iterator();
-            while (iterator.hasNext()) {
-                node = tx.getNodeById(iterator.next());
-                for (Pair<RelationshipType, Direction> pair : typesAndDirections) {
-                    for (Relationship r : getRelationshipsByTypeAndDirection(node, pair)) {
-                        seen[i].add(r.getOtherNodeId(node.getId()));
-                    }
-                }
-            }
-            for (int j = 0; j < i; j++) {
-                seen[i].andNot(seen[j]);
-                seen[i].removeLong(nodeId);
-            }
-        }
+        if (types==null || types.isEmpty()) return Stream.empty();
 
-        return Stream.of(new LongResult(seen[distance.intValue() - 1].getLongCardinality()));
+        return Stream.of(new LongResult(byHop(node, types, distance)[distance.intValue() - 1].getLongCardinality()));
     }
 }
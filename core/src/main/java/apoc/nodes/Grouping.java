@@ -11,11 +11,14 @@ import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -103,98 +106,101 @@ public class Grouping {
         // also filter (esp. max) during aggregation?
         Map<String,Number> filter = configuredFilter(config);
 
-        Map<NodeKey, Set<Node>> grouped = new ConcurrentHashMap<>();
-        Map<NodeKey, VirtualNode> virtualNodes = new ConcurrentHashMap<>();
-        Map<RelKey, VirtualRelationship> virtualRels = new ConcurrentHashMap<>();
+        // each batch aggregates into its own partial result, which are merged on the calling thread
+        Map<NodeKey, NodeGroup> grouped = new HashMap<>();
+        List<Future<Map<NodeKey, NodeGroup>>> nodeFutures = new ArrayList<>(1000);
 
-        List<Future> futures = new ArrayList<>(1000);
-
-        ExecutorService pool = pools.getDefaultExecutorService();
+        ExecutorService pool = pools.getExecutorService((String) config.get("lane"));
         for (String labelName : labels) {
             Label label = Label.label(labelName);
-            Label[] singleLabel = {label};
 
             try (ResourceIterator<Node> nodes = (labelName.equals("*")) ? tx.getAllNodes().iterator() : tx.findNodes(label)) {
                 while (nodes.hasNext()) {
                     List<Node> batch = Util.take(nodes, BATCHSIZE);
-                    futures.add(Util.inTxFuture(pool, db, txInThread -> {
+                    nodeFutures.add(Util.inTxFuture(pool, db, txInThread -> {
+                        Map<NodeKey, NodeGroup> partial = new HashMap<>();
                         try {
                             for (Node node : batch) {
                                 final Node boundNode = Util.rebind(txInThread, node);
                                 NodeKey key = keyFor(boundNode, labelName, keys);
-                                grouped.compute(key, (k, v) -> {
-                                    if (v == null) v = new HashSet<>();
-                                    v.add(boundNode);
-                                    return v;
-                                });
-                                virtualNodes.compute(key, (k, v) -> {
-                                            if (v == null) {
-                                                v = new VirtualNode(singleLabel, propertiesFor(boundNode, keys));
-                                            }
-                                            VirtualNode vn = v;
-                                            if (!nodeAggNames.isEmpty()) {
-                                                aggregate(vn, nodeAggNames, nodeAggKeys.length > 0 ? boundNode.getProperties(nodeAggKeys) : Collections.emptyMap());
-                                            }
-                                            return vn;
-                                        }
-                                );
+                                NodeGroup group = partial.computeIfAbsent(key, NodeGroup::new);
+                                group.ids.addLong(boundNode.getId());
+                                if (!nodeAggNames.isEmpty()) {
+                                    aggregate(group.properties, nodeAggNames, nodeAggKeys.length > 0 ? boundNode.getProperties(nodeAggKeys) : Collections.emptyMap());
+                                }
                             }
                         } catch (Exception e) {
                             log.error("Error grouping nodes", e);
                         }
-                        return null;
+                        return partial;
                     }));
-                    Util.removeFinished(futures);
+                    mergeFinished(nodeFutures, partial -> partial.forEach((key, group) -> grouped.merge(key, group, (g1, g2) -> g1.merge(g2, nodeAggNames))), false);
                 }
             }
         }
-        Util.waitForFutures(futures);
-        futures.clear();
-        Iterator<Map.Entry<NodeKey, Set<Node>>> entries = grouped.entrySet().iterator();
+        mergeFinished(nodeFutures, partial -> partial.forEach((key, group) -> grouped.merge(key, group, (g1, g2) -> g1.merge(g2, nodeAggNames))), true);
+
+        Map<NodeKey, VirtualNode> virtualNodes = new HashMap<>(grouped.size());
+        grouped.forEach((key, group) -> virtualNodes.put(key, new VirtualNode(new Label[]{Label.label(key.label)}, group.properties)));
+
+        // nodes are only resolved from their ids here, to aggregate their relationships
+        Map<RelKey, Map<String, Object>> groupedRels = new HashMap<>();
+        List<Future<Map<RelKey, Map<String, Object>>>> relFutures = new ArrayList<>(1000);
+        Iterator<Map.Entry<NodeKey, NodeGroup>> entries = grouped.entrySet().iterator();
         int size = 0;
-        List<Map.Entry<NodeKey, Set<Node>>> batch = new ArrayList<>();
+        List<Map.Entry<NodeKey, long[]>> batch = new ArrayList<>();
         while (entries.hasNext()) {
-            Map.Entry<NodeKey, Set<Node>> outerEntry = entries.next();
-            batch.add(outerEntry);
-            size += outerEntry.getValue().size();
-            if (size > BATCHSIZE || !entries.hasNext()) {
-                ArrayList<Map.Entry<NodeKey, Set<Node>>> submitted = new ArrayList<>(batch);
-                batch.clear();
-                size = 0;
-                futures.add(Util.inTxFuture(pool, db, txInThread -> {
-                    try {
-                        for (Map.Entry<NodeKey, Set<Node>> entry : submitted) {
-                            for (Node node : entry.getValue()) {
-                                node = Util.rebind(txInThread, node);
+            Map.Entry<NodeKey, NodeGroup> outerEntry = entries.next();
+            LongIterator ids = outerEntry.getValue().ids.getLongIterator();
+            while (ids.hasNext()) {
+                long[] chunk = new long[(int) Math.min(BATCHSIZE - size, outerEntry.getValue().ids.getLongCardinality())];
+                int count = 0;
+                while (count < chunk.length && ids.hasNext()) {
+                    chunk[count++] = ids.next();
+                }
+                batch.add(new AbstractMap.SimpleImmutableEntry<>(outerEntry.getKey(), count == chunk.length ? chunk : Arrays.copyOf(chunk, count)));
+                size += count;
+                if (size >= BATCHSIZE || (!entries.hasNext() && !ids.hasNext())) {
+                    List<Map.Entry<NodeKey, long[]>> submitted = new ArrayList<>(batch);
+                    batch.clear();
+                    size = 0;
+                    relFutures.add(Util.inTxFuture(pool, db, txInThread -> {
+                        Map<RelKey, Map<String, Object>> partial = new HashMap<>();
+                        try {
+                            for (Map.Entry<NodeKey, long[]> entry : submitted) {
                                 NodeKey startKey = entry.getKey();
-                                VirtualNode v1 = virtualNodes.get(startKey);
-                                for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
-                                    if (includeRels != null && !includeRels.contains(rel.getType().name())) continue;
-                                    Node endNode = rel.getEndNode();
-                                    for (NodeKey endKey : keysFor(endNode, labels, keys)) {
-                                        VirtualNode v2 = virtualNodes.get(endKey);
-                                        if (v2 == null) continue;
-                                        if (!selfRels && startKey.equals(endKey)) continue;
-                                        virtualRels.compute(new RelKey(startKey, endKey, rel), (rk, vRel) -> {
-                                            if (vRel == null) vRel = v1.createRelationshipTo(v2, rel.getType());
+                                for (long id : entry.getValue()) {
+                                    Node node = txInThread.getNodeById(id);
+                                    for (Relationship rel : node.getRelationships(Direction.OUTGOING)) {
+                                        if (includeRels != null && !includeRels.contains(rel.getType().name())) continue;
+                                        Node endNode = rel.getEndNode();
+                                        for (NodeKey endKey : keysFor(endNode, labels, keys)) {
+                                            if (!virtualNodes.containsKey(endKey)) continue;
+                                            if (!selfRels && startKey.equals(endKey)) continue;
+                                            Map<String, Object> relProps = partial.computeIfAbsent(new RelKey(startKey, endKey, rel), k -> new HashMap<>());
                                             if (!relAggNames.isEmpty()) {
-                                                aggregate(vRel, relAggNames, relAggKeys.length > 0 ? rel.getProperties(relAggKeys) : Collections.emptyMap());
+                                                aggregate(relProps, relAggNames, relAggKeys.length > 0 ? rel.getProperties(relAggKeys) : Collections.emptyMap());
                                             }
-                                            return vRel;
-                                        });
+                                        }
                                     }
                                 }
                             }
+                        } catch (Exception e) {
+                            log.error("Error grouping relationships", e);
                         }
-                    } catch (Exception e) {
-                        log.error("Error grouping relationships", e);
-                    }
-                    return null;
-                }));
-                Util.removeFinished(futures);
+                        return partial;
+                    }));
+                    mergeFinished(relFutures, partial -> partial.forEach((key, props) -> groupedRels.merge(key, props, (p1, p2) -> mergeAggregates(p1, p2, relAggNames))), false);
+                }
             }
         }
-        Util.waitForFutures(futures);
+        mergeFinished(relFutures, partial -> partial.forEach((key, props) -> groupedRels.merge(key, props, (p1, p2) -> mergeAggregates(p1, p2, relAggNames))), true);
+
+        groupedRels.forEach((key, props) -> {
+            VirtualRelationship vRel = virtualNodes.get(key.startKey).createRelationshipTo(virtualNodes.get(key.endKey), RelationshipType.withName(key.type));
+            props.forEach(vRel::setProperty);
+        });
+
         Stream<VirtualNode> stream = fixAggregates(virtualNodes.values()).stream();
         // apply filter
         if (filter != null) stream = stream.filter(n -> filter(n.getLabels(), n.getAllProperties(), filter));
@@ -297,38 +303,51 @@ public class Grouping {
         return pcs;
     }
 
-    private void aggregate(Entity pc, Map<String, List<String>> aggregations, Map<String, Object> properties) {
+    private <T> void mergeFinished(List<Future<T>> futures, Consumer<T> merger, boolean wait) {
+        if (!wait && futures.size() <= 25) return;
+        Iterator<Future<T>> it = futures.iterator();
+        while (it.hasNext()) {
+            Future<T> future = it.next();
+            if (!wait && !future.isDone()) continue;
+            try {
+                T partial = future.get();
+                if (partial != null) merger.accept(partial);
+            } catch (InterruptedException | ExecutionException e) {
+                log.error("Error grouping", e);
+            }
+            it.remove();
+        }
+    }
+
+    private void aggregate(Map<String, Object> props, Map<String, List<String>> aggregations, Map<String, Object> properties) {
         aggregations.forEach((k2, aggNames) -> {
             for (String aggName : aggNames) {
                 String key = aggName + "_" + k2;
                 if ("count_*".equals(key)) {
-                    pc.setProperty(key, ((Number) pc.getProperty(key, 0)).longValue() + 1);
+                    props.put(key, ((Number) props.getOrDefault(key, 0)).longValue() + 1);
                 } else {
                     Object value = properties.get(k2);
                     if (value != null) {
                         switch (aggName) {
                             case "collect":
-                                List<Object> existing = (List<Object>) pc.getProperty(key, new ArrayList<>());
-                                existing.add(value);
-                                pc.setProperty(key, existing);
+                                ((List<Object>) props.computeIfAbsent(key, k -> new ArrayList<>())).add(value);
                                 break;
                             case "count":
-                                pc.setProperty(key, ((Number) pc.getProperty(key, 0)).longValue() + 1);
+                                props.put(key, ((Number) props.getOrDefault(key, 0)).longValue() + 1);
                                 break;
                             case "sum":
-                                pc.setProperty(key, ((Number) pc.getProperty(key, 0)).doubleValue() + Util.toDouble(value));
+                                props.put(key, ((Number) props.getOrDefault(key, 0)).doubleValue() + Util.toDouble(value));
                                 break;
                             case "min":
-                                pc.setProperty(key, Math.min(((Number) pc.getProperty(key, Double.MAX_VALUE)).doubleValue(), Util.toDouble(value)));
+                                props.put(key, Math.min(((Number) props.getOrDefault(key, Double.MAX_VALUE)).doubleValue(), Util.toDouble(value)));
                                 break;
                             case "max":
-                                pc.setProperty(key, Math.max(((Number) pc.getProperty(key, Double.MIN_VALUE)).doubleValue(), Util.toDouble(value)));
+                                props.put(key, Math.max(((Number) props.getOrDefault(key, Double.MIN_VALUE)).doubleValue(), Util.toDouble(value)));
                                 break;
                             case "avg": {
-                                double[] avg = (double[]) pc.getProperty(key, new double[2]);
+                                double[] avg = (double[]) props.computeIfAbsent(key, k -> new double[2]);
                                 avg[0] += Util.toDouble(value);
                                 avg[1] += 1;
-                                pc.setProperty(key, avg);
                                 break;
                             }
                         }
@@ -338,6 +357,49 @@ public class Grouping {
         });
     }
 
+    /**
+     * Merges the aggregated values of a partial result into the target, both computed by {@link #aggregate}.
+     */
+    private static Map<String, Object> mergeAggregates(Map<String, Object> target, Map<String, Object> source, Map<String, List<String>> aggregations) {
+        aggregations.forEach((k2, aggNames) -> {
+            for (String aggName : aggNames) {
+                String key = aggName + "_" + k2;
+                Object value = source.get(key);
+                if (value == null) continue;
+                Object existing = target.get(key);
+                if (existing == null) {
+                    target.put(key, value);
+                    continue;
+                }
+                switch (aggName) {
+                    case "collect":
+                        ((List<Object>) existing).addAll((List<Object>) value);
+                        break;
+                    case "count":
+                        target.put(key, ((Number) existing).longValue() + ((Number) value).longValue());
+                        break;
+                    case "sum":
+                        target.put(key, ((Number) existing).doubleValue() + ((Number) value).doubleValue());
+                        break;
+                    case "min":
+                        target.put(key, Math.min(((Number) existing).doubleValue(), ((Number) value).doubleValue()));
+                        break;
+                    case "max":
+                        target.put(key, Math.max(((Number) existing).doubleValue(), ((Number) value).doubleValue()));
+                        break;
+                    case "avg": {
+                        double[] avg = (double[]) existing;
+                        double[] other = (double[]) value;
+                        avg[0] += other[0];
+                        avg[1] += other[1];
+                        break;
+                    }
+                }
+            }
+        });
+        return target;
+    }
+
     /**
      * Returns the properties for the given node according to the specified keys. If a node does not have a property
      * assigned to given key, the value is set to {@code null}.
@@ -391,6 +453,24 @@ public class Grouping {
         return result;
     }
 
+    /**
+     * Ids and aggregated properties of the nodes sharing a grouping key.
+     */
+    private static class NodeGroup {
+        private final Roaring64NavigableMap ids = new Roaring64NavigableMap();
+        private final Map<String, Object> properties;
+
+        NodeGroup(NodeKey key) {
+            this.properties = new HashMap<>(key.values);
+        }
+
+        NodeGroup merge(NodeGroup other, Map<String, List<String>> aggregations) {
+            ids.or(other.ids);
+            mergeAggregates(properties, other.properties, aggregations);
+            return this;
+        }
+    }
+
     /**
      * Represents a grouping key for nodes.
      */
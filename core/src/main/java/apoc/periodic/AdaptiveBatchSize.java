@@ -0,0 +1,117 @@
+package apoc.periodic;
+
+import apoc.util.Util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the size of the next batch of a periodic job.
+ * In adaptive mode the size is scaled from the observed commit time of the previous batches towards
+ * a target time and halved on failures, always staying within the configured min/max bounds.
+ * Otherwise the initial batch size is used for every batch.
+ */
+public class AdaptiveBatchSize {
+    public static final long DEFAULT_TARGET_MILLIS = 1000;
+    public static final int DEFAULT_MIN_BATCH_SIZE = 1;
+    private static final double MAX_GROWTH = 2.0;
+    private static final double MAX_SHRINK = 0.5;
+
+    private final boolean adaptive;
+    private final long targetNanos;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int initial;
+    private int current;
+
+    private long batches;
+    private long totalSize;
+    private int smallest = Integer.MAX_VALUE;
+    private int largest;
+    private int last;
+
+    private AdaptiveBatchSize(boolean adaptive, int initial, long targetMillis, int minBatchSize, int maxBatchSize) {
+        this.adaptive = adaptive;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.initial = clamp(initial);
+        this.current = this.initial;
+    }
+
+    public static AdaptiveBatchSize fixed(int batchSize) {
+        return new AdaptiveBatchSize(false, batchSize, DEFAULT_TARGET_MILLIS, batchSize, batchSize);
+    }
+
+    /**
+     * Reads the `adaptive` config entry, which can be either a boolean
+     * or a map with the optional keys `targetMillis`, `minBatchSize` and `maxBatchSize`
+     */
+    public static AdaptiveBatchSize fromConfig(Map<String, Object> config, int batchSize) {
+        Object value = config.get("adaptive");
+        if (value == null || (!(value instanceof Map) && !Util.toBoolean(value))) {
+            return fixed(batchSize);
+        }
+        Map<String, Object> adaptiveConfig = value instanceof Map ? (Map<String, Object>) value : Collections.emptyMap();
+        long targetMillis = Util.toLong(adaptiveConfig.getOrDefault("targetMillis", DEFAULT_TARGET_MILLIS));
+        int minBatchSize = Util.toInteger(adaptiveConfig.getOrDefault("minBatchSize", DEFAULT_MIN_BATCH_SIZE));
+        int maxBatchSize = Util.toInteger(adaptiveConfig.getOrDefault("maxBatchSize", Math.max(batchSize, minBatchSize) * 10L));
+        if (targetMillis < 1) {
+            throw new IllegalArgumentException("adaptive.targetMillis parameter must be > 0");
+        }
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("adaptive.minBatchSize parameter must be > 0 and <= adaptive.maxBatchSize");
+        }
+        return new AdaptiveBatchSize(true, batchSize, targetMillis, minBatchSize, maxBatchSize);
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public synchronized int next() {
+        return current;
+    }
+
+    /**
+     * Feeds back the outcome of a batch of the given size, that took elapsedNanos to execute and commit.
+     */
+    public synchronized void record(int size, long elapsedNanos, boolean failed) {
+        if (size <= 0) return;
+        batches++;
+        totalSize += size;
+        smallest = Math.min(smallest, size);
+        largest = Math.max(largest, size);
+        last = size;
+        if (!adaptive) return;
+
+        if (failed) {
+            current = clamp(Math.min(current, size / 2));
+        } else if (elapsedNanos > 0) {
+            double factor = Math.max(MAX_SHRINK, Math.min(MAX_GROWTH, (double) targetNanos / elapsedNanos));
+            current = clamp((long) Math.ceil(size * factor));
+        }
+    }
+
+    /**
+     * @return true if a failed batch of the given size can be tried again with a smaller one
+     */
+    public boolean canShrink(int size) {
+        return adaptive && size > minBatchSize;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        if (!adaptive) return Collections.emptyMap();
+        return Util.map("initial", (long) initial,
+                "min", batches == 0 ? 0L : (long) smallest,
+                "max", (long) largest,
+                "last", (long) last,
+                "next", (long) current,
+                "average", batches == 0 ? 0L : totalSize / batches);
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(minBatchSize, Math.min(maxBatchSize, size));
+    }
+}
@@ -19,11 +19,13 @@ public class BatchAndTotalResult {
     public final boolean wasTerminated;
     public final Map<String, List<Map<String,Object>>> failedParams;
     public final Map<String, Long> updateStatistics;
+    public final Map<String, Object> batchSizes;
 
     public BatchAndTotalResult(long batches, long total, long timeTaken, long committedOperations,
                                long failedOperations, long failedBatches, long retries,
                                Map<String, Long> operationErrors, Map<String, Long> batchErrors, boolean wasTerminated,
-                               Map<String, List<Map<String, Object>>> failedParams, Map<String, Long> updateStatistics) {
+                               Map<String, List<Map<String, Object>>> failedParams, Map<String, Long> updateStatistics,
+                               Map<String, Object> batchSizes) {
         this.batches = batches;
         this.total = total;
         this.timeTaken = timeTaken;
@@ -37,6 +39,7 @@ public class BatchAndTotalResult {
         this.batch = Util.map("total",batches,"failed",failedBatches,"committed",batches-failedBatches,"errors",batchErrors);
         this.operations = Util.map("total",total,"failed",failedOperations,"committed", committedOperations,"errors",operationErrors);
         this.updateStatistics = updateStatistics;
+        this.batchSizes = batchSizes;
     }
 
     public LoopingBatchAndTotalResult inLoop(Object loop) {
@@ -24,6 +24,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static apoc.util.Util.merge;
@@ -37,6 +38,7 @@ public class Periodic {
     public static final Pattern CYPHER_PREFIX_PATTERN = Pattern.compile("^\\s*\\bcypher\\b", Pattern.CASE_INSENSITIVE);
     public static final String CYPHER_RUNTIME_SLOTTED = " runtime=slotted ";
     final static Pattern LIMIT_PATTERN = Pattern.compile("\\slimit\\s", Pattern.CASE_INSENSITIVE);
+    final static Pattern LIMIT_PARAMETER_PATTERN = Pattern.compile("\\slimit\\s+\\$limit\\b", Pattern.CASE_INSENSITIVE);
 
     @Context public GraphDatabaseService db;
     @Context public TerminationGuard terminationGuard;
@@ -66,8 +68,9 @@ public class Periodic {
     }
 
     @Procedure(mode = Mode.WRITE)
-    @Description("apoc.periodic.commit(statement,params) - runs the given statement in separate transactions until it returns 0")
-    public Stream<RundownResult> commit(@Name("statement") String statement, @Name(value = "params", defaultValue = "{}") Map<String,Object> parameters) throws ExecutionException, InterruptedException {
+    @Description("apoc.periodic.commit(statement,params,{adaptive:false}) - runs the given statement in separate transactions until it returns 0")
+    public Stream<RundownResult> commit(@Name("statement") String statement, @Name(value = "params", defaultValue = "{}") Map<String,Object> parameters,
+                                        @Name(value = "config", defaultValue = "{}") Map<String,Object> config) throws ExecutionException, InterruptedException {
         validateQuery(statement);
         Map<String,Object> params = parameters == null ? Collections.emptyMap() : parameters;
         long total = 0, executions = 0, updates = 0;
@@ -76,6 +79,11 @@ public class Periodic {
         if (!LIMIT_PATTERN.matcher(statement).find()) {
             throw new IllegalArgumentException("the statement sent to apoc.periodic.commit must contain a `limit`");
         }
+        AdaptiveBatchSize adaptiveBatchSize = AdaptiveBatchSize.fromConfig(config == null ? Collections.emptyMap() : config,
+                Util.toInteger(params.getOrDefault("limit", 10000)));
+        if (adaptiveBatchSize.isAdaptive() && !LIMIT_PARAMETER_PATTERN.matcher(statement).find()) {
+            throw new IllegalArgumentException("the statement sent to apoc.periodic.commit must contain a `limit $limit` in adaptive mode");
+        }
 
         AtomicInteger batches = new AtomicInteger();
         AtomicInteger failedCommits = new AtomicInteger();
@@ -87,30 +95,40 @@ public class Periodic {
             log.debug("Starting periodic commit from `%s` in separate thread with id: `%s`", statement, periodicId);
         }
 
+        boolean retryWithSmallerBatch;
         do {
             Map<String, Object> window = Util.map("_count", updates, "_total", total);
+            int limit = adaptiveBatchSize.next();
+            Map<String, Object> batchParams = adaptiveBatchSize.isAdaptive() ? merge(params, Util.map("limit", limit)) : params;
+            int failedBefore = failedBatches.get() + failedCommits.get();
+            long batchStart = System.nanoTime();
             updates = Util.getFuture(pools.getScheduledExecutorService().submit(() -> {
                 batches.incrementAndGet();
                 try {
-                    return executeNumericResultStatement(statement, merge(window, params));
+                    return executeNumericResultStatement(statement, merge(window, batchParams));
                 } catch(Exception e) {
                     failedBatches.incrementAndGet();
                     recordError(batchErrors, e);
                     return 0L;
                 }
             }), commitErrors, failedCommits, 0L);
+            boolean failed = failedBatches.get() + failedCommits.get() > failedBefore;
+            adaptiveBatchSize.record(limit, System.nanoTime() - batchStart, failed);
+            // in adaptive mode a failed batch is tried again with a smaller limit, until a batch of the minimum size failed
+            retryWithSmallerBatch = failed && adaptiveBatchSize.canShrink(limit);
             total += updates;
             if (updates > 0) executions++;
             if (log.isDebugEnabled()) {
                 log.debug("Processed in periodic commit with id %s, no %d executions", periodicId, executions);
             }
-        } while (updates > 0 && !Util.transactionIsTerminated(terminationGuard));
+        } while ((updates > 0 || retryWithSmallerBatch) && !Util.transactionIsTerminated(terminationGuard));
         if (log.isDebugEnabled()) {
             log.debug("Terminated periodic commit with id %s with %d executions", periodicId, executions);
         }
         long timeTaken = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
         boolean wasTerminated = Util.transactionIsTerminated(terminationGuard);
-        return Stream.of(new RundownResult(total,executions, timeTaken, batches.get(),failedBatches.get(),batchErrors, failedCommits.get(), commitErrors, wasTerminated));
+        return Stream.of(new RundownResult(total,executions, timeTaken, batches.get(),failedBatches.get(),batchErrors, failedCommits.get(), commitErrors, wasTerminated,
+                adaptiveBatchSize.toMap()));
     }
 
     private static void recordError(Map<String, Long> executionErrors, Exception e) {
@@ -129,8 +147,10 @@ public class Periodic {
         public final long failedCommits;
         public final Map<String, Long> commitErrors;
         public final boolean wasTerminated;
+        public final Map<String, Object> batchSizes;
 
-        public RundownResult(long total, long executions, long timeTaken, long batches, long failedBatches, Map<String, Long> batchErrors, long failedCommits, Map<String, Long> commitErrors, boolean wasTerminated) {
+        public RundownResult(long total, long executions, long timeTaken, long batches, long failedBatches, Map<String, Long> batchErrors, long failedCommits, Map<String, Long> commitErrors, boolean wasTerminated,
+                             Map<String, Object> batchSizes) {
             this.updates = total;
             this.executions = executions;
             this.runtime = timeTaken;
@@ -140,6 +160,7 @@ public class Periodic {
             this.failedCommits = failedCommits;
             this.commitErrors = commitErrors;
             this.wasTerminated = wasTerminated;
+            this.batchSizes = batchSizes;
         }
     }
 
@@ -264,8 +285,13 @@ public class Periodic {
         if (concurrency < 1) {
             throw new IllegalArgumentException("concurrency parameter must be > 0");
         }
+        int prefetchBatches = Util.toInteger(config.getOrDefault("prefetchBatches", 0));
+        if (prefetchBatches < 0) {
+            throw new IllegalArgumentException("prefetchBatches parameter must be >= 0");
+        }
         boolean parallel = Util.toBoolean(config.getOrDefault("parallel", false));
         long retries = Util.toLong(config.getOrDefault("retries", 0)); // todo sleep/delay or push to end of batch to try again or immediate ?
+        AdaptiveBatchSize adaptiveBatchSize = AdaptiveBatchSize.fromConfig(config, (int) batchSize);
         int failedParams = Util.toInteger(config.getOrDefault("failedParams", -1));
 
         BatchMode batchMode = BatchMode.fromConfig(config);
@@ -275,18 +301,35 @@ public class Periodic {
             Pair<String,Boolean> prepared = PeriodicUtils.prepareInnerStatement(cypherAction, batchMode, result.columns(), "_batch");
             String innerStatement = applyPlanner(prepared.first(), Planner.valueOf((String) config.getOrDefault("planner", Planner.DEFAULT.name())));
             boolean iterateList = prepared.other();
+            List<String> partitionBy = partitionColumns(config, result.columns());
             String periodicId = UUID.randomUUID().toString();
             log.info("Starting periodic iterate from `%s` operation using iteration `%s` in separate thread with id: `%s`", cypherIterate,cypherAction, periodicId);
             return PeriodicUtils.iterateAndExecuteBatchedInSeparateThread(
                     db, terminationGuard, log, pools,
-                    (int)batchSize, parallel, iterateList, retries, result,
+                    adaptiveBatchSize, parallel, iterateList, retries, result,
                     (tx, p) -> {
                         final Result r = tx.execute(innerStatement, merge(params, p));
                         Iterators.count(r); // XXX: consume all results
                         return r.getQueryStatistics();
                     },
-                    concurrency, failedParams, periodicId);
+                    concurrency, prefetchBatches, partitionBy, (String) config.get("lane"), failedParams, periodicId);
+        }
+    }
+
+    private static List<String> partitionColumns(Map<String, Object> config, List<String> columns) {
+        Object partitionBy = config.get("partitionBy");
+        if (partitionBy == null) {
+            return Collections.emptyList();
+        }
+        List<String> partitionColumns = partitionBy instanceof List
+                ? ((List<Object>) partitionBy).stream().map(String::valueOf).collect(Collectors.toList())
+                : Collections.singletonList(partitionBy.toString());
+        for (String column : partitionColumns) {
+            if (!columns.contains(column)) {
+                throw new IllegalArgumentException("partitionBy column `" + column + "` is not returned by the first statement, available columns are: " + columns);
+            }
         }
+        return partitionColumns;
     }
 
     static String slottedRuntime(String cypherIterate) {
@@ -324,6 +367,9 @@ public class Periodic {
         protected BatchAndTotalCollector collector;
         protected List<Map<String,Object>> batch;
         protected BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer;
+        private final int size;
+        private long startNanos;
+        private long elapsedNanos;
 
         ExecuteBatch(TerminationGuard terminationGuard,
                      BatchAndTotalCollector collector,
@@ -333,6 +379,27 @@ public class Periodic {
             this.collector = collector;
             this.batch = batch;
             this.consumer = consumer;
+            this.size = batch.size();
+        }
+
+        protected void started() {
+            // retries are part of the time spent on this batch
+            if (startNanos == 0) startNanos = System.nanoTime();
+        }
+
+        public void finished() {
+            if (startNanos != 0) elapsedNanos = System.nanoTime() - startNanos;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return the time spent executing and committing this batch, or 0 if it never started
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
         }
 
         public void release() {
@@ -354,6 +421,7 @@ public class Periodic {
 
         @Override
         public final Long apply(Transaction txInThread) {
+            started();
             if (Util.transactionIsTerminated(terminationGuard)) return 0L;
             Map<String, Object> params = Util.map("_count", collector.getCount(), "_batch", batch);
             return executeAndReportErrors(txInThread, consumer, params, batch, batch.size(), null, collector);
@@ -371,6 +439,7 @@ public class Periodic {
 
         @Override
         public final Long apply(Transaction txInThread) {
+            started();
             if (Util.transactionIsTerminated(terminationGuard)) return 0L;
             AtomicLong localCount = new AtomicLong(collector.getCount());
             return batch.stream().mapToLong(
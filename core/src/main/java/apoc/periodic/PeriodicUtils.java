@@ -9,23 +9,29 @@ import org.neo4j.internal.helpers.collection.Pair;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.TerminationGuard;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.LockSupport;
-import java.util.function.BiConsumer;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
-import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class PeriodicUtils {
 
+    private static final long COMPLETION_POLL_MILLIS = 100;
+
     private PeriodicUtils() {
 
     }
@@ -60,55 +66,34 @@ public class PeriodicUtils {
             int batchsize, boolean parallel, boolean iterateList, long retries,
             Iterator<Map<String, Object>> iterator, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
             int concurrency, int failedParams, String periodicId) {
+        return iterateAndExecuteBatchedInSeparateThread(db, terminationGuard, log, pools, AdaptiveBatchSize.fixed(batchsize), parallel, iterateList, retries,
+                iterator, consumer, concurrency, 0, Collections.emptyList(), null, failedParams, periodicId);
+    }
 
-        ExecutorService pool = parallel ? pools.getDefaultExecutorService() : pools.getSingleExecutorService();
-        List<Future<Long>> futures = new ArrayList<>(concurrency);
-        BatchAndTotalCollector collector = new BatchAndTotalCollector(terminationGuard, failedParams);
-        AtomicInteger activeFutures = new AtomicInteger(0);
+    /**
+     * @param batchSize provides the size of each new batch, and is fed back with the outcome of each completed one
+     * @param prefetchBatches number of batches read ahead from the driving iterator while all the
+     *                        workers are busy, so that a free worker never has to wait for the next batch
+     * @param partitionBy columns of the driving iterator, rows with the same values are executed
+     *                    in order within the same partition, used only in parallel mode
+     * @param lane the execution lane of the {@link Pools} used in parallel mode, null for the default one
+     */
+    public static Stream<BatchAndTotalResult> iterateAndExecuteBatchedInSeparateThread(
+            GraphDatabaseService db, TerminationGuard terminationGuard, Log log, Pools pools,
+            AdaptiveBatchSize batchSize, boolean parallel, boolean iterateList, long retries,
+            Iterator<Map<String, Object>> iterator, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
+            int concurrency, int prefetchBatches, List<String> partitionBy, String lane, int failedParams, String periodicId) {
 
-        do {
-            if (Util.transactionIsTerminated(terminationGuard)) break;
-
-            if (activeFutures.get() < concurrency || !parallel) {
-                // we have capacity, add a new Future to the list
-                activeFutures.incrementAndGet();
-
-                if (log.isDebugEnabled()) log.debug("Execute, in periodic iteration with id %s, no %d batch size ", periodicId, batchsize);
-                List<Map<String,Object>> batch = Util.take(iterator, batchsize);
-                final long currentBatchSize = batch.size();
-                Periodic.ExecuteBatch executeBatch =
-                        iterateList ?
-                                new Periodic.ListExecuteBatch(terminationGuard, collector, batch, consumer) :
-                                new Periodic.OneByOneExecuteBatch(terminationGuard, collector, batch, consumer);
-
-                futures.add(Util.inTxFuture(log,
-                        pool,
-                        db,
-                        executeBatch,
-                        retries,
-                        retryCount -> collector.incrementRetried(),
-                        onComplete -> {
-                            collector.incrementBatches();
-                            executeBatch.release();
-                            activeFutures.decrementAndGet();
-                        }));
-                collector.incrementCount(currentBatchSize);
-                if (log.isDebugEnabled()) {
-                    log.debug("Processed in periodic iteration with id %s, %d iterations of %d total", periodicId, batchsize, collector.getCount());
-                }
-            } else {
-                // we can't block until the counter decrease as we might miss a cancellation, so
-                // let this thread be preempted for a bit before we check for cancellation or
-                // capacity.
-                LockSupport.parkNanos(1000);
-            }
-        } while (iterator.hasNext());
+        ExecutorService pool = parallel ? pools.getExecutorService(lane) : pools.getSingleExecutorService();
+        BatchAndTotalCollector collector = new BatchAndTotalCollector(terminationGuard, failedParams, batchSize);
+        BatchRunner runner = new BatchRunner(db, terminationGuard, log, pool, collector, consumer, iterateList, retries, concurrency);
 
-        boolean wasTerminated = Util.transactionIsTerminated(terminationGuard);
-        ToLongFunction<Future<Long>> toLongFunction = wasTerminated ?
-                f -> Util.getFutureOrCancel(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L) :
-                f -> Util.getFuture(f, collector.getBatchErrors(), collector.getFailedBatches(), 0L);
-        collector.incrementSuccesses(futures.stream().mapToLong(toLongFunction).sum());
+        if (parallel && !partitionBy.isEmpty()) {
+            executePartitioned(runner, batchSize, iterator, concurrency, partitionBy, periodicId);
+        } else {
+            execute(runner, batchSize, iterator, concurrency, prefetchBatches, periodicId);
+        }
+        runner.drain();
 
         Util.logErrors("Error during iterate.commit:", collector.getBatchErrors(), log);
         Util.logErrors("Error during iterate.execute:", collector.getOperationErrors(), log);
@@ -117,6 +102,215 @@ public class PeriodicUtils {
         }
         return Stream.of(collector.getResult());
     }
+
+    private static void execute(BatchRunner runner, AdaptiveBatchSize batchSize, Iterator<Map<String, Object>> iterator,
+                                int concurrency, int prefetchBatches, String periodicId) {
+        // the driving iterator is bound to the caller's transaction, so read-ahead happens on this thread
+        Queue<List<Map<String,Object>>> prefetched = new ArrayDeque<>(Math.max(1, prefetchBatches));
+        do {
+            if (runner.isTerminated()) break;
+
+            runner.collectCompleted();
+            if (runner.inFlight() >= concurrency) {
+                if (prefetched.size() < prefetchBatches && iterator.hasNext()) {
+                    // all workers are busy, use the time to cut the next batches
+                    prefetched.add(Util.take(iterator, batchSize.next()));
+                    continue;
+                }
+                // we block until a batch completes, but wake up regularly so we don't miss a cancellation
+                if (!runner.awaitCompleted()) break;
+                continue;
+            }
+
+            List<Map<String,Object>> batch = prefetched.isEmpty() ? Util.take(iterator, batchSize.next()) : prefetched.poll();
+            runner.submit(batch, periodicId);
+        } while (iterator.hasNext() || !prefetched.isEmpty());
+    }
+
+    /**
+     * Routes each row to one of `concurrency` partitions by hashing its partitionBy values.
+     * A partition has at most one batch in flight, so its batches are executed in order and never
+     * contend for locks with each other, while different partitions run in parallel.
+     */
+    private static void executePartitioned(BatchRunner runner, AdaptiveBatchSize batchSize, Iterator<Map<String, Object>> iterator,
+                                           int concurrency, List<String> partitionBy, String periodicId) {
+        List<List<Map<String, Object>>> pending = new ArrayList<>(concurrency);
+        List<Queue<List<Map<String, Object>>>> ready = new ArrayList<>(concurrency);
+        List<Future<Long>> running = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            pending.add(new ArrayList<>());
+            ready.add(new ArrayDeque<>());
+            running.add(null);
+        }
+        // bounds the batches cut ahead of time when some partitions are much busier than others
+        int maxReady = concurrency * 2;
+        int readyCount = 0;
+        boolean flushed = false;
+
+        while (!runner.isTerminated()) {
+            runner.collectCompleted();
+            for (int partition = 0; partition < concurrency; partition++) {
+                Queue<List<Map<String, Object>>> queue = ready.get(partition);
+                if (!queue.isEmpty() && runner.isCompleted(running.get(partition))) {
+                    running.set(partition, runner.submit(queue.poll(), periodicId));
+                    readyCount--;
+                }
+            }
+
+            if (readyCount < maxReady && iterator.hasNext()) {
+                int size = batchSize.next();
+                for (Map<String, Object> row : Util.take(iterator, size)) {
+                    int partition = partitionOf(row, partitionBy, concurrency);
+                    List<Map<String, Object>> rows = pending.get(partition);
+                    rows.add(row);
+                    if (rows.size() >= size) {
+                        ready.get(partition).add(rows);
+                        pending.set(partition, new ArrayList<>());
+                        readyCount++;
+                    }
+                }
+                continue;
+            }
+            if (!iterator.hasNext() && !flushed) {
+                for (int partition = 0; partition < concurrency; partition++) {
+                    if (pending.get(partition).isEmpty()) continue;
+                    ready.get(partition).add(pending.get(partition));
+                    pending.set(partition, new ArrayList<>());
+                    readyCount++;
+                }
+                flushed = true;
+                continue;
+            }
+            if (readyCount == 0 && runner.inFlight() == 0) break;
+            if (!runner.awaitCompleted()) break;
+        }
+    }
+
+    private static int partitionOf(Map<String, Object> row, List<String> partitionBy, int partitions) {
+        int hash = 1;
+        for (String column : partitionBy) {
+            hash = 31 * hash + Objects.hashCode(row.get(column));
+        }
+        return Math.floorMod(hash ^ (hash >>> 16), partitions);
+    }
+
+    /**
+     * Submits the batches of an iteration and keeps track only of the ones currently running,
+     * the completed ones are folded into the collector right away.
+     */
+    private static class BatchRunner {
+        private final GraphDatabaseService db;
+        private final TerminationGuard terminationGuard;
+        private final Log log;
+        private final CompletionService<Long> completionService;
+        private final BatchAndTotalCollector collector;
+        private final BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer;
+        private final boolean iterateList;
+        private final long retries;
+        private final Map<Future<Long>, Periodic.ExecuteBatch> inFlight;
+
+        BatchRunner(GraphDatabaseService db, TerminationGuard terminationGuard, Log log, ExecutorService pool,
+                    BatchAndTotalCollector collector, BiFunction<Transaction, Map<String, Object>, QueryStatistics> consumer,
+                    boolean iterateList, long retries, int concurrency) {
+            this.db = db;
+            this.terminationGuard = terminationGuard;
+            this.log = log;
+            this.completionService = new ExecutorCompletionService<>(pool);
+            this.collector = collector;
+            this.consumer = consumer;
+            this.iterateList = iterateList;
+            this.retries = retries;
+            this.inFlight = new HashMap<>(concurrency);
+        }
+
+        Future<Long> submit(List<Map<String, Object>> batch, String periodicId) {
+            final long currentBatchSize = batch.size();
+            if (log.isDebugEnabled()) log.debug("Execute, in periodic iteration with id %s, no %d batch size ", periodicId, currentBatchSize);
+            Periodic.ExecuteBatch executeBatch =
+                    iterateList ?
+                            new Periodic.ListExecuteBatch(terminationGuard, collector, batch, consumer) :
+                            new Periodic.OneByOneExecuteBatch(terminationGuard, collector, batch, consumer);
+
+            Future<Long> future = Util.inTxFuture(log,
+                    completionService,
+                    db,
+                    executeBatch,
+                    retries,
+                    retryCount -> collector.incrementRetried(),
+                    onComplete -> {
+                        collector.incrementBatches();
+                        executeBatch.finished();
+                        executeBatch.release();
+                    });
+            inFlight.put(future, executeBatch);
+            collector.incrementCount(currentBatchSize);
+            if (log.isDebugEnabled()) {
+                log.debug("Processed in periodic iteration with id %s, %d iterations of %d total", periodicId, currentBatchSize, collector.getCount());
+            }
+            return future;
+        }
+
+        boolean isTerminated() {
+            return Util.transactionIsTerminated(terminationGuard);
+        }
+
+        int inFlight() {
+            return inFlight.size();
+        }
+
+        /**
+         * @return true if the given batch has completed and was folded into the collector
+         */
+        boolean isCompleted(Future<Long> future) {
+            return future == null || !inFlight.containsKey(future);
+        }
+
+        void collectCompleted() {
+            Future<Long> future;
+            while ((future = completionService.poll()) != null) {
+                foldCompleted(future);
+            }
+        }
+
+        /**
+         * Waits until at least one in-flight batch has completed and folds it into the collector.
+         * @return false if the transaction has been terminated (or the thread interrupted) while waiting
+         */
+        boolean awaitCompleted() {
+            try {
+                while (!isTerminated()) {
+                    Future<Long> future = completionService.poll(COMPLETION_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (future != null) {
+                        foldCompleted(future);
+                        collectCompleted();
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        void drain() {
+            while (!inFlight.isEmpty()) {
+                if (!awaitCompleted()) break;
+            }
+            // anything still running at this point was interrupted by a termination
+            for (Future<Long> future : inFlight.keySet()) {
+                collector.incrementSuccesses(Util.getFutureOrCancel(future, collector.getBatchErrors(), collector.getFailedBatches(), 0L));
+            }
+            inFlight.clear();
+        }
+
+        private void foldCompleted(Future<Long> future) {
+            Periodic.ExecuteBatch executeBatch = inFlight.remove(future);
+            int failedBatches = collector.getFailedBatches().get();
+            collector.incrementSuccesses(Util.getFuture(future, collector.getBatchErrors(), collector.getFailedBatches(), 0L));
+            boolean failed = collector.getFailedBatches().get() > failedBatches;
+            collector.getBatchSize().record(executeBatch.getSize(), executeBatch.getElapsedNanos(), failed);
+        }
+    }
 }
 
 /*
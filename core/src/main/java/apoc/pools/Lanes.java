@@ -0,0 +1,44 @@
+package apoc.pools;
+
+import apoc.Pools;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Procedure;
+
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Stream;
+
+public class Lanes {
+
+    @Context
+    public Pools pools;
+
+    @Procedure
+    @Description("apoc.pools.list() - list the execution lanes with their thread and queue usage")
+    public Stream<LaneInfo> list() {
+        return pools.getLanes().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> new LaneInfo(e.getKey(), e.getValue()));
+    }
+
+    public static class LaneInfo {
+        public final String name;
+        public final long threads;
+        public final long maxThreads;
+        public final long active;
+        public final long queued;
+        public final long queueCapacity;
+        public final long completed;
+
+        public LaneInfo(String name, ThreadPoolExecutor executor) {
+            this.name = name;
+            this.threads = executor.getPoolSize();
+            this.maxThreads = executor.getMaximumPoolSize();
+            this.active = executor.getActiveCount();
+            this.queued = executor.getQueue().size();
+            this.queueCapacity = executor.getQueue().size() + executor.getQueue().remainingCapacity();
+            this.completed = executor.getCompletedTaskCount();
+        }
+    }
+}
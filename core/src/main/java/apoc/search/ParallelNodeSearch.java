@@ -1,32 +1,68 @@
 package apoc.search;
 
+import apoc.Pools;
 import apoc.result.NodeResult;
+import apoc.util.QueueBasedSpliterator;
+import apoc.util.QueueUtil;
 import apoc.util.Util;
+import org.neo4j.exceptions.KernelException;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.IndexQueryConstraints;
+import org.neo4j.internal.kernel.api.IndexReadSession;
+import org.neo4j.internal.kernel.api.InternalIndexState;
+import org.neo4j.internal.kernel.api.NodeValueIndexCursor;
+import org.neo4j.internal.kernel.api.PropertyIndexQuery;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.SchemaRead;
+import org.neo4j.internal.kernel.api.TokenRead;
+import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotFoundKernelException;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.internal.schema.IndexType;
+import org.neo4j.internal.schema.SchemaDescriptors;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
+import org.neo4j.procedure.TerminationGuard;
+import org.neo4j.values.storable.TextValue;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
-import static java.util.Collections.singletonMap;
-import static java.util.stream.Collectors.groupingBy;
 
 public class ParallelNodeSearch {
 
     private final static Set<String> OPERATORS = new HashSet<>(asList("exact","starts with", "ends with", "contains", "<", ">", "=", "<>", "<=", ">=", "=~"));
+    private final static Hit TOMBSTONE = new Hit(-1, null, null, null);
+    final static int QUEUE_CAPACITY = 1000;
 
     @Context
     public GraphDatabaseService api;
@@ -37,10 +73,16 @@ public class ParallelNodeSearch {
     @Context
     public Transaction tx;
 
+    @Context
+    public Pools pools;
+
+    @Context
+    public TerminationGuard terminationGuard;
+
     @Procedure("apoc.search.nodeAllReduced")
-    @Description("Do a parallel search over multiple indexes returning a reduced representation of the nodes found: node id, labels and the searched property. apoc.search.nodeShortAll( map of label and properties which will be searched upon, operator: EXACT / CONTAINS / STARTS WITH | ENDS WITH / = / <> / < / > ..., value ). All 'hits' are returned.")
+    @Description("Do a parallel search over multiple indexes returning a reduced representation of the nodes found: node id, labels and the searched property. apoc.search.nodeShortAll( map of label and properties which will be searched upon, operator: EXACT / CONTAINS / STARTS WITH | ENDS WITH / = / <> / < / > ..., value ). All 'hits' are returned.")
     public Stream<NodeReducedResult> multiSearchAll(@Name("LabelPropertyMap") final Object labelProperties, @Name("operator") final String operator, @Name("value") final Object value) throws Exception {
-        return createWorkersFromValidInput(labelProperties, operator, value).flatMap(QueryWorker::queryForData);
+        return search(labelProperties, operator, value).map(Hit::toReducedResult);
     }
 
 
@@ -55,38 +97,136 @@ public class ParallelNodeSearch {
     @Procedure("apoc.search.nodeReduced")
     @Description("Do a parallel search over multiple indexes returning a reduced representation of the nodes found: node id, labels and the searched properties. apoc.search.nodeReduced( map of label and properties which will be searched upon, operator: EXACT | CONTAINS | STARTS WITH | ENDS WITH, searchValue ). Multiple search results for the same node are merged into one record.")
     public Stream<NodeReducedResult> multiSearch(@Name("LabelPropertyMap") final Object labelProperties, @Name("operator") final String operator, @Name("value") final String value) throws Exception {
-        return createWorkersFromValidInput(labelProperties, operator, value)
-                    .flatMap(QueryWorker::queryForData)
-                    .collect(groupingBy(res -> res.id,Collectors.reducing(this::merge)))
-                    .values().stream().filter(Optional::isPresent).map(Optional::get);
+        return mergeById(search(labelProperties, operator, value));
     }
 
     @Procedure("apoc.search.multiSearchReduced")
     @Description("Do a parallel search over multiple indexes returning a reduced representation of the nodes found: node id, labels and the searched properties. apoc.search.multiSearchReduced( map of label and properties which will be searched upon, operator: EXACT | CONTAINS | STARTS WITH | ENDS WITH, searchValue ). Multiple search results for the same node are merged into one record.")
     public Stream<NodeReducedResult> multiSearchOld(@Name("LabelPropertyMap") final Object labelProperties, @Name("operator") final String operator, @Name("value") final String value) throws Exception {
-            return createWorkersFromValidInput(labelProperties, operator, value)
-                    .flatMap(QueryWorker::queryForData)
-                    .collect(groupingBy(res -> res.id))
-                    .values().stream().map( list -> list.stream().reduce( this::merge ))
-                    .filter(Optional::isPresent).map(Optional::get);
+        return mergeById(search(labelProperties, operator, value));
+    }
+
+    private Stream<NodeReducedResult> mergeById(Stream<Hit> hits) {
+        Map<Long, NodeReducedResult> merged = new LinkedHashMap<>();
+        try (hits) {
+            hits.forEach(hit -> merged.merge(hit.id, hit.toReducedResult(), this::merge));
+        }
+        return merged.values().stream();
     }
 
     @Procedure("apoc.search.nodeAll")
     @Description("Do a parallel search over multiple indexes returning nodes. usage apoc.search.nodeAll( map of label and properties which will be searched upon, operator: EXACT | CONTAINS | STARTS WITH | ENDS WITH, searchValue ) returns all the Nodes found in the different searches.")
     public Stream<NodeResult> multiSearchNodeAll(@Name("LabelPropertyMap") final Object labelProperties, @Name("operator") final String operator, @Name("value") final String value) throws Exception {
-        return createWorkersFromValidInput(labelProperties, operator, value).flatMap(QueryWorker::queryForNodeId).map(nodeId -> new NodeResult(tx.getNodeById(nodeId)));
+        return search(labelProperties, operator, value).map(hit -> new NodeResult(tx.getNodeById(hit.id)));
     }
 
 
     @Procedure("apoc.search.node")
     @Description("Do a parallel search over multiple indexes returning nodes. usage apoc.search.node( map of label and properties which will be searched upon, operator: EXACT | CONTAINS | STARTS WITH | ENDS WITH, searchValue ) returns all the DISTINCT Nodes found in the different searches.")
     public Stream<NodeResult> multiSearchNode(@Name("LabelPropertyMap") final Object labelProperties, @Name("operator") final String operator, @Name("value") final String value) throws Exception {
-        return createWorkersFromValidInput(labelProperties, operator, value)
-                .flatMap(QueryWorker::queryForNodeId)
-                .map(nodeId -> new NodeResult(tx.getNodeById(nodeId)))
-                .distinct();
+        Roaring64NavigableMap seen = new Roaring64NavigableMap();
+        return search(labelProperties, operator, value)
+                .filter(hit -> {
+                    if (seen.contains(hit.id)) return false;
+                    seen.addLong(hit.id);
+                    return true;
+                })
+                .map(hit -> new NodeResult(tx.getNodeById(hit.id)));
     }
 
+    /**
+     * Runs one worker per label/property pair on the search lane, each streaming its hits into a bounded queue
+     * that is drained by the returned stream. Closing the stream stops the workers.
+     * The caller never waits on the lane: the tasks the full lane rejects are left to the accepted ones,
+     * and if the lane accepts none the workers run one by one in the caller's thread.
+     */
+    private Stream<Hit> search(final Object labelProperties, String operator, final Object value) throws Exception {
+        Queue<QueryWorker> workers = createWorkersFromValidInput(labelProperties, operator, value).collect(Collectors.toCollection(ConcurrentLinkedQueue::new));
+        if (workers.isEmpty()) return Stream.empty();
+        BlockingQueue<Hit> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Runnable checkClosed = () -> {
+            if (closed.get()) throw new SearchClosedException();
+        };
+
+        // a bounded number of tasks drain the workers, they start once we know how many of them the lane accepted
+        ThreadPoolExecutor pool = pools.getLanes().get(Pools.SEARCH_LANE);
+        int tasks = Math.min(workers.size(), pool.getMaximumPoolSize());
+        AtomicInteger running = new AtomicInteger();
+        CountDownLatch submitted = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < tasks; i++) {
+                try {
+                    pool.execute(() -> {
+                        try {
+                            submitted.await();
+                            QueryWorker worker;
+                            while (!closed.get() && (worker = workers.poll()) != null) {
+                                runWorker(worker, hit -> QueueUtil.put(queue, hit, Integer.MAX_VALUE, true, checkClosed), error);
+                            }
+                        } catch (SearchClosedException ignored) {
+                            // the consumer is gone
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            error.compareAndSet(null, e);
+                        } finally {
+                            if (running.decrementAndGet() == 0) {
+                                try {
+                                    QueueUtil.put(queue, TOMBSTONE, Integer.MAX_VALUE, false, checkClosed);
+                                } catch (SearchClosedException ignored) {
+                                    // the consumer is gone
+                                }
+                            }
+                        }
+                    });
+                    running.incrementAndGet();
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+        } finally {
+            submitted.countDown();
+        }
+        if (running.get() == 0) {
+            return searchInline(workers, error);
+        }
+        Stream<Hit> hits = StreamSupport.stream(new QueueBasedSpliterator<>(queue, TOMBSTONE, terminationGuard, Integer.MAX_VALUE), false);
+        return Stream.concat(hits, failure(error)).onClose(() -> closed.set(true));
+    }
+
+    /**
+     * Runs the workers lazily one after the other, while the stream is consumed
+     */
+    private Stream<Hit> searchInline(Queue<QueryWorker> workers, AtomicReference<Exception> error) {
+        Stream<Hit> hits = workers.stream().flatMap(worker -> {
+            List<Hit> found = new ArrayList<>();
+            runWorker(worker, found::add, error);
+            return found.stream();
+        });
+        return Stream.concat(hits, failure(error));
+    }
+
+    private void runWorker(QueryWorker worker, Consumer<Hit> consumer, AtomicReference<Exception> error) {
+        try {
+            worker.search(consumer);
+        } catch (SearchClosedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error(format("search on label:%s and prop:%s failed", worker.label, worker.prop), e);
+            error.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * @return an empty stream failing with the first error of the workers, evaluated lazily after all hits have been consumed
+     */
+    private static Stream<Hit> failure(AtomicReference<Exception> error) {
+        return Stream.of(error).flatMap(e -> {
+            if (e.get() != null) throw new RuntimeException("Error during search: " + e.get().getMessage(), e.get());
+            return Stream.empty();
+        });
+    }
 
     private Stream<QueryWorker> createWorkersFromValidInput(final Object labelPropertiesInput, String operatorInput, final Object value) throws Exception {
         String operatorNormalized = operatorInput.trim().toLowerCase();
@@ -100,7 +240,7 @@ public class ParallelNodeSearch {
         }
         Map<String, Object> labelProperties = labelPropertiesInput instanceof Map ? (Map<String, Object>) labelPropertiesInput : Util.readMap(labelPropertiesInput.toString());
 
-        return labelProperties.entrySet().parallelStream().flatMap(e -> {
+        return labelProperties.entrySet().stream().flatMap(e -> {
             String label = e.getKey();
             Object properties = e.getValue();
             if (properties instanceof String) {
@@ -112,6 +252,39 @@ public class ParallelNodeSearch {
         });
     }
 
+    private static class SearchClosedException extends RuntimeException {
+        SearchClosedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A node matching the search on one label/property pair, with the value of that property.
+     */
+    static class Hit {
+        final long id;
+        final String label;
+        final String prop;
+        final Object value;
+
+        Hit(long id, String label, String prop, Object value) {
+            this.id = id;
+            this.label = label;
+            this.prop = prop;
+            this.value = value;
+        }
+
+        NodeReducedResult toReducedResult() {
+            Map<String, Object> values = new HashMap<>();
+            values.put(prop, value);
+            return new NodeReducedResult(id, new ArrayList<>(singletonList(label)), values);
+        }
+    }
+
+    /**
+     * Searches one label/property pair through the kernel: with an index seek if there is an online
+     * btree or range index on it and the operator can be answered by the index, otherwise by scanning the label.
+     */
     public static class QueryWorker {
         private GraphDatabaseService db;
         private String label, prop, operator;
@@ -127,34 +300,107 @@ public class ParallelNodeSearch {
             this.log = log;
         }
 
-        public Stream<NodeReducedResult> queryForData() {
-            List<String> labels = singletonList(label);
-            String query = format("match (n:`%s`) where n.`%s` %s $value return id(n) as id,  n.`%s` as value", label, prop, operator, prop);
-            return queryForNode(query, (row) -> new NodeReducedResult((long) row.get("id"), labels, singletonMap(prop, row.get("value")))).stream();
+        public void search(Consumer<Hit> consumer) throws KernelException {
+            long start = currentTimeMillis();
+            try (Transaction tx = db.beginTx()) {
+                KernelTransaction ktx = ((InternalTransaction) tx).kernelTransaction();
+                TokenRead tokenRead = ktx.tokenRead();
+                int labelId = tokenRead.nodeLabel(label);
+                int propId = tokenRead.propertyKey(prop);
+                if (labelId == TokenRead.NO_TOKEN || propId == TokenRead.NO_TOKEN || value == null) return;
+
+                Value searchValue = Values.of(value);
+                // like in Cypher, string operators never match non-string values
+                if (operator.endsWith(" with") || operator.equals("contains")) {
+                    if (!(searchValue instanceof TextValue)) return;
+                }
+                PropertyIndexQuery query = indexQuery(propId, searchValue);
+                IndexDescriptor index = query == null ? null : findIndex(ktx, labelId, propId);
+                if (index != null) {
+                    seek(tx, ktx, index, query, consumer);
+                } else {
+                    Predicate<Value> predicate = query != null ? query::acceptsValue : predicate(searchValue);
+                    try (ResourceIterator<Node> nodes = tx.findNodes(Label.label(label))) {
+                        while (nodes.hasNext()) {
+                            Node node = nodes.next();
+                            Object propertyValue = node.getProperty(prop, null);
+                            if (propertyValue != null && predicate.test(Values.of(propertyValue))) {
+                                consumer.accept(new Hit(node.getId(), label, prop, propertyValue));
+                            }
+                        }
+                    }
+                }
+                tx.commit();
+            } finally {
+                if (log.isDebugEnabled())
+                    log.debug(format("(%s) search on label:%s and prop:%s took %d",
+                            Thread.currentThread(), label, prop, currentTimeMillis() - start));
+            }
+        }
+
+        private void seek(Transaction tx, KernelTransaction ktx, IndexDescriptor index, PropertyIndexQuery query, Consumer<Hit> consumer) throws KernelException {
+            Read read = ktx.dataRead();
+            try (NodeValueIndexCursor cursor = ktx.cursors().allocateNodeValueIndexCursor(ktx.cursorContext(), ktx.memoryTracker())) {
+                IndexReadSession session = read.indexReadSession(index);
+                read.nodeIndexSeek(ktx.queryContext(), session, cursor, IndexQueryConstraints.unorderedValues(), query);
+                while (cursor.next()) {
+                    long nodeId = cursor.nodeReference();
+                    Value propertyValue = cursor.hasValue() ? cursor.propertyValue(0) : null;
+                    if (propertyValue == null) {
+                        Object property = tx.getNodeById(nodeId).getProperty(prop, null);
+                        if (property == null) continue;
+                        propertyValue = Values.of(property);
+                    }
+                    // re-check as some index queries can return false positives
+                    if (query.acceptsValue(propertyValue)) {
+                        consumer.accept(new Hit(nodeId, label, prop, propertyValue.asObject()));
+                    }
+                }
+            }
         }
 
-        public Stream<Long> queryForNodeId() {
-            String query = format("match (n:`%s`) where n.`%s` %s $value return id(n) AS id", label, prop, operator);
-            return queryForNode(query, (row) -> (long) row.get("id")).stream();
+        /**
+         * @return the index query for the operator, or null if it can't be answered by an index
+         */
+        private PropertyIndexQuery indexQuery(int propId, Value searchValue) {
+            switch (operator) {
+                case "=": return PropertyIndexQuery.exact(propId, searchValue);
+                case "<": return PropertyIndexQuery.range(propId, null, false, searchValue, false);
+                case "<=": return PropertyIndexQuery.range(propId, null, false, searchValue, true);
+                case ">": return PropertyIndexQuery.range(propId, searchValue, false, null, false);
+                case ">=": return PropertyIndexQuery.range(propId, searchValue, true, null, false);
+                case "starts with": return PropertyIndexQuery.stringPrefix(propId, (TextValue) searchValue);
+                case "ends with": return PropertyIndexQuery.stringSuffix(propId, (TextValue) searchValue);
+                case "contains": return PropertyIndexQuery.stringContains(propId, (TextValue) searchValue);
+                default: return null;
+            }
         }
 
-        public Stream<NodeResult> queryForNode() {
-            String query = format("match (n:`%s`) where n.`%s` %s $value return n", label, prop, operator);
-            return queryForNode(query, (row) -> new NodeResult((Node) row.get("n"))).stream();
+        private Predicate<Value> predicate(Value searchValue) {
+            switch (operator) {
+                case "<>":
+                    return v -> !v.equals(searchValue);
+                case "=~":
+                    Pattern pattern = Pattern.compile(searchValue.asObject().toString());
+                    return v -> v instanceof TextValue && pattern.matcher(((TextValue) v).stringValue()).matches();
+                default:
+                    return v -> false;
+            }
         }
 
-        public <T> List<T> queryForNode(String query, Function<Map<String, Object>, T> transformer) {
-            long start = currentTimeMillis();
-            try (Transaction tx = db.beginTx()) {
-                try (Result nodes = tx.execute(query, singletonMap("value", value))) {
-                    return nodes.stream().map(transformer).collect(Collectors.toList());
-                } finally {
-                    tx.commit();
-                    if (log.isDebugEnabled())
-                        log.debug(format("(%s) search on label:%s and prop:%s took %d",
-                                Thread.currentThread(), label, prop, currentTimeMillis() - start));
+        private static IndexDescriptor findIndex(KernelTransaction ktx, int labelId, int propId) {
+            SchemaRead schemaRead = ktx.schemaRead();
+            Iterator<IndexDescriptor> indexes = schemaRead.index(SchemaDescriptors.forLabel(labelId, propId));
+            while (indexes.hasNext()) {
+                IndexDescriptor index = indexes.next();
+                if (index.getIndexType() != IndexType.BTREE && index.getIndexType() != IndexType.RANGE) continue;
+                try {
+                    if (schemaRead.indexGetState(index) == InternalIndexState.ONLINE) return index;
+                } catch (IndexNotFoundKernelException e) {
+                    // dropped concurrently
                 }
             }
+            return null;
         }
     }
 
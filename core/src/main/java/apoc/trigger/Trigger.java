@@ -45,6 +45,34 @@ public class Trigger {
         }
     }
 
+    public static class BatchStatsResult {
+        public String name;
+        public long queued;
+        public long queueSize;
+        public long batchSize;
+        public long batchTimeout;
+        public long transactions;
+        public long batches;
+        public long failedBatches;
+        public long lagMs;
+        public long lastBatchLagMs;
+        public long maxLagMs;
+
+        public BatchStatsResult(Map<String, Object> stats) {
+            this.name = (String) stats.get("name");
+            this.queued = (long) stats.get("queued");
+            this.queueSize = (long) stats.get("queueSize");
+            this.batchSize = (long) stats.get("batchSize");
+            this.batchTimeout = (long) stats.get("batchTimeout");
+            this.transactions = (long) stats.get("transactions");
+            this.batches = (long) stats.get("batches");
+            this.failedBatches = (long) stats.get("failedBatches");
+            this.lagMs = (long) stats.get("lagMs");
+            this.lastBatchLagMs = (long) stats.get("lastBatchLagMs");
+            this.maxLagMs = (long) stats.get("maxLagMs");
+        }
+    }
+
     @Context public GraphDatabaseService db;
 
     @Context public TriggerHandler triggerHandler;
@@ -131,4 +159,10 @@ public class Trigger {
                 (Map<String,Object>) resume.get("params"),true, false));
     }
 
+    @Procedure(mode = Mode.READ)
+    @Description("CALL apoc.trigger.batchStats() | the queue depth and the lag of the afterAsync triggers run in batches")
+    public Stream<BatchStatsResult> batchStats() {
+        return triggerHandler.batchStats().stream().map(BatchStatsResult::new);
+    }
+
 }
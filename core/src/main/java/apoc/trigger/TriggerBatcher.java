@@ -0,0 +1,175 @@
+package apoc.trigger;
+
+import org.neo4j.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static apoc.util.Util.map;
+
+/**
+ * Queues the metadata of the transactions committed for an afterAsync trigger, and runs the trigger once
+ * with the merged metadata of up to {@code batchSize} transactions, at the latest {@code batchTimeout} ms later.
+ * When the queue is full the committing thread runs a batch itself, so the changes are never dropped.
+ */
+class TriggerBatcher {
+
+    private static class Pending {
+        private final TriggerMetadata metadata;
+        private final long queuedAt;
+
+        Pending(TriggerMetadata metadata, long queuedAt) {
+            this.metadata = metadata;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private final String name;
+    private final Object definition;
+    private final int batchSize;
+    private final long batchTimeout;
+    private final int queueSize;
+    private final BlockingQueue<Pending> queue;
+    private final ExecutorService executor;
+    private final Consumer<TriggerMetadata> action;
+    private final Log log;
+    private final ScheduledFuture<?> timer;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile long lastLag;
+    private volatile long maxLag;
+
+    TriggerBatcher(String name, Object definition, int batchSize, long batchTimeout, int queueSize,
+                   ExecutorService executor, ScheduledExecutorService scheduler,
+                   Consumer<TriggerMetadata> action, Log log) {
+        this.name = name;
+        this.definition = definition;
+        this.batchSize = batchSize;
+        this.batchTimeout = batchTimeout;
+        this.queueSize = queueSize;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.executor = executor;
+        this.action = action;
+        this.log = log;
+        this.timer = scheduler.scheduleWithFixedDelay(() -> submitDrain(true), batchTimeout, batchTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return true if the batcher runs the trigger with this statement, selector and params
+     */
+    boolean isFor(Object definition) {
+        return this.definition.equals(definition);
+    }
+
+    void offer(TriggerMetadata metadata) {
+        final Pending pending = new Pending(metadata, System.currentTimeMillis());
+        while (!queue.offer(pending)) {
+            runBatch();
+        }
+        if (queue.size() >= batchSize) {
+            submitDrain(false);
+        }
+    }
+
+    private void submitDrain(boolean all) {
+        if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                try {
+                    while (all ? !queue.isEmpty() : queue.size() >= batchSize) {
+                        runBatch();
+                    }
+                } finally {
+                    draining.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            log.warn("Could not schedule the batch of the trigger " + name + ", it will be retried in " + batchTimeout + " ms");
+        }
+    }
+
+    private void runBatch() {
+        final List<Pending> batch = new ArrayList<>(batchSize);
+        queue.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            return;
+        }
+        final List<TriggerMetadata> metadata = new ArrayList<>(batch.size());
+        batch.forEach(pending -> metadata.add(pending.metadata));
+        final long lag = System.currentTimeMillis() - batch.get(0).queuedAt;
+        lastLag = lag;
+        maxLag = Math.max(maxLag, lag);
+        transactions.addAndGet(batch.size());
+        batches.incrementAndGet();
+        try {
+            action.accept(TriggerMetadata.merge(metadata));
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.warn("Error executing the batch of " + batch.size() + " transactions of the trigger " + name, e);
+        }
+    }
+
+    /**
+     * Stops the timer and runs the queued transactions in the background
+     */
+    void close() {
+        timer.cancel(false);
+        if (queue.isEmpty()) {
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                while (!queue.isEmpty()) {
+                    runBatch();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("The trigger " + name + " was stopped with " + queue.size() + " transactions not executed");
+        }
+    }
+
+    /**
+     * Stops the timer and runs the queued transactions on the calling thread, until the deadline
+     */
+    void stop(long deadline) {
+        timer.cancel(false);
+        while (!queue.isEmpty() && System.currentTimeMillis() < deadline) {
+            runBatch();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("The trigger " + name + " was stopped with " + queue.size() + " transactions not executed");
+        }
+    }
+
+    Map<String, Object> stats() {
+        final Pending oldest = queue.peek();
+        return map("name", name,
+                "queued", (long) queue.size(),
+                "queueSize", (long) queueSize,
+                "batchSize", (long) batchSize,
+                "batchTimeout", batchTimeout,
+                "transactions", transactions.get(),
+                "batches", batches.get(),
+                "failedBatches", failedBatches.get(),
+                "lagMs", oldest == null ? 0L : System.currentTimeMillis() - oldest.queuedAt,
+                "lastBatchLagMs", lastLag,
+                "maxLagMs", maxLag);
+    }
+}
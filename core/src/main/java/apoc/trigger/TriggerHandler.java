@@ -25,13 +25,23 @@ import org.neo4j.scheduler.Group;
 import org.neo4j.scheduler.JobHandle;
 import org.neo4j.scheduler.JobScheduler;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static apoc.ApocConfig.APOC_TRIGGER_ENABLED;
@@ -43,7 +53,17 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
 
     public static final String TRIGGER_REFRESH = "apoc.trigger.refresh";
 
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_BATCH_TIMEOUT = 1000;
+    private static final long STOP_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    private static final Pattern PARAMETER = Pattern.compile("\\$\\s*`?(\\w+)`?");
+
     private final ConcurrentHashMap<String, Map<String,Object>> activeTriggers = new ConcurrentHashMap();
+    // the triggers to run, not paused, by phase
+    private volatile Map<Phase, List<CompiledTrigger>> triggersByPhase = new EnumMap<>(Phase.class);
+    // the queues of the afterAsync triggers run in batches, by trigger name
+    private final ConcurrentHashMap<String, TriggerBatcher> batchers = new ConcurrentHashMap<>();
     private final Log log;
     private final GraphDatabaseService db;
     private final DatabaseManagementService databaseManagementService;
@@ -104,9 +124,143 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
             return null;
         });
 
+        compileTriggers();
         reconcileKernelRegistration();
     }
 
+    private void compileTriggers() {
+        final Map<Phase, List<CompiledTrigger>> compiled = new EnumMap<>(Phase.class);
+        activeTriggers.forEach((name, data) -> {
+            if ((boolean) data.get("paused")) {
+                return;
+            }
+            try {
+                final CompiledTrigger trigger = new CompiledTrigger(name, data);
+                compiled.computeIfAbsent(trigger.phase, phase -> new ArrayList<>()).add(trigger);
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping the trigger " + name + ": " + e.getMessage());
+            }
+        });
+        triggersByPhase = compiled;
+        reconcileBatchers(compiled.getOrDefault(Phase.afterAsync, Collections.emptyList()));
+    }
+
+    private synchronized void reconcileBatchers(List<CompiledTrigger> asyncTriggers) {
+        final Set<String> batched = new HashSet<>();
+        for (CompiledTrigger trigger : asyncTriggers) {
+            if (!trigger.isBatched()) {
+                continue;
+            }
+            batched.add(trigger.name);
+            final TriggerBatcher existing = batchers.get(trigger.name);
+            if (existing == null || !existing.isFor(trigger.definition)) {
+                final TriggerBatcher batcher = new TriggerBatcher(trigger.name, trigger.definition,
+                        trigger.batchSize, trigger.batchTimeout, trigger.queueSize,
+                        pools.getDefaultExecutorService(), pools.getScheduledExecutorService(),
+                        metadata -> executeBatch(trigger, metadata), log);
+                batchers.put(trigger.name, batcher);
+                if (existing != null) {
+                    existing.close();
+                }
+            }
+        }
+        batchers.entrySet().removeIf(e -> {
+            if (batched.contains(e.getKey())) {
+                return false;
+            }
+            e.getValue().close();
+            return true;
+        });
+    }
+
+    private void executeBatch(CompiledTrigger trigger, TriggerMetadata metadata) {
+        try (Transaction tx = db.beginTx()) {
+            executeTriggers(tx, metadata.rebind(tx), List.of(trigger), Phase.afterAsync);
+            tx.commit();
+        }
+    }
+
+    /**
+     * A trigger with its selector parsed once, so that the transactions don't parse it on each commit.
+     * It declares the metadata its statement uses, and optionally the labels and the property keys it watches.
+     */
+    private static class CompiledTrigger {
+        private final String name;
+        private final String statement;
+        private final Map<String, Object> params;
+        private final Phase phase;
+        private final Set<String> labels;
+        private final Set<String> propertyKeys;
+        private final Set<String> metadataKeys;
+        private final int batchSize;
+        private final long batchTimeout;
+        private final int queueSize;
+        private final Object definition;
+
+        CompiledTrigger(String name, Map<String, Object> data) {
+            this.name = name;
+            this.definition = Arrays.asList(data.get("statement"), data.get("selector"), data.get("params"));
+            this.statement = (String) data.get("statement");
+            Map<String, Object> params = (Map<String, Object>) data.get("params");
+            this.params = params == null ? Collections.emptyMap() : params;
+            Map<String, Object> selector = (Map<String, Object>) data.get("selector");
+            this.phase = phase(selector);
+            this.labels = selectorSet(selector, "labels");
+            this.propertyKeys = selectorSet(selector, "properties");
+            this.metadataKeys = metadataKeys(statement);
+            final boolean batched = selector != null && (selector.containsKey("batchSize") || selector.containsKey("batchTimeout"));
+            if (batched && phase != Phase.afterAsync) {
+                throw new IllegalArgumentException("The batchSize and batchTimeout are only supported by the afterAsync phase");
+            }
+            this.batchSize = batched ? Util.toInteger(selector.getOrDefault("batchSize", DEFAULT_BATCH_SIZE)) : 0;
+            this.batchTimeout = batched ? Util.toLong(selector.getOrDefault("batchTimeout", DEFAULT_BATCH_TIMEOUT)) : 0;
+            this.queueSize = batched ? Util.toInteger(selector.getOrDefault("queueSize", batchSize * 10)) : 0;
+            if (batched && (batchSize < 1 || batchTimeout < 1 || queueSize < batchSize)) {
+                throw new IllegalArgumentException("The batchSize and batchTimeout must be positive, and the queueSize at least the batchSize");
+            }
+        }
+
+        boolean isBatched() {
+            return batchSize > 0;
+        }
+
+        private static Set<String> selectorSet(Map<String, Object> selector, String key) {
+            Object value = selector == null ? null : selector.get(key);
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof String) {
+                return Set.of((String) value);
+            }
+            if (value instanceof Collection) {
+                return ((Collection<?>) value).stream().map(String::valueOf).collect(Collectors.toSet());
+            }
+            throw new IllegalArgumentException("The selector " + key + " must be a string or a list of strings");
+        }
+
+        /**
+         * @return the metadata the statement refers to as parameters
+         */
+        private static Set<String> metadataKeys(String statement) {
+            final Set<String> keys = new HashSet<>();
+            final Matcher matcher = PARAMETER.matcher(statement);
+            while (matcher.find()) {
+                if (TriggerMetadata.KEYS.contains(matcher.group(1))) {
+                    keys.add(matcher.group(1));
+                }
+            }
+            return keys;
+        }
+
+        /**
+         * @return true if the transaction changed what the trigger watches, the triggers without labels or properties watch everything
+         */
+        boolean watches(TriggerMetadata triggerMetadata, Transaction tx) {
+            return (labels == null || !Collections.disjoint(labels, triggerMetadata.touchedLabels(tx)))
+                    && (propertyKeys == null || !Collections.disjoint(propertyKeys, triggerMetadata.touchedPropertyKeys()));
+        }
+    }
+
     /**
      * There is substantial memory overhead to the kernel event system, so if a user has enabled apoc triggers in
      * config, but there are no triggers set up, unregister to let the kernel bypass the event handling system.
@@ -135,6 +289,8 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
 
     public Map<String, Object> add(String name, String statement, Map<String,Object> selector, Map<String,Object> params) {
         checkEnabled();
+        // fail on an invalid selector here rather than on the next commits
+        new CompiledTrigger(name, MapUtil.map("statement", statement, "selector", selector, "params", params));
         Map<String, Object> previous = activeTriggers.get(name);
 
         withSystemDb(tx -> {
@@ -203,82 +359,132 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
         return Map.copyOf(activeTriggers);
     }
 
+    public List<Map<String, Object>> batchStats() {
+        checkEnabled();
+        return batchers.values().stream().map(TriggerBatcher::stats).collect(Collectors.toList());
+    }
+
     @Override
     public Void beforeCommit(TransactionData txData, Transaction transaction, GraphDatabaseService databaseService) {
-        if (hasPhase(Phase.before)) {
-            executeTriggers(transaction, txData, Phase.before);
+        final List<CompiledTrigger> triggers = triggers(Phase.before);
+        if (!triggers.isEmpty()) {
+            final TriggerMetadata triggerMetadata = TriggerMetadata.from(txData, false);
+            final List<CompiledTrigger> watching = watching(triggerMetadata, triggers, transaction);
+            if (!watching.isEmpty()) {
+                executeTriggers(transaction, triggerMetadata, watching, Phase.before);
+            }
         }
         return null;
     }
 
     @Override
     public void afterCommit(TransactionData txData, Void state, GraphDatabaseService databaseService) {
-        if (hasPhase(Phase.after)) {
-            try (Transaction tx = db.beginTx()) {
-                executeTriggers(tx, txData, Phase.after);
-                tx.commit();
-            }
+        final List<CompiledTrigger> triggers = triggers(Phase.after);
+        if (!triggers.isEmpty()) {
+            executeInNewTransaction(TriggerMetadata.from(txData, false), triggers, Phase.after);
         }
         afterAsync(txData);
     }
 
     private void afterAsync(TransactionData txData) {
-        if (hasPhase(Phase.afterAsync)) {
-            TriggerMetadata triggerMetadata = TriggerMetadata.from(txData, true);
-            Util.inTxFuture(pools.getDefaultExecutorService(), db, (inner) -> {
-                executeTriggers(inner, triggerMetadata.rebind(inner), Phase.afterAsync);
-                return null;
-            });
+        final List<CompiledTrigger> triggers = triggers(Phase.afterAsync);
+        if (triggers.isEmpty()) {
+            return;
+        }
+        final TriggerMetadata triggerMetadata = TriggerMetadata.from(txData, true);
+        final List<CompiledTrigger> watching = new ArrayList<>();
+        final Map<TriggerBatcher, TriggerMetadata> batched = new HashMap<>();
+        final TriggerMetadata detached;
+        // the transaction data is gone once the commit returns, so what the triggers use is read here
+        try (Transaction tx = db.beginTx()) {
+            for (CompiledTrigger trigger : watching(triggerMetadata, triggers, tx)) {
+                final TriggerBatcher batcher = trigger.isBatched() ? batchers.get(trigger.name) : null;
+                if (batcher == null) {
+                    watching.add(trigger);
+                } else {
+                    batched.put(batcher, triggerMetadata.detach(trigger.metadataKeys));
+                }
+            }
+            detached = triggerMetadata.detach(metadataKeys(watching));
+            tx.commit();
+        }
+        batched.forEach(TriggerBatcher::offer);
+        if (watching.isEmpty()) {
+            return;
         }
+        Util.inTxFuture(pools.getDefaultExecutorService(), db, (inner) -> {
+            executeTriggers(inner, detached.rebind(inner), watching, Phase.afterAsync);
+            return null;
+        });
     }
 
     @Override
     public void afterRollback(TransactionData txData, Void state, GraphDatabaseService databaseService) {
-        if (hasPhase(Phase.rollback)) {
-            try (Transaction tx = db.beginTx()) {
-                executeTriggers(tx, txData, Phase.rollback);
-                tx.commit();
+        final List<CompiledTrigger> triggers = triggers(Phase.rollback);
+        if (!triggers.isEmpty()) {
+            executeInNewTransaction(TriggerMetadata.from(txData, false), triggers, Phase.rollback);
+        }
+    }
+
+    private List<CompiledTrigger> triggers(Phase phase) {
+        return triggersByPhase.getOrDefault(phase, Collections.emptyList());
+    }
+
+    private static List<CompiledTrigger> watching(TriggerMetadata triggerMetadata, List<CompiledTrigger> triggers, Transaction tx) {
+        final List<CompiledTrigger> watching = new ArrayList<>(triggers.size());
+        for (CompiledTrigger trigger : triggers) {
+            if (trigger.watches(triggerMetadata, tx)) {
+                watching.add(trigger);
             }
         }
+        return watching;
     }
 
-    private boolean hasPhase(Phase phase) {
-        return activeTriggers.values().stream()
-                .map(data -> (Map<String, Object>) data.get("selector"))
-                .anyMatch(selector -> when(selector, phase));
+    private static Set<String> metadataKeys(List<CompiledTrigger> triggers) {
+        final Set<String> keys = new HashSet<>();
+        triggers.forEach(trigger -> keys.addAll(trigger.metadataKeys));
+        return keys;
     }
 
-    private void executeTriggers(Transaction tx, TransactionData txData, Phase phase) {
-        executeTriggers(tx, TriggerMetadata.from(txData, false), phase);
+    private void executeInNewTransaction(TriggerMetadata triggerMetadata, List<CompiledTrigger> triggers, Phase phase) {
+        try (Transaction tx = db.beginTx()) {
+            final List<CompiledTrigger> watching = watching(triggerMetadata, triggers, tx);
+            if (!watching.isEmpty()) {
+                executeTriggers(tx, triggerMetadata, watching, phase);
+            }
+            tx.commit();
+        }
     }
 
-    private void executeTriggers(Transaction tx, TriggerMetadata triggerMetadata, Phase phase) {
+    private void executeTriggers(Transaction tx, TriggerMetadata triggerMetadata, List<CompiledTrigger> watching, Phase phase) {
+        // the metadata is converted once and shared by all the triggers
+        final Map<String, Object> metadata = triggerMetadata.toMap(metadataKeys(watching));
         Map<String,String> exceptions = new LinkedHashMap<>();
-        activeTriggers.forEach((name, data) -> {
-            Map<String, Object> params = triggerMetadata.toMap();
-            if (data.get("params") != null) {
-                params.putAll((Map<String, Object>) data.get("params"));
-            }
-            Map<String, Object> selector = (Map<String, Object>) data.get("selector");
-            if ((!(boolean)data.get("paused")) && when(selector, phase)) {
-                try {
-                    params.put("trigger", name);
-                    Result result = tx.execute((String) data.get("statement"), params);
-                    Iterators.count(result);
-                } catch (Exception e) {
-                    log.warn("Error executing trigger " + name + " in phase " + phase, e);
-                    exceptions.put(name, e.getMessage());
-                }
+        for (CompiledTrigger trigger : watching) {
+            try {
+                Map<String, Object> params = new HashMap<>(metadata);
+                params.putAll(trigger.params);
+                params.put("trigger", trigger.name);
+                Result result = tx.execute(trigger.statement, params);
+                Iterators.count(result);
+            } catch (Exception e) {
+                log.warn("Error executing trigger " + trigger.name + " in phase " + phase, e);
+                exceptions.put(trigger.name, e.getMessage());
             }
-        });
+        }
         if (!exceptions.isEmpty()) {
             throw new RuntimeException("Error executing triggers "+exceptions.toString());
         }
     }
 
-    private boolean when(Map<String, Object> selector, Phase phase) {
-        if (selector == null) return phase == Phase.before;
-        return Phase.valueOf(selector.getOrDefault("phase", "before").toString()) == phase;
+    private static Phase phase(Map<String, Object> selector) {
+        if (selector == null) return Phase.before;
+        final String phase = selector.getOrDefault("phase", "before").toString();
+        try {
+            return Phase.valueOf(phase);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("The phase " + phase + " is not one of " + Arrays.toString(Phase.values()));
+        }
     }
 
     @Override
@@ -300,6 +506,10 @@ public class TriggerHandler extends LifecycleAdapter implements TransactionEvent
         if (restoreTriggerHandler != null) {
             restoreTriggerHandler.cancel();
         }
+        // the queued transactions are executed before the database stops, or they would be lost
+        final long deadline = System.currentTimeMillis() + STOP_TIMEOUT;
+        batchers.values().forEach(batcher -> batcher.stop(deadline));
+        batchers.clear();
     }
 
     private <T> T withSystemDb(Function<Transaction, T> action) {
@@ -7,6 +7,7 @@ import apoc.util.Util;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.event.LabelEntry;
@@ -17,77 +18,254 @@ import org.neo4j.internal.helpers.collection.Iterables;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static apoc.util.Util.map;
 
+/**
+ * The changes of a transaction passed to the trigger statements. Each category, e.g. {@code $createdNodes},
+ * is only read from the {@link TransactionData} the first time it's requested, so a transaction pays only for the
+ * categories used by the triggers it fires.
+ */
 public class TriggerMetadata {
-    private final long transactionId;
-    private final long commitTime;
-    private final List<Node> createdNodes;
-    private final List<Relationship> createdRelationships;
-    private final List<Node> deletedNodes;
-    private final List<Relationship> deletedRelationships;
-    private final Map<String, List<Node>> removedLabels;
-    private final Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties;
-    private final Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties;
-    private final Map<String, List<Node>> assignedLabels;
-    private final Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties;
-    private final Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties;
-    private final Map<String, Object> metaData;
-
-    private TriggerMetadata(long transactionId, long commitTime,
-                            List<Node> createdNodes, List<Relationship> createdRelationships,
-                            List<Node> deletedNodes, List<Relationship> deletedRelationships,
-                            Map<String, List<Node>> removedLabels,
-                            Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties,
-                            Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties,
-                            Map<String, List<Node>> assignedLabels,
-                            Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties,
-                            Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties,
-                            Map<String, Object> metaData) {
-        this.transactionId = transactionId;
-        this.commitTime = commitTime;
-        this.createdNodes = createdNodes;
-        this.createdRelationships = createdRelationships;
-        this.deletedNodes = deletedNodes;
-        this.deletedRelationships = deletedRelationships;
-        this.removedLabels = removedLabels;
-        this.removedNodeProperties = removedNodeProperties;
-        this.removedRelationshipProperties = removedRelationshipProperties;
-        this.assignedLabels = assignedLabels;
-        this.assignedNodeProperties = assignedNodeProperties;
-        this.assignedRelationshipProperties = assignedRelationshipProperties;
-        this.metaData = metaData;
+    public static final String TRANSACTION_ID = "transactionId";
+    public static final String COMMIT_TIME = "commitTime";
+    public static final String CREATED_NODES = "createdNodes";
+    public static final String CREATED_RELATIONSHIPS = "createdRelationships";
+    public static final String DELETED_NODES = "deletedNodes";
+    public static final String DELETED_RELATIONSHIPS = "deletedRelationships";
+    public static final String REMOVED_LABELS = "removedLabels";
+    public static final String REMOVED_NODE_PROPERTIES = "removedNodeProperties";
+    public static final String REMOVED_RELATIONSHIP_PROPERTIES = "removedRelationshipProperties";
+    public static final String ASSIGNED_LABELS = "assignedLabels";
+    public static final String ASSIGNED_NODE_PROPERTIES = "assignedNodeProperties";
+    public static final String ASSIGNED_RELATIONSHIP_PROPERTIES = "assignedRelationshipProperties";
+    public static final String META_DATA = "metaData";
+
+    public static final Set<String> KEYS = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(TRANSACTION_ID, COMMIT_TIME,
+            CREATED_NODES, CREATED_RELATIONSHIPS, DELETED_NODES, DELETED_RELATIONSHIPS,
+            REMOVED_LABELS, REMOVED_NODE_PROPERTIES, REMOVED_RELATIONSHIP_PROPERTIES,
+            ASSIGNED_LABELS, ASSIGNED_NODE_PROPERTIES, ASSIGNED_RELATIONSHIP_PROPERTIES, META_DATA)));
+
+    // null once the metadata is detached from the transaction, then only the categories already loaded are available
+    private final TransactionData txData;
+    private final boolean rebindDeleted;
+
+    private Long transactionId;
+    private Long commitTime;
+    private List<Node> createdNodes;
+    private List<Relationship> createdRelationships;
+    private List<Node> deletedNodes;
+    private List<Relationship> deletedRelationships;
+    private Map<String, List<Node>> removedLabels;
+    private Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties;
+    private Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties;
+    private Map<String, List<Node>> assignedLabels;
+    private Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties;
+    private Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties;
+    private Map<String, Object> metaData;
+
+    private Set<String> touchedLabels;
+    private Set<String> touchedPropertyKeys;
+
+    private TriggerMetadata(TransactionData txData, boolean rebindDeleted) {
+        this.txData = txData;
+        this.rebindDeleted = rebindDeleted;
     }
 
     public static TriggerMetadata from(TransactionData txData, boolean rebindDeleted) {
-        long txId, commitTime;
-        try {
-            txId = txData.getTransactionId();
-        } catch (Exception ignored) {
-            txId = -1L;
-        }
-        try {
-            commitTime = txData.getCommitTime();
-        } catch (Exception ignored) {
-            commitTime = -1L;
-        }
-        List<Node> createdNodes = Convert.convertToList(txData.createdNodes());
-        List<Relationship> createdRelationships = Convert.convertToList(txData.createdRelationships());
-        List<Node> deletedNodes = rebindDeleted ? rebindDeleted(Convert.convertToList(txData.deletedNodes())) : Convert.convertToList(txData.deletedNodes());
-        List<Relationship> deletedRelationships = rebindDeleted ? rebindDeleted(Convert.convertToList(txData.deletedRelationships())) : Convert.convertToList(txData.deletedRelationships());
-        Map<String, List<Node>> removedLabels = aggregateLabels(txData.removedLabels());
-        Map<String, List<Node>> assignedLabels = aggregateLabels(txData.assignedLabels());
-        final Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties = aggregatePropertyKeys(txData.removedNodeProperties(), true);
-        final Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties = aggregatePropertyKeys(txData.removedRelationshipProperties(), true);
-        final Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties = aggregatePropertyKeys(txData.assignedNodeProperties(), false);
-        final Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties = aggregatePropertyKeys(txData.assignedRelationshipProperties(), false);
-        return new TriggerMetadata(txId, commitTime, createdNodes, createdRelationships, deletedNodes, deletedRelationships,
-                removedLabels,removedNodeProperties, removedRelationshipProperties, assignedLabels, assignedNodeProperties,
-                assignedRelationshipProperties, txData.metaData());
+        return new TriggerMetadata(txData, rebindDeleted);
+    }
+
+    private void checkAttached(String key) {
+        if (txData == null) {
+            throw new IllegalStateException("The trigger metadata " + key + " was not loaded before the end of the transaction");
+        }
+    }
+
+    private long transactionId() {
+        if (transactionId == null) {
+            checkAttached(TRANSACTION_ID);
+            try {
+                transactionId = txData.getTransactionId();
+            } catch (Exception ignored) {
+                transactionId = -1L;
+            }
+        }
+        return transactionId;
+    }
+
+    private long commitTime() {
+        if (commitTime == null) {
+            checkAttached(COMMIT_TIME);
+            try {
+                commitTime = txData.getCommitTime();
+            } catch (Exception ignored) {
+                commitTime = -1L;
+            }
+        }
+        return commitTime;
+    }
+
+    private List<Node> createdNodes() {
+        if (createdNodes == null) {
+            checkAttached(CREATED_NODES);
+            createdNodes = Convert.convertToList(txData.createdNodes());
+        }
+        return createdNodes;
+    }
+
+    private List<Relationship> createdRelationships() {
+        if (createdRelationships == null) {
+            checkAttached(CREATED_RELATIONSHIPS);
+            createdRelationships = Convert.convertToList(txData.createdRelationships());
+        }
+        return createdRelationships;
+    }
+
+    private List<Node> deletedNodes() {
+        if (deletedNodes == null) {
+            checkAttached(DELETED_NODES);
+            final List<Node> nodes = Convert.convertToList(txData.deletedNodes());
+            deletedNodes = rebindDeleted ? rebindDeleted(nodes) : nodes;
+        }
+        return deletedNodes;
+    }
+
+    private List<Relationship> deletedRelationships() {
+        if (deletedRelationships == null) {
+            checkAttached(DELETED_RELATIONSHIPS);
+            final List<Relationship> relationships = Convert.convertToList(txData.deletedRelationships());
+            deletedRelationships = rebindDeleted ? rebindDeleted(relationships) : relationships;
+        }
+        return deletedRelationships;
+    }
+
+    private Map<String, List<Node>> removedLabels() {
+        if (removedLabels == null) {
+            checkAttached(REMOVED_LABELS);
+            removedLabels = aggregateLabels(txData.removedLabels());
+        }
+        return removedLabels;
+    }
+
+    private Map<String, List<Node>> assignedLabels() {
+        if (assignedLabels == null) {
+            checkAttached(ASSIGNED_LABELS);
+            assignedLabels = aggregateLabels(txData.assignedLabels());
+        }
+        return assignedLabels;
+    }
+
+    private Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties() {
+        if (removedNodeProperties == null) {
+            checkAttached(REMOVED_NODE_PROPERTIES);
+            removedNodeProperties = aggregatePropertyKeys(txData.removedNodeProperties(), true);
+        }
+        return removedNodeProperties;
+    }
+
+    private Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties() {
+        if (removedRelationshipProperties == null) {
+            checkAttached(REMOVED_RELATIONSHIP_PROPERTIES);
+            removedRelationshipProperties = aggregatePropertyKeys(txData.removedRelationshipProperties(), true);
+        }
+        return removedRelationshipProperties;
+    }
+
+    private Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties() {
+        if (assignedNodeProperties == null) {
+            checkAttached(ASSIGNED_NODE_PROPERTIES);
+            assignedNodeProperties = aggregatePropertyKeys(txData.assignedNodeProperties(), false);
+        }
+        return assignedNodeProperties;
+    }
+
+    private Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties() {
+        if (assignedRelationshipProperties == null) {
+            checkAttached(ASSIGNED_RELATIONSHIP_PROPERTIES);
+            assignedRelationshipProperties = aggregatePropertyKeys(txData.assignedRelationshipProperties(), false);
+        }
+        return assignedRelationshipProperties;
+    }
+
+    private Map<String, Object> metaData() {
+        if (metaData == null) {
+            checkAttached(META_DATA);
+            metaData = txData.metaData();
+        }
+        return metaData;
+    }
+
+    /**
+     * @param tx an open transaction, used to read the labels of the nodes whose properties changed
+     * @return the labels added to or removed from a node, including the ones of the created and deleted nodes,
+     * and the labels of the nodes whose properties changed
+     */
+    public Set<String> touchedLabels(Transaction tx) {
+        if (touchedLabels == null) {
+            checkAttached("labels");
+            final Set<String> labels = new HashSet<>();
+            txData.assignedLabels().forEach(entry -> labels.add(entry.label().name()));
+            txData.removedLabels().forEach(entry -> labels.add(entry.label().name()));
+            addLabels(labels, txData.assignedNodeProperties(), tx);
+            addLabels(labels, txData.removedNodeProperties(), tx);
+            touchedLabels = labels;
+        }
+        return touchedLabels;
+    }
+
+    private static void addLabels(Set<String> labels, Iterable<PropertyEntry<Node>> entries, Transaction tx) {
+        for (PropertyEntry<Node> entry : entries) {
+            try {
+                Util.rebind(tx, entry.entity()).getLabels().forEach(label -> labels.add(label.name()));
+            } catch (NotFoundException ignored) {
+                // the labels of a deleted node are already among the removed ones
+            }
+        }
+    }
+
+    /**
+     * @return the keys of the properties set or removed on the nodes and the relationships
+     */
+    public Set<String> touchedPropertyKeys() {
+        if (touchedPropertyKeys == null) {
+            checkAttached("property keys");
+            final Set<String> keys = new HashSet<>();
+            txData.assignedNodeProperties().forEach(entry -> keys.add(entry.key()));
+            txData.removedNodeProperties().forEach(entry -> keys.add(entry.key()));
+            txData.assignedRelationshipProperties().forEach(entry -> keys.add(entry.key()));
+            txData.removedRelationshipProperties().forEach(entry -> keys.add(entry.key()));
+            touchedPropertyKeys = keys;
+        }
+        return touchedPropertyKeys;
+    }
+
+    /**
+     * Reads the given categories, so that they're still available once the transaction is over
+     * @return the metadata holding only the given categories
+     */
+    public TriggerMetadata detach(Set<String> keys) {
+        final TriggerMetadata detached = new TriggerMetadata(null, rebindDeleted);
+        if (keys.contains(TRANSACTION_ID)) detached.transactionId = transactionId();
+        if (keys.contains(COMMIT_TIME)) detached.commitTime = commitTime();
+        if (keys.contains(CREATED_NODES)) detached.createdNodes = createdNodes();
+        if (keys.contains(CREATED_RELATIONSHIPS)) detached.createdRelationships = createdRelationships();
+        if (keys.contains(DELETED_NODES)) detached.deletedNodes = deletedNodes();
+        if (keys.contains(DELETED_RELATIONSHIPS)) detached.deletedRelationships = deletedRelationships();
+        if (keys.contains(REMOVED_LABELS)) detached.removedLabels = removedLabels();
+        if (keys.contains(REMOVED_NODE_PROPERTIES)) detached.removedNodeProperties = removedNodeProperties();
+        if (keys.contains(REMOVED_RELATIONSHIP_PROPERTIES)) detached.removedRelationshipProperties = removedRelationshipProperties();
+        if (keys.contains(ASSIGNED_LABELS)) detached.assignedLabels = assignedLabels();
+        if (keys.contains(ASSIGNED_NODE_PROPERTIES)) detached.assignedNodeProperties = assignedNodeProperties();
+        if (keys.contains(ASSIGNED_RELATIONSHIP_PROPERTIES)) detached.assignedRelationshipProperties = assignedRelationshipProperties();
+        if (keys.contains(META_DATA)) detached.metaData = metaData();
+        return detached;
     }
 
     private static <T extends Entity> List<T> rebindDeleted(List<T> entities) {
@@ -105,32 +283,107 @@ public class TriggerMetadata {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Merges the metadata detached from consecutive transactions: the entities and the changes are concatenated,
+     * the transactionId and the commitTime are the ones of the last transaction.
+     */
+    public static TriggerMetadata merge(List<TriggerMetadata> metadata) {
+        if (metadata.size() == 1) {
+            return metadata.get(0);
+        }
+        final TriggerMetadata merged = new TriggerMetadata(null, true);
+        for (TriggerMetadata other : metadata) {
+            if (other.transactionId != null) merged.transactionId = other.transactionId;
+            if (other.commitTime != null) merged.commitTime = other.commitTime;
+            merged.createdNodes = concat(merged.createdNodes, other.createdNodes);
+            merged.createdRelationships = concat(merged.createdRelationships, other.createdRelationships);
+            merged.deletedNodes = concat(merged.deletedNodes, other.deletedNodes);
+            merged.deletedRelationships = concat(merged.deletedRelationships, other.deletedRelationships);
+            merged.removedLabels = concat(merged.removedLabels, other.removedLabels);
+            merged.removedNodeProperties = concat(merged.removedNodeProperties, other.removedNodeProperties);
+            merged.removedRelationshipProperties = concat(merged.removedRelationshipProperties, other.removedRelationshipProperties);
+            merged.assignedLabels = concat(merged.assignedLabels, other.assignedLabels);
+            merged.assignedNodeProperties = concat(merged.assignedNodeProperties, other.assignedNodeProperties);
+            merged.assignedRelationshipProperties = concat(merged.assignedRelationshipProperties, other.assignedRelationshipProperties);
+            if (other.metaData != null) {
+                if (merged.metaData == null) merged.metaData = new HashMap<>();
+                merged.metaData.putAll(other.metaData);
+            }
+        }
+        return merged;
+    }
+
+    private static <T> List<T> concat(List<T> merged, List<T> other) {
+        if (other == null) return merged;
+        if (merged == null) merged = new ArrayList<>(other.size());
+        merged.addAll(other);
+        return merged;
+    }
+
+    private static <T> Map<String, List<T>> concat(Map<String, List<T>> merged, Map<String, List<T>> other) {
+        if (other == null) return merged;
+        final Map<String, List<T>> result = merged == null ? new HashMap<>() : merged;
+        other.forEach((key, values) -> result.computeIfAbsent(key, k -> new ArrayList<>()).addAll(values));
+        return result;
+    }
+
+    /**
+     * @return the loaded categories bound to the given transaction, without the entities deleted since,
+     * the deleted entities are left as they are
+     */
     public TriggerMetadata rebind(Transaction tx) {
-        final List<Node> createdNodes = Util.rebind(this.createdNodes, tx);
-        final List<Relationship> createdRelationships = Util.rebind(this.createdRelationships, tx);
-//        final List<Node> deletedNodes = Util.rebind(this.deletedNodes, tx);
-//        final List<Relationship> deletedRelationships = Util.rebind(this.deletedRelationships, tx);
-        final Map<String, List<Node>> removedLabels = rebindMap(this.removedLabels, tx);
-        final Map<String, List<Node>> assignedLabels = rebindMap(this.assignedLabels, tx);
-        final Map<String, List<PropertyEntryContainer<Node>>> removedNodeProperties = rebindPropertyEntryContainer(this.removedNodeProperties, tx);
-        final Map<String, List<PropertyEntryContainer<Relationship>>> removedRelationshipProperties = rebindPropertyEntryContainer(this.removedRelationshipProperties, tx);
-        final Map<String, List<PropertyEntryContainer<Node>>> assignedNodeProperties = rebindPropertyEntryContainer(this.assignedNodeProperties, tx);
-        final Map<String, List<PropertyEntryContainer<Relationship>>> assignedRelationshipProperties = rebindPropertyEntryContainer(this.assignedRelationshipProperties, tx);
-        return new TriggerMetadata(transactionId, commitTime, createdNodes, createdRelationships, deletedNodes, deletedRelationships,
-                removedLabels, removedNodeProperties, removedRelationshipProperties, assignedLabels, assignedNodeProperties,
-                assignedRelationshipProperties, metaData);
+        final TriggerMetadata rebound = new TriggerMetadata(txData, rebindDeleted);
+        rebound.transactionId = transactionId;
+        rebound.commitTime = commitTime;
+        rebound.createdNodes = rebindExisting(createdNodes, tx);
+        rebound.createdRelationships = rebindExisting(createdRelationships, tx);
+        rebound.deletedNodes = deletedNodes;
+        rebound.deletedRelationships = deletedRelationships;
+        rebound.removedLabels = rebindMap(removedLabels, tx);
+        rebound.assignedLabels = rebindMap(assignedLabels, tx);
+        rebound.removedNodeProperties = rebindPropertyEntryContainer(removedNodeProperties, tx);
+        rebound.removedRelationshipProperties = rebindPropertyEntryContainer(removedRelationshipProperties, tx);
+        rebound.assignedNodeProperties = rebindPropertyEntryContainer(assignedNodeProperties, tx);
+        rebound.assignedRelationshipProperties = rebindPropertyEntryContainer(assignedRelationshipProperties, tx);
+        rebound.metaData = metaData;
+        return rebound;
+    }
+
+    private static <T extends Entity> List<T> rebindExisting(List<T> entities, Transaction tx) {
+        if (entities == null) return null;
+        final List<T> rebound = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            try {
+                rebound.add(Util.rebind(tx, entity));
+            } catch (NotFoundException ignored) {
+                // deleted since the commit
+            }
+        }
+        return rebound;
     }
 
     private <T extends Entity> Map<String, List<PropertyEntryContainer<T>>> rebindPropertyEntryContainer(Map<String, List<PropertyEntryContainer<T>>> map, Transaction tx) {
-        return map.entrySet()
-                .stream()
-                .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue().stream().map(p -> p.rebind(tx)).collect(Collectors.toList())));
+        if (map == null) return null;
+        final Map<String, List<PropertyEntryContainer<T>>> rebound = new HashMap<>();
+        map.forEach((key, containers) -> {
+            final List<PropertyEntryContainer<T>> existing = new ArrayList<>(containers.size());
+            for (PropertyEntryContainer<T> container : containers) {
+                try {
+                    existing.add(container.rebind(tx));
+                } catch (NotFoundException ignored) {
+                    // deleted since the commit
+                }
+            }
+            rebound.put(key, existing);
+        });
+        return rebound;
     }
 
     private <T extends Entity> Map<String, List<T>> rebindMap(Map<String, List<T>> map, Transaction tx) {
-        return map.entrySet()
-                .stream()
-                .collect(Collectors.toMap(e -> e.getKey(), e -> Util.rebind(e.getValue(), tx)));
+        if (map == null) return null;
+        final Map<String, List<T>> rebound = new HashMap<>();
+        map.forEach((key, entities) -> rebound.put(key, rebindExisting(entities, tx)));
+        return rebound;
     }
 
     private <T extends Entity> Map<String, List<Map<String, Object>>> convertMapOfPropertyEntryContainers(Map<String, List<PropertyEntryContainer<T>>> map) {
@@ -143,19 +396,37 @@ public class TriggerMetadata {
     }
 
     public Map<String, Object> toMap() {
-        return map("transactionId", transactionId,
-                "commitTime", commitTime,
-                "createdNodes", createdNodes,
-                "createdRelationships", createdRelationships,
-                "deletedNodes", deletedNodes,
-                "deletedRelationships", deletedRelationships,
-                "removedLabels", removedLabels,
-                "removedNodeProperties", convertMapOfPropertyEntryContainers(removedNodeProperties),
-                "removedRelationshipProperties", convertMapOfPropertyEntryContainers(removedRelationshipProperties),
-                "assignedLabels", assignedLabels,
-                "assignedNodeProperties", convertMapOfPropertyEntryContainers(assignedNodeProperties),
-                "assignedRelationshipProperties", convertMapOfPropertyEntryContainers(assignedRelationshipProperties),
-                "metaData", metaData);
+        return toMap(KEYS);
+    }
+
+    /**
+     * @return the parameters of the trigger statements, with only the given categories
+     */
+    public Map<String, Object> toMap(Set<String> keys) {
+        final Map<String, Object> map = new HashMap<>();
+        for (String key : keys) {
+            map.put(key, get(key));
+        }
+        return map;
+    }
+
+    private Object get(String key) {
+        switch (key) {
+            case TRANSACTION_ID: return transactionId();
+            case COMMIT_TIME: return commitTime();
+            case CREATED_NODES: return createdNodes();
+            case CREATED_RELATIONSHIPS: return createdRelationships();
+            case DELETED_NODES: return deletedNodes();
+            case DELETED_RELATIONSHIPS: return deletedRelationships();
+            case REMOVED_LABELS: return removedLabels();
+            case REMOVED_NODE_PROPERTIES: return convertMapOfPropertyEntryContainers(removedNodeProperties());
+            case REMOVED_RELATIONSHIP_PROPERTIES: return convertMapOfPropertyEntryContainers(removedRelationshipProperties());
+            case ASSIGNED_LABELS: return assignedLabels();
+            case ASSIGNED_NODE_PROPERTIES: return convertMapOfPropertyEntryContainers(assignedNodeProperties());
+            case ASSIGNED_RELATIONSHIP_PROPERTIES: return convertMapOfPropertyEntryContainers(assignedRelationshipProperties());
+            case META_DATA: return metaData();
+            default: throw new IllegalArgumentException("Unknown trigger metadata " + key);
+        }
     }
 
     private static Map<String, List<Node>> aggregateLabels(Iterable<LabelEntry> labelEntries) {
@@ -0,0 +1,128 @@
+package apoc.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only channel over buffers that can be shared by many channels, each one with its own position.
+ * Used with {@link #map(Path)} to read a memory-mapped file from several threads without any system call.
+ */
+public class ByteBufferChannel implements SeekableByteChannel {
+
+    static final int SEGMENT_SIZE = 1 << 30;
+
+    private final ByteBuffer[] segments;
+    private final long size;
+    private long position;
+    private boolean open = true;
+
+    /**
+     * @param segments buffers of {@code SEGMENT_SIZE} bytes each, but the last one
+     */
+    public ByteBufferChannel(ByteBuffer[] segments) {
+        this.segments = segments;
+        long size = 0;
+        for (ByteBuffer segment : segments) {
+            size += segment.limit();
+        }
+        this.size = size;
+    }
+
+    /**
+     * Maps the whole file in segments, since a single mapping can't be larger than 2GB.
+     * The mappings stay valid after the file is closed.
+     */
+    public static ByteBuffer[] map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final ByteBuffer[] segments = new ByteBuffer[(int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                final long offset = (long) i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SEGMENT_SIZE, size - offset));
+            }
+            return segments;
+        }
+    }
+
+    public static ByteBuffer[] wrap(byte[] bytes) {
+        final ByteBuffer[] segments = new ByteBuffer[(int) Math.max(1, (bytes.length + (long) SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            final int offset = i * SEGMENT_SIZE;
+            segments[i] = ByteBuffer.wrap(bytes, offset, Math.min(SEGMENT_SIZE, bytes.length - offset)).slice();
+        }
+        return segments;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        int read = 0;
+        while (dst.hasRemaining() && position < size) {
+            final int offset = (int) (position % SEGMENT_SIZE);
+            final ByteBuffer src = segments[(int) (position / SEGMENT_SIZE)].duplicate();
+            final int length = Math.min(src.limit() - offset, dst.remaining());
+            src.position(offset).limit(offset + length);
+            dst.put(src);
+            position += length;
+            read += length;
+        }
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
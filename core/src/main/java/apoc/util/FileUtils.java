@@ -21,6 +21,7 @@ import java.net.URI;
 import java.net.URL;
 import java.net.URLStreamHandler;
 import java.net.URLStreamHandlerFactory;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -246,6 +247,20 @@ public class FileUtils {
         return SupportedProtocols.from(fileName) == SupportedProtocols.file;
     }
 
+    /**
+     * @return the path of the file on the local filesystem, after the same checks as {@link #inputStreamFor},
+     * or null if the file is remote
+     */
+    public static Path localPathFor(String fileName) throws IOException {
+        apocConfig().checkReadAllowed(fileName);
+        final String url = changeFileUrlIfImportDirectoryConstrained(fileName);
+        if (!isFile(url)) {
+            return null;
+        }
+        final Path path = getPath(url);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
     public static OutputStream getOutputStream(String fileName) {
         if (fileName.equals("-")) {
             return null;
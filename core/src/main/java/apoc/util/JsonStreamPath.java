@@ -0,0 +1,108 @@
+package apoc.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a JsonPath into the prefix that can be matched on the parser tokens, i.e. field names ({@code .a},
+ * {@code ['a']}), array indexes ({@code [0]}) and wildcards ({@code [*]}, {@code .*}), and the remaining path,
+ * evaluated by JsonPath on each value matching the prefix. The prefix of {@code $.data.items[*].name} is
+ * {@code $.data.items[*]} and the remaining path {@code $.name}.
+ */
+class JsonStreamPath {
+
+    private static final Pattern FIELD = Pattern.compile("\\.([^.\\[\\]()'\"?@\\s]+)(?=[.\\[]|$)");
+    private static final Pattern BRACKET = Pattern.compile("\\[\\s*(?:(\\*)|(\\d+)|'([^',]*)'|\"([^\",]*)\")\\s*]");
+
+    private final List<Step> steps;
+    private final String remainder;
+
+    private JsonStreamPath(List<Step> steps, String remainder) {
+        this.steps = steps;
+        this.remainder = remainder;
+    }
+
+    static JsonStreamPath parse(String path) {
+        String normalized = path.trim();
+        if (normalized.startsWith("[")) {
+            normalized = "$" + normalized;
+        } else if (!normalized.startsWith("$")) {
+            normalized = "$." + normalized;
+        }
+        final List<Step> steps = new ArrayList<>();
+        int end = 1;
+        while (end < normalized.length() && !normalized.startsWith("..", end)) {
+            final Matcher field = FIELD.matcher(normalized).region(end, normalized.length());
+            final Matcher bracket = BRACKET.matcher(normalized).region(end, normalized.length());
+            if (field.lookingAt()) {
+                steps.add(field.group(1).equals("*") ? Step.WILDCARD : new Step(field.group(1), -1));
+                end = field.end();
+            } else if (bracket.lookingAt()) {
+                if (bracket.group(1) != null) {
+                    steps.add(Step.WILDCARD);
+                } else if (bracket.group(2) != null) {
+                    steps.add(new Step(null, Integer.parseInt(bracket.group(2))));
+                } else {
+                    steps.add(new Step(bracket.group(3) != null ? bracket.group(3) : bracket.group(4), -1));
+                }
+                end = bracket.end();
+            } else {
+                break;
+            }
+        }
+        return new JsonStreamPath(steps, end < normalized.length() ? "$" + normalized.substring(end) : "");
+    }
+
+    /**
+     * @return false if the path starts with a deep scan, a filter or any other expression that needs the whole value
+     */
+    boolean hasPrefix() {
+        return !steps.isEmpty();
+    }
+
+    int size() {
+        return steps.size();
+    }
+
+    Step get(int step) {
+        return steps.get(step);
+    }
+
+    /**
+     * @return the path to evaluate on each value matching the prefix, or an empty string if there's none
+     */
+    String getRemainder() {
+        return remainder;
+    }
+
+    boolean hasRemainder() {
+        return StringUtils.isNotBlank(remainder);
+    }
+
+    static class Step {
+        static final Step WILDCARD = new Step(null, -1);
+
+        private final String field;
+        private final int index;
+
+        Step(String field, int index) {
+            this.field = field;
+            this.index = index;
+        }
+
+        /**
+         * @param field the field name, or null for an array element
+         * @param index the index of the array element
+         */
+        boolean matches(String field, int index) {
+            if (this == WILDCARD) {
+                return true;
+            }
+            return field == null ? this.index == index : field.equals(this.field);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package apoc.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Walks the tokens of a (sequence of) json document(s) and deserializes only the values matching the prefix of a
+ * {@link JsonStreamPath}, one at a time. The containers along the prefix are scanned without being built,
+ * every other subtree is skipped.
+ * For an indefinite path the values are returned as JsonPath returns them: a list of all the matches of a document,
+ * except that when the first match is a map the matches are returned one by one, as the callers split the lists of maps.
+ */
+class JsonStreamSpliterator extends Spliterators.AbstractSpliterator<Object> {
+
+    private final JsonParser parser;
+    private final JsonStreamPath path;
+    private final boolean indefinite;
+    private final Function<Object, Stream<Object>> remainder;
+    private final boolean failOnError;
+
+    // the containers whose children are matched against the step of the path
+    private final Deque<Container> containers = new ArrayDeque<>();
+    // the values ready to be returned
+    private final Deque<Object> ready = new ArrayDeque<>();
+    // the matches of the current document of an indefinite path, when the first one isn't a map
+    private List<Object> matches;
+    private boolean mapsOnly;
+
+    /**
+     * @param indefinite true if the path can match more than one value per document
+     * @param remainder  the values matching the remaining path in a value matching the prefix
+     */
+    JsonStreamSpliterator(JsonParser parser, JsonStreamPath path, boolean indefinite, Function<Object, Stream<Object>> remainder, boolean failOnError) {
+        super(Long.MAX_VALUE, ORDERED);
+        this.parser = parser;
+        this.path = path;
+        this.indefinite = indefinite;
+        this.remainder = remainder;
+        this.failOnError = failOnError;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Object> action) {
+        try {
+            while (ready.isEmpty()) {
+                JsonToken token = parser.nextToken();
+                if (containers.isEmpty()) {
+                    // the next document of the input
+                    if (token == null) {
+                        endDocument();
+                        break;
+                    }
+                    enter(token, 0);
+                    continue;
+                }
+                if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                    containers.pop();
+                    if (containers.isEmpty()) {
+                        endDocument();
+                    }
+                    continue;
+                }
+                final Container container = containers.peek();
+                String field = null;
+                int index = -1;
+                if (container.array) {
+                    index = container.size++;
+                } else {
+                    field = parser.getCurrentName();
+                    token = parser.nextToken();
+                }
+                if (!path.get(container.step).matches(field, index)) {
+                    parser.skipChildren();
+                } else if (container.step == path.size() - 1) {
+                    remainder.apply(JsonUtil.OBJECT_MAPPER.readValue(parser, Object.class)).forEach(this::match);
+                } else {
+                    enter(token, container.step + 1);
+                }
+            }
+        } catch (IOException e) {
+            if (failOnError) {
+                throw new RuntimeException("Can't read the json: " + e.getMessage(), e);
+            }
+            return false;
+        }
+        if (ready.isEmpty()) {
+            return false;
+        }
+        action.accept(ready.poll());
+        return true;
+    }
+
+    private void match(Object value) {
+        if (!indefinite || mapsOnly) {
+            ready.add(value);
+        } else if (matches == null && value instanceof Map) {
+            mapsOnly = true;
+            ready.add(value);
+        } else {
+            if (matches == null) {
+                matches = new ArrayList<>();
+            }
+            matches.add(value);
+        }
+    }
+
+    private void endDocument() {
+        if (matches != null) {
+            ready.add(matches);
+        }
+        matches = null;
+        mapsOnly = false;
+    }
+
+    private void enter(JsonToken token, int step) {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            containers.push(new Container(step, token == JsonToken.START_ARRAY));
+        }
+    }
+
+    private static class Container {
+        private final int step;
+        private final boolean array;
+        private int size;
+
+        Container(int step, boolean array) {
+            this.step = step;
+            this.array = array;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package apoc.util;
 
+import apoc.ApocConfig;
 import apoc.export.util.DurationValueSerializer;
 import apoc.export.util.PointSerializer;
 import apoc.export.util.TemporalSerializer;
@@ -9,9 +10,13 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.PathNotFoundException;
 import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
 import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import org.apache.commons.lang3.StringUtils;
@@ -22,10 +27,14 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.temporal.Temporal;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -38,6 +47,8 @@ public class JsonUtil {
     
     public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     public static final String PATH_OPTIONS_ERROR_MESSAGE = "Invalid pathOptions. The allowed values are: " + EnumSet.allOf(Option.class);
+    public static final String JSON_PATH_CACHE_SIZE = "apoc.json.path.cache.size";
+    public static final int DEFAULT_JSON_PATH_CACHE_SIZE = 1000;
     static {
         OBJECT_MAPPER.configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
         OBJECT_MAPPER.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
@@ -65,18 +76,68 @@ public class JsonUtil {
         }
     }
 
+    // the configurations are immutable, there's one per set of options
+    private static final Map<Set<Option>, Configuration> JSON_PATH_CONFIGS = new ConcurrentHashMap<>();
+
+    /**
+     * The compiled json paths, the cache is created on first use so that its size can be configured
+     */
+    private static class JsonPathCache {
+        private static final int MAXIMUM_SIZE = maximumSize();
+        private static final Cache<String, JsonPath> PATHS = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .recordStats()
+                .build();
+
+        private static int maximumSize() {
+            ApocConfig apocConfig = ApocConfig.apocConfig();
+            return apocConfig == null || apocConfig.getConfig() == null
+                    ? DEFAULT_JSON_PATH_CACHE_SIZE
+                    : apocConfig.getInt(JSON_PATH_CACHE_SIZE, DEFAULT_JSON_PATH_CACHE_SIZE);
+        }
+    }
+
     private static Configuration getJsonPathConfig(List<String> options) {
         try {
-            Option[] opts = options == null ? defaultJsonPathOptions : options.stream().map(Option::valueOf).toArray(Option[]::new);
-            return Configuration.builder()
-                    .options(opts)
+            Set<Option> opts = EnumSet.noneOf(Option.class);
+            if (options == null) {
+                opts.addAll(Arrays.asList(defaultJsonPathOptions));
+            } else {
+                options.stream().map(Option::valueOf).forEach(opts::add);
+            }
+            return JSON_PATH_CONFIGS.computeIfAbsent(opts, key -> Configuration.builder()
+                    .options(key)
                     .jsonProvider(new JacksonJsonProvider(OBJECT_MAPPER))
                     .mappingProvider(new JacksonMappingProvider(OBJECT_MAPPER))
-                    .build();
+                    .build());
         } catch (Exception e) {
             throw new RuntimeException(PATH_OPTIONS_ERROR_MESSAGE, e);
         }
     }
+
+    /**
+     * @return the compiled path, from the cache if it has already been used. Compiling doesn't depend on the options.
+     */
+    private static JsonPath compile(String path) {
+        JsonPath jsonPath = JsonPathCache.PATHS.getIfPresent(path);
+        if (jsonPath == null) {
+            jsonPath = JsonPath.compile(path);
+            JsonPathCache.PATHS.put(path, jsonPath);
+        }
+        return jsonPath;
+    }
+
+    public static CacheStats getJsonPathCacheStats() {
+        return JsonPathCache.PATHS.stats();
+    }
+
+    public static long getJsonPathCacheSize() {
+        return JsonPathCache.PATHS.size();
+    }
+
+    public static long getJsonPathCacheMaximumSize() {
+        return JsonPathCache.MAXIMUM_SIZE;
+    }
     
     public static Stream<Object> loadJson(String url, Map<String,Object> headers, String payload) {
         return loadJson(url,headers,payload,"", true, null, null);
@@ -87,6 +148,14 @@ public class JsonUtil {
     }
     
     public static Stream<Object> loadJson(Object urlOrBinary, Map<String,Object> headers, String payload, String path, boolean failOnError, String compressionAlgo, List<String> options) {
+        return loadJson(urlOrBinary, headers, payload, path, failOnError, compressionAlgo, options, false);
+    }
+
+    /**
+     * @param streaming if true, the prefix of the path made of fields, indexes and wildcards is matched while parsing
+     *                  and only the matching values are deserialized, one at a time, see {@link JsonStreamPath}
+     */
+    public static Stream<Object> loadJson(Object urlOrBinary, Map<String,Object> headers, String payload, String path, boolean failOnError, String compressionAlgo, List<String> options, boolean streaming) {
         try {
             if (urlOrBinary instanceof String) {
                 String url = (String) urlOrBinary;
@@ -94,9 +163,23 @@ public class JsonUtil {
             }
             InputStream input = FileUtils.inputStreamFor(urlOrBinary, headers, payload, compressionAlgo);
             JsonParser parser = OBJECT_MAPPER.getFactory().createParser(input);
+            JsonStreamPath streamPath = streaming && StringUtils.isNotBlank(path) ? JsonStreamPath.parse(path) : null;
+            if (streamPath != null && streamPath.hasPrefix()) {
+                boolean indefinite = !compile(path).isDefinite();
+                Function<Object, Stream<Object>> remainder = streamPath.hasRemainder()
+                        ? remainder(compile(streamPath.getRemainder()), getJsonPathConfig(options), indefinite)
+                        : Stream::of;
+                return StreamSupport.stream(new JsonStreamSpliterator(parser, streamPath, indefinite, remainder, failOnError), false)
+                        .onClose(() -> Util.close(input));
+            }
             MappingIterator<Object> it = OBJECT_MAPPER.readValues(parser, Object.class);
             Stream<Object> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, 0), false);
-            return StringUtils.isBlank(path) ? stream : stream.map((value) -> JsonPath.parse(value, getJsonPathConfig(options)).read(path));
+            if (StringUtils.isBlank(path)) {
+                return stream;
+            }
+            Configuration config = getJsonPathConfig(options);
+            JsonPath jsonPath = compile(path);
+            return stream.map((value) -> JsonPath.parse(value, config).read(jsonPath));
         } catch (IOException e) {
             if(!failOnError) {
                 return Stream.of();
@@ -106,6 +189,25 @@ public class JsonUtil {
         }
     }
 
+    /**
+     * @return the values matching the remaining path in a value matching the prefix, as JsonPath collects them
+     * for the whole path: the lists of an indefinite remaining path are flattened and the missing values are skipped
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Stream<Object>> remainder(JsonPath remainder, Configuration config, boolean indefinite) {
+        return (value) -> {
+            if (!indefinite) {
+                return Stream.of((Object) JsonPath.parse(value, config).read(remainder));
+            }
+            try {
+                Object result = JsonPath.parse(value, config).read(remainder);
+                return remainder.isDefinite() ? Stream.of(result) : ((List<Object>) result).stream();
+            } catch (PathNotFoundException e) {
+                return Stream.empty();
+            }
+        };
+    }
+
     public static Stream<Object> loadJson(String url) {
         return loadJson(url,null,null,"", true, null, null);
     }
@@ -124,7 +226,7 @@ public class JsonUtil {
             if (path == null || path.isEmpty()) {
                 return OBJECT_MAPPER.readValue(json, type);
             }
-            return JsonPath.parse(json, getJsonPathConfig(options)).read(path, type);
+            return JsonPath.parse(json, getJsonPathConfig(options)).read(compile(path), type);
         } catch (IOException e) {
             throw new RuntimeException("Can't convert " + json + " to "+type.getSimpleName()+" with path "+path, e);
         }
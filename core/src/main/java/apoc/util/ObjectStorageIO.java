@@ -0,0 +1,76 @@
+package apoc.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.neo4j.function.ThrowingSupplier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The settings and the thread pools shared by the reads and writes of the object storages (s3://, gs://).
+ * As with the other {@code s3.handler.*} settings, they are read from the system properties.
+ */
+public class ObjectStorageIO {
+
+    public static final String PROP_READ_PART_SIZE = "objectstorage.read.partSize";
+    public static final String PROP_READ_CONCURRENCY = "objectstorage.read.concurrency";
+    public static final String PROP_READ_THREADS = "objectstorage.read.threads";
+    public static final String PROP_UPLOAD_THREADS = "objectstorage.upload.threads";
+
+    public static final int DEFAULT_READ_PART_SIZE = 8 * 1024 * 1024;
+    public static final int DEFAULT_READ_CONCURRENCY = 4;
+    public static final int DEFAULT_READ_THREADS = 32;
+    public static final int DEFAULT_UPLOAD_THREADS = 8;
+
+    private ObjectStorageIO() {}
+
+    private static class SharedExecutors {
+        private static final ExecutorService READ = newExecutor(Integer.getInteger(PROP_READ_THREADS, DEFAULT_READ_THREADS), "ObjectStorage-Read-Thread-%d");
+        private static final ExecutorService UPLOAD = newExecutor(Integer.getInteger(PROP_UPLOAD_THREADS, DEFAULT_UPLOAD_THREADS), "S3-Upload-Thread-%d");
+
+        private static ExecutorService newExecutor(int threads, String nameFormat) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    public static int getReadPartSize() {
+        return Integer.getInteger(PROP_READ_PART_SIZE, DEFAULT_READ_PART_SIZE);
+    }
+
+    public static int getReadConcurrency() {
+        return Integer.getInteger(PROP_READ_CONCURRENCY, DEFAULT_READ_CONCURRENCY);
+    }
+
+    /**
+     * The pool of the ranged reads, its queue is unbounded as the read-ahead of each stream is
+     */
+    public static ExecutorService getReadExecutor() {
+        return SharedExecutors.READ;
+    }
+
+    /**
+     * The pool uploading the parts of all the exports, the memory of the pending parts is bounded by each stream
+     */
+    public static ExecutorService getUploadExecutor() {
+        return SharedExecutors.UPLOAD;
+    }
+
+    /**
+     * @return the object read with concurrent ranged reads, or with a single read when it fits in one part
+     */
+    public static InputStream openStream(long length, RangedInputStream.RangeReader rangeReader, ThrowingSupplier<InputStream, IOException> singleReader) throws IOException {
+        final int partSize = getReadPartSize();
+        final int concurrency = getReadConcurrency();
+        if (length <= partSize || concurrency <= 1) {
+            return singleReader.get();
+        }
+        return new RangedInputStream(length, partSize, concurrency, getReadExecutor(), rangeReader);
+    }
+}
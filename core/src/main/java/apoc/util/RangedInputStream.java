@@ -0,0 +1,126 @@
+package apoc.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads an object of known length as consecutive byte ranges fetched concurrently, e.g. with ranged GETs.
+ * Up to {@code concurrency} parts are read ahead and returned in order, so at most
+ * {@code concurrency * partSize} bytes are buffered.
+ */
+public class RangedInputStream extends InputStream {
+
+    @FunctionalInterface
+    public interface RangeReader {
+        /**
+         * @return the {@code length} bytes starting at {@code offset}
+         */
+        byte[] read(long offset, int length) throws IOException;
+    }
+
+    private final long length;
+    private final int partSize;
+    private final int concurrency;
+    private final ExecutorService pool;
+    private final RangeReader reader;
+
+    private final Deque<Future<byte[]>> parts = new ArrayDeque<>();
+    private long nextOffset;
+    private byte[] current = new byte[0];
+    private int position;
+
+    public RangedInputStream(long length, int partSize, int concurrency, ExecutorService pool, RangeReader reader) {
+        if (partSize < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("The part size and the concurrency must be positive");
+        }
+        this.length = length;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.pool = pool;
+        this.reader = reader;
+        readAhead();
+    }
+
+    private void readAhead() {
+        while (parts.size() < concurrency && nextOffset < length) {
+            final long offset = nextOffset;
+            final int size = (int) Math.min(partSize, length - offset);
+            parts.add(pool.submit(() -> {
+                final byte[] bytes = reader.read(offset, size);
+                if (bytes.length != size) {
+                    throw new IOException(String.format("Expected %d bytes at offset %d but got %d", size, offset, bytes.length));
+                }
+                return bytes;
+            }));
+            nextOffset += size;
+        }
+    }
+
+    /**
+     * @return false at the end of the object
+     */
+    private boolean nextPart() throws IOException {
+        final Future<byte[]> part = parts.poll();
+        if (part == null) {
+            return false;
+        }
+        try {
+            current = part.get();
+            position = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading the part of the object");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+        readAhead();
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (position == current.length) {
+            if (!nextPart()) {
+                return -1;
+            }
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position == current.length) {
+            if (!nextPart()) {
+                return -1;
+            }
+        }
+        final int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() {
+        parts.forEach(part -> part.cancel(true));
+        parts.clear();
+        current = new byte[0];
+        position = 0;
+        nextOffset = length;
+    }
+}
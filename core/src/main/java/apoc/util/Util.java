@@ -76,6 +76,7 @@ import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -248,6 +249,26 @@ public class Util {
         }
     }
 
+    public static <T> Future<T> inTxFuture(Log log,
+                                           CompletionService<T> completionService,
+                                           GraphDatabaseService db,
+                                           Function<Transaction, T> function,
+                                           long maxRetries,
+                                           Consumer<Long> callbackForRetry,
+                                           Consumer<Void> callbackAction) {
+        try {
+            return completionService.submit(() -> {
+                try {
+                    return retryInTx(log, db, function, 0, maxRetries, callbackForRetry);
+                } finally {
+                    callbackAction.accept(null);
+                }
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error executing in separate transaction", e);
+        }
+    }
+
     public static <T> Future<T> inTxFuture(ExecutorService pool, GraphDatabaseService db, Function<Transaction, T> function) {
         return inTxFuture(null, pool, db, function, 0, _ignored -> {}, _ignored -> {});
     }
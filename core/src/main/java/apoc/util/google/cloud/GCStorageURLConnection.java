@@ -1,5 +1,7 @@
 package apoc.util.google.cloud;
 
+import apoc.util.ObjectStorageIO;
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
@@ -14,9 +16,12 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -24,6 +29,8 @@ public class GCStorageURLConnection extends URLConnection {
 
     enum AuthType { NONE, PRIVATE_KEY, GCP_ENVIRONMENT }
 
+    private static final Map<AuthType, Storage> STORAGES = new ConcurrentHashMap<>();
+
     private Blob blob;
     public GCStorageURLConnection(URL url) {
         super(url);
@@ -31,9 +38,14 @@ public class GCStorageURLConnection extends URLConnection {
 
     @VisibleForTesting
     public Storage getStorage(URI uri) {
-        Storage storage;
         Map<String, String> queryParams = getQueryParams(uri);
         AuthType authenticationType = AuthType.valueOf(queryParams.getOrDefault("authenticationType", AuthType.NONE.toString()));
+        // the credentials only depend on the authentication type, so each client can be shared by all the connections
+        return STORAGES.computeIfAbsent(authenticationType, GCStorageURLConnection::createStorage);
+    }
+
+    private static Storage createStorage(AuthType authenticationType) {
+        Storage storage;
         switch (authenticationType) {
             case PRIVATE_KEY:
                 String googleAppCredentialsEnv = System.getenv("GOOGLE_APPLICATION_CREDENTIALS");
@@ -76,6 +88,20 @@ public class GCStorageURLConnection extends URLConnection {
         }
     }
 
+    private byte[] readRange(long offset, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        // the parts come from the generation of the blob that was looked up, a newer one fails the read
+        try (ReadChannel reader = blob.reader(Blob.BlobSourceOption.generationMatch())) {
+            reader.seek(offset);
+            reader.setChunkSize(length);
+            int read = 0;
+            while (bytes.hasRemaining() && read >= 0) {
+                read = reader.read(bytes);
+            }
+        }
+        return bytes.hasRemaining() ? Arrays.copyOf(bytes.array(), bytes.position()) : bytes.array();
+    }
+
     @Override
     public String getContentType() {
         return blob.getContentType();
@@ -90,7 +116,7 @@ public class GCStorageURLConnection extends URLConnection {
         if (blob == null) {
             in = new ByteArrayInputStream(new byte[0]);
         } else {
-            in = Channels.newInputStream(blob.reader());
+            in = ObjectStorageIO.openStream(blob.getSize() != null ? blob.getSize() : 0L, this::readRange, () -> Channels.newInputStream(blob.reader()));
         }
         return in;
     }
@@ -1,5 +1,6 @@
 package apoc.util.s3;
 
+import apoc.util.ObjectStorageIO;
 import apoc.util.StreamConnection;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSCredentialsProvider;
@@ -10,18 +11,120 @@ import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
-
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class S3Aws implements AutoCloseable {
+
+    // the clients are thread safe and hold a connection pool,
+    // there's one per endpoint, region, credentials and client configuration, keyed by their hash so the secrets aren't kept.
+    // The clients not used for a while are evicted and shut down once the streams using them are closed
+    private static final Cache<String, Client> CLIENTS = CacheBuilder.newBuilder()
+            .maximumSize(100)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .removalListener((RemovalListener<String, Client>) notification -> notification.getValue().evict())
+            .build();
+
+    /**
+     * A cached client with the number of its users, an evicted client is shut down when the last one releases it.
+     */
+    private static class Client {
+        private final AmazonS3 s3;
+        private int references;
+        private boolean evicted;
+
+        Client(AmazonS3 s3) {
+            this.s3 = s3;
+        }
+
+        synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+            references++;
+            return true;
+        }
+
+        synchronized void release() {
+            if (--references == 0 && evicted) {
+                s3.shutdown();
+            }
+        }
 
-public class S3Aws {
+        synchronized void evict() {
+            evicted = true;
+            if (references == 0) {
+                s3.shutdown();
+            }
+        }
+    }
 
+    private final Client client;
+    private final AtomicBoolean closed = new AtomicBoolean();
     AmazonS3 s3Client;
 
     public S3Aws(S3Params s3Params, String region) {
+        String clientRegion = Objects.nonNull(region) ? region : s3Params.getRegion();
+        String key = hash(s3Params.getEndpoint(), clientRegion,
+                s3Params.getAccessKey(), s3Params.getSecretKey(), s3Params.getSessionToken(),
+                System.getProperty(S3URLConnection.PROP_S3_HANDLER_PROTOCOL),
+                System.getProperty(S3URLConnection.PROP_S3_HANDLER_USER_AGENT),
+                System.getProperty(S3URLConnection.PROP_S3_HANDLER_SIGNER_OVERRIDE));
+        try {
+            Client cached;
+            // a client evicted in the meantime is already out of the cache
+            do {
+                cached = CLIENTS.get(key, () -> new Client(buildClient(s3Params, clientRegion)));
+            } while (!cached.acquire());
+            client = cached;
+            s3Client = cached.s3;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Releases the client, it's shut down if it was evicted from the cache and nothing else uses it
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            client.release();
+        }
+    }
 
+    private static String hash(String... values) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (String value : values) {
+            // the length tells a null from an empty value and keeps the values apart
+            if (value == null) {
+                hasher.putInt(-1);
+            } else {
+                hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static AmazonS3 buildClient(S3Params s3Params, String region) {
         AWSCredentialsProvider credentialsProvider = getCredentialsProvider(
                 s3Params.getAccessKey(), s3Params.getSecretKey(), s3Params.getSessionToken());
 
@@ -30,7 +133,6 @@ public class S3Aws {
                 .withClientConfiguration(S3URLConnection.buildClientConfig())
                 .withPathStyleAccessEnabled(true);
 
-        region = Objects.nonNull(region) ? region : s3Params.getRegion();
         String endpoint = s3Params.getEndpoint();
         if (Objects.nonNull(endpoint)) {
             builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(s3Params.getEndpoint(), region));
@@ -38,21 +140,62 @@ public class S3Aws {
             builder.withRegion(region);
         }
 
-        s3Client = builder.build();
+        return builder.build();
     }
 
     public AmazonS3 getClient() {
         return s3Client;
     }
 
+    /**
+     * Objects bigger than a part are read with concurrent ranged GETs, see {@link ObjectStorageIO}.
+     * The client is released when the input stream is closed.
+     */
     public StreamConnection getS3AwsInputStream(S3Params s3Params) {
 
-        S3Object s3Object = s3Client.getObject(s3Params.getBucket(), s3Params.getKey());
-        ObjectMetadata metadata = s3Object.getObjectMetadata();
+        String bucket = s3Params.getBucket();
+        String key = s3Params.getKey();
+        ObjectMetadata metadata = s3Client.getObjectMetadata(bucket, key);
+        String eTag = metadata.getETag();
         return new StreamConnection() {
             @Override
-            public InputStream getInputStream() {
-                return s3Object.getObjectContent();
+            public InputStream getInputStream() throws IOException {
+                final InputStream input;
+                try {
+                    input = openStream();
+                } catch (IOException | RuntimeException e) {
+                    S3Aws.this.close();
+                    throw e;
+                }
+                return new FilterInputStream(input) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            S3Aws.this.close();
+                        }
+                    }
+                };
+            }
+
+            private InputStream openStream() throws IOException {
+                return ObjectStorageIO.openStream(metadata.getContentLength(),
+                        (offset, length) -> {
+                            // all the parts come from the same version of the object, or the read fails
+                            GetObjectRequest request = new GetObjectRequest(bucket, key).withRange(offset, offset + length - 1);
+                            if (eTag != null) {
+                                request.withMatchingETagConstraint(eTag);
+                            }
+                            S3Object part = s3Client.getObject(request);
+                            if (part == null) {
+                                throw new IOException("The object " + bucket + "/" + key + " changed while it was read");
+                            }
+                            try (part) {
+                                return part.getObjectContent().readAllBytes();
+                            }
+                        },
+                        () -> s3Client.getObject(bucket, key).getObjectContent());
             }
 
             @Override
@@ -67,7 +210,7 @@ public class S3Aws {
 
             @Override
             public String getName() {
-                return s3Params.getKey();
+                return key;
             }
         };
     }
@@ -1,41 +1,42 @@
 package apoc.util.s3;
 
+import apoc.util.ObjectStorageIO;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
-import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.UploadPartRequest;
-import com.amazonaws.services.s3.model.UploadPartResult;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import javax.annotation.Nonnull;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Uploads the data written as the parts of a multipart upload, the parts of all the streams are uploaded
+ * by the shared pool of {@link ObjectStorageIO#getUploadExecutor()}.
+ */
 public class S3OutputStream extends OutputStream {
-    private volatile boolean isDone = false;
     private volatile long totalMemory = 0L;
     private long transferred = 0;
     private int buffSize = 0;
+    private int partNumber = 1;
     private final Object totalMemoryLock = new Object();
-    private final Future<?> managerFuture;
     private byte[] buffer;
+    private final AmazonS3 s3Client;
     private final String bucketName;
     private final String keyName;
-    private final BlockingQueue<S3UploadData> queue = new LinkedBlockingQueue<>();
+    private final String uploadId;
+    private final List<Future<PartETag>> parts = new ArrayList<>();
     private int maxWaitTimeMinutes = S3UploadConstants.MAX_WAIT_TIME_MINUTES;
 
     // Extra constructor to allow user to overwrite maxWaitTimeMinutes.
@@ -48,12 +49,11 @@ public class S3OutputStream extends OutputStream {
         if (bucketName.isEmpty() || keyName.isEmpty()) {
             throw new InvalidParameterException("Bucket and/or key pass to S3OutputStream is empty.");
         }
+        this.s3Client = s3Client;
         this.bucketName = bucketName;
         this.keyName = keyName;
         allocateMemory(AllocationSize.MB_5);
-        ExecutorService executorService = Executors.newSingleThreadExecutor(
-                new ThreadFactoryBuilder().setNameFormat("S3-Upload-Manager-Thread-%d").setDaemon(true).build());
-        managerFuture = executorService.submit(new S3UploadManager(s3Client, queue));
+        uploadId = s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, keyName)).getUploadId();
     }
 
     private void allocateMemory(final AllocationSize allocationSize) throws IOException {
@@ -81,8 +81,12 @@ public class S3OutputStream extends OutputStream {
         buffer = new byte[(int)incomingSize];
     }
 
+    private void uploadBuffer(final boolean isLast) {
+        parts.add(ObjectStorageIO.getUploadExecutor().submit(new Uploader(partNumber++, buffer, buffSize, isLast)));
+    }
+
     private void transmitBuffer() throws IOException {
-        queue.add(new S3UploadData(new ByteArrayInputStream(buffer), false, buffSize));
+        uploadBuffer(false);
         transferred += buffSize;
         buffSize = 0;
 
@@ -135,119 +139,63 @@ public class S3OutputStream extends OutputStream {
     }
 
     @Override
-    public void close() {
-        // Do not reorder operations, setting done to true first defeats a race condition with the queue being blocked.
-        isDone = true;
-
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
         // Based on the requirements of multipart upload, the last piece can disobey the sizing requirements
         // See https://docs.aws.amazon.com/AmazonS3/latest/dev/qfacts.html
-        queue.add(new S3UploadData(new ByteArrayInputStream(buffer), true, buffSize));
+        uploadBuffer(true);
         buffer = null;
+
+        // The parts must be listed in ascending order to complete the upload
+        final List<PartETag> partETags = new ArrayList<>(parts.size());
+        final long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(maxWaitTimeMinutes);
         try {
-            // Wait for manager's future to complete before exiting.
-            synchronized (managerFuture) {
-                managerFuture.get();
+            for (Future<PartETag> part : parts) {
+                partETags.add(part.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
             }
-        } catch (InterruptedException | ExecutionException e) {
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
             if (e instanceof InterruptedException) {
                 Thread.currentThread().interrupt();
             }
+            parts.forEach(part -> part.cancel(true));
+            s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, keyName, uploadId));
+            throw new IOException("Failed to upload " + keyName + " to the bucket " + bucketName, e instanceof ExecutionException ? e.getCause() : e);
         }
+        s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, keyName, uploadId, partETags));
     }
 
-    private static class S3UploadData {
-        private final InputStream stream;
-        private final boolean isLast;
+    private class Uploader implements Callable<PartETag> {
+        private final int partNumber;
+        private final byte[] data;
         private final int size;
+        private final boolean isLast;
 
-        S3UploadData(@Nonnull InputStream stream, final boolean isLast, final int size) {
-            this.stream = stream;
-            this.isLast = isLast;
+        Uploader(final int partNumber, @Nonnull final byte[] data, final int size, final boolean isLast) {
+            this.partNumber = partNumber;
+            this.data = data;
             this.size = size;
-        }
-
-        InputStream getStream() {
-            return stream;
-        }
-
-        boolean getIsLast() {
-            return isLast;
-        }
-
-        int getSize() {
-            return size;
-        }
-    }
-
-    public class S3UploadManager implements Runnable {
-        private final AmazonS3 s3Client;
-        private final String uploadId;
-        private final BlockingQueue<S3UploadData> queue;
-        private final List<PartETag> partETags = new ArrayList<>();
-        private final InitiateMultipartUploadResult initResponse;
-        private final ExecutorService executorService = Executors.newFixedThreadPool(
-                S3UploadConstants.MAX_THREAD_COUNT,
-                new ThreadFactoryBuilder().setNameFormat("S3-Upload-Thread-%d").setDaemon(true).build());
-
-        S3UploadManager(@Nonnull final AmazonS3 s3Client, @Nonnull final BlockingQueue<S3UploadData> queue) {
-            this.s3Client = s3Client;
-            this.queue = queue;
-            initResponse = s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, keyName));
-            uploadId = initResponse.getUploadId();
+            this.isLast = isLast;
         }
 
         @Override
-        public void run() {
-            int partNumber = 1;
-
-            // If the OutputStream is done and the queue is empty, exit the loop.
-            while (!isDone || !queue.isEmpty()) {
-                try {
-                    // Grab item from blocking queue and pass it to executor service.
-                    final S3UploadData data = queue.take();
-                    executorService.submit(new Uploader(partNumber++, data));
-                } catch (InterruptedException exception) {
-                    Thread.currentThread().interrupt();
-                }
-            }
-
-            // Uploading is complete, finish off remaining parts.
-            executorService.shutdown();
+        public PartETag call() {
             try {
-                executorService.awaitTermination(maxWaitTimeMinutes, TimeUnit.MINUTES);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            s3Client.completeMultipartUpload(
-                    new CompleteMultipartUploadRequest(bucketName, keyName, initResponse.getUploadId(), partETags));
-        }
-
-        public class Uploader implements Runnable {
-            private final int partNumber;
-            private final S3UploadData s3UploadData;
-
-            Uploader(final int partNumber, @Nonnull final S3UploadData s3UploadData) {
-                this.partNumber = partNumber;
-                this.s3UploadData = s3UploadData;
-            }
-
-            @Override
-            public void run() {
-                // Upload the part and add the part to the tags.
+                // Upload the part and return its tag.
                 final UploadPartRequest uploadPartRequest = new UploadPartRequest()
                         .withBucketName(bucketName)
                         .withKey(keyName)
                         .withUploadId(uploadId)
                         .withPartNumber(partNumber)
-                        .withInputStream(s3UploadData.getStream())
-                        .withPartSize(s3UploadData.getSize())
-                        .withLastPart(s3UploadData.getIsLast());
-                final UploadPartResult result = s3Client.uploadPart(uploadPartRequest);
-                partETags.add(result.getPartETag());
-
-                // Notify main thread that memory that was given is no longer in use.
+                        .withInputStream(new ByteArrayInputStream(data, 0, size))
+                        .withPartSize(size)
+                        .withLastPart(isLast);
+                return s3Client.uploadPart(uploadPartRequest).getPartETag();
+            } finally {
+                // Notify the writer that the memory that was given is no longer in use.
                 synchronized (totalMemoryLock) {
-                    totalMemory -= s3UploadData.getSize();
+                    totalMemory -= data.length;
                     totalMemoryLock.notifyAll();
                 }
             }
@@ -277,7 +225,6 @@ public class S3OutputStream extends OutputStream {
         private static final long TRANSFERRED_25GB = AllocationSize.MB_50.getAllocationSize() * 500L;
         private static final long TRANSFERRED_2TB = AllocationSize.MB_500.getAllocationSize() * 4000L;
         private static final long TOTAL_MEMORY_ALLOWED = AllocationSize.MB_750.getAllocationSize() * 3L; // 2.25 GB
-        private static final int MAX_THREAD_COUNT = 8;
         // A max of 5 TB could take a very long time, so give a lot of time for this.
         private static final int MAX_WAIT_TIME_MINUTES = 65536;
     }
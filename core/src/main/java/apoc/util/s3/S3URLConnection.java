@@ -46,7 +46,13 @@ public class S3URLConnection extends URLConnection {
     public static StreamConnection openS3InputStream(URL url) throws IOException {
         S3Params s3Params = S3ParamsExtractor.extract(url);
         String region = Objects.nonNull(s3Params.getRegion()) ? s3Params.getRegion() : Regions.US_EAST_1.getName();
-        return new S3Aws(s3Params, region).getS3AwsInputStream(s3Params);
+        S3Aws s3Aws = new S3Aws(s3Params, region);
+        try {
+            return s3Aws.getS3AwsInputStream(s3Params);
+        } catch (RuntimeException e) {
+            s3Aws.close();
+            throw e;
+        }
     }
 
 }
@@ -14,6 +14,21 @@ public class S3UploadUtils {
         S3Params s3Params = S3ParamsExtractor.extract(new URL(s3Url));
         S3Aws s3Aws = new S3Aws(s3Params, s3Params.getRegion());
         AmazonS3 s3 = s3Aws.getClient();
-        return new S3OutputStream(s3, s3Params.getBucket(), s3Params.getKey());
+        try {
+            // the client is released once the upload is completed or aborted
+            return new S3OutputStream(s3, s3Params.getBucket(), s3Params.getKey()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        s3Aws.close();
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            s3Aws.close();
+            throw e;
+        }
     }
 }
@@ -1,10 +1,14 @@
 package apoc.warmup;
 
+import apoc.Pools;
 import apoc.util.Util;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.context.CursorContext;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
@@ -13,8 +17,16 @@ import org.neo4j.procedure.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -32,6 +44,13 @@ public class Warmup {
     public TerminationGuard guard;
     @Context
     public Log log;
+    @Context
+    public Pools pools;
+
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final long DEFAULT_PROGRESS_SECONDS = 10;
+    private static final long MIN_PAGES_PER_RANGE = 1024;
+    private static final long PROGRESS_POLL_MILLIS = 100;
 
     static class PageResult {
         public final String file;
@@ -41,13 +60,66 @@ public class Warmup {
         public final String error;
         public final long time;
 
-        public PageResult(String file, boolean index, long fileSize, long pages, String error, long start) {
+        public PageResult(String file, boolean index, long fileSize, long pages, String error, long start, long end) {
             this.file = file;
             this.index = index;
             this.fileSize = fileSize;
             this.pages = pages;
             this.error = error;
-            this.time = System.currentTimeMillis() - start;
+            this.time = end - start;
+        }
+    }
+
+    /**
+     * Warmup state of a single paged file, whose page ranges are read by several workers.
+     */
+    static class FileWarmup {
+        final PagedFile pagedFile;
+        final String fileName;
+        final String storeType;
+        final boolean index;
+        final AtomicLong pages = new AtomicLong();
+        final AtomicInteger remainingRanges = new AtomicInteger();
+        volatile long start = Long.MAX_VALUE;
+        volatile long end;
+        volatile String error;
+        long fileSize;
+        long totalPages;
+
+        FileWarmup(PagedFile pagedFile, String fileName, String storeType, boolean index) {
+            this.pagedFile = pagedFile;
+            this.fileName = fileName;
+            this.storeType = storeType;
+            this.index = index;
+        }
+
+        synchronized void started(long time) {
+            start = Math.min(start, time);
+        }
+
+        PageResult toPageResult() {
+            long started = start == Long.MAX_VALUE ? end : start;
+            return new PageResult(fileName, index, error == null ? fileSize : -1L, pages.get(), error, started, Math.max(started, end));
+        }
+
+        Map<String, Object> toMap() {
+            PageResult result = toPageResult();
+            return Util.map("file", fileName, "storeType", storeType, "index", index, "fileSize", result.fileSize,
+                    "pages", result.pages, "time", result.time,
+                    "pagesPerSecond", result.time == 0 ? result.pages * 1000 : result.pages * 1000 / result.time,
+                    "error", error);
+        }
+    }
+
+    static class PageRange {
+        final FileWarmup file;
+        final long startPage;
+        final long endPage;
+
+        PageRange(FileWarmup file, long startPage, long endPage) {
+            this.file = file;
+            this.startPage = startPage;
+            this.endPage = endPage;
         }
     }
 
@@ -63,44 +135,110 @@ public class Warmup {
     }
 
     @Procedure
-    @Description("apoc.warmup.run(loadProperties=false,loadDynamicProperties=false,loadIndexes=false) - quickly loads all nodes and rels into memory by skipping one page at a time")
-    public Stream<WarmupResult> run(@Name(value = "loadProperties", defaultValue = "false") boolean loadProperties, @Name(value = "loadDynamicProperties", defaultValue = "false") boolean loadDynamicProperties, @Name(value = "loadIndexes", defaultValue = "false") boolean loadIndexes) throws IOException {
+    @Description("apoc.warmup.run(loadProperties=false,loadDynamicProperties=false,loadIndexes=false,{threads,include,exclude,progressSeconds}) - quickly loads all nodes and rels into memory by skipping one page at a time")
+    public Stream<WarmupResult> run(@Name(value = "loadProperties", defaultValue = "false") boolean loadProperties, @Name(value = "loadDynamicProperties", defaultValue = "false") boolean loadDynamicProperties, @Name(value = "loadIndexes", defaultValue = "false") boolean loadIndexes,
+                                    @Name(value = "config", defaultValue = "{}") Map<String, Object> config) throws IOException {
         PageCache pageCache = db.getDependencyResolver().resolveDependency(PageCache.class);
         KernelTransaction ktx = ((InternalTransaction)tx).kernelTransaction();
 
-        List<PagedFile> pagedFiles = pageCache.listExistingMappings();
-
-        Map<String, PageResult> records = pagedFiles.parallelStream()
-                .filter(pF -> {
-                    String name = pF.path().toFile().getName();
-                    if (isSchema(pF.path().toFile()) && !loadIndexes) return false;
-                    if ((name.endsWith("propertystore.db.strings") || name.endsWith("propertystore.db.arrays")) && !loadDynamicProperties) return false;
-                    if ((name.startsWith("propertystore.db")) && !loadProperties) return false;
-                    return true;
-                })
-                .map((pagedFile -> {
-                    File file = pagedFile.path().toFile();
-                    boolean index = isSchema(file);
-                    String fileName = index ? subPath(file, "schema") : file.getName();
-                    long pages = 0;
-                    long start = System.currentTimeMillis();
-                    try {
-                        if (pagedFile.fileSize() > 0) {
-                            PageCursor cursor = pagedFile.io(0L, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK,  ktx.cursorContext());
-                            while (cursor.next()) {
-                                cursor.getByte();
-                                pages++;
-                                if (pages % 1000 == 0 && Util.transactionIsTerminated(guard)) {
-                                    break;
-                                }
-                            }
-                        }
-                        return new PageResult(fileName, index, pagedFile.fileSize(), pages, null, start);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                        return new PageResult(fileName, index, -1L, pages, e.getMessage(), start);
-                    } 
-                })).collect(Collectors.toMap(r -> r.file, r -> r));
+        int threads = Util.toInteger(config.getOrDefault("threads", DEFAULT_THREADS));
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads parameter must be > 0");
+        }
+        long progressMillis = TimeUnit.SECONDS.toMillis(Util.toLong(config.getOrDefault("progressSeconds", DEFAULT_PROGRESS_SECONDS)));
+        Set<String> include = filterSet(config.get("include"));
+        Set<String> exclude = filterSet(config.get("exclude"));
+        Map<String, Set<String>> indexNames = include.isEmpty() && exclude.isEmpty() ? Collections.emptyMap() : indexNamesById(ktx);
+
+        List<FileWarmup> files = new ArrayList<>();
+        for (PagedFile pagedFile : pageCache.listExistingMappings()) {
+            File file = pagedFile.path().toFile();
+            String name = file.getName();
+            boolean index = isSchema(file);
+            String storeType = storeType(name, index);
+            Set<String> tokens = new HashSet<>();
+            tokens.add(storeType.toLowerCase());
+            if (index) {
+                tokens.addAll(indexNames.getOrDefault(indexIdOf(file), Collections.emptySet()));
+            }
+            boolean load;
+            if (include.isEmpty()) {
+                load = (!index || loadIndexes)
+                        && (!(name.endsWith("propertystore.db.strings") || name.endsWith("propertystore.db.arrays")) || loadDynamicProperties)
+                        && (!name.startsWith("propertystore.db") || loadProperties);
+            } else {
+                load = !Collections.disjoint(include, tokens);
+            }
+            if (!load || !Collections.disjoint(exclude, tokens)) continue;
+            files.add(new FileWarmup(pagedFile, index ? subPath(file, "schema") : name, storeType, index));
+        }
+
+        // split every file into page ranges, so that large store files are read by several threads
+        Queue<PageRange> ranges = new ConcurrentLinkedQueue<>();
+        long totalPages = 0;
+        for (FileWarmup file : files) {
+            try {
+                file.fileSize = file.pagedFile.fileSize();
+                file.totalPages = file.fileSize > 0 ? file.pagedFile.getLastPageId() + 1 : 0;
+            } catch (IOException e) {
+                file.error = e.getMessage();
+                continue;
+            }
+            totalPages += file.totalPages;
+            long rangeSize = Math.max(MIN_PAGES_PER_RANGE, (file.totalPages + threads - 1) / threads);
+            List<PageRange> fileRanges = new ArrayList<>();
+            for (long startPage = 0; startPage < file.totalPages; startPage += rangeSize) {
+                fileRanges.add(new PageRange(file, startPage, Math.min(file.totalPages, startPage + rangeSize)));
+            }
+            file.remainingRanges.set(fileRanges.size());
+            ranges.addAll(fileRanges);
+        }
+
+        AtomicLong pagesRead = new AtomicLong();
+        AtomicBoolean terminated = new AtomicBoolean();
+        ExecutorService pool = pools.getExecutorService((String) config.get("lane"));
+        List<Future<Void>> futures = new ArrayList<>(threads);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < Math.min(threads, ranges.size()); i++) {
+            futures.add(pool.submit(() -> {
+                PageRange range;
+                while (!terminated.get() && (range = ranges.poll()) != null) {
+                    warmup(range, pagesRead, terminated);
+                }
+                return null;
+            }));
+        }
+
+        long lastProgress = start;
+        for (Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get(PROGRESS_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    if (Util.transactionIsTerminated(guard)) {
+                        terminated.set(true);
+                    }
+                    long now = System.currentTimeMillis();
+                    if (now - lastProgress >= progressMillis) {
+                        lastProgress = now;
+                        long read = pagesRead.get();
+                        log.info("apoc.warmup.run: %d of %d pages loaded (%d%%), %d pages/s", read, totalPages,
+                                totalPages == 0 ? 100 : read * 100 / totalPages, read * 1000 / Math.max(1, now - start));
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    terminated.set(true);
+                    throw new RuntimeException("Error during warmup: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        Map<String, PageResult> records = files.stream().collect(Collectors.toMap(f -> f.fileName, FileWarmup::toPageResult));
+        for (FileWarmup file : files) {
+            if (file.error == null) {
+                log.debug("apoc.warmup.run: loaded %d pages of %s in %d ms", file.pages.get(), file.fileName, file.toPageResult().time);
+            }
+        }
 
         WarmupResult result = new WarmupResult(
                 pageCache.pageSize(),
@@ -111,17 +249,94 @@ public class Warmup {
                 records.get("neostore.relationshipgroupstore.db"),
                 loadProperties,
                 records.get("neostore.propertystore.db"),
-                records.values().stream().mapToLong((r)->r.time).sum(),
-                Util.transactionIsTerminated(guard),
+                System.currentTimeMillis() - start,
+                terminated.get() || Util.transactionIsTerminated(guard),
                 loadDynamicProperties,
                 records.get("neostore.propertystore.db.strings"),
                 records.get("neostore.propertystore.db.arrays"),
                 loadIndexes,
                 records.values().stream().filter(r -> r.index).collect(Collectors.toList())
                 );
+        result.files = files.stream().map(FileWarmup::toMap).collect(Collectors.toList());
         return Stream.of(result);
     }
 
+    private void warmup(PageRange range, AtomicLong pagesRead, AtomicBoolean terminated) {
+        FileWarmup file = range.file;
+        file.started(System.currentTimeMillis());
+        long pages = 0;
+        try (PageCursor cursor = file.pagedFile.io(range.startPage, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK, CursorContext.NULL)) {
+            for (long page = range.startPage; page < range.endPage && cursor.next(); page++) {
+                cursor.getByte();
+                pages++;
+                if (pages % 1000 == 0) {
+                    pagesRead.addAndGet(1000);
+                    if (terminated.get()) break;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("apoc.warmup.run: error loading pages of " + file.fileName, e);
+            file.error = e.getMessage();
+        } finally {
+            pagesRead.addAndGet(pages % 1000);
+            file.pages.addAndGet(pages);
+            if (file.remainingRanges.decrementAndGet() <= 0 || terminated.get()) {
+                file.end = Math.max(file.end, System.currentTimeMillis());
+            }
+        }
+    }
+
+    private Set<String> filterSet(Object value) {
+        if (value == null) return Collections.emptySet();
+        Collection<?> values = value instanceof Collection ? (Collection<?>) value : Collections.singletonList(value);
+        return values.stream().map(v -> v.toString().toLowerCase()).collect(Collectors.toSet());
+    }
+
+    /**
+     * Maps the id of each index, which is the name of the directory of its files, to the lower cased
+     * index name and the labels or relationship types it covers.
+     */
+    private Map<String, Set<String>> indexNamesById(KernelTransaction ktx) {
+        Map<String, Set<String>> result = new HashMap<>();
+        for (IndexDefinition index : tx.schema().getIndexes()) {
+            IndexDescriptor descriptor = ktx.schemaRead().indexGetForName(index.getName());
+            if (descriptor == IndexDescriptor.NO_INDEX) continue;
+            Set<String> names = new HashSet<>();
+            names.add(index.getName().toLowerCase());
+            if (index.isNodeIndex()) {
+                index.getLabels().forEach(label -> names.add(label.name().toLowerCase()));
+            } else if (index.isRelationshipIndex()) {
+                index.getRelationshipTypes().forEach(type -> names.add(type.name().toLowerCase()));
+            }
+            result.put(String.valueOf(descriptor.getId()), names);
+        }
+        return result;
+    }
+
+    /**
+     * Index files live in schema/index/&lt;provider&gt;/&lt;indexId&gt;/...
+     */
+    private String indexIdOf(File file) {
+        for (File parent = file.getParentFile(); parent != null && parent.getParentFile() != null; parent = parent.getParentFile()) {
+            File grandParent = parent.getParentFile().getParentFile();
+            if (grandParent != null && grandParent.getName().equals("index")) {
+                return parent.getName();
+            }
+        }
+        return null;
+    }
+
+    private String storeType(String name, boolean index) {
+        if (index) return "indexes";
+        if (name.endsWith("propertystore.db.strings")) return "strings";
+        if (name.endsWith("propertystore.db.arrays")) return "arrays";
+        if (name.contains("propertystore.db")) return "properties";
+        if (name.contains("relationshipgroupstore.db")) return "relationshipGroups";
+        if (name.contains("relationshipstore.db")) return "relationships";
+        if (name.contains("nodestore.db")) return "nodes";
+        return "other";
+    }
+
     public boolean isSchema(File file) {
         return file.getAbsolutePath().contains(File.separator+"schema"+File.separator);
     }
@@ -161,6 +376,7 @@ public class Warmup {
         public final boolean indexesLoaded;
         public long indexPages;
         public long indexTime;
+        public List<Map<String, Object>> files;
 
         public WarmupResult(long pageSize,
                             long nodesTotal,
@@ -184,15 +400,15 @@ public class Warmup {
             this.dynamicPropertiesLoaded = dynamicPropertiesLoaded;
 
             this.nodesTotal = nodesTotal;
-            this.nodePages = nodes.pages;
-            this.nodesTime = nodes.time;
+            this.nodePages = nodes == null ? 0 : nodes.pages;
+            this.nodesTime = nodes == null ? 0 : nodes.time;
 
             this.relsTotal = relsTotal;
-            this.relPages = rels.pages;
-            this.relsTime = rels.time;
+            this.relPages = rels == null ? 0 : rels.pages;
+            this.relsTime = rels == null ? 0 : rels.time;
 
-            this.relGroupPages = relGroups.pages;
-            this.relGroupsTime = relGroups.time;
+            this.relGroupPages = relGroups == null ? 0 : relGroups.pages;
+            this.relGroupsTime = relGroups == null ? 0 : relGroups.time;
 
             if (props!=null) {
                 this.propPages = props.pages;
@@ -97,6 +97,23 @@ public class ConvertJsonTest {
         }
     }
     
+    @Test
+    public void testJsonPathCacheStats() {
+        final Map<String, Object> before = TestUtil.singleResultFirstColumn(db, "CALL apoc.json.path.cacheStats() YIELD hits, misses RETURN {hits: hits, misses: misses}");
+
+        // the same path with different options is compiled only once
+        final List<Object> values = TestUtil.firstColumn(db, "UNWIND range(1, 10) AS i RETURN [apoc.json.path($json, '$.columns.row.poi'), apoc.json.path($json, '$.columns.row.poi', [])] AS values",
+                Map.of("json", JSON));
+        assertEquals(10, values.size());
+        assertEquals(List.of(772L, 772L), values.get(0));
+
+        testCall(db, "CALL apoc.json.path.cacheStats()", (row) -> {
+            assertEquals(1L, (long) row.get("misses") - (long) before.get("misses"));
+            assertTrue((long) row.get("hits") - (long) before.get("hits") > 0);
+            assertTrue((long) row.get("size") <= (long) row.get("maxSize"));
+        });
+    }
+
     @Test
     public void testJsonPathWithMapFunctions() {
         // apoc.convert.getJsonPropertyMap and apoc.convert.fromJsonMap must fail with "ALWAYS_RETURN_LIST" because should return a Map.
@@ -1,12 +1,16 @@
 package apoc.export.arrow;
 
 import apoc.ApocSettings;
+import apoc.create.Create;
 import apoc.graph.Graphs;
 import apoc.load.LoadArrow;
 import apoc.meta.Meta;
 import apoc.util.JsonUtil;
 import apoc.util.TestUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.types.pojo.Schema;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -16,6 +20,7 @@ import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Arrays;
@@ -26,6 +31,9 @@ import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ArrowTest {
 
@@ -94,7 +102,7 @@ public class ArrowTest {
     @BeforeClass
     public static void beforeClass() {
         db.executeTransactionally("CREATE (f:User {name:'Adam',age:42,male:true,kids:['Sam','Anna','Grace'], born:localdatetime('2015-05-18T19:32:24.000'), place:point({latitude: 13.1, longitude: 33.46789, height: 100.0})})-[:KNOWS {since: 1993, bffSince: duration('P5M1.5D')}]->(b:User {name:'Jim',age:42})");
-        TestUtil.registerProcedure(db, ExportArrow.class, LoadArrow.class, Graphs.class, Meta.class);
+        TestUtil.registerProcedure(db, ExportArrow.class, LoadArrow.class, Graphs.class, Meta.class, Create.class);
     }
 
     private byte[] extractByteArray(Result result) {
@@ -243,6 +251,31 @@ public class ArrowTest {
         });
     }
 
+    @Test
+    public void testFileArrowVirtualGraph() {
+        // given - when
+        // the label and the type aren't tokens of the database
+        String file = db.executeTransactionally("CALL apoc.create.vNode(['VirtualLabel'], {}) YIELD node AS a " +
+                        "CALL apoc.create.vNode(['VirtualLabel'], {}) YIELD node AS b " +
+                        "CALL apoc.create.vRelationship(a, 'VIRTUAL_TYPE', {}, b) YIELD rel " +
+                        "CALL apoc.graph.fromData([a, b], [rel], 'virtual', {}) YIELD graph " +
+                        "CALL apoc.export.arrow.graph('virtual_graph_test.arrow', graph) YIELD file " +
+                        "RETURN file",
+                Map.of(),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.arrow($file) YIELD value " +
+                "RETURN value.labels AS labels, value.`<type>` AS type";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Map<String, Object>> actual = result.stream().collect(Collectors.toList());
+            assertEquals(3, actual.size());
+            assertEquals(2, actual.stream().filter(row -> List.of("VirtualLabel").equals(row.get("labels"))).count());
+            assertEquals(1, actual.stream().filter(row -> "VIRTUAL_TYPE".equals(row.get("type"))).count());
+            return null;
+        });
+    }
+
     @Test
     public void testStreamRoundtripArrowAll() {
         // given - when
@@ -277,6 +310,31 @@ public class ArrowTest {
         });
     }
 
+    @Test
+    public void testFileRoundtripArrowAllWithParallelBatches() throws Exception {
+        // given - when
+        String file = db.executeTransactionally("CALL apoc.export.arrow.all('parallel_test.arrow', {batchSize: 1, concurrency: 4}) YIELD file",
+                Map.of(),
+                this::extractFileName);
+
+        // then
+        final String query = "CALL apoc.load.arrow($file) YIELD value " +
+                "RETURN value";
+        db.executeTransactionally(query, Map.of("file", file), result -> {
+            final List<Map<String, Object>> actual = getActual(result);
+            assertEquals(EXPECTED, actual);
+            return null;
+        });
+        try (RootAllocator allocator = new RootAllocator();
+             FileInputStream inputStream = new FileInputStream(new File(directory, file));
+             ArrowFileReader reader = new ArrowFileReader(inputStream.getChannel(), allocator)) {
+            final Schema schema = reader.getVectorSchemaRoot().getSchema();
+            assertNotNull(schema.findField("<type>").getDictionary());
+            assertNotNull(schema.findField("labels").getChildren().get(0).getDictionary());
+            assertEquals(EXPECTED.size(), reader.getRecordBlocks().size());
+        }
+    }
+
     @Test
     public void testStreamVolumeArrowAll() {
         // given - when
@@ -334,6 +392,55 @@ public class ArrowTest {
         db.executeTransactionally("MATCH (n:ArrowNode) DELETE n");
     }
 
+    @Test
+    public void testFileVolumeArrowAllWithParallelLoad() {
+        // given - when
+        // more rows than the queue of the parallel load holds, so the workers have to give their splits back
+        db.executeTransactionally("UNWIND range(0, 30000 - 1) AS id CREATE (:ArrowNode{id:id})");
+
+        String file = db.executeTransactionally("CALL apoc.export.arrow.query('parallel_volume_test.arrow', 'MATCH (n:ArrowNode) RETURN n.id AS id', {batchSize: 100}) YIELD file ",
+                Map.of(),
+                this::extractFileName);
+
+        final List<Long> expected = LongStream.range(0, 30000)
+                .mapToObj(l -> l)
+                .collect(Collectors.toList());
+
+        // then
+        for (Map<String, Object> config : List.of(Map.<String, Object>of("concurrency", 4), Map.<String, Object>of("concurrency", 4, "lane", "single"))) {
+            final String query = "CALL apoc.load.arrow($file, $config) YIELD value " +
+                    "RETURN value.id AS id";
+            db.executeTransactionally(query, Map.of("file", file, "config", config), result -> {
+                final List<Long> actual = result.stream()
+                        .map(m -> (Long) m.get("id"))
+                        .sorted()
+                        .collect(Collectors.toList());
+                assertEquals(expected, actual);
+                return null;
+            });
+        }
+
+        db.executeTransactionally("MATCH (n:ArrowNode) DELETE n");
+    }
+
+    @Test
+    public void testStreamTruncatedArrowFails() {
+        final byte[] byteArray = db.executeTransactionally("CALL apoc.export.arrow.stream.query($query) YIELD value AS byteArray",
+                Map.of("query", "UNWIND range(0, 999) AS id RETURN id"),
+                this::extractByteArray);
+        // cuts the end of stream marker and the end of the last batch
+        final byte[] truncated = Arrays.copyOf(byteArray, byteArray.length - 20);
+
+        try {
+            db.executeTransactionally("CALL apoc.load.arrow.stream($byteArray) YIELD value RETURN count(*) AS count",
+                    Map.of("byteArray", truncated),
+                    result -> result.next().get("count"));
+            fail("Should have failed reading the truncated batch");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("Error while reading the arrow batches"));
+        }
+    }
+
     @Test
     public void testValidNonStorableQuery() {
         final List<byte[]> list = db.executeTransactionally("CALL apoc.export.arrow.stream.query($query) YIELD value AS byteArray ",
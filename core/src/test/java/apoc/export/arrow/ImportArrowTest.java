@@ -0,0 +1,84 @@
+package apoc.export.arrow;
+
+import apoc.ApocSettings;
+import apoc.meta.Meta;
+import apoc.util.TestUtil;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+import java.io.File;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static apoc.util.TestUtil.testCall;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ImportArrowTest {
+
+    private static File directory = new File("target/arrow import");
+    static { //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+    }
+
+    @ClassRule
+    public static DbmsRule db = new ImpermanentDbmsRule()
+            .withSetting(ApocSettings.apoc_import_file_enabled, true)
+            .withSetting(GraphDatabaseSettings.load_csv_file_url_root, directory.toPath().toAbsolutePath())
+            .withSetting(ApocSettings.apoc_export_file_enabled, true);
+
+    @Before
+    public void before() {
+        TestUtil.registerProcedure(db, ExportArrow.class, ImportArrow.class, Meta.class);
+        db.executeTransactionally("MATCH (n) DETACH DELETE n");
+        db.executeTransactionally("CREATE (f:User:Admin {name:'Adam', age:42, kids:['Sam','Anna'], born:datetime('2015-05-18T19:32:24Z')})-[:KNOWS {since: 1993}]->(b:User {name:'Jim', age:42})");
+        db.executeTransactionally("UNWIND range(1, 100) AS id CREATE (:Item {id: id})-[:OF]->(:Category {id: id % 7})");
+    }
+
+    @Test
+    public void testImportArrowInParallelBatches() {
+        db.executeTransactionally("CALL apoc.export.arrow.all('import_test.arrow', {batchSize: 10})");
+        db.executeTransactionally("MATCH (n) DETACH DELETE n");
+
+        testCall(db, "CALL apoc.import.arrow('import_test.arrow', {concurrency: 4})", row -> {
+            assertEquals(202L, row.get("nodes"));
+            assertEquals(101L, row.get("relationships"));
+        });
+
+        testCall(db, "MATCH (a:User:Admin)-[r:KNOWS]->(b:User) RETURN a, r, b", row -> {
+            final Map<String, Object> adam = ((Node) row.get("a")).getAllProperties();
+            assertEquals("Adam", adam.get("name"));
+            assertEquals(42L, adam.get("age"));
+            assertArrayEquals(new String[] {"Sam", "Anna"}, (String[]) adam.get("kids"));
+            assertTrue(adam.get("born") instanceof ZonedDateTime);
+            assertEquals(1993L, ((Relationship) row.get("r")).getProperty("since"));
+            assertEquals("Jim", ((Node) row.get("b")).getProperty("name"));
+        });
+        testCall(db, "MATCH (i:Item)-[:OF]->(c:Category) RETURN count(*) AS count, sum(i.id) AS ids, collect(DISTINCT c.id) AS categories", row -> {
+            assertEquals(100L, row.get("count"));
+            assertEquals(5050L, row.get("ids"));
+            assertEquals(7, ((List<?>) row.get("categories")).size());
+        });
+    }
+
+    @Test
+    public void testImportArrowSequentially() {
+        db.executeTransactionally("CALL apoc.export.arrow.all('import_sequential_test.arrow', {dictionaryEncoding: false})");
+        db.executeTransactionally("MATCH (n) DETACH DELETE n");
+
+        testCall(db, "CALL apoc.import.arrow('import_sequential_test.arrow', {parallel: false})", row -> {
+            assertEquals(202L, row.get("nodes"));
+            assertEquals(101L, row.get("relationships"));
+        });
+        testCall(db, "MATCH (:User:Admin {name: 'Adam'})-[:KNOWS {since: 1993}]->(:User {name: 'Jim'}) RETURN count(*) AS count",
+                row -> assertEquals(1L, row.get("count")));
+    }
+}
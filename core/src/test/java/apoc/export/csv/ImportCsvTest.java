@@ -652,4 +652,70 @@ public class ImportCsvTest {
         Assert.assertEquals(1L, id);
     }
 
+    @Test
+    public void testNodesAndRelsInParallelBatches() throws IOException {
+        StringBuilder nodes = new StringBuilder(":ID|name:STRING\n");
+        for (int i = 0; i < 5000; i++) {
+            nodes.append(i).append("|n").append(i).append("\n");
+        }
+        StringBuilder rels = new StringBuilder(":START_ID|:END_ID|weight:INT\n");
+        for (int i = 0; i < 10000; i++) {
+            rels.append(i % 5000).append("|").append((i * 7) % 5000).append("|").append(i).append("\n");
+        }
+        CsvTestUtil.saveCsvFile("batchNodes", nodes.toString());
+        CsvTestUtil.saveCsvFile("batchRels", rels.toString());
+
+        TestUtil.testCall(db,
+                "CALL apoc.import.csv([{fileName: $nodeFile, labels: ['Item']}], [{fileName: $relFile, type: 'LINKS'}], $config)",
+                map("nodeFile", "file:/batchNodes.csv",
+                        "relFile", "file:/batchRels.csv",
+                        "config", map("delimiter", '|', "batchSize", 100, "concurrency", 4)),
+                (r) -> {
+                    assertEquals(5000L, r.get("nodes"));
+                    assertEquals(10000L, r.get("relationships"));
+                }
+        );
+        TestUtil.testCall(db, "MATCH (:Item)-[r:LINKS]->(:Item) RETURN count(r) AS count, sum(r.weight) AS weights",
+                r -> {
+                    assertEquals(10000L, r.get("count"));
+                    assertEquals(49995000L, r.get("weights"));
+                });
+        TestUtil.testCall(db, "MATCH (a:Item {name:'n1'})-[r:LINKS {weight:1}]->(b:Item) RETURN b.name AS name",
+                r -> assertEquals("n7", r.get("name")));
+    }
+
+    @Test
+    public void testNodesAndRelsWithIdMappers() {
+        CsvTestUtil.saveCsvFile("mapperNodes", ":ID(Person)|name:STRING\nalice|Alice\nbob|Bob\ncarol|Carol\n");
+        CsvTestUtil.saveCsvFile("mapperNumericNodes", "id:ID(City)|name:STRING\n1|Rome\n2|Milan\n");
+        CsvTestUtil.saveCsvFile("mapperRels", ":START_ID(Person)|:END_ID(Person)\nalice|bob\nbob|carol\n");
+        CsvTestUtil.saveCsvFile("mapperLivesIn", ":START_ID(Person)|:END_ID(City)\nalice|1\ncarol|2\n");
+
+        for (String idMapper : List.of("heap", "offheap")) {
+            db.executeTransactionally("MATCH (n) DETACH DELETE n");
+            TestUtil.testCall(db,
+                    "CALL apoc.import.csv([{fileName: 'file:/mapperNodes.csv', labels: ['Person']}, {fileName: 'file:/mapperNumericNodes.csv', labels: ['City']}], " +
+                            "[{fileName: 'file:/mapperRels.csv', type: 'KNOWS'}, {fileName: 'file:/mapperLivesIn.csv', type: 'LIVES_IN'}], $config)",
+                    map("config", map("delimiter", '|', "idMapper", idMapper, "idMapperMaxOffHeap", 0)),
+                    (r) -> {
+                        assertEquals(5L, r.get("nodes"));
+                        assertEquals(4L, r.get("relationships"));
+                    }
+            );
+            TestUtil.testCall(db, "MATCH (:Person {name:'Alice'})-[:KNOWS]->(:Person)-[:KNOWS]->(c:Person)-[:LIVES_IN]->(city:City) RETURN c.name AS name, city.name AS city",
+                    r -> {
+                        assertEquals("Carol", r.get("name"));
+                        assertEquals("Milan", r.get("city"));
+                    });
+        }
+
+        db.executeTransactionally("MATCH (n) DETACH DELETE n");
+        TestUtil.testCall(db,
+                "CALL apoc.import.csv([{fileName: 'file:/mapperNumericNodes.csv', labels: ['City']}], [], $config)",
+                map("config", map("delimiter", '|', "stringIds", false)),
+                (r) -> assertEquals(2L, r.get("nodes"))
+        );
+        TestUtil.testCall(db, "MATCH (c:City {name:'Rome'}) RETURN c.id AS id", r -> assertEquals(1L, r.get("id")));
+    }
+
 }
@@ -1,5 +1,6 @@
 package apoc.export.cypher;
 
+import apoc.create.Create;
 import apoc.graph.Graphs;
 import apoc.util.TestUtil;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -15,7 +16,9 @@ import org.neo4j.test.rule.ImpermanentDbmsRule;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static apoc.ApocConfig.APOC_EXPORT_FILE_ENABLED;
@@ -56,7 +59,7 @@ public class ExportCypherTest {
     @Before
     public void setUp() throws Exception {
         apocConfig().setProperty(APOC_EXPORT_FILE_ENABLED, true);
-        TestUtil.registerProcedure(db, ExportCypher.class, Graphs.class);
+        TestUtil.registerProcedure(db, ExportCypher.class, Graphs.class, Create.class);
         db.executeTransactionally("CREATE INDEX ON :Bar(first_name, last_name)");
         db.executeTransactionally("CREATE INDEX ON :Foo(name)");
         db.executeTransactionally("CREATE CONSTRAINT ON (b:Bar) ASSERT b.name IS UNIQUE");
@@ -142,6 +145,55 @@ public class ExportCypherTest {
         assertEquals(EXPECTED_NEO4J_SHELL, readFile(fileName));
     }
 
+    @Test
+    public void testExportAllCypherParallelShards() throws Exception {
+        Map<String, Object> config = map("useOptimizations", map("type", "none"), "separateFiles", true, "format", "neo4j-shell");
+        TestUtil.testCall(db, "CALL apoc.export.cypher.all($file, $config)", map("file", "sequential.cypher", "config", config), (r) -> {});
+
+        Map<String, Object> parallelConfig = map("useOptimizations", map("type", "none"), "parallel", 2, "format", "neo4j-shell");
+        TestUtil.testCall(db, "CALL apoc.export.cypher.all($file, $config)", map("file", "sharded.cypher", "config", parallelConfig),
+                (r) -> {
+                    assertEquals(3L, r.get("nodes"));
+                    assertEquals(1L, r.get("relationships"));
+                });
+
+        assertEquals(statements(readFile("sequential.nodes.cypher")),
+                statements(readFile("sharded.nodes.0001.cypher") + readFile("sharded.nodes.0002.cypher")));
+        assertEquals(statements(readFile("sequential.relationships.cypher")), statements(readFile("sharded.relationships.0001.cypher")));
+        assertFalse(new File(directory, "sharded.relationships.0002.cypher").exists());
+        assertEquals(readFile("sequential.schema.cypher"), readFile("sharded.schema.cypher"));
+        assertEquals(readFile("sequential.cleanup.cypher"), readFile("sharded.cleanup.cypher"));
+    }
+
+    @Test
+    public void testExportVirtualGraphCypherParallelShards() throws Exception {
+        Map<String, Object> parallelConfig = map("useOptimizations", map("type", "none"), "parallel", 2, "format", "neo4j-shell");
+        TestUtil.testCall(db, "CALL apoc.create.vNode(['Virtual'], {name: 'a'}) YIELD node AS a " +
+                        "CALL apoc.create.vNode(['Virtual'], {name: 'b'}) YIELD node AS b " +
+                        "CALL apoc.create.vRelationship(a, 'LINKS', {}, b) YIELD rel " +
+                        "CALL apoc.export.cypher.graph({nodes: [a, b], relationships: [rel]}, $file, $config) YIELD nodes, relationships " +
+                        "RETURN nodes, relationships",
+                map("file", "virtual.cypher", "config", parallelConfig),
+                (r) -> {
+                    assertEquals(2L, r.get("nodes"));
+                    assertEquals(1L, r.get("relationships"));
+                });
+
+        // the virtual entities can't be read by id in the transactions of the shards, they are exported sequentially
+        String nodes = readFile("virtual.nodes.cypher");
+        assertTrue(nodes.contains("name:\"a\""));
+        assertTrue(nodes.contains("name:\"b\""));
+        assertTrue(readFile("virtual.relationships.cypher").contains("LINKS"));
+        assertFalse(new File(directory, "virtual.nodes.0001.cypher").exists());
+    }
+
+    private static List<String> statements(String cypher) {
+        return Stream.of(cypher.split("\n"))
+                .filter(line -> !line.isBlank() && !line.equals("BEGIN") && !line.equals("COMMIT"))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
     private static String readFile(String fileName) throws FileNotFoundException {
         return TestUtil.readFileToString(new File(directory, fileName));
     }
@@ -195,6 +195,22 @@ public class ExportGraphMLTest {
         TestUtil.testCall(db, "MATCH  (c:Bar {age: 12, values: [1,2,3]}) RETURN COUNT(c) AS c", null, (r) -> assertEquals(1L, r.get("c")));
     }
 
+    @Test
+    public void testImportGraphMLWithOffHeapIdMapper() throws Exception {
+        db.executeTransactionally("MATCH (n) DETACH DELETE n");
+
+        File output = new File(directory, "import.graphml");
+        FileWriter fw = new FileWriter(output);
+        fw.write(EXPECTED_TYPES); fw.close();
+        TestUtil.testCall(db, "CALL apoc.import.graphml($file,{readLabels:true, idMapper:'offheap'})", map("file", output.getAbsolutePath()),
+                (r) -> {
+                    assertEquals(3L, r.get("nodes"));
+                    assertEquals(1L, r.get("relationships"));
+                });
+
+        TestUtil.testCall(db, "MATCH (:Foo {name:'foo'})-[r:KNOWS]->(b:Bar) RETURN b.name AS name", null, (r) -> assertEquals("bar", r.get("name")));
+    }
+
     @Test
     public void testImportGraphMLLargeFile() {
         assumeFalse(isRunningInCI());
@@ -15,10 +15,13 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
 import org.neo4j.graphdb.spatial.Point;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
@@ -32,6 +35,7 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import static apoc.util.BinaryTestUtil.fileToBinary;
@@ -283,6 +287,66 @@ public class ImportJsonTest {
         Assert.assertEquals(true, r.get("done"));
     }
 
+    @Test
+    public void shouldCommitTheNodesInBatchesCappedByTxBatchSize() {
+        db.executeTransactionally("CREATE CONSTRAINT ON (n:User) assert n.neo4jImportId IS UNIQUE");
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            json.append(format("{\"type\":\"node\",\"id\":\"%d\",\"labels\":[\"User\"],\"properties\":{\"name\":\"u%d\"}}%n", i, i));
+        }
+        final List<Integer> committed = new CopyOnWriteArrayList<>();
+        final TransactionEventListenerAdapter<Object> listener = new TransactionEventListenerAdapter<>() {
+            @Override
+            public void afterCommit(TransactionData data, Object state, GraphDatabaseService databaseService) {
+                final int created = Iterables.size(data.createdNodes());
+                if (created > 0) {
+                    committed.add(created);
+                }
+            }
+        };
+        db.getManagementService().registerTransactionEventListener(db.databaseName(), listener);
+        try {
+            // as before the unwind batches, a transaction commits at most txBatchSize rows
+            TestUtil.testCall(db, "CALL apoc.import.json($file, $config)",
+                    map("file", json.toString().getBytes(),
+                            "config", map(COMPRESSION, CompressionAlgo.NONE.name(), "unwindBatchSize", 5, "txBatchSize", 3)),
+                    r -> assertEquals(10L, r.get("nodes")));
+        } finally {
+            db.getManagementService().unregisterTransactionEventListener(db.databaseName(), listener);
+        }
+        assertEquals(List.of(3, 3, 3, 1), committed);
+    }
+
+    @Test
+    public void shouldImportRelationshipsInParallelBatches() {
+        db.executeTransactionally("CREATE CONSTRAINT ON (n:User) assert n.neo4jImportId IS UNIQUE");
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            json.append(format("{\"type\":\"node\",\"id\":\"%d\",\"labels\":[\"User\"],\"properties\":{\"name\":\"u%d\"}}%n", i, i));
+        }
+        for (int i = 0; i < 6000; i++) {
+            json.append(format("{\"type\":\"relationship\",\"id\":\"%d\",\"label\":\"KNOWS\",\"properties\":{\"weight\":%d}," +
+                    "\"start\":{\"id\":\"%d\",\"labels\":[\"User\"]},\"end\":{\"id\":\"%d\",\"labels\":[\"User\"]}}%n", i, i, i % 2000, (i * 7) % 2000));
+        }
+
+        TestUtil.testCall(db, "CALL apoc.import.json($file, $config)",
+                map("file", json.toString().getBytes(),
+                        "config", map(COMPRESSION, CompressionAlgo.NONE.name(), "unwindBatchSize", 100, "concurrency", 4)),
+                (r) -> {
+                    assertEquals(2000L, r.get("nodes"));
+                    assertEquals(6000L, r.get("relationships"));
+                }
+        );
+
+        TestUtil.testCall(db, "MATCH (:User)-[r:KNOWS]->(:User) RETURN count(r) AS count, sum(r.weight) AS weights",
+                r -> {
+                    assertEquals(6000L, r.get("count"));
+                    assertEquals(17997000L, r.get("weights"));
+                });
+        TestUtil.testCall(db, "MATCH (:User {name:'u1'})-[:KNOWS {weight:1}]->(b:User) RETURN b.name AS name",
+                r -> assertEquals("u7", r.get("name")));
+    }
+
     private void assertionsAllJsonDbResult() {
         try(Transaction tx = db.beginTx()) {
             final long countNodes = tx.execute("MATCH (n:User) RETURN count(n) AS count")
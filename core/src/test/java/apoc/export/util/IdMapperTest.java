@@ -0,0 +1,85 @@
+package apoc.export.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IdMapperTest {
+
+    @Test
+    public void testHeapIdMapper() {
+        assertMapsIds(IdMapper.create(IdMapper.HEAP, 0), "id-");
+    }
+
+    @Test
+    public void testNumericIdMapper() {
+        assertMapsIds(IdMapper.create(IdMapper.NUMERIC, 0), "");
+    }
+
+    @Test
+    public void testOffHeapIdMapper() {
+        assertMapsIds(IdMapper.create(IdMapper.OFFHEAP, OffHeapIdMapper.DEFAULT_MAX_OFF_HEAP), "id-");
+    }
+
+    @Test
+    public void testOffHeapIdMapperSpillsToFile() {
+        try (OffHeapIdMapper mapper = new OffHeapIdMapper(0)) {
+            assertMapsIds(mapper, "spilled-");
+            assertTrue(mapper.spilledBytes() > 0);
+        }
+    }
+
+    @Test
+    public void testOffHeapIdMapperCountsTheTablesInTheBudget() {
+        // the budget of a single chunk of entries, already partly used by the hash tables
+        try (OffHeapIdMapper mapper = new OffHeapIdMapper(1 << 26)) {
+            mapper.put("id", 1);
+            assertEquals(1, mapper.get("id"));
+            assertTrue(mapper.spilledBytes() > 0);
+        }
+    }
+
+    @Test
+    public void testOffHeapIdMapperWithMultiByteIds() {
+        try (IdMapper mapper = new OffHeapIdMapper()) {
+            mapper.put("città", 1);
+            mapper.put("citta", 2);
+            mapper.put("", 3);
+            assertEquals(1, mapper.get("città"));
+            assertEquals(2, mapper.get("citta"));
+            assertEquals(3, mapper.get(""));
+            assertEquals(IdMapper.NOT_FOUND, mapper.get("citt"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNumericIdMapperRejectsStrings() {
+        IdMapper.create(IdMapper.NUMERIC, 0).put("a", 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownIdMapper() {
+        IdMapper.create("foo", 0);
+    }
+
+    private void assertMapsIds(IdMapper mapper, String prefix) {
+        try (mapper) {
+            final int count = 100_000;
+            for (int i = 0; i < count; i++) {
+                mapper.put(prefix + i, i * 2L);
+            }
+            assertEquals(count, mapper.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(i * 2L, mapper.get(prefix + i));
+            }
+            assertFalse(mapper.containsKey(prefix + count));
+            assertEquals(IdMapper.NOT_FOUND, mapper.get(null));
+
+            mapper.put(prefix + 42, 7);
+            assertEquals(7, mapper.get(prefix + 42));
+            assertEquals(count, mapper.size());
+        }
+    }
+}
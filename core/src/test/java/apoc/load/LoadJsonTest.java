@@ -128,6 +128,13 @@ public class LoadJsonTest {
                     assertEquals(map("result",asList(1L,2L,3L)), row.get("value"));
                 });
     }
+    @Test public void testLoadJsonMissingPath() throws Exception {
+		URL url = ClassLoader.getSystemResource("map.json");
+		testCall(db, "CALL apoc.load.json($url,'$.missing')",map("url",url.toString()),
+                (row) -> assertEquals(map(), row.get("value")));
+		testCall(db, "CALL apoc.load.json($url,'$.foo[0]')",map("url",url.toString()),
+                (row) -> assertEquals(map(), row.get("value")));
+    }
     @Test public void testLoadJsonPathRoot() throws Exception {
 		URL url = ClassLoader.getSystemResource("map.json");
 		testCall(db, "CALL apoc.load.json($url,'$')",map("url",url.toString()), // 'file:map.json' YIELD value RETURN value
@@ -164,7 +171,45 @@ public class LoadJsonTest {
                 map("url", url.toString(), "config", map("pathOptions", List.of("AS_PATH_LIST"))),
                 (res) -> assertEquals(List.of(EXPECTED_AS_PATH_LIST), Iterators.asList(res.columnAs("value"))));
     }
-    
+
+    @Test
+    public void testLoadJsonStreaming() {
+        String url = ClassLoader.getSystemResource("items.json").toString();
+        for (String path : List.of("$.data.items[*]", "data.items[*]", "$['data']['items'][1]", "$.data.items[*].owner", "$.data.items[?(@.id > 1)]", "$..owner")) {
+            List<Object> expected = TestUtil.firstColumn(db, "CALL apoc.load.json($url, $path) YIELD value RETURN value",
+                    map("url", url, "path", path));
+            List<Object> actual = TestUtil.firstColumn(db, "CALL apoc.load.json($url, $path, {streaming: true}) YIELD value RETURN value",
+                    map("url", url, "path", path));
+            assertFalse(actual.isEmpty());
+            assertEquals(path, expected, actual);
+        }
+
+        // list and empty list leaves
+        for (String path : List.of("$.meta.tags[*]", "$.data.items[*].name", "$.meta.tags", "$.data.items[*].sizes", "$.data.items[1].sizes", "$.data.items[*].missing")) {
+            List<Object> expected = TestUtil.firstColumn(db, "CALL apoc.load.json($url, $path) YIELD value RETURN value",
+                    map("url", url, "path", path));
+            List<Object> actual = TestUtil.firstColumn(db, "CALL apoc.load.json($url, $path, {streaming: true}) YIELD value RETURN value",
+                    map("url", url, "path", path));
+            assertEquals(path, expected, actual);
+        }
+        testCall(db, "CALL apoc.load.json($url, '$.data.items[*].sizes', {streaming: true})", map("url", url),
+                (row) -> assertEquals(map("result", List.of(List.of(4L, 6L), List.of(), List.of(8L))), row.get("value")));
+        testCall(db, "CALL apoc.load.json($url, '$.meta.tags[*]', {streaming: true})", map("url", url),
+                (row) -> assertEquals(map("result", List.of("a", "b")), row.get("value")));
+        // only the streaming mode returns the scalar leaves
+        testCall(db, "CALL apoc.load.json($url, '$.data.count', {streaming: true})", map("url", url),
+                (row) -> assertEquals(map("result", 3L), row.get("value")));
+        testCall(db, "CALL apoc.load.json($url, '$.data.count')", map("url", url),
+                (row) -> assertEquals(map(), row.get("value")));
+
+        testResult(db, "CALL apoc.load.json($url, '$.foo', {streaming: true})",
+                map("url", ClassLoader.getSystemResource("multi.json").toString()),
+                (res) -> {
+                    assertEquals(map("result", asList(1L, 2L, 3L)), res.next().get("value"));
+                    assertFalse(res.hasNext());
+                });
+    }
+
     @Test public void testLoadJsonArrayPath() throws Exception {
 		URL url = ClassLoader.getSystemResource("map.json");
 		testCall(db, "CALL apoc.load.jsonArray($url,'$.foo')",map("url",url.toString()), // 'file:map.json' YIELD value RETURN value
@@ -231,6 +231,41 @@ public class XmlTest {
                 });
     }
 
+    @Test
+    public void testLoadXmlStreamingAsDom() {
+        final String url = TestUtil.getUrlFileName("xml/books.xml").toString();
+        for (String path : List.of("/", "/catalog/book[@id='bk103']", "//book[2]", "//author")) {
+            for (boolean simple : List.of(false, true)) {
+                final Map<String, Object> params = map("url", url, "path", path, "simple", simple);
+                final List<Object> expected = TestUtil.firstColumn(db,
+                        "CALL apoc.load.xml($url, $path, {}, $simple) YIELD value RETURN value", params);
+                final List<Object> actual = TestUtil.firstColumn(db,
+                        "CALL apoc.load.xml($url, $path, {streaming: true}, $simple) YIELD value RETURN value", params);
+                assertFalse(actual.isEmpty());
+                assertEquals(path, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testLoadXmlStreamingWithPredicates() {
+        testResult(db, "CALL apoc.load.xml('" + TestUtil.getUrlFileName("xml/books.xml") + "', '/catalog/*[3][@id]', {streaming: true}) yield value as result",
+                (r) -> {
+                    assertEquals("bk103", ((Map) r.next().get("result")).get("id"));
+                    assertFalse(r.hasNext());
+                });
+    }
+
+    @Test
+    public void testLoadXmlStreamingUnsupportedPath() {
+        try {
+            testCall(db, "CALL apoc.load.xml('" + TestUtil.getUrlFileName("xml/books.xml") + "', '/catalog/book[title=\"Maeve Ascendant\"]', {streaming: true})",
+                    (r) -> fail("Should have failed"));
+        } catch (Exception e) {
+            assertTrue(ExceptionUtils.getRootCause(e).getMessage().contains("not supported in streaming mode"));
+        }
+    }
+
     @Test
     public void testLoadXmlWithNextWordRels() {
         thrown.expect(QueryExecutionException.class);
@@ -5,6 +5,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
@@ -167,4 +168,37 @@ public class NeighborsTest {
                         "RETURN number",
                 (row) -> assertEquals(1L, row.get("number")));
     }
+
+    @Test
+    public void getNeighborsCountWithLargeFrontier() {
+        db.executeTransactionally("CREATE (:Hub) WITH 1 AS ignored MATCH (h:Hub) " +
+                "UNWIND range(1, 15000) AS id " +
+                "CREATE (h)-[:LINK]->(:Leaf {id:id})-[:LINK]->(:Far {id:id})");
+        TestUtil.testCall(db, "MATCH (n:Hub) WITH n " +
+                        "CALL apoc.neighbors.tohop.count(n,'LINK>', 3) YIELD value AS number " +
+                        "RETURN number",
+                (row) -> assertEquals(30000L, row.get("number")));
+        TestUtil.testCall(db, "MATCH (n:Hub) WITH n " +
+                        "CALL apoc.neighbors.byhop.count(n,'LINK', 3) YIELD value AS numbers " +
+                        "RETURN numbers",
+                (row) -> assertEquals(Arrays.asList(15000L, 15000L, 0L), row.get("numbers")));
+        TestUtil.testCall(db, "MATCH (n:Hub) WITH n " +
+                        "CALL apoc.neighbors.athop(n,'LINK>', 2) YIELD node " +
+                        "RETURN count(DISTINCT node.id) AS number",
+                (row) -> assertEquals(15000L, row.get("number")));
+    }
+
+    @Test
+    public void getNeighborsOfLargeFrontierCreatedInTheSameTransaction() {
+        // the frontier at the second hop is above the parallel threshold, its changes are only visible to this transaction
+        try (Transaction tx = db.beginTx()) {
+            tx.execute("CREATE (h:Hub) WITH h UNWIND range(1, 15000) AS id " +
+                    "CREATE (h)-[:LINK]->(:Leaf {id:id})-[:LINK]->(:Far {id:id})").close();
+            long count = (long) tx.execute("MATCH (n:Hub) WITH n " +
+                    "CALL apoc.neighbors.tohop.count(n,'LINK>', 2) YIELD value " +
+                    "RETURN value").columnAs("value").next();
+            assertEquals(30000L, count);
+            tx.rollback();
+        }
+    }
 }
@@ -214,4 +214,34 @@ public class GroupingTest {
                 });
 
     }
+
+    @Test
+    public void testGroupAcrossBatches() throws Exception {
+        db.executeTransactionally("UNWIND range(1, 25000) AS id " +
+                "CREATE (u:User {id:id, gender:CASE id % 2 WHEN 0 THEN 'female' ELSE 'male' END, age:id % 100}) " +
+                "WITH u WHERE u.id % 5 = 0 CREATE (u)-[:KNOWS {since:u.id}]->(u)");
+        TestUtil.testResult(db, "CALL apoc.nodes.group(['User'],['gender'],[{`*`:'count', age:['min','max','avg']},{`*`:'count', since:'max'}]) " +
+                        "YIELD node, relationship RETURN node, relationship ORDER BY node.gender",
+                result -> {
+                    Map<String, Object> row = result.next();
+                    Node female = (Node) row.get("node");
+                    assertEquals(12500L, female.getProperty("count_*"));
+                    assertEquals(0L, female.getProperty("min_age"));
+                    assertEquals(98L, female.getProperty("max_age"));
+                    assertEquals(49D, female.getProperty("avg_age"));
+                    Relationship femaleRel = (Relationship) row.get("relationship");
+                    assertEquals(2500L, femaleRel.getProperty("count_*"));
+                    assertEquals(25000L, femaleRel.getProperty("max_since"));
+
+                    row = result.next();
+                    Node male = (Node) row.get("node");
+                    assertEquals(12500L, male.getProperty("count_*"));
+                    assertEquals(1L, male.getProperty("min_age"));
+                    assertEquals(99L, male.getProperty("max_age"));
+                    Relationship maleRel = (Relationship) row.get("relationship");
+                    assertEquals(2500L, maleRel.getProperty("count_*"));
+                    assertEquals(24995L, maleRel.getProperty("max_since"));
+                    assertFalse(result.hasNext());
+                });
+    }
 }
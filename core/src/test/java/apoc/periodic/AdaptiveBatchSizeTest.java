@@ -0,0 +1,54 @@
+package apoc.periodic;
+
+import apoc.util.Util;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBatchSizeTest {
+
+    @Test
+    public void fixedBatchSizeNeverChanges() {
+        AdaptiveBatchSize batchSize = AdaptiveBatchSize.fromConfig(Collections.emptyMap(), 100);
+        assertFalse(batchSize.isAdaptive());
+        batchSize.record(100, TimeUnit.SECONDS.toNanos(10), false);
+        batchSize.record(100, 1, true);
+        assertEquals(100, batchSize.next());
+        assertTrue(batchSize.toMap().isEmpty());
+    }
+
+    @Test
+    public void growsFastBatchesUpToMax() {
+        AdaptiveBatchSize batchSize = AdaptiveBatchSize.fromConfig(Util.map("adaptive", Util.map("targetMillis", 1000, "maxBatchSize", 300)), 100);
+        batchSize.record(100, TimeUnit.MILLISECONDS.toNanos(10), false);
+        assertEquals(200, batchSize.next());
+        batchSize.record(200, TimeUnit.MILLISECONDS.toNanos(10), false);
+        assertEquals(300, batchSize.next());
+    }
+
+    @Test
+    public void shrinksSlowAndFailedBatchesDownToMin() {
+        AdaptiveBatchSize batchSize = AdaptiveBatchSize.fromConfig(Util.map("adaptive", Util.map("targetMillis", 1000, "minBatchSize", 30)), 100);
+        batchSize.record(100, TimeUnit.MILLISECONDS.toNanos(1250), false);
+        assertEquals(80, batchSize.next());
+        batchSize.record(80, TimeUnit.MILLISECONDS.toNanos(100), true);
+        assertEquals(40, batchSize.next());
+        assertTrue(batchSize.canShrink(80));
+        batchSize.record(40, TimeUnit.MILLISECONDS.toNanos(100), true);
+        assertEquals(30, batchSize.next());
+        // the batch of 40 failed, the one of 30 is still to be tried
+        assertTrue(batchSize.canShrink(40));
+        batchSize.record(30, TimeUnit.MILLISECONDS.toNanos(100), true);
+        assertEquals(30, batchSize.next());
+        assertFalse(batchSize.canShrink(30));
+
+        assertEquals(100L, batchSize.toMap().get("initial"));
+        assertEquals(30L, batchSize.toMap().get("min"));
+        assertEquals(100L, batchSize.toMap().get("max"));
+    }
+}
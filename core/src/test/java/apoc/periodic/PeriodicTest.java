@@ -157,6 +157,42 @@ public class PeriodicTest {
 
 
 
+    @Test
+    public void testRunDownAdaptive() throws Exception {
+        db.executeTransactionally("UNWIND range(1,$count) AS id CREATE (n:Person {id:id})", MapUtil.map("count", RUNDOWN_COUNT));
+
+        String query = "MATCH (p:Person) WHERE NOT p:Processed WITH p LIMIT $limit SET p:Processed RETURN count(*)";
+
+        testCall(db, "CALL apoc.periodic.commit($query,$params,{adaptive:{minBatchSize:10, maxBatchSize:500}})", MapUtil.map("query", query, "params", MapUtil.map("limit", 10)), r -> {
+            assertEquals(RUNDOWN_COUNT, r.get("updates"));
+            Map<String, Object> batchSizes = (Map<String, Object>) r.get("batchSizes");
+            assertEquals(10L, batchSizes.get("initial"));
+            assertTrue((long) batchSizes.get("min") >= 10L);
+            assertTrue((long) batchSizes.get("max") <= 500L);
+        });
+        assertEquals(RUNDOWN_COUNT, (long)db.executeTransactionally("MATCH (p:Processed) RETURN COUNT(*) AS c", Collections.emptyMap(), result -> Iterators.single(result.columnAs("c"))));
+    }
+
+    @Test
+    public void testRunDownAdaptiveRetriesTheMinBatchSize() throws Exception {
+        db.executeTransactionally("UNWIND range(1,10) AS id CREATE (:Job {id:id})");
+
+        // the batches fail (division by zero) unless their limit is the minimum one
+        String query = "MATCH (j:Job) WHERE NOT j:Processed WITH j LIMIT $limit SET j:Processed " +
+                "RETURN count(*) / CASE WHEN $limit > 2 THEN 0 ELSE 1 END";
+
+        testCall(db, "CALL apoc.periodic.commit($query,$params,{adaptive:{minBatchSize:2, maxBatchSize:8}})", MapUtil.map("query", query, "params", MapUtil.map("limit", 4)), r -> {
+            assertEquals(10L, r.get("updates"));
+            assertEquals(2L, ((Map<String, Object>) r.get("batchSizes")).get("min"));
+        });
+        assertEquals(10L, (long)db.executeTransactionally("MATCH (j:Job:Processed) RETURN COUNT(*) AS c", Collections.emptyMap(), result -> Iterators.single(result.columnAs("c"))));
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testPeriodicCommitAdaptiveWithoutLimitParameterShouldFail() {
+        db.executeTransactionally("CALL apoc.periodic.commit('MATCH (p:Person) WITH p LIMIT 10 SET p:Processed RETURN count(*)', {}, {adaptive:true})");
+    }
+
     private final static String KILL_PERIODIC_QUERY = "call dbms.listQueries() yield queryId, query, status\n" +
             "with * where query contains ('apoc.' + 'periodic')\n" +
             "call dbms.killQuery(queryId) yield queryId as killedId\n" +
@@ -279,6 +315,82 @@ public class PeriodicTest {
         );
     }
 
+    @Test
+    public void testIterateManyBatchesWithSmallConcurrency() throws Exception {
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1,1000) AS x RETURN x', 'CREATE (:Person{id:x})', {batchSize:1, parallel:true, concurrency:2})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(1000L, row.get("batches"));
+            assertEquals(1000L, row.get("total"));
+            assertEquals(1000L, row.get("committedOperations"));
+            assertEquals(0L, row.get("failedBatches"));
+        });
+
+        testCall(db,
+                "MATCH (p:Person) return count(p) as count",
+                row -> assertEquals(1000L, row.get("count"))
+        );
+    }
+
+    @Test
+    public void testIterateWithPrefetch() throws Exception {
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1,1000) AS x RETURN x', 'CREATE (:Person{id:x})', {batchSize:10, parallel:true, concurrency:2, prefetchBatches:5})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(100L, row.get("batches"));
+            assertEquals(1000L, row.get("total"));
+            assertEquals(1000L, row.get("committedOperations"));
+        });
+
+        testCall(db,
+                "MATCH (p:Person) return count(DISTINCT p.id) as count",
+                row -> assertEquals(1000L, row.get("count"))
+        );
+    }
+
+    @Test
+    public void testIterateAdaptive() throws Exception {
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1,1000) AS x RETURN x', 'CREATE (:Person{id:x})', {batchSize:10, adaptive:{minBatchSize:5, maxBatchSize:200, targetMillis:1000}})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(1000L, row.get("total"));
+            assertEquals(1000L, row.get("committedOperations"));
+            Map<String, Object> batchSizes = (Map<String, Object>) row.get("batchSizes");
+            assertEquals(10L, batchSizes.get("initial"));
+            assertTrue((long) batchSizes.get("min") >= 5L);
+            assertTrue((long) batchSizes.get("max") <= 200L);
+        });
+
+        testCall(db,
+                "MATCH (p:Person) return count(DISTINCT p.id) as count",
+                row -> assertEquals(1000L, row.get("count"))
+        );
+    }
+
+    @Test
+    public void testIteratePartitionBy() throws Exception {
+        db.executeTransactionally("UNWIND range(1,10) AS x CREATE (:Hub{id:x})");
+
+        testResult(db, "CALL apoc.periodic.iterate('UNWIND range(1,1000) AS x MATCH (h:Hub{id: x % 10 + 1}) RETURN h, x', " +
+                "'CREATE (h)-[:HAS]->(:Person{id:x})', {batchSize:10, parallel:true, concurrency:4, partitionBy:'h'})", result -> {
+            Map<String, Object> row = Iterators.single(result);
+            assertEquals(1000L, row.get("total"));
+            assertEquals(1000L, row.get("committedOperations"));
+            assertEquals(0L, row.get("failedBatches"));
+            assertEquals(0L, row.get("retries"));
+        });
+
+        testCall(db,
+                "MATCH (:Hub)-[:HAS]->(p:Person) return count(DISTINCT p.id) as count",
+                row -> assertEquals(1000L, row.get("count"))
+        );
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testIterateQueryFailUnknownPartitionBy() {
+        final String query = "CALL apoc.periodic.iterate('UNWIND range(0, 10) AS x RETURN x', " +
+                "'RETURN x', " +
+                "{parallel:true, partitionBy:'y'})";
+        testFail(query);
+    }
+
     @Test
     public void testIterateWithQueryPlanner() throws Exception {
         db.executeTransactionally("UNWIND range(1,100) AS x CREATE (:Person{name:'Person_'+x})");
@@ -551,6 +663,14 @@ public class PeriodicTest {
         testFail(query);
     }
 
+    @Test(expected = QueryExecutionException.class)
+    public void testIterateQueryFailInvalidPrefetchBatches() {
+        final String query = "CALL apoc.periodic.iterate('UNWIND range(0, 10) AS x RETURN x', " +
+                "'RETURN x', " +
+                "{prefetchBatches:-1})";
+        testFail(query);
+    }
+
     @Test(expected = QueryExecutionException.class, timeout = 1000)
     public void testIterateQueryFailInvalidConcurrency() {
         final String query = "CALL apoc.periodic.iterate('UNWIND range(0, 10) AS x RETURN x', " +
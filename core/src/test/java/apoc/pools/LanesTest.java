@@ -0,0 +1,67 @@
+package apoc.pools;
+
+import apoc.Pools;
+import apoc.periodic.Periodic;
+import apoc.util.TestUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.internal.helpers.collection.Iterators;
+import org.neo4j.test.rule.DbmsRule;
+import org.neo4j.test.rule.ImpermanentDbmsRule;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static apoc.util.TestUtil.testCall;
+import static apoc.util.TestUtil.testResult;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LanesTest {
+
+    @Rule
+    public DbmsRule db = new ImpermanentDbmsRule();
+
+    @Before
+    public void initDb() throws Exception {
+        TestUtil.registerProcedure(db, Lanes.class, Periodic.class);
+    }
+
+    @Test
+    public void testListBuiltInLanes() {
+        testResult(db, "CALL apoc.pools.list()", result -> {
+            List<Map<String, Object>> rows = Iterators.asList(result);
+            assertEquals(List.of("default", "io", "search", "single"), rows.stream().map(row -> row.get("name")).collect(Collectors.toList()));
+            Map<String, Object> io = rows.get(1);
+            assertEquals((long) Pools.DEFAULT_IO_THREADS, io.get("maxThreads"));
+            Map<String, Object> search = rows.get(2);
+            assertEquals((long) Pools.DEFAULT_SEARCH_THREADS, search.get("maxThreads"));
+            Map<String, Object> single = rows.get(3);
+            assertEquals(1L, single.get("maxThreads"));
+            assertTrue((long) single.get("queueCapacity") > 0);
+        });
+    }
+
+    @Test
+    public void testIterateOnLane() {
+        testCall(db, "CALL apoc.periodic.iterate('UNWIND range(1,100) AS x RETURN x', 'CREATE (:Person{id:x})', {batchSize:10, parallel:true, lane:'default'})",
+                row -> assertEquals(100L, row.get("committedOperations")));
+
+        testCall(db, "CALL apoc.pools.list() YIELD name, completed WHERE name = 'default' RETURN completed",
+                row -> assertTrue((long) row.get("completed") >= 10L));
+    }
+
+    @Test
+    public void testIterateOnIoLane() {
+        testCall(db, "CALL apoc.periodic.iterate('UNWIND range(1,100) AS x RETURN x', 'CREATE (:Person{id:x})', {batchSize:1, parallel:true, concurrency:100, lane:'io'})",
+                row -> assertEquals(100L, row.get("committedOperations")));
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testIterateOnUnknownLane() {
+        db.executeTransactionally("CALL apoc.periodic.iterate('UNWIND range(1,100) AS x RETURN x', 'CREATE (:Person{id:x})', {parallel:true, lane:'unknown'})");
+    }
+}
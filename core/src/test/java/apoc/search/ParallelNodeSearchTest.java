@@ -1,13 +1,23 @@
 package apoc.search;
 
+import apoc.Pools;
 import apoc.util.TestUtil;
 import apoc.util.Util;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
 
 public class ParallelNodeSearchTest {
@@ -83,4 +93,45 @@ public class ParallelNodeSearchTest {
     	query = "call apoc.search.nodeAllReduced({Person: 'born', Movie: ['released']},'exact',2000) yield labels as n return count(n) as c";
 		TestUtil.testCall(db, query, (row) -> assertEquals(3L,row.get("c")));
     }
+
+    @Test
+    public void testMultiSearchNodeWithIndex() throws Throwable {
+		db.executeTransactionally("CREATE INDEX personName IF NOT EXISTS FOR (p:Person) ON (p.name)");
+		db.executeTransactionally("CALL db.awaitIndexes()");
+    	String query = "call apoc.search.node({Person: 'name', Movie: ['title','tagline']},'STARTS WITH','Tom') yield node as n return count(n) as c";
+		TestUtil.testCall(db, query, (row) -> assertEquals(4L,row.get("c")));
+    	query = "call apoc.search.nodeReduced({Person: 'name', Movie: ['title','tagline']},'CONTAINS','her') yield id as n return count(n) as c";
+		TestUtil.testCall(db, query, (row) -> assertEquals(6L,row.get("c")));
+    	query = "call apoc.search.nodeAllReduced({Person: 'name'},'exact','Tom Hanks') yield values return values.name as name";
+		TestUtil.testCall(db, query, (row) -> assertEquals("Tom Hanks",row.get("name")));
+		db.executeTransactionally("DROP INDEX personName");
+    }
+
+    @Test
+    public void testMultiSearchNodeWithLimit() throws Throwable {
+    	String query = "call apoc.search.nodeAll({Person: 'name', Movie: ['title','tagline']},'ENDS WITH','s') yield node as n return n limit 2";
+		TestUtil.testResult(db, query, (result) -> assertEquals(2, Iterators.count(result)));
+    }
+
+    @Test
+    public void testConcurrentSearchesOverflowingTheLane() throws Throwable {
+		int hits = ParallelNodeSearch.QUEUE_CAPACITY * 3;
+		db.executeTransactionally("UNWIND range(1, $count) AS i CREATE (:Item {name: 'item' + i})", Map.of("count", hits));
+		// more searches than the search lane runs and queues, each with more hits than its queue holds
+		int searches = Pools.DEFAULT_SEARCH_THREADS * 6 + 4;
+		ExecutorService callers = Executors.newFixedThreadPool(searches);
+		try {
+			List<Future<Long>> futures = new ArrayList<>();
+			for (int i = 0; i < searches; i++) {
+				futures.add(callers.submit(() -> TestUtil.<Long>singleResultFirstColumn(db,
+						"call apoc.search.nodeAll({Item: 'name'},'STARTS WITH','item') yield node return count(node) as c")));
+			}
+			for (Future<Long> future : futures) {
+				assertEquals((long) hits, (long) future.get(2, TimeUnit.MINUTES));
+			}
+		} finally {
+			callers.shutdownNow();
+			db.executeTransactionally("MATCH (n:Item) DELETE n");
+		}
+    }
 }
@@ -20,6 +20,7 @@ import java.util.concurrent.TimeUnit;
 import static apoc.ApocSettings.apoc_trigger_enabled;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.neo4j.internal.helpers.collection.MapUtil.map;
 
 /**
@@ -279,5 +280,54 @@ public class TriggerTest {
                 , (value) -> value, 30L, TimeUnit.SECONDS);
     }
 
+    @Test
+    public void testTriggerSelectorLabelsAndProperties() throws Exception {
+        db.executeTransactionally("CREATE (:Counter {count:0})");
+        db.executeTransactionally("CALL apoc.trigger.add('count-person-names','MATCH (c:Counter) SET c.count = c.count + 1',{labels:['Person'], properties:'name'})");
+        // neither the label nor the property
+        db.executeTransactionally("CREATE (:Movie {title:'Matrix'})");
+        // the label but not the property
+        db.executeTransactionally("CREATE (:Person {age:42})");
+        // the property but not the label
+        db.executeTransactionally("CREATE (:Movie {name:'Matrix'})");
+        // both, the label assigned and the property set
+        db.executeTransactionally("CREATE (:Person {name:'Keanu'})");
+        // both, the property set on a node having the label
+        db.executeTransactionally("MATCH (p:Person {age:42}) SET p.name = 'Carrie'");
+        TestUtil.testCall(db, "MATCH (c:Counter) RETURN c.count as count", (row) -> assertEquals(2L, row.get("count")));
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void testTriggerInvalidPhase() throws Exception {
+        try {
+            db.executeTransactionally("CALL apoc.trigger.add('invalid','UNWIND $createdNodes AS n SET n.ts = timestamp()',{phase:'afterwards'})");
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage().contains("The phase afterwards is not one of"));
+            throw e;
+        }
+    }
 
+    @Test
+    public void testTriggerAfterAsyncBatched() throws Exception {
+        db.executeTransactionally("CREATE (:Counter {count:0, batches:0})");
+        db.executeTransactionally("CALL apoc.trigger.add('count-people','MATCH (c:Counter) SET c.count = c.count + size($createdNodes), c.batches = c.batches + 1'," +
+                "{phase:'afterAsync', labels:['Person'], batchSize:5, batchTimeout:60000})");
+        for (int i = 0; i < 5; i++) {
+            db.executeTransactionally("CREATE (:Person {id:$id})", map("id", i));
+        }
+
+        org.neo4j.test.assertion.Assert.assertEventually(() ->
+                        db.executeTransactionally("MATCH (c:Counter) RETURN c.count AS count", Map.of(),
+                                result -> result.<Long>columnAs("count").next())
+                , (value) -> value == 5L, 30L, TimeUnit.SECONDS);
+        TestUtil.testCall(db, "MATCH (c:Counter) RETURN c.batches as batches", (row) -> assertEquals(1L, row.get("batches")));
+        TestUtil.testCall(db, "CALL apoc.trigger.batchStats()", (row) -> {
+            assertEquals("count-people", row.get("name"));
+            assertEquals(0L, row.get("queued"));
+            assertEquals(50L, row.get("queueSize"));
+            assertEquals(5L, row.get("transactions"));
+            assertEquals(1L, row.get("batches"));
+            assertEquals(0L, row.get("failedBatches"));
+        });
+    }
 }
@@ -0,0 +1,77 @@
+package apoc.util;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RangedInputStreamTest {
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(4);
+
+    @AfterClass
+    public static void tearDown() {
+        POOL.shutdownNow();
+    }
+
+    @Test
+    public void testReadPartsInOrder() throws IOException {
+        final byte[] data = new byte[10_500];
+        new Random(42).nextBytes(data);
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        try (InputStream stream = new RangedInputStream(data.length, 1000, 3, POOL, (offset, length) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            reads.incrementAndGet();
+            try {
+                return Arrays.copyOfRange(data, (int) offset, (int) offset + length);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        })) {
+            assertEquals(data[0] & 0xFF, stream.read());
+            final byte[] rest = stream.readAllBytes();
+            assertArrayEquals(Arrays.copyOfRange(data, 1, data.length), rest);
+            assertEquals(-1, stream.read());
+        }
+        assertEquals(11, reads.get());
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void testEmptyObject() throws IOException {
+        try (InputStream stream = new RangedInputStream(0, 1000, 3, POOL, (offset, length) -> {
+            throw new IllegalStateException("Nothing to read");
+        })) {
+            assertEquals(-1, stream.read());
+        }
+    }
+
+    @Test
+    public void testFailedPart() {
+        try (InputStream stream = new RangedInputStream(3000, 1000, 2, POOL, (offset, length) -> {
+            if (offset == 1000) {
+                throw new IOException("Connection reset");
+            }
+            return new byte[length];
+        })) {
+            stream.readAllBytes();
+            fail("Should have failed reading the second part");
+        } catch (IOException e) {
+            assertEquals("Connection reset", e.getMessage());
+        }
+    }
+}
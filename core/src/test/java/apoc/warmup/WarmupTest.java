@@ -7,7 +7,11 @@ import org.junit.Test;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Sascha Peukert
@@ -67,4 +71,37 @@ public class WarmupTest {
             assertEquals(6L, r.get("indexPages"));
         });
     }
+
+    @Test
+    public void testWarmupWithThreadsAndInclude() throws Exception {
+        TestUtil.testCall(db, "CALL apoc.warmup.run(false,false,false,{threads:4, include:['relationships']})", r -> {
+            assertEquals(0L, r.get("nodePages"));
+            assertEquals(2L, r.get("relPages"));
+            List<Map<String, Object>> files = (List<Map<String, Object>>) r.get("files");
+            assertEquals(1, files.size());
+            assertEquals("relationships", files.get(0).get("storeType"));
+            assertEquals(2L, files.get(0).get("pages"));
+            assertTrue(files.get(0).containsKey("pagesPerSecond"));
+        });
+    }
+
+    @Test
+    public void testWarmupIndexesByLabel() throws Exception {
+        TestUtil.testCall(db, "CALL apoc.warmup.run(false,false,false,{include:['Foo']})", r -> {
+            assertEquals(0L, r.get("nodePages"));
+            assertTrue((long) r.get("indexPages") > 0);
+            List<Map<String, Object>> files = (List<Map<String, Object>>) r.get("files");
+            assertTrue(files.stream().allMatch(f -> (boolean) f.get("index")));
+        });
+    }
+
+    @Test
+    public void testWarmupExclude() throws Exception {
+        TestUtil.testCall(db, "CALL apoc.warmup.run(true,true,true,{exclude:['indexes','arrays']})", r -> {
+            assertEquals(2L, r.get("nodePages"));
+            assertEquals(5L, r.get("propPages"));
+            assertEquals(0L, r.get("arrayPropPages"));
+            assertEquals(0L, r.get("indexPages"));
+        });
+    }
 }
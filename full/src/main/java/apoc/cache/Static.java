@@ -4,7 +4,6 @@ import apoc.ApocConfig;
 import apoc.Extended;
 import apoc.result.KeyValueResult;
 import apoc.result.ObjectResult;
-import apoc.util.Util;
 import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.*;
@@ -26,19 +25,29 @@ public class Static {
     @Context
     public ApocConfig apocConfig;
 
-    private static Map<String,Object> storage = new HashMap<>();
+    /**
+     * The storage is created on first use so that its size, eviction and ttl can be configured
+     */
+    private static class Storage {
+        private static final StaticStorage INSTANCE = StaticStorage.create(ApocConfig.apocConfig());
+    }
+
+    private static StaticStorage storage() {
+        return Storage.INSTANCE;
+    }
 
     @Procedure("apoc.static.get")
     @Deprecated
     @Description("apoc.static.get(name) - returns statically stored value from config (apoc.static.<key>) or server lifetime storage")
     public Stream<ObjectResult> getProcedure(@Name("key") String key) {
-        return Stream.of(new ObjectResult(storage.getOrDefault(key, fromConfig(key))));
+        return Stream.of(new ObjectResult(get(key)));
     }
 
     @UserFunction("apoc.static.get")
     @Description("apoc.static.get(name) - returns statically stored value from config (apoc.static.<key>) or server lifetime storage")
     public Object get(@Name("key") String key) {
-        return storage.getOrDefault(key, fromConfig(key));
+        Object value = storage().get(key);
+        return value == null ? fromConfig(key) : value;
     }
 
     @UserFunction("apoc.static.getAll")
@@ -52,7 +61,7 @@ public class Static {
         HashMap<String, Object> result = new HashMap<>();
         String configPrefix = prefix.isEmpty() ? "apoc.static": "apoc.static." + prefix;
         Iterators.stream(apocConfig.getKeys(configPrefix)).forEach(s -> result.put(s.substring(configPrefix.length()+1), apocConfig.getString(s)));
-        result.putAll(Util.subMap(storage, prefix));
+        result.putAll(storage().subMap(prefix));
         return result;
     }
 
@@ -68,13 +77,43 @@ public class Static {
     }
 
     @Procedure("apoc.static.set")
-    @Description("apoc.static.set(name, value) - stores value under key for server lifetime storage, returns previously stored or configured value")
-    public Stream<ObjectResult> set(@Name("key") String key, @Name("value") Object value) {
-        Object previous = value == null ? storage.remove(key) : storage.put(key, value);
+    @Description("apoc.static.set(name, value, [ttl]) - stores value under key for server lifetime storage, or for ttl ms, returns previously stored or configured value")
+    public Stream<ObjectResult> set(@Name("key") String key, @Name("value") Object value, @Name(value = "ttl", defaultValue = "null") Long ttl) {
+        Object previous = value == null ? storage().remove(key) : storage().put(key, value, ttl);
         return Stream.of(new ObjectResult(previous==null ? fromConfig(key) : previous));
     }
 
+    @Procedure("apoc.static.stats")
+    @Description("apoc.static.stats() - returns the hits, misses, evictions and expirations of the server lifetime storage, with its size")
+    public Stream<StatsResult> stats() {
+        return Stream.of(new StatsResult(storage().stats()));
+    }
+
+    public static class StatsResult {
+        public final long hits;
+        public final long misses;
+        public final double hitRate;
+        public final long evictions;
+        public final long expirations;
+        public final long size;
+        public final long maxSize;
+        public final String eviction;
+        public final long ttl;
+
+        public StatsResult(Map<String, Object> stats) {
+            this.hits = (long) stats.get("hits");
+            this.misses = (long) stats.get("misses");
+            this.hitRate = (double) stats.get("hitRate");
+            this.evictions = (long) stats.get("evictions");
+            this.expirations = (long) stats.get("expirations");
+            this.size = (long) stats.get("size");
+            this.maxSize = (long) stats.get("maxSize");
+            this.eviction = (String) stats.get("eviction");
+            this.ttl = (long) stats.get("ttl");
+        }
+    }
+
     public static void clear() {
-        storage.clear();
+        storage().clear();
     }
 }
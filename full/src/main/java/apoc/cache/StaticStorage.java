@@ -0,0 +1,290 @@
+package apoc.cache;
+
+import apoc.ApocConfig;
+import apoc.util.Util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static apoc.util.Util.map;
+
+/**
+ * The server lifetime storage of the static values. The keys are sorted, so the values under a prefix are a range
+ * of the map that is read without going through the other entries.
+ * The storage keeps at most {@code apoc.cache.static.size} entries (0 for no limit), when it's full the least recently (lru) or the
+ * least frequently (lfu) used entry of a small sample is evicted. The entries can expire after their time to live.
+ */
+class StaticStorage {
+
+    static final String STATIC_CACHE_SIZE = "apoc.cache.static.size";
+    static final String STATIC_CACHE_EVICTION = "apoc.cache.static.eviction";
+    static final String STATIC_CACHE_TTL = "apoc.cache.static.ttl";
+    static final int DEFAULT_STATIC_CACHE_SIZE = 0;
+
+    // the number of entries inspected for each eviction, as the approximated lru of redis
+    private static final int SAMPLES = 5;
+
+    enum Eviction {
+        LRU, LFU;
+
+        static Eviction from(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("The eviction " + name + " is not one of " + Arrays.toString(values()));
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long expiresAt;
+        private volatile long lastAccess;
+        // approximated, the increments lost by concurrent reads don't change which entries are rarely used
+        private volatile int frequency;
+
+        Entry(Object value, long expiresAt, long now) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.lastAccess = now;
+            this.frequency = 1;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt > 0 && expiresAt <= now;
+        }
+
+        void touch(long now) {
+            lastAccess = now;
+            if (frequency < Integer.MAX_VALUE) frequency++;
+        }
+    }
+
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    // the size of a ConcurrentSkipListMap is computed by going through all its entries
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+    private final Eviction eviction;
+    private final long defaultTtl;
+    // the time in ms, the tests replace it to expire the entries without waiting
+    private final LongSupplier clock;
+    // the key where the next sample starts, the samples go through the keys in order as the hand of a clock
+    private volatile String hand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    StaticStorage(int maxSize, Eviction eviction, long defaultTtl) {
+        this(maxSize, eviction, defaultTtl, System::currentTimeMillis);
+    }
+
+    StaticStorage(int maxSize, Eviction eviction, long defaultTtl, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.eviction = eviction;
+        this.defaultTtl = defaultTtl;
+        this.clock = clock;
+    }
+
+    /**
+     * An invalid setting is logged and replaced by its default, it doesn't fail the creation of the storage,
+     * which happens once for the server lifetime
+     */
+    static StaticStorage create(ApocConfig apocConfig) {
+        if (apocConfig == null || apocConfig.getConfig() == null) {
+            return new StaticStorage(DEFAULT_STATIC_CACHE_SIZE, Eviction.LRU, 0);
+        }
+        return new StaticStorage(size(apocConfig), eviction(apocConfig), ttl(apocConfig));
+    }
+
+    private static int size(ApocConfig apocConfig) {
+        try {
+            final int size = apocConfig.getInt(STATIC_CACHE_SIZE, DEFAULT_STATIC_CACHE_SIZE);
+            if (size >= 0) {
+                return size;
+            }
+        } catch (RuntimeException e) {
+            // logged below
+        }
+        apocConfig.getLog().warn("The %s %s is not a positive number, it uses %d instead",
+                STATIC_CACHE_SIZE, apocConfig.getString(STATIC_CACHE_SIZE, null), DEFAULT_STATIC_CACHE_SIZE);
+        return DEFAULT_STATIC_CACHE_SIZE;
+    }
+
+    private static Eviction eviction(ApocConfig apocConfig) {
+        final String name = apocConfig.getString(STATIC_CACHE_EVICTION, Eviction.LRU.name());
+        try {
+            return Eviction.from(name);
+        } catch (IllegalArgumentException e) {
+            apocConfig.getLog().warn("%s, %s uses %s instead", e.getMessage(), STATIC_CACHE_EVICTION, Eviction.LRU.name().toLowerCase());
+            return Eviction.LRU;
+        }
+    }
+
+    private static long ttl(ApocConfig apocConfig) {
+        final String ttl = apocConfig.getString(STATIC_CACHE_TTL, "0");
+        final Long value = Util.toLong(ttl);
+        if (value != null && value >= 0) {
+            return value;
+        }
+        apocConfig.getLog().warn("The %s %s is not a positive number of ms, the entries don't expire", STATIC_CACHE_TTL, ttl);
+        return 0;
+    }
+
+    /**
+     * @return the value stored under the key, or null if there's none or it expired
+     */
+    Object get(String key) {
+        final long now = clock.getAsLong();
+        final Entry entry = entries.get(key);
+        if (entry == null || expire(key, entry, now)) {
+            misses.increment();
+            return null;
+        }
+        entry.touch(now);
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * @param ttl the time to live of the value in ms, 0 to keep it until it's evicted, null for the configured one
+     * @return the value previously stored under the key
+     */
+    Object put(String key, Object value, Long ttl) {
+        final long now = clock.getAsLong();
+        final long timeToLive = ttl == null ? defaultTtl : ttl;
+        final Entry previous = entries.put(key, new Entry(value, timeToLive > 0 ? now + timeToLive : 0, now));
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        sweep(key, now);
+        return valueOf(previous, now);
+    }
+
+    /**
+     * @return the value previously stored under the key
+     */
+    Object remove(String key) {
+        final Entry previous = entries.remove(key);
+        if (previous == null) {
+            return null;
+        }
+        size.decrementAndGet();
+        return valueOf(previous, clock.getAsLong());
+    }
+
+    /**
+     * @return the values whose key starts with the prefix, by the rest of their key as {@link Util#subMap(Map, String)}
+     */
+    Map<String, Object> subMap(String prefix) {
+        final long now = clock.getAsLong();
+        final int len = prefix.length() + (prefix.isEmpty() || prefix.endsWith(".") ? 0 : 1);
+        final Map<String, Object> result = new HashMap<>();
+        final ConcurrentNavigableMap<String, Entry> range = prefix.isEmpty() ? entries : entries.tailMap(prefix);
+        for (Map.Entry<String, Entry> e : range.entrySet()) {
+            final String key = e.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            final Entry entry = e.getValue();
+            if (expire(key, entry, now)) {
+                continue;
+            }
+            entry.touch(now);
+            result.put(key.substring(len), entry.value);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all the entries and resets the statistics
+     */
+    void clear() {
+        entries.keySet().forEach(this::remove);
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        expirations.reset();
+    }
+
+    Map<String, Object> stats() {
+        final long hits = this.hits.sum(), misses = this.misses.sum();
+        return map("hits", hits,
+                "misses", misses,
+                "hitRate", hits + misses == 0 ? 0d : (double) hits / (hits + misses),
+                "evictions", evictions.sum(),
+                "expirations", expirations.sum(),
+                "size", (long) size.get(),
+                "maxSize", (long) maxSize,
+                "eviction", eviction.name().toLowerCase(),
+                "ttl", defaultTtl);
+    }
+
+    private static Object valueOf(Entry entry, long now) {
+        return entry == null || entry.isExpired(now) ? null : entry.value;
+    }
+
+    /**
+     * @return true if the entry expired, it's then removed
+     */
+    private boolean expire(String key, Entry entry, long now) {
+        if (!entry.isExpired(now)) {
+            return false;
+        }
+        if (entries.remove(key, entry)) {
+            size.decrementAndGet();
+            expirations.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the expired entries of the next sample, and evicts the least used entries of the next samples
+     * until the storage isn't over its size. The entry just stored isn't evicted, it couldn't be used yet.
+     */
+    private void sweep(String stored, long now) {
+        do {
+            String key = hand;
+            Map.Entry<String, Entry> victim = null;
+            for (int i = 0; i < SAMPLES; i++) {
+                Map.Entry<String, Entry> e = key == null ? null : entries.higherEntry(key);
+                if (e == null) {
+                    e = entries.firstEntry();
+                    if (e == null) {
+                        return;
+                    }
+                }
+                key = e.getKey();
+                if (expire(key, e.getValue(), now)) {
+                    continue;
+                }
+                if (!key.equals(stored) && (victim == null || isLessUsed(e.getValue(), victim.getValue()))) {
+                    victim = e;
+                }
+            }
+            hand = key;
+            if (victim != null && isFull() && entries.remove(victim.getKey(), victim.getValue())) {
+                size.decrementAndGet();
+                evictions.increment();
+            }
+        } while (isFull());
+    }
+
+    private boolean isFull() {
+        return maxSize > 0 && size.get() > maxSize;
+    }
+
+    private boolean isLessUsed(Entry entry, Entry other) {
+        if (eviction == Eviction.LFU && entry.frequency != other.frequency) {
+            return entry.frequency < other.frequency;
+        }
+        return entry.lastAccess < other.lastAccess;
+    }
+}
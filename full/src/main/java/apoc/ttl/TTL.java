@@ -9,6 +9,7 @@ import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.*;
 
 import java.util.Map;
+import java.util.stream.Stream;
 
 import static apoc.date.Date.unit;
 
@@ -35,13 +36,50 @@ public class TTL {
     @Context
     public GraphDatabaseAPI db;
 
+    @Context
+    public TTLLifeCycle ttlLifeCycle;
+
+    public static class StatsResult {
+        public long runs;
+        public long nodesExpired;
+        public long relationshipsExpired;
+        public long lastRunAt;
+        public long lastRunMillis;
+        public long lastRunNodes;
+        public long lastRunRelationships;
+        public long lastRunLagMs;
+        public long backlogLagMs;
+        public boolean budgetExhausted;
+
+        public StatsResult(Map<String, Object> stats) {
+            this.runs = (long) stats.get("runs");
+            this.nodesExpired = (long) stats.get("nodesExpired");
+            this.relationshipsExpired = (long) stats.get("relationshipsExpired");
+            this.lastRunAt = (long) stats.get("lastRunAt");
+            this.lastRunMillis = (long) stats.get("lastRunMillis");
+            this.lastRunNodes = (long) stats.get("lastRunNodes");
+            this.lastRunRelationships = (long) stats.get("lastRunRelationships");
+            this.lastRunLagMs = (long) stats.get("lastRunLagMs");
+            this.backlogLagMs = (long) stats.get("backlogLagMs");
+            this.budgetExhausted = (boolean) stats.get("budgetExhausted");
+        }
+    }
+
     @UserFunction
     public Map<String, Object> config() {
         TTLConfig.Values values = ttlConfig.configFor(db);
         return MapUtil.map(
                 "enabled", values.enabled,
                 "schedule", values.schedule,
-                "limit", values.limit
+                "limit", values.limit,
+                "budget", values.budget,
+                "concurrency", values.concurrency
         );
     }
+
+    @Procedure
+    @Description("CALL apoc.ttl.stats() - the nodes and relationships expired, and the expiry lag of the last run and of the nodes still to expire")
+    public Stream<StatsResult> stats() {
+        return Stream.of(new StatsResult(ttlLifeCycle.stats()));
+    }
 }
@@ -1,9 +1,14 @@
 package apoc.ttl;
 
 import apoc.ApocConfig;
+import apoc.Pools;
 import apoc.TTLConfig;
 import apoc.util.Util;
-import org.neo4j.internal.helpers.collection.Iterators;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.logging.Log;
@@ -11,8 +16,13 @@ import org.neo4j.scheduler.Group;
 import org.neo4j.scheduler.JobHandle;
 import org.neo4j.scheduler.JobScheduler;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author mh
@@ -23,19 +33,36 @@ public class TTLLifeCycle extends LifecycleAdapter {
     public static final int INITIAL_DELAY = 30;
     public static final int DEFAULT_SCHEDULE = 60;
     private static final Group TTL_GROUP = Group.INDEX_UPDATING;
+    private static final Label TTL_LABEL = Label.label("TTL");
+    private static final String TTL_PROPERTY = "ttl";
+    // the expired nodes in ttl order, the range seek on the :TTL(ttl) index returns them already sorted
+    private static final String EXPIRED_NODES = "MATCH (t:TTL) WHERE t.ttl < $now RETURN id(t) AS id, t.ttl AS ttl ORDER BY t.ttl LIMIT $limit";
     private final JobScheduler scheduler;
     private final GraphDatabaseAPI db;
     private final ApocConfig apocConfig;
+    private final Pools pools;
     private JobHandle ttlIndexJobHandle;
     private JobHandle ttlJobHandle;
     private TTLConfig ttlConfig;
     private Log log;
 
-    public TTLLifeCycle(JobScheduler scheduler, GraphDatabaseAPI db, ApocConfig apocConfig, TTLConfig ttlConfig, Log log) {
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong nodesExpired = new AtomicLong();
+    private final AtomicLong relationshipsExpired = new AtomicLong();
+    private volatile long lastRunAt;
+    private volatile long lastRunMillis;
+    private volatile long lastRunNodes;
+    private volatile long lastRunRelationships;
+    private volatile long lastRunLag;
+    private volatile long backlogLag;
+    private volatile boolean budgetExhausted;
+
+    public TTLLifeCycle(JobScheduler scheduler, GraphDatabaseAPI db, ApocConfig apocConfig, TTLConfig ttlConfig, Pools pools, Log log) {
         this.scheduler = scheduler;
         this.db = db;
         this.apocConfig = apocConfig;
         this.ttlConfig = ttlConfig;
+        this.pools = pools;
         this.log = log;
     }
 
@@ -45,38 +72,218 @@ public class TTLLifeCycle extends LifecycleAdapter {
         if(configValues.enabled) {
             long ttlScheduleDb = configValues.schedule;
             ttlIndexJobHandle = scheduler.schedule(TTL_GROUP, this::createTTLIndex, (int)(ttlScheduleDb*0.8), TimeUnit.SECONDS);
-            long limitDb = configValues.limit;
-            ttlJobHandle = scheduler.scheduleRecurring(TTL_GROUP, () -> expireNodes(limitDb), ttlScheduleDb, ttlScheduleDb, TimeUnit.SECONDS);
+            ttlJobHandle = scheduler.scheduleRecurring(TTL_GROUP, () -> expireNodes(configValues), ttlScheduleDb, ttlScheduleDb, TimeUnit.SECONDS);
         }
     }
 
     public void expireNodes(long limit) {
+        expireNodes(new TTLConfig.Values(true, DEFAULT_SCHEDULE, limit, 0, 1));
+    }
+
+    /**
+     * Deletes the expired nodes and their relationships, oldest first, in parallel batches of {@code limit} nodes and relationships.
+     * It stops once the run took {@code budget} ms, the remaining nodes are expired by the next runs.
+     */
+    public void expireNodes(TTLConfig.Values config) {
         try {
             if (!Util.isWriteableInstance(db)) return;
-            String matchTTL = "MATCH (t:TTL) WHERE t.ttl < timestamp() ";
-            String queryRels = matchTTL + "WITH t MATCH (t)-[r]-() RETURN id(r) as id";
-            String queryNodes = matchTTL +  "RETURN id(t) as id";
-            Map<String,Object> params = Util.map("batchSize", limit, "queryRels", queryRels, "queryNodes", queryNodes);
-            long relationshipsDeleted = db.executeTransactionally(
-                    "CALL apoc.periodic.iterate($queryRels, 'MATCH ()-[r]->() WHERE id(r) = id DELETE r', {batchSize: $batchSize})",
-                    params,
-                    result -> Iterators.single(result.columnAs("total"))
-            );
-
-            long nodesDeleted = db.executeTransactionally(
-                    "CALL apoc.periodic.iterate($queryNodes, 'MATCH (n) WHERE id(n) = id DELETE n', {batchSize: $batchSize})",
-                    params,
-                    result -> Iterators.single(result.columnAs("total"))
-            );
+            final long now = System.currentTimeMillis();
+            final long deadline = config.budget > 0 ? now + config.budget : Long.MAX_VALUE;
+            final int limit = (int) Math.max(1, config.limit);
+            final int concurrency = Math.max(1, config.concurrency);
+            long nodesDeleted = 0, relationshipsDeleted = 0, lag = 0;
+            boolean exhausted = false;
+            while (true) {
+                final List<long[]> expired = expiredNodes(now, limit * concurrency);
+                if (expired.isEmpty()) {
+                    break;
+                }
+                if (nodesDeleted == 0) {
+                    lag = now - expired.get(0)[1];
+                }
+                final long[] deleted = deleteInParallel(expired, now, limit);
+                nodesDeleted += deleted[0];
+                relationshipsDeleted += deleted[1];
+                // no progress: the nodes are locked or their ttl changed, the next run retries them
+                if (deleted[0] == 0 || expired.size() < limit * concurrency) {
+                    break;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    exhausted = true;
+                    break;
+                }
+            }
+            final List<long[]> backlog = exhausted ? expiredNodes(now, 1) : List.of();
+
+            runs.incrementAndGet();
+            nodesExpired.addAndGet(nodesDeleted);
+            relationshipsExpired.addAndGet(relationshipsDeleted);
+            lastRunAt = now;
+            lastRunMillis = System.currentTimeMillis() - now;
+            lastRunNodes = nodesDeleted;
+            lastRunRelationships = relationshipsDeleted;
+            lastRunLag = lag;
+            backlogLag = backlog.isEmpty() ? 0 : System.currentTimeMillis() - backlog.get(0)[1];
+            budgetExhausted = exhausted;
 
             if (nodesDeleted > 0) {
                 log.info("TTL: Expired %d nodes %d relationships", nodesDeleted, relationshipsDeleted);
             }
+            if (exhausted) {
+                log.info("TTL: The run exceeded its budget of %d ms, the nodes still expired will be deleted by the next runs", config.budget);
+            }
         } catch (Exception e) {
             log.error("TTL: Error deleting expired nodes", e);
         }
     }
 
+    /**
+     * @return the id and the ttl of the first expired nodes
+     */
+    private List<long[]> expiredNodes(long now, int limit) {
+        return db.executeTransactionally(EXPIRED_NODES, Util.map("now", now, "limit", limit), result -> {
+            final List<long[]> expired = new ArrayList<>(limit);
+            result.forEachRemaining(row -> expired.add(new long[] { (long) row.get("id"), ((Number) row.get("ttl")).longValue() }));
+            return expired;
+        });
+    }
+
+    /**
+     * @return the number of nodes and relationships deleted
+     */
+    private long[] deleteInParallel(List<long[]> expired, long now, int limit) throws InterruptedException {
+        final List<List<long[]>> batches = new ArrayList<>();
+        for (int i = 0; i < expired.size(); i += limit) {
+            batches.add(expired.subList(i, Math.min(i + limit, expired.size())));
+        }
+        final List<Future<long[]>> futures = new ArrayList<>(batches.size());
+        for (List<long[]> batch : batches) {
+            futures.add(pools.getDefaultExecutorService().submit(() -> deleteBatch(batch, now, limit)));
+        }
+        final long[] deleted = new long[2];
+        final List<List<long[]>> failed = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                add(deleted, futures.get(i).get());
+            } catch (ExecutionException e) {
+                failed.add(batches.get(i));
+            }
+        }
+        // the batches sharing relationships can deadlock each other, run them again one by one
+        for (List<long[]> batch : failed) {
+            try {
+                add(deleted, deleteBatch(batch, now, limit));
+            } catch (Exception e) {
+                log.warn("TTL: Error deleting a batch of " + batch.size() + " expired nodes, they will be deleted by the next run", e);
+            }
+        }
+        return deleted;
+    }
+
+    private static void add(long[] total, long[] deleted) {
+        total[0] += deleted[0];
+        total[1] += deleted[1];
+    }
+
+    /**
+     * Detach deletes the nodes still expired in transactions of up to {@code limit} nodes and relationships,
+     * the nodes with {@code limit} relationships or more are deleted in their own transactions.
+     */
+    private long[] deleteBatch(List<long[]> batch, long now, int limit) {
+        final long[] deleted = new long[2];
+        final List<Long> denseNodes = new ArrayList<>();
+        int index = 0;
+        while (index < batch.size()) {
+            // the nodes and relationships deleted by the transaction
+            long size = 0;
+            try (Transaction tx = db.beginTx()) {
+                for (; index < batch.size(); index++) {
+                    final long id = batch.get(index)[0];
+                    final Node node = expiredNode(tx, id, now);
+                    if (node == null) {
+                        continue;
+                    }
+                    final int degree = node.getDegree();
+                    if (degree >= limit) {
+                        denseNodes.add(id);
+                        continue;
+                    }
+                    if (size + degree + 1 > limit) {
+                        // the node is deleted by the next transaction
+                        break;
+                    }
+                    for (Relationship rel : node.getRelationships()) {
+                        rel.delete();
+                        deleted[1]++;
+                    }
+                    node.delete();
+                    deleted[0]++;
+                    size += degree + 1;
+                }
+                tx.commit();
+            }
+        }
+        for (long id : denseNodes) {
+            add(deleted, deleteDenseNode(id, now, limit));
+        }
+        return deleted;
+    }
+
+    private long[] deleteDenseNode(long id, long now, int limit) {
+        final long[] deleted = new long[2];
+        while (true) {
+            try (Transaction tx = db.beginTx()) {
+                final Node node = expiredNode(tx, id, now);
+                if (node == null) {
+                    return deleted;
+                }
+                final List<Relationship> rels = new ArrayList<>(limit);
+                for (Relationship rel : node.getRelationships()) {
+                    if (rels.size() == limit) {
+                        break;
+                    }
+                    rels.add(rel);
+                }
+                rels.forEach(Relationship::delete);
+                deleted[1] += rels.size();
+                if (rels.size() < limit) {
+                    node.delete();
+                    deleted[0]++;
+                }
+                tx.commit();
+                if (rels.size() < limit) {
+                    return deleted;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the node if it's still expired, its ttl could have been changed since it was found
+     */
+    private static Node expiredNode(Transaction tx, long id, long now) {
+        try {
+            final Node node = tx.getNodeById(id);
+            final Object ttl = node.getProperty(TTL_PROPERTY, null);
+            return node.hasLabel(TTL_LABEL) && ttl instanceof Number && ((Number) ttl).longValue() < now ? node : null;
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Util.map("runs", runs.get(),
+                "nodesExpired", nodesExpired.get(),
+                "relationshipsExpired", relationshipsExpired.get(),
+                "lastRunAt", lastRunAt,
+                "lastRunMillis", lastRunMillis,
+                "lastRunNodes", lastRunNodes,
+                "lastRunRelationships", lastRunRelationships,
+                "lastRunLagMs", lastRunLag,
+                "backlogLagMs", backlogLag,
+                "budgetExhausted", budgetExhausted);
+    }
+
     public void createTTLIndex() {
         try {
             db.executeTransactionally("call apoc.schema.assert({ TTL: ['ttl'] }, null, false)");
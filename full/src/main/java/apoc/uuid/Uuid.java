@@ -2,7 +2,6 @@ package apoc.uuid;
 
 import apoc.Extended;
 import apoc.Pools;
-import apoc.util.Util;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.procedure.*;
@@ -35,12 +34,7 @@ public class Uuid {
 
         Map<String, Object> addToExistingNodesResult = Collections.emptyMap();
         if (uuidConfig.isAddToExistingNodes()) {
-            addToExistingNodesResult = Util.inTx(db, pools, txInThread ->
-                    txInThread.execute("CALL apoc.periodic.iterate(" +
-                            "\"MATCH (n:" + Util.sanitizeAndQuote(label) + ") RETURN n\",\n" +
-                            "\"SET n." + Util.sanitizeAndQuote(uuidConfig.getUuidProperty()) + " = apoc.create.uuid()\", {batchSize:10000, parallel:true})")
-                            .next()
-            );
+            addToExistingNodesResult = uuidHandler.addToExistingNodes(label, uuidConfig, pools);
         }
         uuidHandler.add(tx, label, uuidConfig);
         return Stream.of(new UuidInstallInfo(label, true, 
@@ -0,0 +1,62 @@
+package apoc.uuid;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The strategies generating the uuids assigned by the {@link UuidHandler}, chosen with {@code apoc.uuid.generator}
+ */
+public enum UuidGenerator {
+
+    /**
+     * Random (version 4) uuids from {@link UUID#randomUUID()}, backed by a shared SecureRandom
+     */
+    SECURE {
+        @Override
+        public String generate() {
+            return UUID.randomUUID().toString();
+        }
+    },
+
+    /**
+     * Random (version 4) uuids from a {@link ThreadLocalRandom}, which the committing threads don't contend on.
+     * They are unique but predictable, so they can't be used as secrets.
+     */
+    RANDOM {
+        @Override
+        public String generate() {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+            final long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            return new UUID(msb, lsb).toString();
+        }
+    },
+
+    /**
+     * Time ordered (version 7) uuids: 48 bits of unix milliseconds followed by random bits,
+     * so that the uuids created together are close to each other in the indexes
+     */
+    V7 {
+        @Override
+        public String generate() {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0xFFFL);
+            final long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            return new UUID(msb, lsb).toString();
+        }
+    };
+
+    public abstract String generate();
+
+    public static UuidGenerator from(String name) {
+        if (name == null || name.isBlank()) {
+            return SECURE;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("The uuid generator " + name + " is not one of " + Arrays.toString(values()));
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package apoc.uuid;
 
 import apoc.ApocConfig;
+import apoc.Pools;
 import apoc.SystemLabels;
 import apoc.SystemPropertyKeys;
 import apoc.util.Util;
-import org.apache.commons.collections4.IterableUtils;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.event.LabelEntry;
 import org.neo4j.graphdb.event.PropertyEntry;
@@ -22,17 +24,29 @@ import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.logging.Log;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static apoc.ApocConfig.APOC_UUID_ENABLED;
+import static apoc.ApocConfig.APOC_UUID_GENERATOR;
+import static apoc.ApocConfig.APOC_UUID_LANE;
 
 public class UuidHandler extends LifecycleAdapter implements TransactionEventListener<Void> {
 
@@ -41,6 +55,11 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
     private final DatabaseManagementService databaseManagementService;
     private final ApocConfig apocConfig;
     private final ConcurrentHashMap<String, UuidConfig> configuredLabelAndPropertyNames = new ConcurrentHashMap<>();
+    // the uuid properties of all the labels, the other property changes are skipped without looking at the labels
+    private volatile Set<String> uuidProperties = Collections.emptySet();
+    private volatile UuidGenerator generator = UuidGenerator.SECURE;
+
+    public static final int BACKFILL_BATCH_SIZE = 10000;
 
     public static final String NOT_ENABLED_ERROR = "UUID have not been enabled." +
             " Set 'apoc.uuid.enabled=true' or 'apoc.uuid.enabled.%s=true' in your apoc.conf file located in the $NEO4J_HOME/conf/ directory.";
@@ -55,6 +74,11 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
     @Override
     public void start() {
         if (isEnabled()) {
+            try {
+                generator = UuidGenerator.from(apocConfig.getString(APOC_UUID_GENERATOR, UuidGenerator.SECURE.name()));
+            } catch (IllegalArgumentException e) {
+                log.warn(e.getMessage() + ", using " + UuidGenerator.SECURE);
+            }
             refresh();
             databaseManagementService.registerTransactionEventListener(db.databaseName(), this);
         }
@@ -72,53 +96,77 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
         }
     }
 
-    private void checkAndRestoreUuidProperty(Iterable<PropertyEntry<Node>> nodeProperties, String label, String uuidProperty) {
-        checkAndRestoreUuidProperty(nodeProperties, label, uuidProperty, null);
-    }
+    @Override
+    public Void beforeCommit(TransactionData txData, Transaction transaction, GraphDatabaseService databaseService) {
+        final Map<String, UuidConfig> configs = configuredLabelAndPropertyNames;
+        if (configs.isEmpty()) {
+            return null;
+        }
+        final UuidGenerator generator = this.generator;
+        Set<Long> createdNodes = null;
 
-    private void checkAndRestoreUuidProperty(Iterable<PropertyEntry<Node>> nodeProperties, String label, String uuidProperty, Predicate<PropertyEntry<Node>> predicate) {
-        if (nodeProperties.iterator().hasNext()) {
-            nodeProperties.forEach(nodePropertyEntry -> {
-                if (predicate == null) {
-                    if (nodePropertyEntry.entity().hasLabel(Label.label(label)) && nodePropertyEntry.key().equals(uuidProperty)) {
-                        nodePropertyEntry.entity().setProperty(uuidProperty, nodePropertyEntry.previouslyCommittedValue());
-                    }
-                } else {
-                    if (nodePropertyEntry.entity().hasLabel(Label.label(label)) && nodePropertyEntry.key().equals(uuidProperty) && predicate.test(nodePropertyEntry)) {
-                        nodePropertyEntry.entity().setProperty(uuidProperty, nodePropertyEntry.previouslyCommittedValue());
+        // assignedLabels handles both created nodes and set labels of existing nodes,
+        // the configs are looked up by label once per entry instead of checking each label on each node
+        for (LabelEntry labelEntry : txData.assignedLabels()) {
+            final String label = labelEntry.label().name();
+            final UuidConfig config = configs.get(label);
+            if (config == null) {
+                continue;
+            }
+            final Node node = labelEntry.node();
+            if (!config.isAddToSetLabels()) {
+                if (createdNodes == null) {
+                    createdNodes = new HashSet<>();
+                    for (Node created : txData.createdNodes()) {
+                        createdNodes.add(created.getId());
                     }
                 }
-            });
+                if (!createdNodes.contains(node.getId())) {
+                    continue;
+                }
+            }
+            try {
+                final String propertyName = config.getUuidProperty();
+                if (!node.hasProperty(propertyName)) {
+                    node.setProperty(propertyName, generator.generate());
+                }
+            } catch (Exception e) {
+                log.warn("Error executing uuid " + label + " in phase before", e);
+            }
         }
-    }
 
-    @Override
-    public Void beforeCommit(TransactionData txData, Transaction transaction, GraphDatabaseService databaseService) {
-
-        // assignedLabels handles both created nodes and set labels of existing nodes
-        Iterable<PropertyEntry<Node>> assignedNodeProperties = txData.assignedNodeProperties();
-        Iterable<PropertyEntry<Node>> removedNodeProperties = txData.removedNodeProperties();
+        final Set<String> uuidProperties = this.uuidProperties;
+        restoreUuidProperties(txData.assignedNodeProperties(), configs, uuidProperties,
+                (nodePropertyEntry) -> nodePropertyEntry.value() == null || nodePropertyEntry.value().equals(""));
+        restoreUuidProperties(txData.removedNodeProperties(), configs, uuidProperties, nodePropertyEntry -> true);
+        return null;
+    }
 
-        configuredLabelAndPropertyNames.forEach((label, config) -> {
-            final String propertyName = config.getUuidProperty();
-            List<Node> nodes = config.isAddToSetLabels()
-                    ? StreamSupport.stream(txData.assignedLabels().spliterator(), false).map(LabelEntry::node).collect(Collectors.toList())
-                    : IterableUtils.toList(txData.createdNodes());
+    /**
+     * Restores the uuids changed or removed, only the entries of the uuid properties are checked
+     */
+    private void restoreUuidProperties(Iterable<PropertyEntry<Node>> nodeProperties, Map<String, UuidConfig> configs,
+                                       Set<String> uuidProperties, Predicate<PropertyEntry<Node>> predicate) {
+        for (PropertyEntry<Node> nodePropertyEntry : nodeProperties) {
+            final String key = nodePropertyEntry.key();
+            if (!uuidProperties.contains(key) || !predicate.test(nodePropertyEntry)) {
+                continue;
+            }
+            final Node node = nodePropertyEntry.entity();
             try {
-                nodes.forEach(node -> {
-                    if (node.hasLabel(Label.label(label)) && !node.hasProperty(propertyName)) {
-                        String uuid = UUID.randomUUID().toString();
-                        node.setProperty(propertyName, uuid);
+                for (Label label : node.getLabels()) {
+                    final UuidConfig config = configs.get(label.name());
+                    if (config != null && config.getUuidProperty().equals(key)) {
+                        node.setProperty(key, nodePropertyEntry.previouslyCommittedValue());
+                        break;
                     }
-                });
-                checkAndRestoreUuidProperty(assignedNodeProperties, label, propertyName,
-                        (nodePropertyEntry) -> nodePropertyEntry.value() == null || nodePropertyEntry.value().equals(""));
-                checkAndRestoreUuidProperty(removedNodeProperties, label, propertyName);
+                }
+            } catch (NotFoundException e) {
+                // the node was deleted
             } catch (Exception e) {
-                log.warn("Error executing uuid " + label + " in phase before", e);
+                log.warn("Error restoring uuid " + key + " in phase before", e);
             }
-        });
-        return null;
+        }
     }
 
     @Override
@@ -158,6 +206,7 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
         checkConstraintUuid(tx, label, propertyName);
 
         configuredLabelAndPropertyNames.put(label, config);
+        updateUuidProperties();
 
         try (Transaction sysTx = apocConfig.getSystemDb().beginTx()) {
             Node node = Util.mergeNode(sysTx, SystemLabels.ApocUuid, null,
@@ -187,6 +236,97 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
                     });
             tx.commit();
         }
+        updateUuidProperties();
+    }
+
+    private void updateUuidProperties() {
+        uuidProperties = configuredLabelAndPropertyNames.values().stream()
+                .map(UuidConfig::getUuidProperty)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Sets a new uuid on the existing nodes with the label, in parallel batches of {@link #BACKFILL_BATCH_SIZE} nodes
+     * on the lane configured by {@code apoc.uuid.lane}. The ids are read a batch at a time, and a batch is only read
+     * when fewer than the threads of the lane are pending, so only the ids of the pending batches are held.
+     * @return the result of the batches, as the one of apoc.periodic.iterate
+     */
+    public Map<String, Object> addToExistingNodes(String label, UuidConfig config, Pools pools) {
+        final long start = System.currentTimeMillis();
+        final String propertyName = config.getUuidProperty();
+        final UuidGenerator generator = this.generator;
+        final ExecutorService pool = pools.getExecutorService(apocConfig.getString(APOC_UUID_LANE, null));
+        final int maxPending = Math.max(1, pool instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) pool).getMaximumPoolSize()
+                : Runtime.getRuntime().availableProcessors());
+
+        final long[] batches = {0}, committed = {0}, failed = {0}, failedBatches = {0};
+        final Map<String, Long> errors = new HashMap<>();
+        // the batches being written with their size, the ids of a batch are released once it's collected
+        final Deque<Pair<Future<Long>, Integer>> pending = new ArrayDeque<>();
+        final Consumer<Pair<Future<Long>, Integer>> collect = batch -> {
+            try {
+                committed[0] += batch.first().get();
+            } catch (InterruptedException e) {
+                pending.forEach(p -> p.first().cancel(false));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while adding the uuids to the existing nodes", e);
+            } catch (ExecutionException e) {
+                failed[0] += batch.other();
+                failedBatches[0]++;
+                errors.merge(String.valueOf(e.getCause().getMessage()), 1L, Long::sum);
+            }
+        };
+        // the ids are read while the batches are written, as periodic.iterate streams its outer statement
+        try (Transaction tx = db.beginTx();
+             ResourceIterator<Node> nodes = tx.findNodes(Label.label(label))) {
+            while (nodes.hasNext()) {
+                final long[] batch = new long[BACKFILL_BATCH_SIZE];
+                int size = 0;
+                while (size < BACKFILL_BATCH_SIZE && nodes.hasNext()) {
+                    batch[size++] = nodes.next().getId();
+                }
+                final long[] ids = size == BACKFILL_BATCH_SIZE ? batch : Arrays.copyOf(batch, size);
+                if (pending.size() >= maxPending) {
+                    collect.accept(pending.poll());
+                }
+                pending.add(Pair.of(pool.submit(backfill(ids, propertyName, generator)), size));
+                batches[0]++;
+            }
+            tx.commit();
+        }
+        while (!pending.isEmpty()) {
+            collect.accept(pending.poll());
+        }
+        // the same result as apoc.periodic.iterate
+        final long total = committed[0] + failed[0];
+        return Util.map("batches", batches[0],
+                "total", total,
+                "timeTaken", (System.currentTimeMillis() - start) / 1000,
+                "committedOperations", committed[0],
+                "failedOperations", failed[0],
+                "failedBatches", failedBatches[0],
+                "retries", 0L,
+                "errorMessages", errors,
+                "batch", Util.map("total", batches[0], "failed", failedBatches[0], "committed", batches[0] - failedBatches[0], "errors", errors),
+                "operations", Util.map("total", total, "failed", failed[0], "committed", committed[0], "errors", errors),
+                "wasTerminated", false,
+                "failedParams", Collections.emptyMap(),
+                "updateStatistics", Util.map("nodesCreated", 0L, "nodesDeleted", 0L,
+                        "relationshipsCreated", 0L, "relationshipsDeleted", 0L,
+                        "propertiesSet", committed[0], "labelsAdded", 0L, "labelsRemoved", 0L));
+    }
+
+    private Callable<Long> backfill(long[] ids, String propertyName, UuidGenerator generator) {
+        return () -> {
+            try (Transaction tx = db.beginTx()) {
+                for (long id : ids) {
+                    tx.getNodeById(id).setProperty(propertyName, generator.generate());
+                }
+                tx.commit();
+            }
+            return (long) ids.length;
+        };
     }
 
     public synchronized UuidConfig remove(String label) {
@@ -196,12 +336,15 @@ public class UuidHandler extends LifecycleAdapter implements TransactionEventLis
                     .forEachRemaining(node -> node.delete());
             tx.commit();
         }
-        return configuredLabelAndPropertyNames.remove(label);
+        UuidConfig removed = configuredLabelAndPropertyNames.remove(label);
+        updateUuidProperties();
+        return removed;
     }
 
     public synchronized Map<String, UuidConfig> removeAll() {
         Map<String, UuidConfig> retval = new HashMap<>(configuredLabelAndPropertyNames);
         configuredLabelAndPropertyNames.clear();
+        updateUuidProperties();
         try (Transaction tx = apocConfig.getSystemDb().beginTx()) {
             tx.findNodes(SystemLabels.ApocUuid, SystemPropertyKeys.database.name(), db.databaseName() )
                     .forEachRemaining(node -> node.delete());
@@ -1,18 +1,25 @@
 package apoc.cache;
 
+import apoc.ApocConfig;
 import apoc.util.TestUtil;
+import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.contrib.java.lang.system.ProvideSystemProperty;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.logging.NullLog;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static apoc.util.MapUtil.map;
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * @author mh
@@ -80,4 +87,86 @@ public class StaticTest {
         TestUtil.testCall(db, "call apoc.static.set('test2',null)", r -> assertEquals(42L,r.get("value")));
         TestUtil.testCall(db, "call apoc.static.get('test2')", r -> assertNull(r.get("value")));
     }
+
+    @Test
+    public void testSetWithTtlAndStats() throws Exception {
+        TestUtil.testCall(db, "call apoc.static.set('session.token','abc',60000)", r -> assertNull(r.get("value")));
+        TestUtil.testCall(db, "return apoc.static.get('session.token') as value", r -> assertEquals("abc",r.get("value")));
+        TestUtil.testCall(db, "return apoc.static.get('session.missing') as value", r -> assertNull(r.get("value")));
+        TestUtil.testCall(db, "call apoc.static.stats()", r -> {
+            assertEquals(1L, r.get("hits"));
+            assertEquals(1L, r.get("misses"));
+            assertEquals(0L, r.get("expirations"));
+            assertEquals(1L, r.get("size"));
+            assertEquals((long) StaticStorage.DEFAULT_STATIC_CACHE_SIZE, r.get("maxSize"));
+            assertEquals("lru", r.get("eviction"));
+        });
+    }
+
+    @Test
+    public void testExpire() {
+        AtomicLong clock = new AtomicLong();
+        StaticStorage storage = new StaticStorage(0, StaticStorage.Eviction.LRU, 1000, clock::get);
+        storage.put("session.token", "abc", 500L);
+        storage.put("session.user", "bob", null);
+        storage.put("session.id", 42L, 0L);
+        assertEquals("abc", storage.get("session.token"));
+
+        clock.set(500);
+        assertNull(storage.get("session.token"));
+        assertEquals(map("user","bob","id",42L), storage.subMap("session"));
+
+        clock.set(1000);
+        assertEquals(map("id",42L), storage.subMap("session"));
+        assertEquals(2L, storage.stats().get("expirations"));
+        assertEquals(1L, storage.stats().get("size"));
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        ApocConfig apocConfig = mock(ApocConfig.class);
+        when(apocConfig.getConfig()).thenReturn(new PropertiesConfiguration());
+        when(apocConfig.getLog()).thenReturn(NullLog.getInstance());
+        when(apocConfig.getInt(StaticStorage.STATIC_CACHE_SIZE, StaticStorage.DEFAULT_STATIC_CACHE_SIZE))
+                .thenThrow(new IllegalArgumentException("don't know how to convert for config option " + StaticStorage.STATIC_CACHE_SIZE));
+        when(apocConfig.getString(StaticStorage.STATIC_CACHE_EVICTION, "LRU")).thenReturn("fifo");
+        when(apocConfig.getString(StaticStorage.STATIC_CACHE_TTL, "0")).thenReturn("1h");
+
+        Map<String, Object> stats = StaticStorage.create(apocConfig).stats();
+        assertEquals((long) StaticStorage.DEFAULT_STATIC_CACHE_SIZE, stats.get("maxSize"));
+        assertEquals("lru", stats.get("eviction"));
+        assertEquals(0L, stats.get("ttl"));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        StaticStorage storage = new StaticStorage(3, StaticStorage.Eviction.LRU, 0, clock::get);
+        storage.put("a", 1L, null);
+        clock.incrementAndGet();
+        storage.put("b", 2L, null);
+        storage.put("c", 3L, null);
+        clock.incrementAndGet();
+        assertEquals(1L, storage.get("a"));
+        storage.put("d", 4L, null);
+
+        assertNull(storage.get("b"));
+        assertEquals(map("a",1L,"c",3L,"d",4L), storage.subMap(""));
+        assertEquals(1L, storage.stats().get("evictions"));
+        assertEquals(3L, storage.stats().get("size"));
+    }
+
+    @Test
+    public void testEvictLeastFrequentlyUsed() throws Exception {
+        StaticStorage storage = new StaticStorage(2, StaticStorage.Eviction.LFU, 0);
+        storage.put("a", 1L, null);
+        storage.put("b", 2L, null);
+        storage.get("a");
+        storage.get("a");
+        storage.get("b");
+        storage.put("c", 3L, null);
+
+        assertEquals(map("a",1L,"c",3L), storage.subMap(""));
+        assertEquals(1L, storage.stats().get("evictions"));
+    }
 }
@@ -1,10 +1,12 @@
 package apoc.load;
 
 import apoc.ApocSettings;
+import apoc.util.ObjectStorageIO;
 import apoc.util.TestUtil;
 import apoc.util.Util;
 import apoc.util.s3.S3Container;
 import apoc.xml.XmlTestUtils;
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -16,6 +18,11 @@ import org.neo4j.driver.internal.util.Iterables;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import static apoc.load.LoadCsvTest.assertRow;
 import static apoc.util.MapUtil.map;
 import static apoc.util.TestUtil.testCall;
@@ -69,6 +76,29 @@ public class LoadS3Test {
         });
     }
 
+    @Test
+    public void testLoadCsvS3WithRangedReads() throws Exception {
+        final File file = new File("target/s3-ranged-reads.csv");
+        file.getParentFile().mkdirs();
+        FileUtils.writeStringToFile(file, "name,age\n" + IntStream.range(0, 5000)
+                .mapToObj(i -> "name" + i + "," + i + "\n")
+                .collect(Collectors.joining()), StandardCharsets.UTF_8);
+        String url = minio.putFile(file.getPath());
+
+        // with parts of 1KB the file is read with many concurrent ranged GETs
+        System.setProperty(ObjectStorageIO.PROP_READ_PART_SIZE, "1024");
+        try {
+            testCall(db, "CALL apoc.load.csv($url) YIELD map RETURN count(*) AS count, sum(toInteger(map.age)) AS total, collect(map.name)[4999] AS last",
+                    map("url", url), (row) -> {
+                        assertEquals(5000L, row.get("count"));
+                        assertEquals(4999L * 5000L / 2, row.get("total"));
+                        assertEquals("name4999", row.get("last"));
+                    });
+        } finally {
+            System.clearProperty(ObjectStorageIO.PROP_READ_PART_SIZE);
+        }
+    }
+
     @Test public void testLoadJsonS3() throws Exception {
         String url = minio.putFile("src/test/resources/map.json");
 
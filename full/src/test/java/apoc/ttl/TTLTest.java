@@ -7,6 +7,7 @@ import org.junit.ClassRule;
 import org.junit.Test;
 
 import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.neo4j.graphdb.Label;
@@ -15,6 +16,7 @@ import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.test.rule.DbmsRule;
 import org.neo4j.test.rule.ImpermanentDbmsRule;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class TTLTest {
@@ -45,6 +47,38 @@ public class TTLTest {
         org.neo4j.test.assertion.Assert.assertEventually(() -> isNodeCountConsistent(0, 0), (value) -> value, 10L, TimeUnit.SECONDS);
     }
 
+    @Test
+    public void testExpireDenseNodeAndStats() throws Exception {
+        restartAndRegister(db);
+        db.executeTransactionally("CREATE (hub:Hub:TTL {ttl: timestamp() + 100}) WITH hub UNWIND range(1,2500) AS id CREATE (hub)-[:LINK]->(:Leaf {id:id})");
+        org.neo4j.test.assertion.Assert.assertEventually(() -> db.executeTransactionally("MATCH (h:Hub) RETURN count(h) AS count", Map.of(),
+                result -> result.<Long>columnAs("count").next()), (value) -> value == 0L, 30L, TimeUnit.SECONDS);
+        TestUtil.testCall(db, "MATCH (l:Leaf) OPTIONAL MATCH (l)-[r]-() RETURN count(DISTINCT l) AS leaves, count(r) AS rels", (row) -> {
+            assertEquals(2500L, row.get("leaves"));
+            assertEquals(0L, row.get("rels"));
+        });
+        TestUtil.testCall(db, "CALL apoc.ttl.stats()", (row) -> {
+            assertTrue((long) row.get("runs") > 0);
+            assertTrue((long) row.get("nodesExpired") >= 1);
+            assertTrue((long) row.get("relationshipsExpired") >= 2500);
+            assertEquals(false, row.get("budgetExhausted"));
+        });
+    }
+
+    @Test
+    public void testExpireNodesWithManyRelationships() throws Exception {
+        restartAndRegister(db);
+        // the nodes are below apoc.ttl.limit but their relationships are not, they are split in several transactions
+        db.executeTransactionally("UNWIND range(1,10) AS id CREATE (n:Team:TTL {id:id, ttl: timestamp() + 100}) " +
+                "WITH n UNWIND range(1,400) AS member CREATE (n)-[:MEMBER]->(:Member)");
+        org.neo4j.test.assertion.Assert.assertEventually(() -> db.executeTransactionally("MATCH (t:Team) RETURN count(t) AS count", Map.of(),
+                result -> result.<Long>columnAs("count").next()), (value) -> value == 0L, 30L, TimeUnit.SECONDS);
+        TestUtil.testCall(db, "MATCH (m:Member) OPTIONAL MATCH (m)-[r]-() RETURN count(DISTINCT m) AS members, count(r) AS rels", (row) -> {
+            assertEquals(4000L, row.get("members"));
+            assertEquals(0L, row.get("rels"));
+        });
+    }
+
     private static boolean isNodeCountConsistent(int foo, int bar) {
         try (Transaction tx = db.beginTx()) {
             boolean isNotCountConsistent = foo == Iterators.count(tx.findNodes(Label.label("Foo")))
@@ -242,6 +242,34 @@ public class UUIDTest {
         }
     }
 
+    @Test
+    public void testAddToExistingNodesInParallelBatches() {
+        // given
+        db.executeTransactionally("UNWIND range(1, 25000) AS id CREATE (:Person {id: id})");
+
+        // when
+        db.executeTransactionally("CREATE CONSTRAINT ON (person:Person) ASSERT person.uuid IS UNIQUE");
+        TestUtil.testCall(db, "CALL apoc.uuid.install('Person') YIELD batchComputationResult RETURN batchComputationResult", (row) -> {
+            Map<String, Object> result = (Map<String, Object>) row.get("batchComputationResult");
+            assertEquals(3L, result.get("batches"));
+            assertEquals(25000L, result.get("total"));
+            assertEquals(25000L, result.get("committedOperations"));
+            assertEquals(0L, result.get("failedBatches"));
+            assertEquals(Util.map("total", 3L, "failed", 0L, "committed", 3L, "errors", Map.of()), result.get("batch"));
+            assertEquals(Util.map("total", 25000L, "failed", 0L, "committed", 25000L, "errors", Map.of()), result.get("operations"));
+            assertEquals(false, result.get("wasTerminated"));
+            assertEquals(0L, result.get("retries"));
+            assertEquals(Map.of(), result.get("failedParams"));
+            assertEquals(25000L, ((Map<String, Object>) result.get("updateStatistics")).get("propertiesSet"));
+        });
+
+        // then
+        TestUtil.testCall(db, "MATCH (p:Person) RETURN count(p.uuid) AS count, count(DISTINCT p.uuid) AS distinct", (row) -> {
+            assertEquals(25000L, row.get("count"));
+            assertEquals(25000L, row.get("distinct"));
+        });
+    }
+
     @Test
     public void testAddToExistingNodesBatchResult() {
         // given
@@ -0,0 +1,46 @@
+package apoc.uuid;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UuidGeneratorTest {
+
+    @Test
+    public void testVersionsAndVariants() {
+        for (UuidGenerator generator : UuidGenerator.values()) {
+            final UUID uuid = UUID.fromString(generator.generate());
+            assertEquals(generator == UuidGenerator.V7 ? 7 : 4, uuid.version());
+            assertEquals(2, uuid.variant());
+        }
+    }
+
+    @Test
+    public void testV7IsTimeOrdered() throws Exception {
+        final long before = System.currentTimeMillis();
+        final String first = UuidGenerator.V7.generate();
+        Thread.sleep(2);
+        final String second = UuidGenerator.V7.generate();
+        assertTrue(first.compareTo(second) < 0);
+        final long millis = UUID.fromString(first).getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void testRandomIsUnique() {
+        final Set<String> uuids = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(uuids.add(UuidGenerator.RANDOM.generate()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownGenerator() {
+        UuidGenerator.from("v9");
+    }
+}